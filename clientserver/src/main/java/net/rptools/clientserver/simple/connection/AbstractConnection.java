@@ -33,6 +33,9 @@
 public abstract class AbstractConnection implements Connection {
   private static final Logger log = LogManager.getLogger(AbstractConnection.class);
 
+  private static final List<CompressionListener> compressionListeners =
+      new CopyOnWriteArrayList<>();
+
   private final AtomicBoolean closed = new AtomicBoolean(false);
   private final BlockingQueue<byte[]> outQueue = new LinkedBlockingQueue<>();
 
@@ -53,13 +56,35 @@ protected final boolean isClosed() {
 
   protected abstract void onClose();
 
+  /**
+   * Adds a listener that is told about the messages compressed and decompressed by all connections.
+   *
+   * @param listener the listener.
+   */
+  public static void addCompressionListener(CompressionListener listener) {
+    compressionListeners.add(listener);
+  }
+
+  /**
+   * Removes a listener added with {@link #addCompressionListener(CompressionListener)}.
+   *
+   * @param listener the listener.
+   */
+  public static void removeCompressionListener(CompressionListener listener) {
+    compressionListeners.remove(listener);
+  }
+
   private byte[] compress(byte[] message) {
+    var start = System.nanoTime();
+    var event = new CompressionEvent();
+    event.begin();
     try {
       ByteArrayOutputStream baos = new ByteArrayOutputStream(message.length);
       OutputStream ios = new ZstdCompressorOutputStream(baos);
       ios.write(message);
       ios.close();
       var compressedMessage = baos.toByteArray();
+      commit(event, true, message.length, compressedMessage.length, start);
       return compressedMessage;
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -67,21 +92,45 @@ private byte[] compress(byte[] message) {
   }
 
   private byte[] inflate(byte[] compressedMessage) {
+    var start = System.nanoTime();
+    var event = new CompressionEvent();
+    event.begin();
     InputStream bytesIn = new ByteArrayInputStream(compressedMessage);
     try {
       InputStream ios = new ZstdCompressorInputStream(bytesIn);
       var decompressed = ios.readAllBytes();
       ios.close();
+      commit(event, false, decompressed.length, compressedMessage.length, start);
       return decompressed;
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
+  private static void commit(
+      CompressionEvent event, boolean compressing, int size, int compressedSize, long start) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.compressing = compressing;
+      event.size = size;
+      event.compressedSize = compressedSize;
+      event.commit();
+    }
+    var nanos = System.nanoTime() - start;
+    for (CompressionListener listener : compressionListeners) {
+      listener.messageCompressed(compressing, size, compressedSize, nanos);
+    }
+  }
+
   protected void addMessage(Object channel, byte[] message) {
     outQueue.add(compress(message));
   }
 
+  @Override
+  public int getPendingMessageCount() {
+    return outQueue.size();
+  }
+
   protected byte[] nextMessage() {
     try {
       // Bit paranoid, but don't wait forever for a message - that can perpetually block the thread.
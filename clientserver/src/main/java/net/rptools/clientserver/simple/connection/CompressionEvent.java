@@ -0,0 +1,44 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.clientserver.simple.connection;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight Recorder event for a message being compressed or decompressed by a connection. */
+@Name("net.rptools.maptool.MessageCompression")
+@Label("Message Compression")
+@Description("Compression of a message before it is sent, or decompression after it is received")
+@Category("MapTool")
+@StackTrace(false)
+final class CompressionEvent extends Event {
+
+  @Label("Compressing")
+  @Description("True when compressing an outgoing message, false when decompressing")
+  boolean compressing;
+
+  @Label("Size")
+  @DataAmount
+  int size;
+
+  @Label("Compressed Size")
+  @DataAmount
+  int compressedSize;
+}
@@ -0,0 +1,34 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.clientserver.simple.connection;
+
+/**
+ * Listener told about every message compressed or decompressed by a connection, see {@link
+ * AbstractConnection#addCompressionListener(CompressionListener)}.
+ */
+@FunctionalInterface
+public interface CompressionListener {
+
+  /**
+   * Called after a message has been compressed or decompressed.
+   *
+   * @param compressing {@code true} when an outgoing message was compressed, {@code false} when an
+   *     incoming one was decompressed.
+   * @param size the size of the message in bytes.
+   * @param compressedSize the compressed size of the message in bytes.
+   * @param nanos the time taken in nanoseconds.
+   */
+  void messageCompressed(boolean compressing, int size, int compressedSize, long nanos);
+}
@@ -32,6 +32,13 @@ default void sendMessage(byte[] message) {
 
   boolean isAlive();
 
+  /**
+   * Returns the number of messages queued on this connection that have not been sent yet.
+   *
+   * @return the number of pending messages.
+   */
+  int getPendingMessageCount();
+
   String getId();
 
   void addMessageHandler(MessageHandler handler);
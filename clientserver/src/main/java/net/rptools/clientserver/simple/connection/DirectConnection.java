@@ -84,6 +84,11 @@ public void sendMessage(Object channel, byte[] message) {
     }
   }
 
+  @Override
+  public int getPendingMessageCount() {
+    return writeQueue.size();
+  }
+
   @Override
   public boolean isAlive() {
     return !sharedClosedFlag.get();
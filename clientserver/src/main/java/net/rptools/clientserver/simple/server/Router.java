@@ -97,6 +97,21 @@ public void sendMessage(String id, Object channel, byte[] message) {
     }
   }
 
+  /**
+   * Returns the number of messages waiting to be sent on each connection.
+   *
+   * @return the pending message counts keyed by connection ID.
+   */
+  public Map<String, Integer> getPendingMessageCounts() {
+    var result = new HashMap<String, Integer>();
+    synchronized (clients) {
+      for (Map.Entry<String, Connection> entry : clients.entrySet()) {
+        result.put(entry.getKey(), entry.getValue().getPendingMessageCount());
+      }
+    }
+    return result;
+  }
+
   /** Looks for any clients that have disconnected, and removes them. */
   public Collection<Connection> reapClients() {
     log.debug("About to reap clients");
@@ -0,0 +1,79 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.dicelib.expression;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import net.rptools.parser.MapVariableResolver;
+import net.rptools.parser.ParserException;
+import net.rptools.parser.VariableResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of independent expression evaluations on one shared {@link ExpressionParser}, on a
+ * single thread and on several threads at once. With thread confined parsers the multi threaded
+ * throughput should scale with the number of cores instead of staying flat.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpressionParserBenchmark {
+
+  private static final String EXPRESSION = "if(x > 2, 2d6 + x * 3, 1d20 + x) + 'dmg'";
+
+  private ExpressionParser expressionParser;
+
+  /** The variables for each benchmark thread. */
+  @State(Scope.Thread)
+  public static class ThreadVariables {
+    VariableResolver resolver;
+
+    @Setup
+    public void setup() throws ParserException {
+      resolver = new MapVariableResolver();
+      resolver.setVariable("x", BigDecimal.valueOf(5));
+    }
+  }
+
+  @Setup
+  public void setup() {
+    expressionParser = new ExpressionParser();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object evaluateSingleThread(ThreadVariables variables) throws ParserException {
+    return expressionParser.evaluate(EXPRESSION, variables.resolver, false).getValue();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object evaluateFourThreads(ThreadVariables variables) throws ParserException {
+    return expressionParser.evaluate(EXPRESSION, variables.resolver, false).getValue();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.dicelib.expression.function;
+
+import java.util.concurrent.TimeUnit;
+import net.rptools.dicelib.expression.RunData;
+import net.rptools.parser.function.EvaluationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Average time of rolling large pools of dice with the {@link DiceHelper} functions. Each
+ * invocation starts from a new {@link RunData}, as an evaluation of an expression does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DiceHelperBenchmark {
+
+  @Param({"10", "1000", "20000"})
+  private int times;
+
+  private static RunData newRunData() {
+    RunData runData = new RunData(null);
+    RunData.setCurrent(runData);
+    return runData;
+  }
+
+  @Benchmark
+  public int rollDice() {
+    newRunData();
+    return DiceHelper.rollDice(times, 6);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public int rollDiceFourThreads() {
+    newRunData();
+    return DiceHelper.rollDice(times, 6);
+  }
+
+  @Benchmark
+  public int keepDice() throws EvaluationException {
+    newRunData();
+    return DiceHelper.keepDice(times, 6, times / 2);
+  }
+
+  @Benchmark
+  public int dropDiceHighest() throws EvaluationException {
+    newRunData();
+    return DiceHelper.dropDiceHighest(times, 6, times / 2);
+  }
+
+  @Benchmark
+  public int explodeDice() throws EvaluationException {
+    newRunData();
+    return DiceHelper.explodeDice(times, 6);
+  }
+
+  @Benchmark
+  public int countSuccessDice() {
+    newRunData();
+    return DiceHelper.countSuccessDice(times, 10, 7);
+  }
+
+  @Benchmark
+  public int rollDiceReplayable() {
+    RunData.setReplayable(true);
+    try {
+      newRunData();
+      return DiceHelper.rollDice(times, 6);
+    } finally {
+      RunData.setReplayable(false);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import net.rptools.parser.MapVariableResolver;
+import net.rptools.parser.ParserException;
+import net.rptools.parser.VariableResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of evaluating expressions through the {@link MapToolExpressionParser} expression cache.
+ * The unique expression stream never hits the cache, so it keeps the cache full and evicting; its
+ * latency percentiles should stay flat rather than spiking when memory runs low.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(
+    value = 1,
+    jvmArgs = {"-Xmx256m"})
+@State(Scope.Thread)
+public class ExpressionCacheBenchmark {
+
+  private MapToolExpressionParser expressionParser;
+  private VariableResolver resolver;
+  private long counter;
+
+  @Setup
+  public void setup() throws ParserException {
+    expressionParser = new MapToolExpressionParser();
+    resolver = new MapVariableResolver();
+    resolver.setVariable("x", BigDecimal.valueOf(3));
+  }
+
+  @Benchmark
+  public Object uniqueExpressions() throws ParserException {
+    counter++;
+    String expression = "if(x > " + counter + ", x * 2 + " + counter + ", 'no " + counter + "')";
+    return expressionParser.evaluate(expression, resolver, false).getValue();
+  }
+
+  @Benchmark
+  public Object repeatedExpression() throws ParserException {
+    return expressionParser.evaluate("if(x > 2, x * 2 + 5, 'no')", resolver, false).getValue();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.rptools.maptool.model.MacroButtonProperties;
+import net.rptools.maptool.model.Token;
+import net.rptools.parser.ParserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of running canned macros through {@link MapToolLineParser}, and of scanning them into a
+ * {@link CompiledMacro} when they are not cached yet. The macros run on a token in a trusted
+ * context, as a library macro would.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MacroBenchmark {
+
+  private static final Map<String, String> MACROS =
+      Map.of(
+          "arithmetic",
+          "[h: total = 0][h, count(50): total = total + roll.count * 2 + 1d6]"
+              + "Total: [r: total]",
+          "json",
+          "[h: data = '{}'][h, count(20): data = json.set(data, 'key' + roll.count, roll.count)]"
+              + "[h: keys = json.fields(data, 'json')]Keys: [r: json.length(keys)]",
+          "strings",
+          "[h: list = ''][h, for(i, 0, 30): list = listAppend(list, 'item' + i)]"
+              + "[h: list = upper(replace(list, 'item', 'entry'))]Count: [r: listCount(list)]",
+          "nested",
+          "[h: total = 0][h, count(10): total = total + double(roll.count)]"
+              + "[h, macro('double@TOKEN'): json.append('[]', total)]Result: [r: macro.return]");
+
+  /** A token macro called from the nested macro, also defined as the user function double(). */
+  private static final String DOUBLE_MACRO = "[h: macro.return = arg(0) * 2]";
+
+  @Param({"arithmetic", "json", "strings", "nested"})
+  public String macro;
+
+  private MapToolLineParser parser;
+  private Token token;
+  private String text;
+
+  @Setup
+  public void setup() throws ParserException {
+    parser = MapTool.getParser();
+    token = new Token();
+    token.setName("Benchmark");
+    var doubleMacro = new MacroButtonProperties(0);
+    doubleMacro.setLabel("double");
+    doubleMacro.setCommand(DOUBLE_MACRO);
+    token.saveMacro(doubleMacro);
+    parser.parseLine(token, "[h: defineFunction('double', 'double@TOKEN')]", newContext());
+    text = MACROS.get(macro);
+  }
+
+  private static MapToolMacroContext newContext() {
+    return new MapToolMacroContext("benchmark", "benchmark", true);
+  }
+
+  @Benchmark
+  public CompiledMacro compile() {
+    CompiledMacro.clearCache();
+    return CompiledMacro.compile(text);
+  }
+
+  @Benchmark
+  public String run() throws ParserException {
+    return parser.parseLine(token, text, newContext());
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.script.javascript;
+
+import java.util.concurrent.TimeUnit;
+import net.rptools.parser.ParserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Average time of a <code>js.eval</code> round-trip, both for anonymous scripts and for scripts run
+ * in a named context. Anonymous scripts should not pay for creating a context or parsing the script
+ * on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JSEvalBenchmark {
+
+  private static final String SCRIPT =
+      "let total = 0; for (let i = 0; i < 10; i++) { total += i * 2; } return '' + total;";
+
+  private JSScriptEngine engine;
+  private JSContext namedContext;
+
+  @Setup
+  public void setup() throws ParserException {
+    engine = JSScriptEngine.getJSScriptEngine();
+    namedContext = JSScriptEngine.registerContext("benchmark", true, true);
+  }
+
+  @Benchmark
+  public Object evalAnonymous() {
+    return engine.evalAnonymous(SCRIPT, true).asString();
+  }
+
+  @Benchmark
+  public Object evalNamedContext() throws Exception {
+    return engine.evalScript(namedContext, "(function() {" + SCRIPT + "})();", true).asString();
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone;
+
+import java.awt.Point;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.rptools.maptool.client.ui.zone.vbl.AreaTree;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.ZoneFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of the visibility calculations of {@link FogUtil} on a generated map: building the topology
+ * tree from the walls, and solving the area lit by every light on the map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VisibilityBenchmark {
+
+  @Param({"100", "1000"})
+  public int walls;
+
+  @Param({"10", "100"})
+  public int lights;
+
+  private Area wallArea;
+  private AreaTree wallTree;
+  private AreaTree emptyTree;
+  private List<Point> origins;
+  private List<Area> lightAreas;
+
+  @Setup
+  public void setup() {
+    var fixture = ZoneFixture.create(0, walls, lights);
+    wallArea = fixture.getWalls();
+    wallTree = new AreaTree(wallArea);
+    emptyTree = new AreaTree(new Area());
+
+    double radius = ZoneFixture.LIGHT_RADIUS_CELLS * ZoneFixture.GRID_SIZE;
+    origins = new ArrayList<>();
+    lightAreas = new ArrayList<>();
+    for (Token token : fixture.getLightTokens()) {
+      var origin = ZoneFixture.getCenter(token);
+      origins.add(origin);
+      lightAreas.add(
+          new Area(
+              new Ellipse2D.Double(origin.x - radius, origin.y - radius, 2 * radius, 2 * radius)));
+    }
+  }
+
+  @Benchmark
+  public AreaTree buildTopologyTree() {
+    return new AreaTree(wallArea);
+  }
+
+  @Benchmark
+  public void solveLights(Blackhole blackhole) {
+    for (int i = 0; i < origins.size(); i++) {
+      blackhole.consume(
+          FogUtil.calculateVisibility(
+              origins.get(i), lightAreas.get(i), wallTree, emptyTree, emptyTree, emptyTree));
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.walker.astar;
+
+import java.awt.geom.Area;
+import java.util.concurrent.TimeUnit;
+import net.rptools.maptool.client.walker.WalkerMetric;
+import net.rptools.maptool.model.CellPoint;
+import net.rptools.maptool.model.Path;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.ZoneFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of finding a path across a generated map with {@link AbstractAStarWalker}, with the walls
+ * blocking movement. A new walker is used for every path, as the tools do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathfindingBenchmark {
+
+  @Param({"0", "100", "1000"})
+  public int walls;
+
+  private Zone zone;
+  private AbstractAStarWalker.MovementLimits limits;
+  private CellPoint start;
+  private CellPoint goal;
+
+  @Setup
+  public void setup() {
+    var fixture = ZoneFixture.create(0, walls, 0);
+    zone = fixture.getZone();
+    limits = new AbstractAStarWalker.MovementLimits(fixture.getWalls(), new Area());
+    start = new CellPoint(2, 2);
+    goal = new CellPoint(ZoneFixture.MAP_CELLS - 3, ZoneFixture.MAP_CELLS - 3);
+  }
+
+  @Benchmark
+  public Path<CellPoint> findPath() {
+    var walker =
+        new AStarSquareEuclideanWalker(zone, WalkerMetric.ONE_TWO_ONE) {
+          @Override
+          protected MovementLimits getMovementLimits() {
+            return limits;
+          }
+
+          @Override
+          protected boolean isGM() {
+            return true;
+          }
+        };
+    walker.setWaypoints(start, goal);
+    return walker.getPath();
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * A generated map for benchmarks. The map is a square grid of {@link #MAP_CELLS} by {@link
+ * #MAP_CELLS} cells with random wall segments, tokens with sight and tokens carrying a light. The
+ * same counts and seed always produce the same layout, so results of different runs can be
+ * compared.
+ */
+public final class ZoneFixture {
+
+  /** The size of a grid cell in pixels. */
+  public static final int GRID_SIZE = 50;
+
+  /** The number of cells along each side of the map. */
+  public static final int MAP_CELLS = 100;
+
+  /** The seed used when none is given. */
+  public static final long DEFAULT_SEED = 20240607L;
+
+  /** The radius of the generated lights, in cells. */
+  public static final int LIGHT_RADIUS_CELLS = 8;
+
+  private static final int WALL_THICKNESS = 6;
+
+  private final Zone zone;
+  private final Area walls;
+  private final List<Token> sightTokens;
+  private final List<Token> lightTokens;
+  private final LightSource lightSource;
+
+  private ZoneFixture(
+      Zone zone,
+      Area walls,
+      List<Token> sightTokens,
+      List<Token> lightTokens,
+      LightSource lightSource) {
+    this.zone = zone;
+    this.walls = walls;
+    this.sightTokens = sightTokens;
+    this.lightTokens = lightTokens;
+    this.lightSource = lightSource;
+  }
+
+  /**
+   * Generates a map with the default seed.
+   *
+   * @param tokens the number of tokens with sight.
+   * @param walls the number of wall segments.
+   * @param lights the number of tokens carrying a light.
+   * @return the generated map.
+   */
+  public static ZoneFixture create(int tokens, int walls, int lights) {
+    return create(tokens, walls, lights, DEFAULT_SEED);
+  }
+
+  /**
+   * Generates a map.
+   *
+   * @param tokens the number of tokens with sight.
+   * @param walls the number of wall segments.
+   * @param lights the number of tokens carrying a light.
+   * @param seed the seed for the layout.
+   * @return the generated map.
+   */
+  public static ZoneFixture create(int tokens, int walls, int lights, long seed) {
+    var random = new Random(seed);
+
+    var zone = new Zone();
+    zone.setName("Benchmark " + tokens + "/" + walls + "/" + lights);
+    zone.setGrid(new SquareGrid());
+    zone.getGrid().setSize(GRID_SIZE);
+    zone.setVisionType(Zone.VisionType.DAY);
+
+    var wallArea = new Area();
+    for (int i = 0; i < walls; i++) {
+      int x = random.nextInt(MAP_CELLS) * GRID_SIZE;
+      int y = random.nextInt(MAP_CELLS) * GRID_SIZE;
+      int length = (2 + random.nextInt(7)) * GRID_SIZE;
+      var wall =
+          random.nextBoolean()
+              ? new Rectangle(x, y - WALL_THICKNESS / 2, length, WALL_THICKNESS)
+              : new Rectangle(x - WALL_THICKNESS / 2, y, WALL_THICKNESS, length);
+      wallArea.add(new Area(wall));
+    }
+    zone.addTopology(wallArea, Zone.TopologyType.WALL_VBL);
+
+    var light =
+        LightSource.createRegular(
+            "Benchmark Torch",
+            new GUID(),
+            LightSource.Type.NORMAL,
+            false,
+            false,
+            List.of(
+                new Light(
+                    ShapeType.CIRCLE, 0, LIGHT_RADIUS_CELLS * 5, 0, 360, null, 100, false, false)));
+
+    var sightTokens = new ArrayList<Token>(tokens);
+    for (int i = 0; i < tokens; i++) {
+      var token = createToken("Token " + i, Zone.Layer.TOKEN, random);
+      token.setHasSight(true);
+      token.setSightType("Normal");
+      zone.putToken(token);
+      sightTokens.add(token);
+    }
+
+    var lightTokens = new ArrayList<Token>(lights);
+    for (int i = 0; i < lights; i++) {
+      var token = createToken("Light " + i, Zone.Layer.OBJECT, random);
+      token.addLightSource(light.getId());
+      zone.putToken(token);
+      lightTokens.add(token);
+    }
+
+    return new ZoneFixture(zone, wallArea, sightTokens, lightTokens, light);
+  }
+
+  private static Token createToken(String name, Zone.Layer layer, Random random) {
+    var token = new Token();
+    token.setName(name);
+    token.setLayer(layer);
+    token.setSnapToGrid(true);
+    token.setX(random.nextInt(MAP_CELLS) * GRID_SIZE);
+    token.setY(random.nextInt(MAP_CELLS) * GRID_SIZE);
+    token.setProperty("HP", random.nextInt(100));
+    token.setProperty("Notes", "Generated token " + name);
+    return token;
+  }
+
+  /**
+   * Creates a campaign holding the map, with the light source of the light tokens.
+   *
+   * @return the campaign.
+   */
+  public Campaign createCampaign() {
+    var campaign = new Campaign();
+    campaign.initDefault();
+    Map<GUID, LightSource> lights = new TreeMap<>();
+    lights.put(lightSource.getId(), lightSource);
+    campaign.getLightSourcesMap().put("Benchmark", lights);
+    campaign.putZone(zone);
+    return campaign;
+  }
+
+  /**
+   * Returns the generated map.
+   *
+   * @return the map.
+   */
+  public Zone getZone() {
+    return zone;
+  }
+
+  /**
+   * Returns the union of the wall segments, which is the wall VBL of the map.
+   *
+   * @return the walls.
+   */
+  public Area getWalls() {
+    return walls;
+  }
+
+  /**
+   * Returns the tokens with sight.
+   *
+   * @return the tokens.
+   */
+  public List<Token> getSightTokens() {
+    return sightTokens;
+  }
+
+  /**
+   * Returns the tokens carrying a light.
+   *
+   * @return the tokens.
+   */
+  public List<Token> getLightTokens() {
+    return lightTokens;
+  }
+
+  /**
+   * Returns the centre of a token, in map coordinates.
+   *
+   * @param token the token.
+   * @return the centre of the token.
+   */
+  public static Point getCenter(Token token) {
+    return new Point(token.getX() + GRID_SIZE / 2, token.getY() + GRID_SIZE / 2);
+  }
+}
@@ -0,0 +1,305 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import net.rptools.lib.telemetry.Telemetry;
+import net.rptools.maptool.model.ZoneFixture;
+import net.rptools.maptool.model.player.Player;
+import net.rptools.maptool.model.player.PlayerDatabaseFactory;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Load test of a {@link MapToolServer}. It starts a server in this process with a generated
+ * campaign, connects simulated clients to it and has them send the traffic of a {@link TrafficMix}
+ * for a while. It then reports the throughput, the latency of the messages relayed between the
+ * clients, the depth of the message queues, the allocation rate and the {@link Telemetry} of the
+ * server.
+ *
+ * <p>Run it with {@code gradlew loadTest}, passing options with {@code -PloadTestArgs="--clients 30
+ * --transport socket"}. The {@code direct} transport connects the clients through in-memory
+ * connections, which leave out the network, the compression and the handshake. The {@code socket}
+ * transport connects them through the loopback interface and the full handshake, like remote
+ * clients.
+ */
+public final class LoadTest {
+  private static final Logger log = LogManager.getLogger(LoadTest.class);
+
+  private static final String PLAYER_PASSWORD = "player";
+  private static final String GM_PASSWORD = "gm";
+
+  private static final long SAMPLE_INTERVAL_MILLIS = 100;
+  private static final long JOIN_TIMEOUT_SECONDS = 120;
+
+  /** The time given to the messages still on their way when the clients stop sending. */
+  private static final long DRAIN_MILLIS = 2000;
+
+  /** How the simulated clients connect to the server. */
+  enum Transport {
+    DIRECT,
+    SOCKET
+  }
+
+  /**
+   * The settings of a run.
+   *
+   * @param clients the number of simulated clients.
+   * @param rate the number of messages each client sends per second.
+   * @param mix the traffic the clients send.
+   * @param transport how the clients connect.
+   * @param port the port of the server for the socket transport.
+   * @param warmup how long the clients send before measuring starts.
+   * @param duration how long the clients send while measuring.
+   * @param tokens the number of tokens on the map, at least one for each client.
+   * @param walls the number of wall segments on the map.
+   * @param lights the number of light sources on the map.
+   * @param seed the seed of the map and of the traffic.
+   * @param report the file to write the report to as well, or null.
+   */
+  record Settings(
+      int clients,
+      int rate,
+      TrafficMix mix,
+      Transport transport,
+      int port,
+      Duration warmup,
+      Duration duration,
+      int tokens,
+      int walls,
+      int lights,
+      long seed,
+      @Nullable File report) {}
+
+  private LoadTest() {}
+
+  public static void main(String[] args) {
+    var options = createOptions();
+    Settings settings;
+    try {
+      var cmd = new DefaultParser().parse(options, args);
+      if (cmd.hasOption("help")) {
+        new HelpFormatter().printHelp("loadTest", options);
+        return;
+      }
+      settings = parseSettings(cmd);
+    } catch (ParseException | IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      new HelpFormatter().printHelp("loadTest", options);
+      System.exit(2);
+      return;
+    }
+
+    int status = 0;
+    try {
+      run(settings);
+    } catch (Exception e) {
+      log.error("Load test failed", e);
+      status = 1;
+    }
+    // The server leaves threads such as the event dispatch thread running.
+    System.exit(status);
+  }
+
+  private static Options createOptions() {
+    var options = new Options();
+    options.addOption("c", "clients", true, "number of simulated clients (default 10)");
+    options.addOption("r", "rate", true, "messages each client sends per second (default 10)");
+    options.addOption(
+        "m", "mix", true, "traffic mix: chat, drag, macro or session (default session)");
+    options.addOption("t", "transport", true, "direct or socket (default direct)");
+    options.addOption(
+        "p",
+        "port",
+        true,
+        "server port for the socket transport (default " + ServerConfig.DEFAULT_PORT + ")");
+    options.addOption("w", "warmup", true, "seconds of traffic before measuring (default 10)");
+    options.addOption("d", "duration", true, "seconds of traffic to measure (default 60)");
+    options.addOption(null, "tokens", true, "tokens on the map (default 200)");
+    options.addOption(null, "walls", true, "wall segments on the map (default 500)");
+    options.addOption(null, "lights", true, "light sources on the map (default 50)");
+    options.addOption(null, "seed", true, "seed of the map and the traffic");
+    options.addOption("o", "output", true, "file to write the report to as well");
+    options.addOption("h", "help", false, "show this help");
+    return options;
+  }
+
+  private static Settings parseSettings(CommandLine cmd) {
+    var settings =
+        new Settings(
+            Integer.parseInt(cmd.getOptionValue("clients", "10")),
+            Integer.parseInt(cmd.getOptionValue("rate", "10")),
+            TrafficMix.valueOf(cmd.getOptionValue("mix", "session").toUpperCase(Locale.ROOT)),
+            Transport.valueOf(cmd.getOptionValue("transport", "direct").toUpperCase(Locale.ROOT)),
+            Integer.parseInt(
+                cmd.getOptionValue("port", Integer.toString(ServerConfig.DEFAULT_PORT))),
+            Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("warmup", "10"))),
+            Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("duration", "60"))),
+            Integer.parseInt(cmd.getOptionValue("tokens", "200")),
+            Integer.parseInt(cmd.getOptionValue("walls", "500")),
+            Integer.parseInt(cmd.getOptionValue("lights", "50")),
+            Long.parseLong(cmd.getOptionValue("seed", Long.toString(ZoneFixture.DEFAULT_SEED))),
+            cmd.hasOption("output") ? new File(cmd.getOptionValue("output")) : null);
+    if (settings.clients() < 1 || settings.rate() < 1 || settings.duration().isZero()) {
+      throw new IllegalArgumentException("clients, rate and duration must be positive");
+    }
+    return settings;
+  }
+
+  /**
+   * Runs a load test and writes the report to the standard output.
+   *
+   * @param settings the settings of the run.
+   * @throws Exception if the server cannot be started or the clients cannot join.
+   */
+  static void run(Settings settings) throws Exception {
+    var fixture =
+        ZoneFixture.create(
+            Math.max(settings.tokens(), settings.clients()),
+            settings.walls(),
+            settings.lights(),
+            settings.seed());
+    var zoneId = fixture.getZone().getId();
+    var playerDatabase =
+        PlayerDatabaseFactory.getDefaultPlayerDatabase(PLAYER_PASSWORD, GM_PASSWORD);
+    var serverConfig =
+        settings.transport() == Transport.SOCKET
+            ? new ServerConfig(
+                "loadtest",
+                GM_PASSWORD,
+                PLAYER_PASSWORD,
+                settings.port(),
+                "",
+                "localhost",
+                false,
+                false)
+            : null;
+    var server =
+        new MapToolServer(
+            "loadtest",
+            fixture.createCampaign(),
+            serverConfig,
+            false,
+            new ServerPolicy(),
+            playerDatabase);
+
+    var metrics = new LoadTestMetrics();
+    var clients = new ArrayList<LoadTestClient>();
+    ScheduledExecutorService scheduler =
+        Executors.newScheduledThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            runnable -> {
+              var thread = new Thread(runnable, "LoadTest.Scheduler");
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    server.start();
+    try {
+      log.info("Connecting {} clients over {}", settings.clients(), settings.transport());
+      var joins = new ArrayList<CompletableFuture<Void>>();
+      for (int i = 0; i < settings.clients(); i++) {
+        var name = String.format("loadtest-%02d", i + 1);
+        var client =
+            new LoadTestClient(
+                name,
+                fixture.getSightTokens().get(i),
+                zoneId,
+                settings.mix(),
+                settings.seed() + i,
+                settings.clients() - 1,
+                metrics);
+        clients.add(client);
+        joins.add(
+            switch (settings.transport()) {
+              case DIRECT -> client.connectDirect(
+                  server, playerDatabase.getPlayerWithRole(name, Player.Role.PLAYER));
+              case SOCKET -> client.connectSocket("localhost", settings.port(), PLAYER_PASSWORD);
+            });
+      }
+      CompletableFuture.allOf(joins.toArray(CompletableFuture[]::new))
+          .get(JOIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+      // Spread the clients over the period so they do not all send at once.
+      long period = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+      var random = new Random(settings.seed());
+      for (var client : clients) {
+        scheduler.scheduleAtFixedRate(
+            client::tick, random.nextLong(period), period, TimeUnit.NANOSECONDS);
+      }
+      List<LoadTestClient> sampled = List.copyOf(clients);
+      scheduler.scheduleAtFixedRate(
+          () -> metrics.sample(server, sampled), 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+      log.info("Warming up for {} s", settings.warmup().toSeconds());
+      Thread.sleep(settings.warmup().toMillis());
+      Telemetry.reset();
+      metrics.start();
+      log.info("Measuring for {} s", settings.duration().toSeconds());
+      Thread.sleep(settings.duration().toMillis());
+      metrics.stop();
+      scheduler.shutdownNow();
+      Thread.sleep(DRAIN_MILLIS);
+
+      writeReport(settings, metrics);
+    } finally {
+      scheduler.shutdownNow();
+      clients.forEach(LoadTestClient::close);
+      server.stop();
+    }
+  }
+
+  private static void writeReport(Settings settings, LoadTestMetrics metrics) throws IOException {
+    var report = new StringWriter();
+    report.write(
+        String.format(
+            "MapTool load test: %d clients over %s, %s traffic at %d messages per second each%n",
+            settings.clients(),
+            settings.transport().name().toLowerCase(Locale.ROOT),
+            settings.mix().name().toLowerCase(Locale.ROOT),
+            settings.rate()));
+    metrics.writeReport(report);
+    report.write(System.lineSeparator());
+    Telemetry.writeSummary(report);
+
+    System.out.print(report);
+    System.out.flush();
+    if (settings.report() != null) {
+      try (var writer = new FileWriter(settings.report(), StandardCharsets.UTF_8)) {
+        writer.write(report.toString());
+      }
+      log.info("Wrote the load test report to {}", settings.report());
+    }
+  }
+}
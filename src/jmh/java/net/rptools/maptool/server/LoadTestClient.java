@@ -0,0 +1,381 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import net.rptools.clientserver.simple.MessageHandler;
+import net.rptools.clientserver.simple.connection.Connection;
+import net.rptools.clientserver.simple.connection.DirectConnection;
+import net.rptools.clientserver.simple.connection.SocketConnection;
+import net.rptools.maptool.client.MapTool;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.TextMessage;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.ZoneFixture;
+import net.rptools.maptool.model.player.Player;
+import net.rptools.maptool.server.proto.ClientAuthMsg;
+import net.rptools.maptool.server.proto.ClientInitMsg;
+import net.rptools.maptool.server.proto.HandshakeMsg;
+import net.rptools.maptool.server.proto.Message;
+import net.rptools.maptool.server.proto.MessageMsg;
+import net.rptools.maptool.server.proto.PutTokenMsg;
+import net.rptools.maptool.server.proto.StartTokenMoveMsg;
+import net.rptools.maptool.server.proto.StopTokenMoveMsg;
+import net.rptools.maptool.server.proto.TextMessageDto;
+import net.rptools.maptool.server.proto.TokenPropertyValueDto;
+import net.rptools.maptool.server.proto.TokenUpdateBatchMsg;
+import net.rptools.maptool.server.proto.TokenUpdateDto;
+import net.rptools.maptool.server.proto.UpdateTokenMoveMsg;
+import net.rptools.maptool.server.proto.UpdateTokenPropertyMsg;
+import net.rptools.maptool.server.proto.UseAuthTypeMsg;
+import net.rptools.maptool.server.proto.drawing.IntPointDto;
+import net.rptools.maptool.util.cipher.CipherUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A simulated client of a {@link LoadTest}. It joins the server like a MapTool client and then
+ * sends the traffic of its {@link TrafficMix}, one message each time {@link #tick()} is called,
+ * while reporting the messages the server relays to it to the {@link LoadTestMetrics}.
+ *
+ * <p>The client only keeps its own token. It does not hold a campaign or handle the messages it
+ * receives, so the load measured is that of the server.
+ */
+final class LoadTestClient implements MessageHandler {
+  private static final Logger log = LogManager.getLogger(LoadTestClient.class);
+
+  /** The number of move updates in a token drag. */
+  private static final int DRAG_STEPS = 8;
+
+  /** The furthest a token is placed from the origin, in pixels. */
+  private static final int MAP_EXTENT = (ZoneFixture.MAP_CELLS - 1) * ZoneFixture.GRID_SIZE;
+
+  private final String name;
+  private final Token token;
+  private final GUID zoneId;
+  private final TrafficMix mix;
+  private final Random random;
+  private final int recipients;
+  private final LoadTestMetrics metrics;
+  private final CompletableFuture<Void> joined = new CompletableFuture<>();
+
+  private Connection connection;
+  private String password;
+  private volatile boolean handshaking;
+  private long joinStart;
+
+  // Only used by tick(), which the scheduler never runs concurrently for one client.
+  private long sequence;
+  private int dragStep = -1;
+  private int dragX;
+  private int dragY;
+
+  /**
+   * Creates a client.
+   *
+   * @param name the name of the player.
+   * @param token the token the client moves and changes, from the campaign of the server.
+   * @param zoneId the ID of the map holding the token.
+   * @param mix the traffic to send.
+   * @param seed the seed of the random choices of the client.
+   * @param recipients the number of other clients the server relays the messages to.
+   * @param metrics the measurements to report to.
+   */
+  LoadTestClient(
+      String name,
+      Token token,
+      GUID zoneId,
+      TrafficMix mix,
+      long seed,
+      int recipients,
+      LoadTestMetrics metrics) {
+    this.name = name;
+    this.token = token;
+    this.zoneId = zoneId;
+    this.mix = mix;
+    this.random = new Random(seed);
+    this.recipients = recipients;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Joins the server through an in-memory connection. The connection is added to the server like
+   * the connection of the hosting client, so there is no handshake, but the campaign is sent the
+   * same way as to a remote client.
+   *
+   * @param server the server.
+   * @param player the player of the client.
+   * @return completes once the client has received the campaign.
+   */
+  CompletableFuture<Void> connectDirect(MapToolServer server, Player player) {
+    var connections = DirectConnection.create(name);
+    connection = connections.clientSide();
+    connection.addMessageHandler(this);
+    joinStart = System.nanoTime();
+    connection.open();
+    connections.serverSide().open();
+
+    server.addLocalConnection(connections.serverSide(), player);
+    server
+        .createSetCampaignMsg(null)
+        .thenAccept(
+            campaign ->
+                server.sendMessage(
+                    connections.serverSide().getId(),
+                    Message.newBuilder().setSetCampaignMsg(campaign).build()))
+        .exceptionally(
+            e -> {
+              joined.completeExceptionally(e);
+              return null;
+            });
+    return joined;
+  }
+
+  /**
+   * Joins the server through a socket, authenticating with a shared password.
+   *
+   * @param hostName the host of the server.
+   * @param port the port of the server.
+   * @param password the player password of the server.
+   * @return completes once the client has received the campaign.
+   * @throws IOException if the socket cannot be opened.
+   */
+  CompletableFuture<Void> connectSocket(String hostName, int port, String password)
+      throws IOException {
+    this.password = password;
+    handshaking = true;
+    connection = new SocketConnection(name, hostName, port);
+    connection.addMessageHandler(this);
+    joinStart = System.nanoTime();
+    connection.open();
+
+    var clientInit =
+        ClientInitMsg.newBuilder()
+            .setPlayerName(name)
+            .setVersion(MapTool.getVersion())
+            .setPublicKeyMd5("");
+    send(HandshakeMsg.newBuilder().setClientInitMsg(clientInit).build());
+    return joined;
+  }
+
+  /** Disconnects from the server. */
+  void close() {
+    if (connection != null) {
+      connection.close();
+    }
+  }
+
+  /**
+   * Returns the number of messages the client has queued that have not been sent yet.
+   *
+   * @return the number of pending messages.
+   */
+  int getPendingMessageCount() {
+    return connection == null ? 0 : connection.getPendingMessageCount();
+  }
+
+  /** Sends the next message of the traffic. */
+  void tick() {
+    try {
+      if (dragStep >= 0) {
+        continueDrag();
+        return;
+      }
+      switch (mix.next(random)) {
+        case CHAT -> chat();
+        case DRAG -> startDrag();
+        case MACRO -> macro();
+      }
+    } catch (RuntimeException e) {
+      // Keep the client going, an exception would cancel its schedule.
+      log.error("Simulated client {} failed to send", name, e);
+    }
+  }
+
+  private void chat() {
+    sequence++;
+    send(chatMessage(name + " says hello for the " + sequence + ". time"), true);
+  }
+
+  private void macro() {
+    sequence++;
+    String hp = Long.toString(sequence % 100);
+    // A macro changing several properties sends its token updates as one batch.
+    var batch =
+        TokenUpdateBatchMsg.newBuilder()
+            .addMessages(setProperty("HP", hp))
+            .addMessages(setProperty("LastRoll", Long.toString(sequence)));
+    send(Message.newBuilder().setTokenUpdateBatchMsg(batch).build(), true);
+    send(chatMessage(token.getName() + " now has " + hp + " HP (" + sequence + ")"), true);
+  }
+
+  private Message setProperty(String property, String value) {
+    var update =
+        UpdateTokenPropertyMsg.newBuilder()
+            .setZoneGuid(zoneId.toString())
+            .setTokenGuid(token.getId().toString())
+            .setProperty(TokenUpdateDto.setProperty)
+            .addValues(TokenPropertyValueDto.newBuilder().setStringValue(property))
+            .addValues(TokenPropertyValueDto.newBuilder().setStringValue(value));
+    return Message.newBuilder().setUpdateTokenPropertyMsg(update).build();
+  }
+
+  private void startDrag() {
+    dragStep = 0;
+    do {
+      dragX = random.nextInt(3) - 1;
+      dragY = random.nextInt(3) - 1;
+    } while (dragX == 0 && dragY == 0);
+
+    var start =
+        StartTokenMoveMsg.newBuilder()
+            .setPlayerId(name)
+            .setZoneGuid(zoneId.toString())
+            .setKeyTokenId(token.getId().toString())
+            .addSelectedTokens(token.getId().toString());
+    // Every drag of the token starts with the same message, so it cannot be timed.
+    send(Message.newBuilder().setStartTokenMoveMsg(start).build(), false);
+  }
+
+  private void continueDrag() {
+    if (dragStep < DRAG_STEPS) {
+      dragStep++;
+      int x = token.getX() + dragX * ZoneFixture.GRID_SIZE;
+      int y = token.getY() + dragY * ZoneFixture.GRID_SIZE;
+      if (x < 0 || x > MAP_EXTENT) {
+        dragX = -dragX;
+        x = token.getX() + dragX * ZoneFixture.GRID_SIZE;
+      }
+      if (y < 0 || y > MAP_EXTENT) {
+        dragY = -dragY;
+        y = token.getY() + dragY * ZoneFixture.GRID_SIZE;
+      }
+      token.setX(x);
+      token.setY(y);
+
+      var move =
+          UpdateTokenMoveMsg.newBuilder()
+              .setZoneGuid(zoneId.toString())
+              .setKeyTokenId(token.getId().toString())
+              .setPoint(IntPointDto.newBuilder().setX(x).setY(y));
+      // The token goes back and forth over the same cells, so a move can repeat an earlier one.
+      send(Message.newBuilder().setUpdateTokenMoveMsg(move).build(), false);
+      return;
+    }
+
+    dragStep = -1;
+    var stop =
+        StopTokenMoveMsg.newBuilder()
+            .setZoneGuid(zoneId.toString())
+            .setKeyTokenId(token.getId().toString());
+    send(Message.newBuilder().setStopTokenMoveMsg(stop).build(), false);
+    // The token can end up where it was put before, so the put is not unique either.
+    var put = PutTokenMsg.newBuilder().setZoneGuid(zoneId.toString()).setToken(token.toDto());
+    send(Message.newBuilder().setPutTokenMsg(put).build(), false);
+  }
+
+  private Message chatMessage(String text) {
+    var dto =
+        TextMessageDto.newBuilder()
+            .setChannel(TextMessage.Channel.SAY)
+            .setSource(name)
+            .setMessage(text);
+    return Message.newBuilder().setMessageMsg(MessageMsg.newBuilder().setMessage(dto)).build();
+  }
+
+  /**
+   * Sends a message to the server.
+   *
+   * @param message the message.
+   * @param timed whether the message is unique, so its delivery to the other clients can be timed.
+   */
+  private void send(Message message, boolean timed) {
+    var bytes = message.toByteArray();
+    metrics.sent(message, bytes.length, timed ? recipients : 0);
+    connection.sendMessage(bytes);
+  }
+
+  private void send(HandshakeMsg message) {
+    connection.sendMessage(message.toByteArray());
+  }
+
+  @Override
+  public void handleMessage(String id, byte[] message) {
+    try {
+      if (handshaking) {
+        handleHandshake(HandshakeMsg.parseFrom(message));
+        return;
+      }
+
+      var msg = Message.parseFrom(message);
+      metrics.received(msg, message.length);
+      if (msg.getMessageTypeCase() == Message.MessageTypeCase.SET_CAMPAIGN_MSG) {
+        metrics.recordJoin(System.nanoTime() - joinStart);
+        joined.complete(null);
+      }
+    } catch (IOException | GeneralSecurityException e) {
+      log.error("Simulated client {} failed to handle a message", name, e);
+      joined.completeExceptionally(e);
+    }
+  }
+
+  private void handleHandshake(HandshakeMsg message) throws IOException, GeneralSecurityException {
+    switch (message.getMessageTypeCase()) {
+      case USE_AUTH_TYPE_MSG -> answerChallenge(message.getUseAuthTypeMsg());
+      case CONNECTION_SUCCESSFUL_MSG -> handshaking = false;
+      case HANDSHAKE_RESPONSE_CODE_MSG -> throw new IOException(
+          "Server refused " + name + ": " + message.getHandshakeResponseCodeMsg());
+      default -> throw new IOException(
+          "Unexpected handshake message for " + name + ": " + message.getMessageTypeCase());
+    }
+  }
+
+  /**
+   * Answers the password challenge of the server, the same way as {@link ClientHandshake}.
+   *
+   * @param useAuthType the message holding the challenges.
+   */
+  private void answerChallenge(UseAuthTypeMsg useAuthType)
+      throws IOException, GeneralSecurityException {
+    var key = CipherUtil.createKey(password, useAuthType.getSalt().toByteArray());
+    var iv = useAuthType.getIv().toByteArray();
+    var responseIv = new byte[CipherUtil.CIPHER_BLOCK_SIZE];
+    new SecureRandom().nextBytes(responseIv);
+
+    // There is a challenge for each role, only the one of the player role is for our password.
+    for (var challenge : useAuthType.getChallengeList()) {
+      byte[] response;
+      try {
+        response =
+            HandshakeChallenge.fromSymmetricChallengeBytes(name, challenge.toByteArray(), key, iv)
+                .getExpectedResponse(responseIv);
+      } catch (GeneralSecurityException | IllegalStateException e) {
+        continue;
+      }
+      var clientAuth =
+          ClientAuthMsg.newBuilder()
+              .setChallengeResponse(ByteString.copyFrom(response))
+              .setIv(ByteString.copyFrom(responseIv));
+      send(HandshakeMsg.newBuilder().setClientAuthMessage(clientAuth).build());
+      return;
+    }
+    throw new IOException("No handshake challenge matches the password of " + name);
+  }
+}
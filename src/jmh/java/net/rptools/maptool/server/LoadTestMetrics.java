@@ -0,0 +1,272 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import com.google.protobuf.ByteString;
+import java.awt.EventQueue;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import net.rptools.lib.telemetry.Histogram;
+import net.rptools.maptool.server.proto.Message;
+
+/**
+ * The measurements of a {@link LoadTest}. The simulated clients report the messages they send and
+ * receive, and {@link #sample(MapToolServer, List)} is called regularly to record the depth of the
+ * message queues and the lag of the event queue the server handles messages on.
+ *
+ * <p>The latency of a message is the time from one client sending it to another client receiving it
+ * from the server. Sent messages are matched to received ones by their content, so only messages
+ * that are unique are timed.
+ */
+final class LoadTestMetrics {
+
+  /** Enough recent samples for the percentiles of a long run with many clients. */
+  private static final int WINDOW_SIZE = 1 << 20;
+
+  /**
+   * A timed message that has not reached all its recipients yet.
+   *
+   * @param sentAt the {@link System#nanoTime()} the message was sent at.
+   * @param remaining the number of recipients that have not received it.
+   */
+  private record InFlight(long sentAt, AtomicInteger remaining) {}
+
+  private final Map<ByteString, InFlight> inFlight = new ConcurrentHashMap<>();
+
+  private final Histogram joinTime = new Histogram();
+  private final Histogram latency = new Histogram(WINDOW_SIZE);
+  private final Histogram serverQueue = new Histogram(WINDOW_SIZE);
+  private final Histogram clientQueue = new Histogram(WINDOW_SIZE);
+  private final Histogram eventQueueLag = new Histogram(WINDOW_SIZE);
+
+  private final LongAdder sent = new LongAdder();
+  private final LongAdder sentBytes = new LongAdder();
+  private final LongAdder received = new LongAdder();
+  private final LongAdder receivedBytes = new LongAdder();
+
+  private long startTime;
+  private long stopTime;
+  private long startAllocated;
+  private long stopAllocated;
+  private long startCollections;
+  private long stopCollections;
+  private long startCollectionMillis;
+  private long stopCollectionMillis;
+
+  /**
+   * Records the time a client took to join the server.
+   *
+   * @param nanos the time from connecting to receiving the campaign.
+   */
+  void recordJoin(long nanos) {
+    joinTime.record(nanos);
+  }
+
+  /**
+   * Records a message a client is about to send.
+   *
+   * @param message the message.
+   * @param size the serialised size of the message.
+   * @param recipients the number of clients the server relays the message to, or 0 to not time it.
+   */
+  void sent(Message message, int size, int recipients) {
+    sent.increment();
+    sentBytes.add(size);
+    if (recipients > 0) {
+      inFlight.put(key(message), new InFlight(System.nanoTime(), new AtomicInteger(recipients)));
+    }
+  }
+
+  /**
+   * Records a message a client received from the server.
+   *
+   * @param message the message.
+   * @param size the serialised size of the message.
+   */
+  void received(Message message, int size) {
+    long now = System.nanoTime();
+    received.increment();
+    receivedBytes.add(size);
+
+    var key = key(message);
+    var timed = inFlight.get(key);
+    if (timed != null) {
+      latency.record(now - timed.sentAt());
+      if (timed.remaining().decrementAndGet() <= 0) {
+        inFlight.remove(key, timed);
+      }
+    }
+  }
+
+  /**
+   * Records the depth of the message queues of the server and the clients, and measures how long it
+   * takes the event queue to get to a task posted now.
+   *
+   * @param server the server.
+   * @param clients the simulated clients.
+   */
+  void sample(MapToolServer server, List<LoadTestClient> clients) {
+    server.getPendingMessageCounts().values().forEach(serverQueue::record);
+    for (var client : clients) {
+      clientQueue.record(client.getPendingMessageCount());
+    }
+    long posted = System.nanoTime();
+    EventQueue.invokeLater(() -> eventQueueLag.record(System.nanoTime() - posted));
+  }
+
+  /** Discards the measurements so far, e.g. those of the warm up, and starts measuring. */
+  void start() {
+    latency.clear();
+    serverQueue.clear();
+    clientQueue.clear();
+    eventQueueLag.clear();
+    sent.reset();
+    sentBytes.reset();
+    received.reset();
+    receivedBytes.reset();
+    inFlight.clear();
+
+    startAllocated = allocatedBytes();
+    startCollections = collections();
+    startCollectionMillis = collectionMillis();
+    startTime = System.nanoTime();
+  }
+
+  /** Stops measuring time and memory. Messages still arriving are counted. */
+  void stop() {
+    stopTime = System.nanoTime();
+    stopAllocated = allocatedBytes();
+    stopCollections = collections();
+    stopCollectionMillis = collectionMillis();
+  }
+
+  /**
+   * Writes the measurements between {@link #start()} and {@link #stop()}.
+   *
+   * @param writer the writer to write to.
+   */
+  void writeReport(Writer writer) {
+    var out = new PrintWriter(writer);
+    double seconds = (stopTime - startTime) / (double) TimeUnit.SECONDS.toNanos(1);
+
+    out.printf("%nThroughput over %.1f s%n", seconds);
+    out.printf(
+        "  %-10s %12d messages %12.1f /s %10.2f MB/s%n",
+        "sent", sent.sum(), sent.sum() / seconds, megabytes(sentBytes.sum()) / seconds);
+    out.printf(
+        "  %-10s %12d messages %12.1f /s %10.2f MB/s%n",
+        "received",
+        received.sum(),
+        received.sum() / seconds,
+        megabytes(receivedBytes.sum()) / seconds);
+    out.printf("  %d timed messages did not reach every client%n", inFlight.size());
+
+    out.printf("%n");
+    out.printf(
+        "  %10s %10s %10s %10s %10s %10s  %s%n",
+        "count", "mean", "p50", "p90", "p99", "max", "name");
+    writeMillis(out, latency, "latency from client to client (ms)");
+    writeMillis(out, joinTime, "time to join (ms)");
+    writeMillis(out, eventQueueLag, "event queue lag (ms)");
+    writeCount(out, serverQueue, "server queue per connection (messages)");
+    writeCount(out, clientQueue, "client queue (messages)");
+
+    out.printf("%nMemory%n");
+    if (startAllocated < 0) {
+      out.printf("  allocation is not measured by this JVM%n");
+    } else {
+      long allocated = stopAllocated - startAllocated;
+      out.printf(
+          "  %.1f MB allocated, %.1f MB/s%n", megabytes(allocated), megabytes(allocated) / seconds);
+    }
+    out.printf(
+        "  %d garbage collections taking %d ms%n",
+        stopCollections - startCollections, stopCollectionMillis - startCollectionMillis);
+    out.flush();
+  }
+
+  private static void writeMillis(PrintWriter out, Histogram histogram, String name) {
+    var snapshot = histogram.snapshot();
+    out.printf(
+        "  %10d %10.3f %10.3f %10.3f %10.3f %10.3f  %s%n",
+        snapshot.count(),
+        millis(snapshot.mean()),
+        millis(snapshot.p50()),
+        millis(snapshot.p90()),
+        millis(snapshot.p99()),
+        millis(snapshot.max()),
+        name);
+  }
+
+  private static void writeCount(PrintWriter out, Histogram histogram, String name) {
+    var snapshot = histogram.snapshot();
+    out.printf(
+        "  %10d %10d %10d %10d %10d %10d  %s%n",
+        snapshot.count(),
+        snapshot.mean(),
+        snapshot.p50(),
+        snapshot.p90(),
+        snapshot.p99(),
+        snapshot.max(),
+        name);
+  }
+
+  /**
+   * Returns the key a message is matched by. The server stamps the zone versions on the messages it
+   * relays, so they are left out.
+   */
+  private static ByteString key(Message message) {
+    return message.toBuilder().clearZoneVersions().build().toByteString();
+  }
+
+  private static long allocatedBytes() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+        && threads.isThreadAllocatedMemorySupported()
+        && threads.isThreadAllocatedMemoryEnabled()) {
+      return threads.getTotalThreadAllocatedBytes();
+    }
+    return -1;
+  }
+
+  private static long collections() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream()
+        .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+        .filter(count -> count > 0)
+        .sum();
+  }
+
+  private static long collectionMillis() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream()
+        .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+        .filter(time -> time > 0)
+        .sum();
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  private static double megabytes(long bytes) {
+    return bytes / (1024.0 * 1024.0);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.util.concurrent.TimeUnit;
+import net.rptools.maptool.server.proto.drawing.AreaDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of encoding and decoding a topology sized {@link Area} with {@link Mapper}, including the
+ * protobuf serialisation that happens when the area is sent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+  private Area topology;
+  private Area vision;
+  private byte[] topologyBytes;
+
+  @Setup
+  public void setup() {
+    topology = new Area();
+    for (int x = 0; x < 40; x++) {
+      for (int y = 0; y < 40; y++) {
+        topology.add(new Area(new Rectangle(x * 100, y * 100, 50 + x, 50 + y)));
+      }
+    }
+    vision = new Area(new Ellipse2D.Double(-250.5, -250.5, 501, 501));
+    vision.subtract(topology);
+    topologyBytes = Mapper.map(topology).toByteArray();
+  }
+
+  @Benchmark
+  public byte[] encodeTopology() {
+    return Mapper.map(topology).toByteArray();
+  }
+
+  @Benchmark
+  public Area decodeTopology() throws Exception {
+    return Mapper.map(AreaDto.parseFrom(topologyBytes));
+  }
+
+  @Benchmark
+  public byte[] encodeVisionQuantised() {
+    return Mapper.map(vision, 256).toByteArray();
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.ZoneFixture;
+import net.rptools.maptool.server.proto.Message;
+import net.rptools.maptool.server.proto.PutTokenMsg;
+import net.rptools.maptool.server.proto.PutZoneMsg;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of compressing and decompressing serialised messages: a whole generated map, as sent when a
+ * client joins, and a single token update, as sent all through a session. Connections compress
+ * every message with zstd, see {@code AbstractConnection}; deflate is measured alongside it for
+ * comparison. The message sizes are reported as the secondary results {@code messageBytes} and
+ * {@code compressedBytes}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageCompressionBenchmark {
+
+  @Param({CompressorStreamFactory.ZSTANDARD, CompressorStreamFactory.DEFLATE})
+  public String codec;
+
+  @Param({"zone", "token"})
+  public String message;
+
+  /** Reports the sizes of the message alongside the timings. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Sizes {
+    /** The size of the serialised message in bytes. */
+    public long messageBytes;
+
+    /** The size of the compressed message in bytes. */
+    public long compressedBytes;
+
+    @Setup(Level.Iteration)
+    public void setup(MessageCompressionBenchmark benchmark) {
+      messageBytes = benchmark.serialized.length;
+      compressedBytes = benchmark.compressed.length;
+    }
+  }
+
+  private final CompressorStreamFactory factory = new CompressorStreamFactory();
+  private byte[] serialized;
+  private byte[] compressed;
+
+  @Setup
+  public void setup() throws Exception {
+    var fixture = ZoneFixture.create(500, 500, 50);
+    Zone zone = fixture.getZone();
+    Message msg =
+        switch (message) {
+          case "zone" -> Message.newBuilder()
+              .setPutZoneMsg(PutZoneMsg.newBuilder().setZone(zone.toDto()))
+              .build();
+          case "token" -> Message.newBuilder()
+              .setPutTokenMsg(
+                  PutTokenMsg.newBuilder()
+                      .setZoneGuid(zone.getId().toString())
+                      .setToken(fixture.getSightTokens().get(0).toDto()))
+              .build();
+          default -> throw new IllegalArgumentException(message);
+        };
+    serialized = msg.toByteArray();
+    compressed = compressMessage();
+  }
+
+  @Benchmark
+  public byte[] compress(Sizes sizes) throws Exception {
+    return compressMessage();
+  }
+
+  @Benchmark
+  public byte[] decompress(Sizes sizes) throws Exception {
+    try (var decompressor =
+        factory.createCompressorInputStream(codec, new ByteArrayInputStream(compressed))) {
+      return decompressor.readAllBytes();
+    }
+  }
+
+  private byte[] compressMessage() throws Exception {
+    var out = new ByteArrayOutputStream(serialized.length / 4);
+    try (var compressor = factory.createCompressorOutputStream(codec, out)) {
+      compressor.write(serialized);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import java.util.Random;
+
+/**
+ * The traffic the simulated clients of a {@link LoadTest} send. Each mix weighs the actions a
+ * client picks from whenever it is due to send.
+ */
+enum TrafficMix {
+  /** Chat messages only. */
+  CHAT(1, 0, 0),
+
+  /** Token drags only. Their messages can repeat, so no latency is reported. */
+  DRAG(0, 1, 0),
+
+  /** Macros that change token properties and report them in chat. */
+  MACRO(0, 0, 1),
+
+  /** A game session, mostly dragging tokens with chat and macros in between. */
+  SESSION(3, 4, 3);
+
+  /** The things a simulated client does. */
+  enum Action {
+    /** Sends a chat message. */
+    CHAT,
+
+    /**
+     * Drags its token a few cells, sending a move update on each of the following sends and the
+     * token itself once it is dropped.
+     */
+    DRAG,
+
+    /** Sets properties of its token in one batch and sends the result to chat. */
+    MACRO
+  }
+
+  private final int chatWeight;
+  private final int dragWeight;
+  private final int macroWeight;
+
+  TrafficMix(int chatWeight, int dragWeight, int macroWeight) {
+    this.chatWeight = chatWeight;
+    this.dragWeight = dragWeight;
+    this.macroWeight = macroWeight;
+  }
+
+  /**
+   * Picks the next action of a client.
+   *
+   * @param random the random numbers of the client.
+   * @return the action.
+   */
+  Action next(Random random) {
+    int pick = random.nextInt(chatWeight + dragWeight + macroWeight);
+    if (pick < chatWeight) {
+      return Action.CHAT;
+    } else if (pick < chatWeight + dragWeight) {
+      return Action.DRAG;
+    } else {
+      return Action.MACRO;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import java.util.concurrent.TimeUnit;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.ZoneFixture;
+import net.rptools.maptool.server.proto.ZoneDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of converting a generated map to and from its protobuf form, which happens whenever a whole
+ * map is sent to a client.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ZoneDtoBenchmark {
+
+  @Param({"100", "1000"})
+  public int tokens;
+
+  @Param({"500"})
+  public int walls;
+
+  @Param({"50"})
+  public int lights;
+
+  private Zone zone;
+  private byte[] zoneBytes;
+
+  @Setup
+  public void setup() {
+    zone = ZoneFixture.create(tokens, walls, lights).getZone();
+    zoneBytes = zone.toDto().toByteArray();
+  }
+
+  @Benchmark
+  public ZoneDto toDto() {
+    return zone.toDto();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return zone.toDto().toByteArray();
+  }
+
+  @Benchmark
+  public Zone deserialize() throws Exception {
+    return Zone.fromDto(ZoneDto.parseFrom(zoneBytes));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import net.rptools.lib.io.PackedFile;
+import net.rptools.maptool.model.ZoneFixture;
+import net.rptools.maptool.util.PersistenceUtil.PersistedCampaign;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of writing a campaign with a generated map to a campaign file and of reading it back. This
+ * is the serialisation and packing done by {@link PersistenceUtil#saveCampaign} and {@link
+ * PersistenceUtil#loadCampaign}, without the assets, thumbnail and backup copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CampaignPersistenceBenchmark {
+
+  @Param({"100", "1000"})
+  public int tokens;
+
+  @Param({"500"})
+  public int walls;
+
+  @Param({"50"})
+  public int lights;
+
+  private File directory;
+  private File saveFile;
+  private File loadFile;
+  private PersistedCampaign persistedCampaign;
+
+  @Setup
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("campaign-benchmark").toFile();
+    saveFile = new File(directory, "save.cmpgn");
+    loadFile = new File(directory, "load.cmpgn");
+
+    persistedCampaign = new PersistedCampaign();
+    persistedCampaign.campaign = ZoneFixture.create(tokens, walls, lights).createCampaign();
+    write(loadFile);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(directory);
+  }
+
+  private void write(File file) throws IOException {
+    Files.deleteIfExists(file.toPath());
+    try (var pakFile = new PackedFile(file)) {
+      pakFile.setContent(persistedCampaign);
+      pakFile.setProperty(PersistenceUtil.PROP_VERSION, "benchmark");
+      pakFile.save();
+    }
+  }
+
+  @Benchmark
+  public File save() throws IOException {
+    write(saveFile);
+    return saveFile;
+  }
+
+  @Benchmark
+  public Object load() throws IOException {
+    try (var pakFile = new PackedFile(loadFile)) {
+      return pakFile.getContent();
+    }
+  }
+}
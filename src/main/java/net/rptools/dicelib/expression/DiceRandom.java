@@ -0,0 +1,116 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.dicelib.expression;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * The source of random numbers for dice rolls. The generator used for all rolls can be replaced
+ * with {@link RunData#setRandom(DiceRandom)}.
+ */
+public interface DiceRandom {
+
+  /**
+   * Returns a random integer between 0 (inclusive) and <code>bound</code> (exclusive).
+   *
+   * @param bound the upper bound, must be positive.
+   * @return the random integer.
+   */
+  int nextInt(int bound);
+
+  /**
+   * Fills an array with random integers between 0 (inclusive) and <code>bound</code> (exclusive).
+   *
+   * @param values the array to fill.
+   * @param bound the upper bound, must be positive.
+   */
+  default void nextInts(int[] values, int bound) {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = nextInt(bound);
+    }
+  }
+
+  /**
+   * Returns a random long, used to seed replayable rolls.
+   *
+   * @return the random long.
+   */
+  long nextLong();
+
+  /**
+   * Returns the default generator. Each thread rolls from its own fast generator, split from a root
+   * generator that is seeded from {@link java.security.SecureRandom}, so rolling on several threads
+   * does not contend on a shared generator.
+   *
+   * @return the default generator.
+   */
+  static DiceRandom threadLocal() {
+    return ThreadLocalDiceRandom.INSTANCE;
+  }
+
+  /**
+   * Returns a generator that produces the same rolls for the same seed. The rolls are the same as
+   * those of {@link Random} with the same seed.
+   *
+   * @param seed the seed.
+   * @return the seeded generator.
+   */
+  static DiceRandom seeded(long seed) {
+    return of(new Random(seed));
+  }
+
+  /**
+   * Returns a generator that rolls from the given {@link Random}.
+   *
+   * @param random the random number generator.
+   * @return the generator.
+   */
+  static DiceRandom of(Random random) {
+    return new DiceRandom() {
+      @Override
+      public int nextInt(int bound) {
+        return random.nextInt(bound);
+      }
+
+      @Override
+      public long nextLong() {
+        return random.nextLong();
+      }
+    };
+  }
+
+  /**
+   * Returns a generator for replaying the rolls of one evaluation. The generator is not thread
+   * safe.
+   *
+   * @param seed the seed recorded for the evaluation.
+   * @return the generator.
+   */
+  static DiceRandom replay(long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    return new DiceRandom() {
+      @Override
+      public int nextInt(int bound) {
+        return random.nextInt(bound);
+      }
+
+      @Override
+      public long nextLong() {
+        return random.nextLong();
+      }
+    };
+  }
+}
@@ -221,7 +221,16 @@ public class ExpressionParser {
         new String[] {"\\b[aA][nN][sS](\\d+)[bB]#([+-]?\\d+)\\b", "arsMagicaStressNum($1, $2)"},
       };
 
-  private final Parser parser;
+  /** The regular expression transforms applied to expressions before they are parsed. */
+  private final String[][] regexpTransforms;
+
+  /**
+   * The parser for each thread. The parser and its transformers hold state while parsing, so each
+   * thread that evaluates expressions gets its own parser instead of all threads sharing one behind
+   * a lock. Create an expression parser once and share it, as every instance has its own parsers
+   * and caches.
+   */
+  private final ThreadLocal<Parser> parsers = ThreadLocal.withInitial(this::newParser);
 
   private final List<Pair<Pattern, String>> preprocessPatterns =
       List.of(
@@ -233,9 +242,27 @@ public ExpressionParser() {
   }
 
   public ExpressionParser(String[][] regexpTransforms) {
+    this.regexpTransforms = regexpTransforms;
+  }
 
-    parser = createParser();
+  /**
+   * Creates and configures the parser for the calling thread.
+   *
+   * @return the new parser.
+   */
+  private Parser newParser() {
+    Parser parser = createParser();
+    configureParser(parser);
+    return parser;
+  }
 
+  /**
+   * Adds the functions and transformers to a newly created parser. Subclasses that add their own
+   * functions should override this and call the super method.
+   *
+   * @param parser the parser to configure.
+   */
+  protected void configureParser(Parser parser) {
     parser.addFunction(new CountSuccessDice());
     parser.addFunction(new DropRoll());
     parser.addFunction(new ExplodeDice());
@@ -272,8 +299,13 @@ protected Parser createParser() {
     return new Parser();
   }
 
+  /**
+   * Returns the parser used by the calling thread.
+   *
+   * @return the parser for the calling thread.
+   */
   public Parser getParser() {
-    return parser;
+    return parsers.get();
   }
 
   public Result evaluate(String expression) throws ParserException {
@@ -286,11 +318,60 @@ public Result evaluate(String expression, VariableResolver resolver) throws Pars
 
   public Result evaluate(String expression, VariableResolver resolver, boolean makeDeterministic)
       throws ParserException {
+    return evaluate(expression, resolver, makeDeterministic, null);
+  }
+
+  /**
+   * Evaluates an expression again, rolling the same values as an earlier evaluation that recorded a
+   * seed. See {@link RunData#setReplayable(boolean)}. The variables must have the same values as in
+   * the earlier evaluation for the rolls to match.
+   *
+   * @param recorded the result of the earlier evaluation.
+   * @param resolver the variable resolver.
+   * @return the result of the evaluation.
+   * @throws ParserException if the expression can not be evaluated.
+   * @throws IllegalArgumentException if the earlier evaluation did not record a seed.
+   */
+  public Result replay(Result recorded, VariableResolver resolver) throws ParserException {
+    if (recorded.getReplaySeed() == null) {
+      throw new IllegalArgumentException("No replay seed recorded for " + recorded.getExpression());
+    }
+    return replay(
+        recorded.getExpression(),
+        resolver,
+        recorded.isDeterministic(),
+        recorded.getReplaySeed().longValue());
+  }
+
+  /**
+   * Evaluates an expression again, rolling the same values as the evaluation that recorded the
+   * seed. See {@link RunData#setReplayable(boolean)}.
+   *
+   * @param expression the expression.
+   * @param resolver the variable resolver.
+   * @param makeDeterministic the value from {@link Result#isDeterministic()} of the earlier
+   *     evaluation.
+   * @param replaySeed the seed from {@link Result#getReplaySeed()} of the earlier evaluation.
+   * @return the result of the evaluation.
+   * @throws ParserException if the expression can not be evaluated.
+   */
+  public Result replay(
+      String expression, VariableResolver resolver, boolean makeDeterministic, long replaySeed)
+      throws ParserException {
+    return evaluate(expression, resolver, makeDeterministic, replaySeed);
+  }
+
+  private Result evaluate(
+      String expression, VariableResolver resolver, boolean makeDeterministic, Long replaySeed)
+      throws ParserException {
     Result ret = new Result(expression);
+    ret.setDeterministic(makeDeterministic);
     RunData oldData = RunData.hasCurrent() ? RunData.getCurrent() : null;
     try {
       RunData newRunData;
-      if (oldData != null) {
+      if (replaySeed != null) {
+        newRunData = new RunData(ret, replaySeed);
+      } else if (oldData != null) {
         newRunData = oldData.createChildRunData(ret);
       } else {
         newRunData = new RunData(ret);
@@ -300,15 +381,15 @@ public Result evaluate(String expression, VariableResolver resolver, boolean mak
       // Some patterns need pre-processing before the parser is called otherwise the parser
       // creation will fail
       expression = preProcess(expression);
-      synchronized (parser) {
-        final Expression xp =
-            makeDeterministic
-                ? parser.parseExpression(expression).getDeterministicExpression(resolver)
-                : parser.parseExpression(expression);
-        ret.setDetailExpression(() -> xp.format());
-        ret.setValue(xp.evaluate(resolver));
-        ret.setRolled(newRunData.getRolled());
-      }
+      Parser parser = getParser();
+      final Expression xp =
+          makeDeterministic
+              ? parser.parseExpression(expression).getDeterministicExpression(resolver)
+              : parser.parseExpression(expression);
+      ret.setDetailExpression(() -> xp.format());
+      ret.setValue(xp.evaluate(resolver));
+      ret.setRolled(newRunData.getRolledValues());
+      ret.setReplaySeed(newRunData.getReplaySeed());
     } finally {
       RunData.setCurrent(oldData);
     }
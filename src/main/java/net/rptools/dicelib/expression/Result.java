@@ -14,8 +14,6 @@
  */
 package net.rptools.dicelib.expression;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,7 +24,9 @@ public class Result {
   private Supplier<String> detailExpression;
   private Object value;
   private String description;
-  private List<Integer> rolled;
+  private int[] rolled = new int[0];
+  private Long replaySeed;
+  private boolean deterministic;
 
   private final Map<String, String> properties = new HashMap<String, String>();
 
@@ -67,11 +67,43 @@ public Map<String, String> getProperties() {
   }
 
   public void setRolled(List<Integer> rolls) {
-    rolled = new ArrayList<>(rolls);
+    rolled = rolls.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  public void setRolled(int[] rolls) {
+    rolled = rolls;
   }
 
   public List<Integer> getRolled() {
-    return Collections.unmodifiableList(rolled);
+    return RunData.asList(rolled);
+  }
+
+  /**
+   * Returns the seed to replay the rolls of the expression with, see {@link
+   * RunData#setReplayable(boolean)}.
+   *
+   * @return the seed, or {@code null} if the rolls can not be replayed.
+   */
+  public Long getReplaySeed() {
+    return replaySeed;
+  }
+
+  public void setReplaySeed(Long replaySeed) {
+    this.replaySeed = replaySeed;
+  }
+
+  /**
+   * Returns if the expression was made deterministic before it was evaluated, which has to match
+   * when the rolls are replayed.
+   *
+   * @return {@code true} if the expression was made deterministic.
+   */
+  public boolean isDeterministic() {
+    return deterministic;
+  }
+
+  public void setDeterministic(boolean deterministic) {
+    this.deterministic = deterministic;
   }
 
   public String format() {
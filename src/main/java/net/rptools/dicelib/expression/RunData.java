@@ -14,15 +14,20 @@
  */
 package net.rptools.dicelib.expression;
 
-import java.security.SecureRandom;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
+import java.util.RandomAccess;
 
 public class RunData {
   private static ThreadLocal<RunData> current = new ThreadLocal<RunData>();
-  public static Random RANDOM = new SecureRandom();
+
+  /** The generator used for all rolls that are not being replayed. */
+  private static volatile DiceRandom random = DiceRandom.threadLocal();
+
+  /** If each top level evaluation should roll from its own seed so that it can be replayed. */
+  private static volatile boolean replayable;
 
   private final Result result;
 
@@ -30,15 +35,37 @@ public class RunData {
   private long randomMax;
   private long randomMin;
 
-  /** Should not be modified directly. Use {@link #recordRolled(Integer)} */
-  private final List<Integer> rolled = new LinkedList<>();
+  /** Should not be modified directly. Use {@link #recordRolled(int)} */
+  private int[] rolled = new int[8];
+
+  private int rolledCount;
 
   private final RunData parent;
 
+  /** The generator for this evaluation, or {@code null} to use the global generator. */
+  private final DiceRandom replayRandom;
+
+  /** The seed of {@link #replayRandom}. */
+  private final long replaySeed;
+
   public RunData(Result result) {
     this(result, null);
   }
 
+  /**
+   * Constructor for a new RunData that rolls the same values as an earlier evaluation that recorded
+   * the given seed.
+   *
+   * @param result the result object
+   * @param replaySeed the seed recorded by the earlier evaluation, see {@link #getReplaySeed()}
+   */
+  public RunData(Result result, long replaySeed) {
+    this.result = result;
+    this.parent = null;
+    this.replaySeed = replaySeed;
+    this.replayRandom = DiceRandom.replay(replaySeed);
+  }
+
   /**
    * Constructor for a new RunData with a parent.
    *
@@ -48,6 +75,20 @@ public RunData(Result result) {
   RunData(Result result, RunData parent) {
     this.result = result;
     this.parent = parent;
+    if (parent != null) {
+      replaySeed = parent.replaySeed;
+      replayRandom = parent.replayRandom;
+    } else if (replayable) {
+      replaySeed = random.nextLong();
+      replayRandom = DiceRandom.replay(replaySeed);
+    } else {
+      replaySeed = 0;
+      replayRandom = null;
+    }
+  }
+
+  private DiceRandom getRandom() {
+    return replayRandom != null ? replayRandom : random;
   }
 
   /** Returns a random integer between 1 and <code>maxValue</code> */
@@ -57,11 +98,7 @@ public int randomInt(int maxValue) {
 
   /** Returns a list of random integers between 1 and <code>maxValue</code> */
   public int[] randomInts(int num, int maxValue) {
-    int[] ret = new int[num];
-    for (int i = 0; i < num; i++) {
-      ret[i] = randomInt(maxValue);
-    }
-    return ret;
+    return randomInts(num, 1, maxValue);
   }
 
   /** Returns a random integer between <code>minValue</code> and <code>maxValue</code> */
@@ -69,7 +106,7 @@ public int randomInt(int minValue, int maxValue) {
     randomMin += minValue;
     randomMax += maxValue;
 
-    int result = RANDOM.nextInt(maxValue - minValue + 1) + minValue;
+    int result = getRandom().nextInt(maxValue - minValue + 1) + minValue;
 
     recordRolled(result);
 
@@ -85,7 +122,18 @@ public int randomInt(int minValue, int maxValue) {
    */
   public int[] randomInts(int num, int minValue, int maxValue) {
     int[] ret = new int[num];
-    for (int i = 0; i < num; i++) ret[i] = randomInt(minValue, maxValue);
+    getRandom().nextInts(ret, maxValue - minValue + 1);
+    long total = 0;
+    for (int i = 0; i < num; i++) {
+      ret[i] += minValue;
+      total += ret[i];
+    }
+
+    randomMin += (long) minValue * num;
+    randomMax += (long) maxValue * num;
+    randomValue += total;
+    recordRolled(ret);
+
     return ret;
   }
 
@@ -109,10 +157,51 @@ public static void setCurrent(RunData data) {
     current.set(data);
   }
 
-  // If a seed is set we need to switch from SecureRandom to
-  // random.
+  /**
+   * Makes all following rolls predictable by rolling from a generator with the given seed. Used for
+   * testing.
+   *
+   * @param seed the seed.
+   */
   public static void setSeed(long seed) {
-    RANDOM = new Random(seed);
+    setRandom(DiceRandom.seeded(seed));
+  }
+
+  /**
+   * Sets the generator used for all rolls.
+   *
+   * @param diceRandom the generator, see {@link DiceRandom#threadLocal()} for the default.
+   */
+  public static void setRandom(DiceRandom diceRandom) {
+    random = diceRandom;
+  }
+
+  /**
+   * Sets if each top level evaluation rolls from its own recorded seed, so that a disputed roll can
+   * be replayed with {@link #RunData(Result, long)}.
+   *
+   * @param replayable {@code true} to record a seed for each evaluation.
+   */
+  public static void setReplayable(boolean replayable) {
+    RunData.replayable = replayable;
+  }
+
+  /**
+   * Returns if each top level evaluation rolls from its own recorded seed.
+   *
+   * @return {@code true} if the seed for each evaluation is recorded.
+   */
+  public static boolean isReplayable() {
+    return replayable;
+  }
+
+  /**
+   * Returns the seed the rolls of this evaluation were made from.
+   *
+   * @return the seed, or {@code null} if the rolls can not be replayed.
+   */
+  public Long getReplaySeed() {
+    return replayRandom != null ? replaySeed : null;
   }
 
   /**
@@ -120,9 +209,35 @@ public static void setSeed(long seed) {
    *
    * @param roll the new roll to record
    */
-  void recordRolled(Integer roll) {
+  void recordRolled(int roll) {
     if (parent != null) parent.recordRolled(roll);
-    rolled.add(roll);
+    if (rolledCount == rolled.length) {
+      rolled = Arrays.copyOf(rolled, rolledCount * 2);
+    }
+    rolled[rolledCount++] = roll;
+  }
+
+  /**
+   * Records several rolls, passing through to the parent RunData (if any)
+   *
+   * @param rolls the new rolls to record
+   */
+  void recordRolled(int[] rolls) {
+    if (parent != null) parent.recordRolled(rolls);
+    if (rolledCount + rolls.length > rolled.length) {
+      rolled = Arrays.copyOf(rolled, Math.max(rolledCount + rolls.length, rolledCount * 2));
+    }
+    System.arraycopy(rolls, 0, rolled, rolledCount, rolls.length);
+    rolledCount += rolls.length;
+  }
+
+  /**
+   * Gets the rolled integers, including rolls generated by any child instances
+   *
+   * @return the rolls, in order
+   */
+  public int[] getRolledValues() {
+    return Arrays.copyOf(rolled, rolledCount);
   }
 
   /**
@@ -131,7 +246,35 @@ void recordRolled(Integer roll) {
    * @return the list of rolls, in order
    */
   public List<Integer> getRolled() {
-    return Collections.unmodifiableList(rolled);
+    return asList(getRolledValues());
+  }
+
+  /**
+   * Returns an unmodifiable list view of an array of rolls.
+   *
+   * @param values the rolls.
+   * @return the list of rolls.
+   */
+  static List<Integer> asList(int[] values) {
+    return Collections.unmodifiableList(new IntList(values));
+  }
+
+  private static class IntList extends AbstractList<Integer> implements RandomAccess {
+    private final int[] values;
+
+    private IntList(int[] values) {
+      this.values = values;
+    }
+
+    @Override
+    public Integer get(int index) {
+      return values[index];
+    }
+
+    @Override
+    public int size() {
+      return values.length;
+    }
   }
 
   /**
@@ -0,0 +1,51 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.dicelib.expression;
+
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+
+/** The default dice generator, see {@link DiceRandom#threadLocal()}. */
+final class ThreadLocalDiceRandom implements DiceRandom {
+  static final ThreadLocalDiceRandom INSTANCE = new ThreadLocalDiceRandom();
+
+  private final SplittableRandom root = new SplittableRandom(new SecureRandom().nextLong());
+
+  private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(this::split);
+
+  private ThreadLocalDiceRandom() {}
+
+  private synchronized SplittableRandom split() {
+    return root.split();
+  }
+
+  @Override
+  public int nextInt(int bound) {
+    return random.get().nextInt(bound);
+  }
+
+  @Override
+  public void nextInts(int[] values, int bound) {
+    SplittableRandom r = random.get();
+    for (int i = 0; i < values.length; i++) {
+      values[i] = r.nextInt(bound);
+    }
+  }
+
+  @Override
+  public long nextLong() {
+    return random.get().nextLong();
+  }
+}
@@ -25,8 +25,8 @@ public static int rollDice(int times, int sides) {
 
     RunData runData = RunData.getCurrent();
 
-    for (int i = 0; i < times; i++) {
-      result += runData.randomInt(sides);
+    for (int value : runData.randomInts(times, sides)) {
+      result += value;
     }
 
     return result;
@@ -18,6 +18,7 @@
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import net.rptools.lib.telemetry.Telemetry;
 import net.rptools.maptool.client.AppState;
 import net.rptools.maptool.client.MapTool;
 
@@ -37,8 +38,10 @@ public static <Ex extends Exception> void using(String name, TimedSection<Ex> ca
     var stack = timerStack.get();
 
     var timer = new CodeTimer(name);
-    timer.setEnabled(AppState.isCollectProfilingData());
+    var profiling = AppState.isCollectProfilingData();
+    timer.setEnabled(profiling || Telemetry.isRecordingSections());
 
+    var start = System.nanoTime();
     stack.addLast(timer);
     try {
       callback.call(timer);
@@ -46,9 +49,13 @@ public static <Ex extends Exception> void using(String name, TimedSection<Ex> ca
       final var lastTimer = stack.removeLast();
       assert lastTimer == timer : "Timer stack is corrupted";
 
+      Telemetry.record(Telemetry.Category.SECTION, name, System.nanoTime() - start);
       if (timer.isEnabled()) {
-        String results = timer.toString();
-        MapTool.getProfilingNoteFrame().addText(results);
+        timer.timeMap.forEach((id, t) -> Telemetry.recordSection(name, id, t.getElapsed()));
+        if (profiling) {
+          String results = timer.toString();
+          MapTool.getProfilingNoteFrame().addText(results);
+        }
       }
       timer.clear();
     }
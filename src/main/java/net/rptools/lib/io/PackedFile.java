@@ -20,17 +20,20 @@
 import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.LineNumberReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
@@ -39,13 +42,16 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -55,6 +61,12 @@
 import net.rptools.maptool.model.Asset;
 import net.rptools.maptool.model.AssetManager;
 import net.rptools.maptool.model.GUID;
+import org.apache.commons.compress.archivers.zip.DefaultBackingStoreSupplier;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.InputStreamSupplier;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -108,6 +120,15 @@ public class PackedFile implements AutoCloseable {
   private static final String PROPERTY_FILE = "properties.xml";
   private static final String CONTENT_FILE = "content.xml";
 
+  /**
+   * Extensions of media that is already compressed. Deflating these again takes time and gains next
+   * to nothing, so they are stored as is.
+   */
+  private static final Set<String> COMPRESSED_EXTENSIONS =
+      Set.of(
+          "png", "jpg", "jpeg", "gif", "webp", "mp3", "m4a", "aac", "ogg", "oga", "opus", "flac",
+          "mp4", "m4v", "webm", "zip", "gz", "7z", "mtlib", "pdf");
+
   private static final Logger log = LogManager.getLogger(PackedFile.class);
 
   private static File tmpDir =
@@ -293,14 +314,25 @@ public void save() throws IOException {
         saveTimer -> {
           // Create the new file
           File newFile = new File(tmpDir, new GUID() + ".pak");
-          ZipOutputStream zout =
-              new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(newFile)));
-          zout.setLevel(Deflater.BEST_COMPRESSION); // fast compression
+          ZipArchiveOutputStream zout =
+              new ZipArchiveOutputStream(new BufferedOutputStream(new FileOutputStream(newFile)));
+          ExecutorService executor =
+              Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
           try {
+            // The changed entries are deflated in parallel, then written to the new file in the
+            // order they were added.
+            ParallelScatterZipCreator creator =
+                new ParallelScatterZipCreator(
+                    executor,
+                    new DefaultBackingStoreSupplier(tmpDir.toPath()),
+                    Deflater.BEST_COMPRESSION);
+
             saveTimer.start(CONTENT_FILE);
-            if (hasFile(CONTENT_FILE)) {
-              saveEntry(zout, CONTENT_FILE);
+            addedFileSet.remove(CONTENT_FILE);
+            boolean contentChanged = getExplodedFile(CONTENT_FILE).exists();
+            if (contentChanged) {
+              addEntry(creator, CONTENT_FILE);
             }
             saveTimer.stop(CONTENT_FILE);
 
@@ -308,41 +340,48 @@ public void save() throws IOException {
             if (getPropertyMap().isEmpty()) {
               removeFile(PROPERTY_FILE);
             } else {
-              zout.putNextEntry(new ZipEntry(PROPERTY_FILE));
-              xstream.toXML(getPropertyMap(), zout);
-              zout.closeEntry();
+              ByteArrayOutputStream properties = new ByteArrayOutputStream();
+              xstream.toXML(getPropertyMap(), properties);
+              addEntry(
+                  creator, PROPERTY_FILE, () -> new ByteArrayInputStream(properties.toByteArray()));
             }
             saveTimer.stop(PROPERTY_FILE);
 
             // Now put each file
             saveTimer.start("addFiles");
-            addedFileSet.remove(CONTENT_FILE);
             for (String path : addedFileSet) {
-              saveEntry(zout, path);
+              addEntry(creator, path);
+            }
+            try {
+              creator.writeTo(zout);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new InterruptedIOException("Interrupted while saving " + file);
+            } catch (ExecutionException e) {
+              Throwable cause = e.getCause();
+              if (cause instanceof UncheckedIOException uioe) {
+                cause = uioe.getCause();
+              }
+              if (cause instanceof IOException ioe) {
+                throw ioe;
+              }
+              throw new IOException("Unable to save " + file, cause);
             }
             saveTimer.stop("addFiles");
 
-            // Copy the rest of the zip entries over
+            // Copy the rest of the zip entries over as they are, without inflating them
             saveTimer.start("copyFiles");
             if (file.exists()) {
-              Enumeration<? extends ZipEntry> entries = zFile.entries();
-              while (entries.hasMoreElements()) {
-                ZipEntry entry = entries.nextElement();
-                if (!entry.isDirectory()
-                    && !addedFileSet.contains(entry.getName())
-                    && !removedFileSet.contains(entry.getName())
-                    && !CONTENT_FILE.equals(entry.getName())
-                    && !PROPERTY_FILE.equals(entry.getName())) {
-                  zout.putNextEntry(entry);
-                  try (InputStream is = getFileAsInputStream(entry.getName())) {
-                    // When copying, always use an InputStream
-                    IOUtils.copy(is, zout);
-                  }
-                  zout.closeEntry();
-                } else if (entry.isDirectory()) {
-                  zout.putNextEntry(entry);
-                  zout.closeEntry();
-                }
+              try (org.apache.commons.compress.archivers.zip.ZipFile source =
+                  org.apache.commons.compress.archivers.zip.ZipFile.builder().setFile(file).get()) {
+                source.copyRawEntries(
+                    zout,
+                    entry ->
+                        entry.isDirectory()
+                            || (!addedFileSet.contains(entry.getName())
+                                && !removedFileSet.contains(entry.getName())
+                                && !(contentChanged && CONTENT_FILE.equals(entry.getName()))
+                                && !PROPERTY_FILE.equals(entry.getName())));
               }
             }
             try {
@@ -354,7 +393,7 @@ public void save() throws IOException {
             saveTimer.stop("copyFiles");
 
             saveTimer.start("close");
-            IOUtils.closeQuietly(zout);
+            zout.close();
             zout = null;
             saveTimer.stop("close");
 
@@ -386,6 +425,7 @@ public void save() throws IOException {
             dirty = false;
           } finally {
             saveTimer.start("cleanup");
+            executor.shutdownNow();
             try {
               if (zFile != null) zFile.close();
             } catch (IOException e) {
@@ -398,13 +438,42 @@ public void save() throws IOException {
         });
   }
 
-  private void saveEntry(ZipOutputStream zout, String path) throws IOException {
-    zout.putNextEntry(new ZipEntry(path));
-    try (InputStream is = getFileAsInputStream(path)) {
-      // When copying, always use an InputStream
-      IOUtils.copy(is, zout);
-    }
-    zout.closeEntry();
+  /**
+   * Adds an entry for a changed file to be written by the creator, reading it from the exploded
+   * area.
+   *
+   * @param creator the creator writing the new zip file.
+   * @param path the path of the file.
+   */
+  private void addEntry(ParallelScatterZipCreator creator, String path) {
+    File explodedFile = getExplodedFile(path);
+    addEntry(
+        creator,
+        path,
+        () -> {
+          try {
+            return FileUtil.getFileAsInputStream(explodedFile);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+
+  /**
+   * Adds an entry to be written by the creator. Media that is already compressed is stored as is,
+   * everything else is deflated.
+   *
+   * @param creator the creator writing the new zip file.
+   * @param path the path of the entry.
+   * @param source supplies the content of the entry.
+   */
+  private static void addEntry(
+      ParallelScatterZipCreator creator, String path, InputStreamSupplier source) {
+    ZipArchiveEntry entry = new ZipArchiveEntry(path);
+    String extension = FilenameUtils.getExtension(path).toLowerCase(Locale.ROOT);
+    entry.setMethod(
+        COMPRESSED_EXTENSIONS.contains(extension) ? ZipEntry.STORED : ZipEntry.DEFLATED);
+    creator.addArchiveEntry(entry, source);
   }
 
   /**
@@ -0,0 +1,123 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.lib.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * A rolling histogram of durations or sizes. The most recent samples are kept in a ring buffer to
+ * compute percentiles over a recent window, while the count, total and maximum cover every sample
+ * since the histogram was created.
+ *
+ * <p>Histograms are safe to use from several threads.
+ */
+public final class Histogram {
+
+  /** The default number of recent samples kept for the percentiles. */
+  public static final int WINDOW_SIZE = 1024;
+
+  /**
+   * A point in time view of a histogram.
+   *
+   * @param count the number of samples since the histogram was created.
+   * @param total the sum of all the samples since the histogram was created.
+   * @param max the largest sample since the histogram was created.
+   * @param p50 the median of the recent samples.
+   * @param p90 the 90th percentile of the recent samples.
+   * @param p99 the 99th percentile of the recent samples.
+   */
+  public record Snapshot(long count, long total, long max, long p50, long p90, long p99) {
+
+    /**
+     * Returns the mean of all the samples.
+     *
+     * @return the mean, 0 if there are no samples.
+     */
+    public long mean() {
+      return count == 0 ? 0 : total / count;
+    }
+  }
+
+  private final long[] window;
+  private int next;
+  private long count;
+  private long total;
+  private long max;
+
+  /** Creates a histogram keeping the {@link #WINDOW_SIZE} most recent samples. */
+  public Histogram() {
+    this(WINDOW_SIZE);
+  }
+
+  /**
+   * Creates a histogram keeping the given number of recent samples for the percentiles.
+   *
+   * @param windowSize the number of recent samples to keep.
+   */
+  public Histogram(int windowSize) {
+    if (windowSize <= 0) {
+      throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+    }
+    window = new long[windowSize];
+  }
+
+  /**
+   * Adds a sample to the histogram.
+   *
+   * @param value the duration in nanoseconds or the size in bytes.
+   */
+  public synchronized void record(long value) {
+    window[next] = value;
+    next = (next + 1) % window.length;
+    count++;
+    total += value;
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Returns the current state of the histogram.
+   *
+   * @return the snapshot.
+   */
+  public Snapshot snapshot() {
+    long[] recent;
+    long count, total, max;
+    synchronized (this) {
+      recent = Arrays.copyOf(window, (int) Math.min(this.count, window.length));
+      count = this.count;
+      total = this.total;
+      max = this.max;
+    }
+    Arrays.sort(recent);
+    return new Snapshot(
+        count, total, max, percentile(recent, 50), percentile(recent, 90), percentile(recent, 99));
+  }
+
+  /** Discards all the samples. */
+  public synchronized void clear() {
+    next = 0;
+    count = 0;
+    total = 0;
+    max = 0;
+  }
+
+  private static long percentile(long[] sorted, int percent) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, index)];
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.lib.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** Flight Recorder event for a message sent to or received from the other end of a connection. */
+@Name("net.rptools.maptool.NetworkMessage")
+@Label("Network Message")
+@Description("A message sent or received, with the time taken to send or handle it")
+@Category("MapTool")
+@StackTrace(false)
+final class MessageEvent extends Event {
+
+  @Label("Message Type")
+  String type;
+
+  @Label("Outgoing")
+  boolean outgoing;
+
+  @Label("Size")
+  @DataAmount
+  int size;
+
+  @Label("Processing Time")
+  @Description(
+      "Time to serialize, compress and queue a sent message, or from receiving a message until it"
+          + " has been handled")
+  @Timespan
+  long processingTime;
+
+  MessageEvent(String type, boolean outgoing, int size, long processingTime) {
+    this.type = type;
+    this.outgoing = outgoing;
+    this.size = size;
+    this.processingTime = processingTime;
+  }
+}
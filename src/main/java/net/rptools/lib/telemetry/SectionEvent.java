@@ -0,0 +1,51 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.lib.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one section of a {@link net.rptools.lib.CodeTimer}, such as a phase of
+ * rendering a map. The sections are only measured while this event or profiling is enabled.
+ */
+@Name("net.rptools.maptool.TimedSection")
+@Label("Timed Section")
+@Description("Time spent in one section of a timed operation, such as a render phase")
+@Category("MapTool")
+@StackTrace(false)
+final class SectionEvent extends Event {
+
+  @Label("Timer")
+  String timer;
+
+  @Label("Section")
+  String section;
+
+  @Label("Elapsed")
+  @Timespan
+  long elapsed;
+
+  SectionEvent(String timer, String section, long elapsed) {
+    this.timer = timer;
+    this.section = section;
+    this.elapsed = elapsed;
+  }
+}
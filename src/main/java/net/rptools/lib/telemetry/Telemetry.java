@@ -0,0 +1,314 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.lib.telemetry;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import net.rptools.clientserver.simple.connection.AbstractConnection;
+
+/**
+ * Performance telemetry for a MapTool session.
+ *
+ * <p>Timed sections, vision solves, macro runs, network messages, message compression and asset
+ * loads are reported here. Each one is emitted as a Flight Recorder event, so a recording started
+ * with {@code -XX:StartFlightRecording} or {@code jcmd} captures them, and is added to a rolling
+ * {@link Histogram} kept in memory for the rest of the session. {@link #writeSummary(Writer)}
+ * reports the histograms, so the figures of a slow session can be collected without a profiler.
+ *
+ * <p>Recording a sample is cheap enough to leave on at all times.
+ */
+public final class Telemetry {
+
+  /** The kinds of operation that are measured. */
+  public enum Category {
+    SECTION("Timed sections", null),
+    VISION("Vision solves", VisionSolveEvent::new),
+    MACRO("Macro runs", MacroEvent::new),
+    MESSAGE_SENT("Messages sent", null),
+    MESSAGE_RECEIVED("Messages received", null),
+    COMPRESSION("Message compression", null),
+    ASSET("Asset loads", AssetLoadEvent::new);
+
+    private final String displayName;
+    private final Function<String, Event> eventFactory;
+
+    Category(String displayName, Function<String, Event> eventFactory) {
+      this.displayName = displayName;
+      this.eventFactory = eventFactory;
+    }
+
+    /**
+     * Returns the name of the category used in the summary.
+     *
+     * @return the name of the category.
+     */
+    public String getDisplayName() {
+      return displayName;
+    }
+  }
+
+  /**
+   * A running measurement of an operation, from {@link #start(Category, String)}. Closing it
+   * records the elapsed time.
+   */
+  public static final class Span implements AutoCloseable {
+    private final Category category;
+    private final String name;
+    private final Event event;
+    private final long start = System.nanoTime();
+
+    private Span(Category category, String name) {
+      this.category = category;
+      this.name = name;
+      this.event = category.eventFactory == null ? null : category.eventFactory.apply(name);
+      if (event != null) {
+        event.begin();
+      }
+    }
+
+    @Override
+    public void close() {
+      if (event != null) {
+        event.commit();
+      }
+      record(category, name, System.nanoTime() - start);
+    }
+  }
+
+  /** The most histograms kept, samples for later names are recorded under {@link #OTHER}. */
+  private static final int MAX_HISTOGRAMS = 2000;
+
+  /** The name samples are recorded under once there are too many histograms. */
+  static final String OTHER = "(other)";
+
+  private record Key(Category category, String name) {}
+
+  private static final EventType SECTION_EVENT_TYPE = EventType.getEventType(SectionEvent.class);
+
+  private static final Map<Key, Histogram> durations = new ConcurrentHashMap<>();
+  private static final Map<Key, Histogram> sizes = new ConcurrentHashMap<>();
+  private static final Map<Key, Histogram> compressedSizes = new ConcurrentHashMap<>();
+
+  private static volatile Instant sessionStart = Instant.now();
+
+  static {
+    // The connections emit their own Flight Recorder events, only the histograms are kept here.
+    AbstractConnection.addCompressionListener(Telemetry::recordCompression);
+  }
+
+  private Telemetry() {}
+
+  /**
+   * Starts measuring an operation. Use it in a try-with-resources statement so the measurement ends
+   * when the operation does.
+   *
+   * @param category the kind of operation.
+   * @param name what is operated on, for example the name of the macro.
+   * @return the running measurement.
+   */
+  public static Span start(Category category, String name) {
+    return new Span(category, name);
+  }
+
+  /**
+   * Records how long an operation took.
+   *
+   * @param category the kind of operation.
+   * @param name what was operated on.
+   * @param nanos the time taken in nanoseconds.
+   */
+  public static void record(Category category, String name, long nanos) {
+    histogram(durations, category, name).record(nanos);
+  }
+
+  /**
+   * Records one section of a {@link net.rptools.lib.CodeTimer}.
+   *
+   * @param timer the name of the timer.
+   * @param section the id of the section.
+   * @param nanos the time spent in the section in nanoseconds.
+   */
+  public static void recordSection(String timer, String section, long nanos) {
+    var event = new SectionEvent(timer, section, nanos);
+    if (event.shouldCommit()) {
+      event.commit();
+    }
+    record(Category.SECTION, timer + " / " + section, nanos);
+  }
+
+  /**
+   * Returns if the sections of timed operations should be measured for Flight Recorder.
+   *
+   * @return {@code true} if a recording with section events is running.
+   */
+  public static boolean isRecordingSections() {
+    return SECTION_EVENT_TYPE.isEnabled();
+  }
+
+  /**
+   * Records a message sent to or received from the other end of a connection.
+   *
+   * @param outgoing {@code true} if the message was sent, {@code false} if it was received.
+   * @param type the type of the message.
+   * @param size the size of the message in bytes.
+   * @param nanos the time taken to send the message, or from receiving the message until it has
+   *     been handled, in nanoseconds.
+   */
+  public static void recordMessage(boolean outgoing, String type, int size, long nanos) {
+    var event = new MessageEvent(type, outgoing, size, nanos);
+    if (event.shouldCommit()) {
+      event.commit();
+    }
+    var category = outgoing ? Category.MESSAGE_SENT : Category.MESSAGE_RECEIVED;
+    record(category, type, nanos);
+    histogram(sizes, category, type).record(size);
+  }
+
+  /**
+   * Records a message compressed before it was sent or decompressed after it was received.
+   *
+   * @param compressing {@code true} if the message was compressed, {@code false} if it was
+   *     decompressed.
+   * @param size the size of the message in bytes.
+   * @param compressedSize the compressed size of the message in bytes.
+   * @param nanos the time taken in nanoseconds.
+   */
+  public static void recordCompression(
+      boolean compressing, int size, int compressedSize, long nanos) {
+    var name = compressing ? "compress" : "decompress";
+    record(Category.COMPRESSION, name, nanos);
+    histogram(sizes, Category.COMPRESSION, name).record(size);
+    histogram(compressedSizes, Category.COMPRESSION, name).record(compressedSize);
+  }
+
+  /**
+   * Returns the current state of a histogram.
+   *
+   * @param category the kind of operation.
+   * @param name what was operated on.
+   * @return the histogram snapshot, {@code null} if nothing was recorded under the name.
+   */
+  public static Histogram.Snapshot getSnapshot(Category category, String name) {
+    var histogram = durations.get(new Key(category, name));
+    return histogram == null ? null : histogram.snapshot();
+  }
+
+  /** Discards everything recorded so far and starts a new session. */
+  public static void reset() {
+    durations.clear();
+    sizes.clear();
+    compressedSizes.clear();
+    sessionStart = Instant.now();
+  }
+
+  /**
+   * Writes a summary of everything recorded in this session. Each category lists its operations
+   * with the most total time first.
+   *
+   * @param writer where to write the summary.
+   */
+  public static void writeSummary(Writer writer) {
+    var out = new PrintWriter(writer);
+    var now = Instant.now();
+    out.printf(
+        "MapTool telemetry from %s to %s (%s)%n",
+        sessionStart, now, Duration.between(sessionStart, now).withNanos(0));
+
+    for (var category : Category.values()) {
+      var entries =
+          durations.entrySet().stream()
+              .filter(e -> e.getKey().category() == category)
+              .map(e -> Map.entry(e.getKey(), e.getValue().snapshot()))
+              .sorted(
+                  Comparator.comparingLong(
+                          (Map.Entry<Key, Histogram.Snapshot> e) -> e.getValue().total())
+                      .reversed())
+              .toList();
+      if (entries.isEmpty()) {
+        continue;
+      }
+
+      out.printf("%n%s%n", category.getDisplayName());
+      out.printf(
+          "  %10s %10s %10s %10s %10s %10s %10s  %s%n",
+          "count", "total ms", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms", "name");
+      for (var entry : entries) {
+        var snapshot = entry.getValue();
+        out.printf(
+            "  %10d %10.1f %10.3f %10.3f %10.3f %10.3f %10.3f  %s",
+            snapshot.count(),
+            millis(snapshot.total()),
+            millis(snapshot.mean()),
+            millis(snapshot.p50()),
+            millis(snapshot.p90()),
+            millis(snapshot.p99()),
+            millis(snapshot.max()),
+            entry.getKey().name());
+        var size = sizes.get(entry.getKey());
+        if (size != null) {
+          var sizeSnapshot = size.snapshot();
+          out.printf(
+              " (%d bytes total, %d mean, %d max",
+              sizeSnapshot.total(), sizeSnapshot.mean(), sizeSnapshot.max());
+          var compressedSize = compressedSizes.get(entry.getKey());
+          if (compressedSize != null) {
+            out.printf(", %d bytes compressed", compressedSize.snapshot().total());
+          }
+          out.print(")");
+        }
+        out.println();
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Returns a summary of everything recorded in this session.
+   *
+   * @return the summary.
+   * @see #writeSummary(Writer)
+   */
+  public static String getSummary() {
+    var writer = new StringWriter();
+    writeSummary(writer);
+    return writer.toString();
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  private static Histogram histogram(
+      Map<Key, Histogram> histograms, Category category, String name) {
+    var histogram = histograms.get(new Key(category, name));
+    if (histogram != null) {
+      return histogram;
+    }
+    // Macro and token names come from the campaign, so bound how many are kept.
+    if (histograms.size() >= MAX_HISTOGRAMS) {
+      name = OTHER;
+    }
+    return histograms.computeIfAbsent(new Key(category, name), k -> new Histogram());
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.lib.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight Recorder event for the area seen by a token or lit by a light being calculated. */
+@Name("net.rptools.maptool.VisionSolve")
+@Label("Vision Solve")
+@Description("Calculation of the area a token can see or a light source can reach")
+@Category("MapTool")
+@StackTrace(false)
+final class VisionSolveEvent extends Event {
+
+  @Label("Source")
+  @Description("What the area is calculated for: sight, light or aura")
+  String source;
+
+  VisionSolveEvent(String source) {
+    this.source = source;
+  }
+}
@@ -23,6 +23,7 @@
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -40,6 +41,7 @@
 import javax.swing.text.BadLocationException;
 import net.rptools.lib.FileUtil;
 import net.rptools.lib.MD5Key;
+import net.rptools.lib.telemetry.Telemetry;
 import net.rptools.maptool.client.swing.SwingUtil;
 import net.rptools.maptool.client.tool.boardtool.BoardTool;
 import net.rptools.maptool.client.tool.gridtool.GridTool;
@@ -69,6 +71,7 @@
 import net.rptools.maptool.client.ui.zone.FogUtil;
 import net.rptools.maptool.client.ui.zone.renderer.ZoneRenderer;
 import net.rptools.maptool.client.utilities.DungeonDraftImporter;
+import net.rptools.maptool.events.MapToolEventBus;
 import net.rptools.maptool.language.I18N;
 import net.rptools.maptool.model.*;
 import net.rptools.maptool.model.Zone.Layer;
@@ -1078,8 +1081,6 @@ private static void pasteTokens(ZonePoint destination, Layer layer) {
       snapToGrid |= origToken.isSnapToGrid();
     }
     boolean newZoneSupportsSnapToGrid = grid.getCapabilities().isSnapToGridSupported();
-    boolean gridCopiedFromSupportsSnapToGrid =
-        gridCopiedFrom.getCapabilities().isSnapToGridSupported();
     if (snapToGrid && newZoneSupportsSnapToGrid) {
       CellPoint cellPoint = grid.convert(destination);
       destination = grid.convert(cellPoint);
@@ -1099,75 +1100,17 @@ private static void pasteTokens(ZonePoint destination, Layer layer) {
     tokenList.sort(Token.COMPARE_BY_ZORDER);
     List<String> failedPaste = new ArrayList<String>(tokenList.size());
 
-    for (Token origToken : tokenList) {
-      Token token = new Token(origToken, keepIdsOnPaste); // keep id if first paste since cut
-
-      // need this here to get around times when a token is copied and pasted into the
-      // same zone, such as a framework "template"
-      if (allTokensSet != null && allTokensSet.contains(token.getExposedAreaGUID())) {
-        GUID guid = new GUID();
-        token.setExposedAreaGUID(guid);
-        ExposedAreaMetaData meta = zone.getExposedAreaMetaData(guid);
-        // 'meta' references the object already stored in the zone's HashMap (it was created if
-        // necessary).
-        meta.addToExposedAreaHistory(meta.getExposedAreaHistory());
-        MapTool.serverCommand()
-            .updateExposedAreaMeta(zone.getId(), token.getExposedAreaGUID(), meta);
-      }
-
-      ZonePoint tokenOffset;
-      if (newZoneSupportsSnapToGrid && gridCopiedFromSupportsSnapToGrid && token.isSnapToGrid()) {
-        // Convert (x,y) offset to a cell offset using the grid from the zone where the tokens were
-        // copied from. Note that the token coordinates are relative to the "top-left" token's
-        // position, so they can't be used as a ZonePoint without first adding back the grid offset.
-        CellPoint cp =
-            gridCopiedFrom.convert(
-                new ZonePoint(
-                    token.getX() + gridCopiedFrom.getOffsetX(),
-                    token.getY() + gridCopiedFrom.getOffsetY()));
-        ZonePoint zp = grid.convert(cp);
-        tokenOffset = new ZonePoint(zp.x - grid.getOffsetX(), zp.y - grid.getOffsetY());
-      } else {
-        // For gridless sources, gridless destinations, or tokens that are not SnapToGrid: just use
-        // the pixel offsets
-        tokenOffset = new ZonePoint(token.getX(), token.getY());
-      }
-      token.setX(tokenOffset.x + destination.x);
-      token.setY(tokenOffset.y + destination.y);
-
-      // paste into correct layer
-      token.setLayer(layer);
-
-      // check the token's name and change it, if necessary
-      // XXX Merge this with the drag/drop code in ZoneRenderer.addTokens().
-      boolean tokenNeedsNewName = false;
-      if (MapTool.getPlayer().isGM()) {
-        // For GMs, only change the name of NPCs. It's possible that we should be changing the name
-        // of PCs as well
-        // since macros don't work properly when multiple tokens have the same name, but if we
-        // changed it without
-        // asking it could be seriously confusing. Yet we don't want to popup a confirmation every
-        // time the GM pastes either. :(
-        tokenNeedsNewName = token.getType() != Token.Type.PC;
-      } else {
-        // For Players, check to see if the name is already in use. If it is already in use, make
-        // sure the current Player
-        // owns the token being duplicated (to avoid subtle ways of manipulating someone else's
-        // token!).
-        Token tokenNameUsed = zone.getTokenByName(token.getName());
-        if (tokenNameUsed != null) {
-          if (!AppUtil.playerOwns(tokenNameUsed)) {
-            failedPaste.add(token.getName());
-            continue;
-          }
-          tokenNeedsNewName = true;
+    // Post the zone events of the pasted tokens together.
+    var eventBus = new MapToolEventBus();
+    eventBus.beginBatch();
+    try {
+      for (Token origToken : tokenList) {
+        if (!pasteToken(origToken, zone, allTokensSet, destination, layer)) {
+          failedPaste.add(origToken.getName());
         }
       }
-      if (tokenNeedsNewName) {
-        String newName = MapToolUtil.nextTokenId(zone, token, true);
-        token.setName(newName);
-      }
-      MapTool.serverCommand().putToken(zone.getId(), token);
+    } finally {
+      eventBus.endBatch();
     }
     if (!failedPaste.isEmpty()) {
       String mesg = I18N.getText("Token.error.unableToPaste", failedPaste);
@@ -1176,6 +1119,94 @@ private static void pasteTokens(ZonePoint destination, Layer layer) {
     }
   }
 
+  /**
+   * Pastes a copy of one token from {@link #tokenCopySet}, see {@link #pasteTokens(ZonePoint,
+   * Layer)}.
+   *
+   * @param origToken the copied token.
+   * @param zone the zone to paste into.
+   * @param allTokensSet the exposed area GUIDs of the tokens in the zone, or {@code null} if it has
+   *     none.
+   * @param destination the ZonePoint to paste at.
+   * @param layer the layer to paste onto.
+   * @return {@code false} if the token can't be pasted as its name is used by a token the player
+   *     doesn't own.
+   */
+  private static boolean pasteToken(
+      Token origToken, Zone zone, Set<GUID> allTokensSet, ZonePoint destination, Layer layer) {
+    Grid grid = zone.getGrid();
+    boolean newZoneSupportsSnapToGrid = grid.getCapabilities().isSnapToGridSupported();
+    boolean gridCopiedFromSupportsSnapToGrid =
+        gridCopiedFrom.getCapabilities().isSnapToGridSupported();
+    Token token = new Token(origToken, keepIdsOnPaste); // keep id if first paste since cut
+
+    // need this here to get around times when a token is copied and pasted into the
+    // same zone, such as a framework "template"
+    if (allTokensSet != null && allTokensSet.contains(token.getExposedAreaGUID())) {
+      GUID guid = new GUID();
+      token.setExposedAreaGUID(guid);
+      ExposedAreaMetaData meta = zone.getExposedAreaMetaData(guid);
+      // 'meta' references the object already stored in the zone's HashMap (it was created if
+      // necessary).
+      meta.addToExposedAreaHistory(meta.getExposedAreaHistory());
+      MapTool.serverCommand().updateExposedAreaMeta(zone.getId(), token.getExposedAreaGUID(), meta);
+    }
+
+    ZonePoint tokenOffset;
+    if (newZoneSupportsSnapToGrid && gridCopiedFromSupportsSnapToGrid && token.isSnapToGrid()) {
+      // Convert (x,y) offset to a cell offset using the grid from the zone where the tokens were
+      // copied from. Note that the token coordinates are relative to the "top-left" token's
+      // position, so they can't be used as a ZonePoint without first adding back the grid offset.
+      CellPoint cp =
+          gridCopiedFrom.convert(
+              new ZonePoint(
+                  token.getX() + gridCopiedFrom.getOffsetX(),
+                  token.getY() + gridCopiedFrom.getOffsetY()));
+      ZonePoint zp = grid.convert(cp);
+      tokenOffset = new ZonePoint(zp.x - grid.getOffsetX(), zp.y - grid.getOffsetY());
+    } else {
+      // For gridless sources, gridless destinations, or tokens that are not SnapToGrid: just use
+      // the pixel offsets
+      tokenOffset = new ZonePoint(token.getX(), token.getY());
+    }
+    token.setX(tokenOffset.x + destination.x);
+    token.setY(tokenOffset.y + destination.y);
+
+    // paste into correct layer
+    token.setLayer(layer);
+
+    // check the token's name and change it, if necessary
+    // XXX Merge this with the drag/drop code in ZoneRenderer.addTokens().
+    boolean tokenNeedsNewName = false;
+    if (MapTool.getPlayer().isGM()) {
+      // For GMs, only change the name of NPCs. It's possible that we should be changing the name
+      // of PCs as well
+      // since macros don't work properly when multiple tokens have the same name, but if we
+      // changed it without
+      // asking it could be seriously confusing. Yet we don't want to popup a confirmation every
+      // time the GM pastes either. :(
+      tokenNeedsNewName = token.getType() != Token.Type.PC;
+    } else {
+      // For Players, check to see if the name is already in use. If it is already in use, make
+      // sure the current Player
+      // owns the token being duplicated (to avoid subtle ways of manipulating someone else's
+      // token!).
+      Token tokenNameUsed = zone.getTokenByName(token.getName());
+      if (tokenNameUsed != null) {
+        if (!AppUtil.playerOwns(tokenNameUsed)) {
+          return false;
+        }
+        tokenNeedsNewName = true;
+      }
+    }
+    if (tokenNeedsNewName) {
+      String newName = MapToolUtil.nextTokenId(zone, token, true);
+      token.setName(newName);
+    }
+    MapTool.serverCommand().putToken(zone.getId(), token);
+    return true;
+  }
+
   public static final Action REMOVE_ASSET_ROOT =
       new DefaultClientAction() {
         {
@@ -1386,6 +1417,41 @@ protected void executeAction() {
         }
       };
 
+  /** Saves the {@link Telemetry} summary of this session to a text file. */
+  public static final Action EXPORT_PERFORMANCE_SUMMARY =
+      new DefaultClientAction() {
+        {
+          init("action.exportPerformanceSummary");
+        }
+
+        @Override
+        protected void executeAction() {
+          JFileChooser chooser = MapTool.getFrame().getSaveFileChooser();
+          chooser.setDialogTitle(I18N.getText("msg.title.exportPerformanceSummary"));
+          chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+          chooser.setSelectedFile(
+              new File(
+                  chooser.getCurrentDirectory(),
+                  "telemetry-"
+                      + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+                      + ".txt"));
+
+          if (chooser.showSaveDialog(MapTool.getFrame()) != JFileChooser.APPROVE_OPTION) {
+            return;
+          }
+          File saveFile = chooser.getSelectedFile();
+          if (saveFile.exists() && !MapTool.confirm("msg.confirm.fileExists")) {
+            return;
+          }
+
+          try (Writer writer = new FileWriter(saveFile, StandardCharsets.UTF_8)) {
+            Telemetry.writeSummary(writer);
+          } catch (IOException ioe) {
+            MapTool.showError("msg.error.failedExportingPerformanceSummary", ioe);
+          }
+        }
+      };
+
   public static final Action TOGGLE_LOG_CONSOLE =
       new DefaultClientAction() {
         {
@@ -14,7 +14,6 @@
  */
 package net.rptools.maptool.client;
 
-import java.awt.EventQueue;
 import java.awt.Point;
 import java.awt.geom.Area;
 import java.io.IOException;
@@ -27,6 +26,7 @@
 import javax.swing.SwingUtilities;
 import net.rptools.clientserver.simple.MessageHandler;
 import net.rptools.lib.MD5Key;
+import net.rptools.lib.telemetry.Telemetry;
 import net.rptools.maptool.client.events.PlayerStatusChanged;
 import net.rptools.maptool.client.functions.ExecFunction;
 import net.rptools.maptool.client.functions.MacroLinkFunction;
@@ -68,6 +68,7 @@
 import net.rptools.maptool.model.zones.TokensRemoved;
 import net.rptools.maptool.model.zones.ZoneAdded;
 import net.rptools.maptool.model.zones.ZoneRemoved;
+import net.rptools.maptool.server.AreaSync;
 import net.rptools.maptool.server.Mapper;
 import net.rptools.maptool.server.ServerMessageHandler;
 import net.rptools.maptool.server.ServerPolicy;
@@ -89,6 +90,19 @@ public class ClientMessageHandler implements MessageHandler {
 
   private final MapToolClient client;
 
+  /** The updates to apply on the EDT. */
+  private final ClientUpdateQueue updates = new ClientUpdateQueue();
+
+  /**
+   * The key of an update that replaces any earlier update with the same key that has not been
+   * applied yet, see {@link ClientUpdateQueue#submit(Object, Runnable)}.
+   *
+   * @param kind what is updated.
+   * @param zoneGuid the zone the update is for, or empty.
+   * @param id the id of the updated object within the zone.
+   */
+  private record UpdateKey(String kind, String zoneGuid, String id) {}
+
   public ClientMessageHandler(MapToolClient client) {
     this.client = client;
   }
@@ -96,6 +110,7 @@ public ClientMessageHandler(MapToolClient client) {
   @Override
   public void handleMessage(String id, byte[] message) {
     try {
+      var start = System.nanoTime();
       var msg = Message.parseFrom(message);
       var msgType = msg.getMessageTypeCase();
       log.debug("{} got: {}", id, msgType);
@@ -152,6 +167,7 @@ public void handleMessage(String id, byte[] message) {
         case REMOVE_DATA_STORE_MSG -> handle(msg.getRemoveDataStoreMsg());
         case REMOVE_DATA_NAMESPACE_MSG -> handle(msg.getRemoveDataNamespaceMsg());
         case REMOVE_DATA_MSG -> handle(msg.getRemoveDataMsg());
+        case DATA_UPDATE_BATCH_MSG -> handle(msg.getDataUpdateBatchMsg());
         case UPDATE_TOKEN_PROPERTY_MSG -> handle(msg.getUpdateTokenPropertyMsg());
         case UPDATE_DRAWING_MSG -> handle(msg.getUpdateDrawingMsg());
         case UNDO_DRAW_MSG -> handle(msg.getUndoDrawMsg());
@@ -169,16 +185,41 @@ public void handleMessage(String id, byte[] message) {
         case UPDATE_EXPOSED_AREA_META_MSG -> handle(msg.getUpdateExposedAreaMetaMsg());
         case UPDATE_TOKEN_MOVE_MSG -> handle(msg.getUpdateTokenMoveMsg());
         case UPDATE_PLAYER_STATUS_MSG -> handle(msg.getUpdatePlayerStatusMsg());
+        case TOKEN_UPDATE_BATCH_MSG -> handle(msg.getTokenUpdateBatchMsg());
+        case AREA_DELTA_MSG -> handle(msg.getAreaDeltaMsg());
+        case AREA_SYNC_MSG -> handle(msg.getAreaSyncMsg());
         default -> log.warn(msgType + "not handled.");
       }
+      if (msg.getZoneVersionsCount() > 0) {
+        // Queued after the update itself so a version is never recorded before its change.
+        updates.submit(() -> recordZoneVersions(msg));
+      }
       log.debug(id + " handled: " + msgType);
+      // Queued after the updates of the message, so it runs once they have been applied or
+      // replaced by the updates of a later message.
+      updates.submit(
+          () ->
+              Telemetry.recordMessage(
+                  false, msgType.name(), message.length, System.nanoTime() - start));
     } catch (Exception e) {
       log.error(e);
     }
   }
 
+  private void recordZoneVersions(Message msg) {
+    var zoneVersions = client.getZoneVersions();
+    if (msg.getMessageTypeCase() == Message.MessageTypeCase.PUT_ZONE_MSG) {
+      // The whole zone was replaced, so any change of our own is gone.
+      msg.getZoneVersionsMap()
+          .forEach((zoneId, version) -> zoneVersions.set(GUID.valueOf(zoneId), version));
+    } else {
+      zoneVersions.update(msg.getZoneVersionsMap());
+    }
+  }
+
   private void handle(UpdateTokenMoveMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
+        new UpdateKey("tokenMove", msg.getZoneGuid(), msg.getKeyTokenId()),
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var keyToken = GUID.valueOf(msg.getKeyTokenId());
@@ -190,18 +231,59 @@ private void handle(UpdateTokenMoveMsg msg) {
   }
 
   private void handle(UpdateExposedAreaMetaMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
+        new UpdateKey(
+            "exposedAreaMeta",
+            msg.getZoneGuid(),
+            msg.hasTokenGuid() ? msg.getTokenGuid().getValue() : ""),
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var tokenGUID = msg.hasTokenGuid() ? GUID.valueOf(msg.getTokenGuid().getValue()) : null;
           ExposedAreaMetaData meta = new ExposedAreaMetaData(Mapper.map(msg.getArea()));
+          meta.setVersion(msg.getVersion());
           var zone = client.getCampaign().getZone(zoneGUID);
           zone.setExposedAreaMetaData(tokenGUID, meta);
         });
   }
 
+  private void handle(AreaDeltaMsg msg) {
+    updates.submit(
+        () -> {
+          var zoneGUID = GUID.valueOf(msg.getZoneGuid());
+          var zone = client.getCampaign().getZone(zoneGUID);
+          if (zone == null) {
+            return;
+          }
+          if (!AreaSync.apply(zone, msg)) {
+            // A change was missed or made concurrently, so fetch the whole area again.
+            client.getServerCommand().requestAreaSync(zoneGUID, msg.getTarget());
+          }
+          repaintZone(zoneGUID);
+        });
+  }
+
+  private void handle(AreaSyncMsg msg) {
+    updates.submit(
+        () -> {
+          var zoneGUID = GUID.valueOf(msg.getZoneGuid());
+          var zone = client.getCampaign().getZone(zoneGUID);
+          if (zone == null) {
+            return;
+          }
+          AreaSync.apply(zone, msg);
+          repaintZone(zoneGUID);
+        });
+  }
+
+  private void repaintZone(GUID zoneGUID) {
+    var renderer = MapTool.getFrame().getZoneRenderer(zoneGUID);
+    if (renderer != null) {
+      renderer.repaint();
+    }
+  }
+
   private void handle(UpdateGmMacrosMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var macros =
               msg.getMacrosList().stream()
@@ -213,7 +295,7 @@ private void handle(UpdateGmMacrosMsg msg) {
   }
 
   private void handle(UpdateCampaignMacrosMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var macros =
               msg.getMacrosList().stream()
@@ -225,7 +307,7 @@ private void handle(UpdateCampaignMacrosMsg msg) {
   }
 
   private void handle(UpdateTokenInitiativeMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var tokenGUID = GUID.valueOf(msg.getTokenGuid());
@@ -246,7 +328,7 @@ private void handle(UpdateTokenInitiativeMsg msg) {
   }
 
   private void handle(UpdateInitiativeMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           if (msg.hasList()) {
             InitiativeList list = InitiativeList.fromDto(msg.getList());
@@ -262,7 +344,7 @@ private void handle(UpdateInitiativeMsg msg) {
   }
 
   private void handle(UpdateCampaignMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           CampaignProperties properties = CampaignProperties.fromDto(msg.getProperties());
 
@@ -286,7 +368,7 @@ private void handle(UpdateCampaignMsg msg) {
   }
 
   private void handle(SetServerPolicyMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           ServerPolicy policy = ServerPolicy.fromDto(msg.getPolicy());
           client.setServerPolicy(policy);
@@ -295,7 +377,7 @@ private void handle(SetServerPolicyMsg msg) {
   }
 
   private void handle(ToggleTokenMoveWaypointMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var keyToken = GUID.valueOf(msg.getKeyTokenId());
@@ -307,7 +389,7 @@ private void handle(ToggleTokenMoveWaypointMsg msg) {
   }
 
   private void handle(StopTokenMoveMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var keyToken = GUID.valueOf(msg.getKeyTokenId());
@@ -318,7 +400,7 @@ private void handle(StopTokenMoveMsg msg) {
   }
 
   private void handle(StartTokenMoveMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var playerId = msg.getPlayerId();
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
@@ -332,17 +414,17 @@ private void handle(StartTokenMoveMsg msg) {
   }
 
   private void handle(ShowPointerMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           MapTool.getFrame()
               .getPointerOverlay()
               .addPointer(msg.getPlayer(), Pointer.fromDto(msg.getPointer()));
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(SetZoneVisibilityMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           boolean visible = msg.getIsVisible();
@@ -366,12 +448,12 @@ private void handle(SetZoneVisibilityMsg msg) {
             MapTool.getFrame().setCurrentZoneRenderer(currentRenderer);
           }
           MapTool.getFrame().getZoneMiniMapPanel().flush();
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(UndoDrawMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           GUID drawableId = GUID.valueOf(msg.getDrawableGuid());
@@ -381,13 +463,13 @@ private void handle(UndoDrawMsg msg) {
           }
           zone.removeDrawable(drawableId);
           if (MapTool.getFrame().getCurrentZoneRenderer().getZone().getId().equals(zoneGUID)) {
-            MapTool.getFrame().refresh();
+            updates.requestRefresh();
           }
         });
   }
 
   private void handle(UpdateDrawingMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           Pen p = Pen.fromDto(msg.getPen());
@@ -395,21 +477,40 @@ private void handle(UpdateDrawingMsg msg) {
 
           var zone = client.getCampaign().getZone(zoneGUID);
           zone.updateDrawable(de, p);
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(UpdateTokenPropertyMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(() -> updateTokenProperty(msg));
+  }
+
+  private void updateTokenProperty(UpdateTokenPropertyMsg msg) {
+    var zoneGUID = GUID.valueOf(msg.getZoneGuid());
+    var zone = client.getCampaign().getZone(zoneGUID);
+    var tokenGUID = GUID.valueOf(msg.getTokenGuid());
+    var token = zone.getToken(tokenGUID);
+    if (token != null) {
+      Token.Update update = Token.Update.valueOf(msg.getProperty().name());
+      token.updateProperty(zone, update, msg.getValuesList());
+    }
+  }
+
+  private void handle(TokenUpdateBatchMsg msg) {
+    // Apply all the updates of the macro together.
+    updates.submit(
         () -> {
-          var zoneGUID = GUID.valueOf(msg.getZoneGuid());
-          var zone = client.getCampaign().getZone(zoneGUID);
-          var tokenGUID = GUID.valueOf(msg.getTokenGuid());
-          var token = zone.getToken(tokenGUID);
-          if (token != null) {
-            Token.Update update = Token.Update.valueOf(msg.getProperty().name());
-            token.updateProperty(zone, update, msg.getValuesList());
+          for (Message update : msg.getMessagesList()) {
+            switch (update.getMessageTypeCase()) {
+              case PUT_TOKEN_MSG -> putToken(update.getPutTokenMsg());
+              case EDIT_TOKEN_MSG -> editToken(update.getEditTokenMsg());
+              case REMOVE_TOKEN_MSG -> removeToken(update.getRemoveTokenMsg());
+              case UPDATE_TOKEN_PROPERTY_MSG -> updateTokenProperty(
+                  update.getUpdateTokenPropertyMsg());
+              default -> log.warn(update.getMessageTypeCase() + " not handled in token batch.");
+            }
           }
+          updates.requestRefresh();
         });
   }
 
@@ -428,6 +529,16 @@ private void handle(RemoveDataMsg msg) {
     }
   }
 
+  private void handle(DataUpdateBatchMsg msg) {
+    for (Message update : msg.getMessagesList()) {
+      switch (update.getMessageTypeCase()) {
+        case UPDATE_DATA_MSG -> handle(update.getUpdateDataMsg());
+        case REMOVE_DATA_MSG -> handle(update.getRemoveDataMsg());
+        default -> log.warn(update.getMessageTypeCase() + " not handled in data batch.");
+      }
+    }
+  }
+
   private void handle(RemoveDataNamespaceMsg msg) {
     try {
       new DataStoreManager()
@@ -519,7 +630,7 @@ private void handle(StartAssetTransferMsg msg) {
   }
 
   private void handle(SetZoneHasFowMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           boolean hasFog = msg.getHasFow();
@@ -528,12 +639,12 @@ private void handle(SetZoneHasFowMsg msg) {
           zone.setHasFog(hasFog);
 
           // In case we're looking at the zone
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(SetZoneGridSizeMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           int xOffset = msg.getXOffset();
@@ -550,12 +661,12 @@ private void handle(SetZoneGridSizeMsg msg) {
             zone.setGridColor(color);
           }
 
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(SetVisionTypeMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           VisionType visionType = VisionType.valueOf(msg.getVision().name());
@@ -566,13 +677,13 @@ private void handle(SetVisionTypeMsg msg) {
               MapTool.getFrame().getCurrentZoneRenderer().flushFog();
               MapTool.getFrame().getCurrentZoneRenderer().getZoneView().flush();
             }
-            MapTool.getFrame().refresh();
+            updates.requestRefresh();
           }
         });
   }
 
   private void handle(SetTokenLocationMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           // Only the table should process this
           if (client.getPlayer().getName().equalsIgnoreCase("Table")) {
@@ -605,7 +716,7 @@ private void handle(SetTokenLocationMsg msg) {
   }
 
   private void handle(SetLiveTypingLabelMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           if (msg.getTyping()) {
             // add a typer
@@ -618,7 +729,8 @@ private void handle(SetLiveTypingLabelMsg msg) {
   }
 
   private void handle(SetFowMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
+        new UpdateKey("fow", msg.getZoneGuid(), String.join(",", msg.getSelectedTokensList())),
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var area = Mapper.map(msg.getArea());
@@ -627,12 +739,12 @@ private void handle(SetFowMsg msg) {
 
           var zone = client.getCampaign().getZone(zoneGUID);
           zone.setFogArea(area, selectedTokens);
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(SetCampaignNameMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           client.getCampaign().setName(msg.getName());
           MapTool.getFrame().setTitle();
@@ -640,9 +752,22 @@ private void handle(SetCampaignNameMsg msg) {
   }
 
   private void handle(SetCampaignMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           Campaign campaign = Campaign.fromDto(msg.getCampaign());
+          var resumable = client.takeResumableCampaign();
+          if (resumable != null) {
+            // The zones we still hold that did not change were left out.
+            for (var id : msg.getUnchangedZoneGuidsList()) {
+              var zone = resumable.campaign().getZone(GUID.valueOf(id));
+              if (zone != null) {
+                campaign.putZone(zone);
+              } else {
+                log.warn("Unchanged zone {} is missing from the resumed campaign", id);
+              }
+            }
+          }
+          client.getZoneVersions().reset(msg.getCampaignEpoch(), msg.getZoneVersionsMap());
           MapTool.setCampaign(campaign);
 
           // Hide the "Connecting" overlay
@@ -651,7 +776,7 @@ private void handle(SetCampaignMsg msg) {
   }
 
   private void handle(SetBoardMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var zone = client.getCampaign().getZone(zoneGUID);
@@ -663,7 +788,7 @@ private void handle(SetBoardMsg msg) {
   }
 
   private void handle(RestoreZoneViewMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           MapTool.getFrame().getZoneRenderer(zoneGUID).restoreView();
@@ -671,7 +796,7 @@ private void handle(RestoreZoneViewMsg msg) {
   }
 
   private void handle(RenameZoneMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           String name = msg.getName();
@@ -685,7 +810,7 @@ private void handle(RenameZoneMsg msg) {
   }
 
   private void handle(RemoveZoneMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           final var renderer = MapTool.getFrame().getZoneRenderer(zoneGUID);
@@ -702,7 +827,7 @@ private void handle(RemoveZoneMsg msg) {
   }
 
   private void handle(RemoveTopologyMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var area = Mapper.map(msg.getArea());
@@ -716,41 +841,46 @@ private void handle(RemoveTopologyMsg msg) {
   }
 
   private void handle(RemoveTokensMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var zone = client.getCampaign().getZone(zoneGUID);
           var tokenGUIDs =
               msg.getTokenGuidList().stream().map(GUID::valueOf).collect(Collectors.toList());
           zone.removeTokens(tokenGUIDs);
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(RemoveTokenMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
+        new UpdateKey("token", msg.getZoneGuid(), msg.getTokenGuid()),
         () -> {
-          var zoneGUID = GUID.valueOf(msg.getZoneGuid());
-          var zone = client.getCampaign().getZone(zoneGUID);
-          var tokenGUID = GUID.valueOf(msg.getTokenGuid());
-          zone.removeToken(tokenGUID);
-          MapTool.getFrame().refresh();
+          removeToken(msg);
+          updates.requestRefresh();
         });
   }
 
+  private void removeToken(RemoveTokenMsg msg) {
+    var zoneGUID = GUID.valueOf(msg.getZoneGuid());
+    var zone = client.getCampaign().getZone(zoneGUID);
+    var tokenGUID = GUID.valueOf(msg.getTokenGuid());
+    zone.removeToken(tokenGUID);
+  }
+
   private void handle(RemoveLabelMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var zone = client.getCampaign().getZone(zoneGUID);
           GUID labelGUID = GUID.valueOf(msg.getLabelGuid());
           zone.removeLabel(labelGUID);
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(PutZoneMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           Zone zone = Zone.fromDto(msg.getZone());
           client.getCampaign().putZone(zone);
@@ -769,27 +899,27 @@ private void handle(PutZoneMsg msg) {
   }
 
   private void handle(PutLabelMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var zone = client.getCampaign().getZone(zoneGUID);
           Label label = Label.fromDto(msg.getLabel());
           zone.putLabel(label);
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(PutAssetMsg msg) {
     AssetManager.putAsset(Asset.fromDto(msg.getAsset()));
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           MapTool.getFrame().getCurrentZoneRenderer().flushDrawableRenderer();
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(PlayerDisconnectedMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var player = Player.fromDto(msg.getPlayer());
           client.removePlayer(player);
@@ -801,12 +931,12 @@ private void handle(PlayerDisconnectedMsg msg) {
                         I18N.getText("msg.info.playerDisconnected"), player.getName())));
           }
 
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(PlayerConnectedMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var player = Player.fromDto(msg.getPlayer());
           client.addPlayer(player);
@@ -818,12 +948,13 @@ private void handle(PlayerConnectedMsg msg) {
                         I18N.getText("msg.info.playerConnected"), player.getName())));
           }
 
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(MovePointerMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
+        new UpdateKey("pointer", "", msg.getPlayer()),
         () -> {
           Pointer pointer = MapTool.getFrame().getPointerOverlay().getPointer(msg.getPlayer());
           if (pointer == null) {
@@ -832,12 +963,12 @@ private void handle(MovePointerMsg msg) {
           pointer.setX(msg.getX());
           pointer.setY(msg.getY());
 
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(MessageMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           TextMessage message = TextMessage.fromDto(msg.getMessage());
           MapTool.addServerMessage(message);
@@ -845,15 +976,15 @@ private void handle(MessageMsg msg) {
   }
 
   private void handle(HidePointerMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           MapTool.getFrame().getPointerOverlay().removePointer(msg.getPlayer());
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(HideFowMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var area = Mapper.map(msg.getArea());
@@ -862,12 +993,13 @@ private void handle(HideFowMsg msg) {
 
           var zone = client.getCampaign().getZone(zoneGUID);
           zone.hideArea(area, selectedTokens);
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(ExposePcAreaMsg msg) {
-    EventQueue.invokeLater(
+    // Exposes what the tokens see, which has to include the token moves before it.
+    updates.submitAfterEvents(
         () -> {
           var zoneGuid = GUID.valueOf(msg.getZoneGuid());
           var renderer = MapTool.getFrame().getZoneRenderer(zoneGuid);
@@ -876,7 +1008,7 @@ private void handle(ExposePcAreaMsg msg) {
   }
 
   private void handle(ExposeFowMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           Area area = Mapper.map(msg.getArea());
@@ -884,17 +1016,17 @@ private void handle(ExposeFowMsg msg) {
               msg.getTokenGuidList().stream().map(GUID::valueOf).collect(Collectors.toSet());
           var zone = client.getCampaign().getZone(zoneGUID);
           zone.exposeArea(area, selectedTokens);
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(ExecLinkMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> MacroLinkFunction.receiveExecLink(msg.getLink(), msg.getTarget(), msg.getSource()));
   }
 
   private void handle(ExecFunctionMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () ->
             ExecFunction.receiveExecFunction(
                 msg.getTarget(),
@@ -904,7 +1036,7 @@ private void handle(ExecFunctionMsg msg) {
   }
 
   private void handle(EnforceZoneViewMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           int x = msg.getX();
@@ -927,7 +1059,7 @@ private void handle(EnforceZoneViewMsg msg) {
   }
 
   private void handle(EnforceZoneMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           ZoneRenderer renderer = MapTool.getFrame().getZoneRenderer(zoneGUID);
@@ -941,34 +1073,44 @@ private void handle(EnforceZoneMsg msg) {
   }
 
   private void handle(EnforceNotificationMsg msg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> MapTool.getFrame().getCommandPanel().disableNotifyButton(msg.getEnforce()));
   }
 
   private void handle(PutTokenMsg putTokenMsg) {
-    EventQueue.invokeLater(
+    updates.submit(
+        new UpdateKey("token", putTokenMsg.getZoneGuid(), putTokenMsg.getToken().getId()),
         () -> {
-          var zoneGUID = GUID.valueOf(putTokenMsg.getZoneGuid());
-          var zone = client.getCampaign().getZone(zoneGUID);
-          var token = Token.fromDto(putTokenMsg.getToken());
-          zone.putToken(token);
-          MapTool.getFrame().refresh();
+          putToken(putTokenMsg);
+          updates.requestRefresh();
         });
   }
 
+  private void putToken(PutTokenMsg putTokenMsg) {
+    var zoneGUID = GUID.valueOf(putTokenMsg.getZoneGuid());
+    var zone = client.getCampaign().getZone(zoneGUID);
+    var token = Token.fromDto(putTokenMsg.getToken());
+    zone.putToken(token);
+  }
+
   private void handle(EditTokenMsg editTokenMsg) {
-    EventQueue.invokeLater(
+    updates.submit(
+        new UpdateKey("token", editTokenMsg.getZoneGuid(), editTokenMsg.getToken().getId()),
         () -> {
-          var zoneGUID = GUID.valueOf(editTokenMsg.getZoneGuid());
-          var zone = client.getCampaign().getZone(zoneGUID);
-          var token = Token.fromDto(editTokenMsg.getToken());
-          zone.editToken(token);
-          MapTool.getFrame().refresh();
+          editToken(editTokenMsg);
+          updates.requestRefresh();
         });
   }
 
+  private void editToken(EditTokenMsg editTokenMsg) {
+    var zoneGUID = GUID.valueOf(editTokenMsg.getZoneGuid());
+    var zone = client.getCampaign().getZone(zoneGUID);
+    var token = Token.fromDto(editTokenMsg.getToken());
+    zone.editToken(token);
+  }
+
   private void handle(DrawMsg drawMsg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGuid = GUID.valueOf(drawMsg.getZoneGuid());
           Pen pen = Pen.fromDto(drawMsg.getPen());
@@ -976,12 +1118,12 @@ private void handle(DrawMsg drawMsg) {
 
           var zone = client.getCampaign().getZone(zoneGuid);
           zone.addDrawable(new DrawnElement(drawable, pen));
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(ClearExposedAreaMsg clearExposedAreaMsg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(clearExposedAreaMsg.getZoneGuid());
           var zone = client.getCampaign().getZone(zoneGUID);
@@ -990,18 +1132,18 @@ private void handle(ClearExposedAreaMsg clearExposedAreaMsg) {
   }
 
   private void handle(ClearAllDrawingsMsg clearAllDrawingsMsg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(clearAllDrawingsMsg.getZoneGuid());
           var layer = Zone.Layer.valueOf(clearAllDrawingsMsg.getLayer());
           var zone = client.getCampaign().getZone(zoneGUID);
           zone.clearDrawables(layer);
-          MapTool.getFrame().refresh();
+          updates.requestRefresh();
         });
   }
 
   private void handle(ChangeZoneDisplayNameMsg changeZoneDisplayNameMsg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(changeZoneDisplayNameMsg.getZoneGuid());
           String displayName = changeZoneDisplayNameMsg.getName();
@@ -1019,7 +1161,7 @@ private void handle(ChangeZoneDisplayNameMsg changeZoneDisplayNameMsg) {
   }
 
   private void handle(AddTopologyMsg addTopologyMsg) {
-    EventQueue.invokeLater(
+    updates.submit(
         () -> {
           var zoneGUID = GUID.valueOf(addTopologyMsg.getZoneGuid());
           var area = Mapper.map(addTopologyMsg.getArea());
@@ -1035,7 +1177,7 @@ private void handle(AddTopologyMsg addTopologyMsg) {
   private void handle(BootPlayerMsg bootPlayerMsg) {
     String playerName = bootPlayerMsg.getPlayerName();
     if (client.getPlayer().getName().equals(playerName))
-      EventQueue.invokeLater(
+      updates.submit(
           () -> {
             AppActions.disconnectFromServer();
             MapTool.showInformation("You have been booted from the server.");
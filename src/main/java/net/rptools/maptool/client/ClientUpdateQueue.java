@@ -0,0 +1,180 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import net.rptools.maptool.events.MapToolEventBus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Queue of the updates from server messages that have to be applied on the EDT. Instead of posting
+ * every update to the EDT on its own, the updates that arrive before the EDT gets to them are
+ * applied together in one go, followed by a single refresh of the frame.
+ *
+ * <p>Updates can be submitted with a key. An update that is still waiting in the queue is dropped
+ * when a newer update with the same key is submitted, so that only the latest state is applied,
+ * e.g. for repeated pointer moves or repeated puts of the same token.
+ *
+ * <p>The zone events of the updates are posted together once all of them have been applied. An
+ * update that reads state derived from those events, such as the vision of tokens, has to be
+ * submitted with {@link #submitAfterEvents(Runnable)}.
+ */
+class ClientUpdateQueue {
+  private static final Logger log = LogManager.getLogger(ClientUpdateQueue.class);
+
+  /** Runs the drain of the queue, normally on the EDT. */
+  private final Executor executor;
+
+  /** Runs the refresh after the updates have been applied. */
+  private final Runnable refresh;
+
+  /**
+   * An update waiting to be applied.
+   *
+   * @param run applies the update.
+   * @param afterEvents if the events of the earlier updates have to be posted first.
+   */
+  private record Update(Runnable run, boolean afterEvents) {}
+
+  /** The updates waiting to be applied, in order. Updates without a key get a unique key. */
+  private final Map<Object, Update> pending = new LinkedHashMap<>();
+
+  /** If a drain of the queue has been submitted to the executor and has not started yet. */
+  private boolean drainScheduled;
+
+  /** If the updates are being applied by {@link #drain()}. Only used on the drain thread. */
+  private boolean draining;
+
+  /** If one of the updates being applied asked for a refresh. Only used on the drain thread. */
+  private boolean refreshRequested;
+
+  /** Creates a queue that applies the updates on the EDT and then refreshes the frame. */
+  ClientUpdateQueue() {
+    this(
+        EventQueue::invokeLater,
+        () -> {
+          if (MapTool.getFrame() != null) {
+            MapTool.getFrame().refresh();
+          }
+        });
+  }
+
+  /**
+   * Creates a queue.
+   *
+   * @param executor runs the drain of the queue.
+   * @param refresh runs the refresh after the updates have been applied.
+   */
+  ClientUpdateQueue(Executor executor, Runnable refresh) {
+    this.executor = executor;
+    this.refresh = refresh;
+  }
+
+  /**
+   * Submits an update that is always applied.
+   *
+   * @param update the update.
+   */
+  void submit(Runnable update) {
+    submit(new Object(), new Update(update, false));
+  }
+
+  /**
+   * Submits an update that is always applied, after the events of the updates before it have been
+   * posted. Use it for updates that read state the subscribers derive from the events, e.g. the
+   * vision of tokens moved by an earlier update.
+   *
+   * @param update the update.
+   */
+  void submitAfterEvents(Runnable update) {
+    submit(new Object(), new Update(update, true));
+  }
+
+  /**
+   * Submits an update, replacing the update with the same key that is still waiting to be applied.
+   *
+   * @param key the key of the update.
+   * @param update the update.
+   */
+  void submit(Object key, Runnable update) {
+    submit(key, new Update(update, false));
+  }
+
+  private void submit(Object key, Update update) {
+    boolean schedule;
+    synchronized (pending) {
+      // Remove first so that the new update goes to the end of the queue.
+      pending.remove(key);
+      pending.put(key, update);
+      schedule = !drainScheduled;
+      drainScheduled = true;
+    }
+    if (schedule) {
+      executor.execute(this::drain);
+    }
+  }
+
+  /**
+   * Asks for a refresh of the frame. While the queue is applying updates the refresh is done once
+   * after all of them have been applied, otherwise it is done straight away.
+   */
+  void requestRefresh() {
+    if (draining) {
+      refreshRequested = true;
+    } else {
+      refresh.run();
+    }
+  }
+
+  /** Applies all the waiting updates. */
+  private void drain() {
+    List<Update> updates;
+    synchronized (pending) {
+      updates = new ArrayList<>(pending.values());
+      pending.clear();
+      drainScheduled = false;
+    }
+
+    draining = true;
+    refreshRequested = false;
+    // Post the zone events of all the updates together.
+    var eventBus = new MapToolEventBus();
+    eventBus.beginBatch();
+    try {
+      for (Update update : updates) {
+        if (update.afterEvents()) {
+          eventBus.flushBatch();
+        }
+        try {
+          update.run().run();
+        } catch (Exception e) {
+          log.error("Error applying server message", e);
+        }
+      }
+    } finally {
+      draining = false;
+      eventBus.endBatch();
+    }
+    if (refreshRequested) {
+      refresh.run();
+    }
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The pre-scanned form of a line of macro text. The inline rolls in the text are located and their
+ * roll options are parsed once when the macro is compiled, so running the same macro again only has
+ * to evaluate the expressions.
+ *
+ * <p>Compiled macros are immutable and are shared through a bounded cache keyed by the macro text,
+ * see {@link #compile(String)}.
+ */
+final class CompiledMacro {
+
+  /** The maximum number of compiled macros to keep around. */
+  private static final int MAX_CACHED_MACROS = 1000;
+
+  /** Cache of compiled macros, keyed by the untrimmed macro text. Evicts least recently used. */
+  private static final Cache<String, CompiledMacro> COMPILED_MACRO_CACHE =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_MACROS).build();
+
+  /** A part of the macro, either literal text or an inline roll. */
+  interface Node {}
+
+  /**
+   * Literal text that is copied to the output as is.
+   *
+   * @param text the text.
+   */
+  record Literal(String text) implements Node {}
+
+  /**
+   * An inline roll, either <code>[options: body]</code> or <code>{body}</code>.
+   *
+   * @param bracketed {@code true} if the roll is of the <code>[options: body]</code> form.
+   * @param options the roll option text, empty if there are no options.
+   * @param body the body of the roll.
+   * @param optionList the parsed roll options, {@code null} if they could not be parsed.
+   * @param optionError the error message if the roll options could not be parsed.
+   */
+  record InlineRoll(
+      boolean bracketed,
+      String options,
+      String body,
+      List<OptionInfo> optionList,
+      String optionError)
+      implements Node {}
+
+  private enum ScanState {
+    SEARCHING_FOR_ROLL,
+    SEARCHING_FOR_QUOTE,
+    SEARCHING_FOR_CLOSE_BRACKET,
+    SKIP_NEXT_CHAR
+  }
+
+  /** The trimmed macro text. */
+  private final String source;
+
+  /** The literal text and inline rolls that make up the macro. */
+  private final List<Node> nodes;
+
+  private CompiledMacro(String source) {
+    this.source = source;
+    this.nodes = Collections.unmodifiableList(scan(source));
+  }
+
+  /**
+   * Returns the compiled form of the macro text, compiling it if it is not already in the cache.
+   *
+   * @param macro the macro text.
+   * @return the compiled macro.
+   */
+  static CompiledMacro compile(String macro) {
+    CompiledMacro compiled = COMPILED_MACRO_CACHE.getIfPresent(macro);
+    if (compiled == null) {
+      compiled = new CompiledMacro(macro.trim());
+      COMPILED_MACRO_CACHE.put(macro, compiled);
+    }
+    return compiled;
+  }
+
+  /** Removes all compiled macros from the cache. */
+  static void clearCache() {
+    COMPILED_MACRO_CACHE.invalidateAll();
+  }
+
+  /**
+   * Returns the trimmed macro text.
+   *
+   * @return the trimmed macro text.
+   */
+  String getSource() {
+    return source;
+  }
+
+  /**
+   * Returns the literal text and inline rolls that make up the macro, in order.
+   *
+   * @return the nodes of the macro.
+   */
+  List<Node> getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Returns if there is nothing to run in the macro.
+   *
+   * @return {@code true} if the macro is empty.
+   */
+  boolean isEmpty() {
+    return source.isEmpty();
+  }
+
+  /**
+   * Locates the inline rolls within the macro text and splits it into nodes.
+   *
+   * @param line The line to search for the rolls in.
+   * @return the nodes of the line.
+   */
+  private static List<Node> scan(String line) {
+    List<Node> nodes = new ArrayList<>();
+    ScanState scanState = ScanState.SEARCHING_FOR_ROLL;
+    int literalStart = 0;
+    int startMatch = 0;
+    int bracketLevel = 0;
+    char quoteChar = ' ';
+    char bracketChar = ' ';
+    ScanState savedState = null;
+    int optEnd = -1;
+
+    for (int i = 0, strMax = line.length(); i < strMax; i++) {
+      char c = line.charAt(i);
+      switch (scanState) {
+        case SEARCHING_FOR_ROLL:
+          if (c == '{' || c == '[') {
+            startMatch = i;
+            scanState = ScanState.SEARCHING_FOR_CLOSE_BRACKET;
+            bracketChar = c;
+            bracketLevel++;
+            optEnd = -1;
+          }
+          break;
+
+        case SEARCHING_FOR_CLOSE_BRACKET:
+          if (c == bracketChar) {
+            bracketLevel++;
+          } else if ((bracketChar == '[' && c == ']') || (bracketChar == '{' && c == '}')) {
+            bracketLevel--;
+            if (bracketLevel == 0) {
+              if (startMatch > literalStart) {
+                nodes.add(new Literal(line.substring(literalStart, startMatch)));
+              }
+              nodes.add(createInlineRoll(line, startMatch, i, optEnd));
+              literalStart = i + 1;
+              scanState = ScanState.SEARCHING_FOR_ROLL;
+            }
+          } else if (c == '"' || c == '\'') {
+            quoteChar = c;
+            scanState = ScanState.SEARCHING_FOR_QUOTE;
+          } else if (c == '\\') {
+            savedState = scanState;
+            scanState = ScanState.SKIP_NEXT_CHAR;
+          } else if (bracketChar == '[' && optEnd == -1 && c == ':') {
+            optEnd = i;
+          }
+          break;
+
+        case SEARCHING_FOR_QUOTE:
+          if (c == quoteChar) {
+            scanState = ScanState.SEARCHING_FOR_CLOSE_BRACKET;
+          } else if (c == '\\') {
+            savedState = scanState;
+            scanState = ScanState.SKIP_NEXT_CHAR;
+          }
+          break;
+
+        case SKIP_NEXT_CHAR:
+          scanState = savedState;
+          break;
+      }
+    }
+    if (literalStart < line.length()) {
+      nodes.add(new Literal(line.substring(literalStart)));
+    }
+    return nodes;
+  }
+
+  /**
+   * Creates the node for an inline roll, parsing its roll options.
+   *
+   * @param line the macro text.
+   * @param start the index of the opening bracket.
+   * @param end the index of the closing bracket.
+   * @param optEnd the index of the ':' ending the roll options, or -1 if there are none.
+   * @return the inline roll node.
+   */
+  private static InlineRoll createInlineRoll(String line, int start, int end, int optEnd) {
+    if (line.charAt(start) == '{') {
+      return new InlineRoll(false, "", line.substring(start + 1, end), List.of(), null);
+    }
+
+    String options = optEnd > 0 ? line.substring(start + 1, optEnd) : "";
+    String body = optEnd > 0 ? line.substring(optEnd + 1, end) : line.substring(start + 1, end);
+    try {
+      return new InlineRoll(true, options, body, OptionInfo.getRollOptionList(options), null);
+    } catch (OptionInfo.RollOptionException roe) {
+      // Report the error when the roll is reached, not when the macro is compiled.
+      return new InlineRoll(true, options, body, null, roe.msg);
+    }
+  }
+}
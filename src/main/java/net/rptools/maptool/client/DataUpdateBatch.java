@@ -0,0 +1,101 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.rptools.maptool.server.proto.DataUpdateBatchMsg;
+import net.rptools.maptool.server.proto.Message;
+
+/**
+ * Collects the game data update and removal messages so that they can be sent to the server as a
+ * single message. Only the last update or removal of each property is kept, so a macro that sets
+ * the same property many times only sends it once.
+ *
+ * <p>This class is not thread safe, callers must synchronize on the batch.
+ */
+class DataUpdateBatch {
+
+  /** The property changed by a message. */
+  private record PropertyKey(String type, String namespace, String name) {}
+
+  /** The collected messages, keyed by the property they change, in the order they were last set. */
+  private final Map<PropertyKey, Message> messages = new LinkedHashMap<>();
+
+  /**
+   * Adds a message to the batch if it is a game data update or removal.
+   *
+   * @param msg the message.
+   * @return {@code true} if the message was added, {@code false} if it is not a game data update
+   *     and has to be sent on its own.
+   */
+  boolean add(Message msg) {
+    PropertyKey propertyKey = getPropertyKey(msg);
+    if (propertyKey == null) {
+      return false;
+    }
+    // Remove first so that the property moves to the end of the batch.
+    messages.remove(propertyKey);
+    messages.put(propertyKey, msg);
+    return true;
+  }
+
+  /**
+   * Returns the number of properties changed by the collected messages.
+   *
+   * @return the number of collected messages.
+   */
+  int size() {
+    return messages.size();
+  }
+
+  /**
+   * Removes the collected messages from the batch and returns them as a single message.
+   *
+   * @return the collected messages, or {@code null} if there are none.
+   */
+  Message drain() {
+    Message result = null;
+    if (messages.size() == 1) {
+      result = messages.values().iterator().next();
+    } else if (messages.size() > 1) {
+      var batchMsg = DataUpdateBatchMsg.newBuilder().addAllMessages(messages.values());
+      result = Message.newBuilder().setDataUpdateBatchMsg(batchMsg).build();
+    }
+    messages.clear();
+    return result;
+  }
+
+  /**
+   * Returns the key of the property a message changes.
+   *
+   * @param msg the message.
+   * @return the type, namespace and name of the property, or {@code null} if the message is not a
+   *     game data update.
+   */
+  private static PropertyKey getPropertyKey(Message msg) {
+    return switch (msg.getMessageTypeCase()) {
+      case UPDATE_DATA_MSG -> new PropertyKey(
+          msg.getUpdateDataMsg().getType(),
+          msg.getUpdateDataMsg().getNamespace(),
+          msg.getUpdateDataMsg().getValue().getName());
+      case REMOVE_DATA_MSG -> new PropertyKey(
+          msg.getRemoveDataMsg().getType(),
+          msg.getRemoveDataMsg().getNamespace(),
+          msg.getRemoveDataMsg().getName());
+      default -> null;
+    };
+  }
+}
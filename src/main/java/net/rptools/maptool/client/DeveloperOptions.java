@@ -46,7 +46,26 @@ public enum Toggle {
      * When enabled, highlights the important points used during token drags, for example, the drag
      * anchor and starting position of the cursor.
      */
-    DebugTokenDragging("debugTokenDragging");
+    DebugTokenDragging("debugTokenDragging"),
+
+    /**
+     * When enabled, logs the hit rate, size and evictions of the expression cache after each macro
+     * is run.
+     */
+    LogExpressionCacheStatistics("logExpressionCacheStatistics"),
+
+    /**
+     * When enabled, each roll is made from its own seed, and the seed is logged with the rolls so
+     * that they can be replayed with {@link
+     * net.rptools.dicelib.expression.ExpressionParser#replay}.
+     */
+    LogReplaySeeds("logReplaySeeds"),
+
+    /**
+     * When enabled, large string and JSON values in the game data store are kept in a temporary
+     * file instead of memory. Only read when MapTool starts.
+     */
+    StoreGameDataOnDisk("storeGameDataOnDisk");
 
     private final String key;
 
@@ -162,6 +162,9 @@ public class MapTool {
   private static MapToolServer server;
   private static MapToolClient client;
 
+  /** The campaign of the last remote server the connection to which was lost. */
+  private static ResumableCampaign resumableCampaign;
+
   private static BackupManager backupManager;
   private static AssetTransferManager assetTransferManager;
   private static AutoSaveManager autoSaveManager;
@@ -1158,14 +1161,31 @@ public static void connectToRemoteServer(
 
     var connection = ConnectionFactory.getInstance().createConnection(player.getName(), config);
 
+    var remoteServer = ResumableCampaign.serverKey(config.getHostName(), config.getPort());
+    var resumable = resumableCampaign;
+    resumableCampaign = null;
+    if (resumable != null && !resumable.server().equals(remoteServer)) {
+      resumable = null;
+    }
+
     server = null;
-    client = new MapToolClient(player, connection);
+    client = new MapToolClient(player, connection, remoteServer, resumable);
     setUpClient(client);
     client.getConnection().onCompleted(onCompleted);
 
     client.start();
   }
 
+  /**
+   * Holds on to the campaign of a remote server the connection to which was lost, so that
+   * reconnecting to the same server only has to fetch the zones that changed.
+   *
+   * @param resumable the campaign, or null to let go of it.
+   */
+  public static void setResumableCampaign(@Nullable ResumableCampaign resumable) {
+    resumableCampaign = resumable;
+  }
+
   /** returns the current locale code. */
   public static String getLanguage() {
     return Locale.getDefault(Locale.Category.DISPLAY).getLanguage();
@@ -38,6 +38,7 @@
 import net.rptools.maptool.server.MapToolServer;
 import net.rptools.maptool.server.ServerCommand;
 import net.rptools.maptool.server.ServerPolicy;
+import net.rptools.maptool.server.ZoneVersions;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -71,14 +72,29 @@ public enum State {
   private final ServerCommand serverCommand;
   private State currentState = State.New;
 
+  /** The host and port of the remote server, or null for a local server. */
+  private final String remoteServer;
+
+  /** The versions of the zones in the campaign as received from the server. */
+  private final ZoneVersions zoneVersions;
+
+  /** The campaign held from an earlier connection to the remote server, until it is resumed. */
+  private ResumableCampaign resumableCampaign;
+
   private MapToolClient(
       @Nullable MapToolServer localServer,
       Campaign campaign,
       LocalPlayer player,
       Connection connection,
       ServerPolicy policy,
-      PlayerDatabase playerDatabase) {
+      PlayerDatabase playerDatabase,
+      @Nullable String remoteServer,
+      @Nullable ResumableCampaign resumableCampaign) {
     this.localServer = localServer;
+    this.remoteServer = remoteServer;
+    this.resumableCampaign = resumableCampaign;
+    this.zoneVersions =
+        resumableCampaign == null ? new ZoneVersions() : resumableCampaign.zoneVersions();
     this.campaign = campaign;
     this.player = player;
     this.playerDatabase = playerDatabase;
@@ -115,22 +131,34 @@ public MapToolClient(
         player,
         connection,
         localServer.getPolicy(),
-        localServer.getPlayerDatabase());
+        localServer.getPlayerDatabase(),
+        null,
+        null);
   }
 
   /**
    * Creates a client for use with a remote hosted server.
    *
    * @param player The player connecting to the server.
+   * @param remoteServer The host and port of the server, see {@link
+   *     ResumableCampaign#serverKey(String, int)}.
+   * @param resumableCampaign The campaign held from an earlier connection to the same server, or
+   *     null.
    */
-  public MapToolClient(LocalPlayer player, Connection connection) {
+  public MapToolClient(
+      LocalPlayer player,
+      Connection connection,
+      String remoteServer,
+      @Nullable ResumableCampaign resumableCampaign) {
     this(
         null,
         new Campaign(),
         player,
         connection,
         new ServerPolicy(),
-        PlayerDatabaseFactory.getLocalPlayerDatabase(player));
+        PlayerDatabaseFactory.getLocalPlayerDatabase(player),
+        remoteServer,
+        resumableCampaign);
   }
 
   /**
@@ -266,6 +294,35 @@ public void setCampaign(Campaign campaign) {
     this.campaign = campaign;
   }
 
+  /**
+   * Returns the versions of the zones in the campaign as received from the server.
+   *
+   * @return the zone versions.
+   */
+  public ZoneVersions getZoneVersions() {
+    return zoneVersions;
+  }
+
+  /**
+   * Returns the campaign held from an earlier connection to the remote server.
+   *
+   * @return the campaign, or null if there is none or it was already resumed.
+   */
+  public synchronized @Nullable ResumableCampaign getResumableCampaign() {
+    return resumableCampaign;
+  }
+
+  /**
+   * Returns the campaign held from an earlier connection to the remote server and lets go of it.
+   *
+   * @return the campaign, or null if there is none or it was already resumed.
+   */
+  public synchronized @Nullable ResumableCampaign takeResumableCampaign() {
+    var resumable = resumableCampaign;
+    resumableCampaign = null;
+    return resumable;
+  }
+
   private void onDisconnect(Connection connection) {
     /*
      * Three main cases:
@@ -281,6 +338,11 @@ private void onDisconnect(Connection connection) {
     var disconnectExpected = currentState == State.Closed;
 
     if (!disconnectExpected) {
+      if (remoteServer != null) {
+        // Hold on to the campaign so a reconnect only has to fetch the zones that changed.
+        MapTool.setResumableCampaign(new ResumableCampaign(remoteServer, campaign, zoneVersions));
+      }
+
       // Keep any local server campaign around in the new personal server.
       final var newPersonalServerCampaign =
           localServer == null ? CampaignFactory.createBasicCampaign() : localServer.getCampaign();
@@ -16,7 +16,12 @@
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import net.rptools.dicelib.expression.ExpressionParser;
@@ -30,6 +35,37 @@
 
 public class MapToolExpressionParser extends ExpressionParser {
 
+  /**
+   * The maximum total length of the expressions cached by each parser. Expressions are weighted by
+   * their length, so a stream of long dynamically built expressions can't grow the cache without
+   * bound.
+   */
+  private static final long MAX_CACHED_EXPRESSION_LENGTH = 1_000_000;
+
+  /** The expression caches of all the parsers that are alive, used to report statistics. */
+  private static final Set<Cache<String, Expression>> expressionCaches =
+      Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+  /**
+   * Statistics for the expression caches of all the parsers.
+   *
+   * @param size the number of cached expressions.
+   * @param length the total length of the cached expressions.
+   * @param maxLength the maximum total length of the expressions cached by each parser.
+   * @param hitCount the number of times an expression was found in a cache.
+   * @param missCount the number of times an expression had to be parsed.
+   * @param hitRate the ratio of hits to requests, 1.0 if there were no requests.
+   * @param evictionCount the number of expressions evicted from the caches.
+   */
+  public record ExpressionCacheStatistics(
+      long size,
+      long length,
+      long maxLength,
+      long hitCount,
+      long missCount,
+      double hitRate,
+      long evictionCount) {}
+
   /** MapTool functions to add to the parser. */
   private static final List<Function> mapToolParserFunctions =
       Stream.of(
@@ -113,8 +149,10 @@ public class MapToolExpressionParser extends ExpressionParser {
               new SlashCommands())
           .collect(Collectors.toList());
 
-  public MapToolExpressionParser() {
-    super.getParser().addFunctions(mapToolParserFunctions);
+  @Override
+  protected void configureParser(Parser parser) {
+    super.configureParser(parser);
+    parser.addFunctions(mapToolParserFunctions);
   }
 
   public static List<Function> getMacroFunctions() {
@@ -131,11 +169,53 @@ protected Parser createParser() {
     return new ExpressionCachingParser();
   }
 
-  /** Parser implementation that caches expressions in a soft value cache */
+  /**
+   * Returns the statistics for the expression caches of the parsers of all threads.
+   *
+   * @return the expression cache statistics.
+   */
+  public static ExpressionCacheStatistics getExpressionCacheStatistics() {
+    List<Cache<String, Expression>> caches;
+    synchronized (expressionCaches) {
+      caches = new ArrayList<>(expressionCaches);
+    }
+
+    CacheStats stats = new CacheStats(0, 0, 0, 0, 0, 0);
+    long size = 0;
+    long length = 0;
+    for (Cache<String, Expression> cache : caches) {
+      stats = stats.plus(cache.stats());
+      size += cache.size();
+      length += cache.asMap().keySet().stream().mapToLong(String::length).sum();
+    }
+    return new ExpressionCacheStatistics(
+        size,
+        length,
+        MAX_CACHED_EXPRESSION_LENGTH,
+        stats.hitCount(),
+        stats.missCount(),
+        stats.hitRate(),
+        stats.evictionCount());
+  }
+
+  /**
+   * Parser implementation that caches expressions in a cache bounded by the total length of the
+   * expressions, evicting the least recently used ones. Each thread has its own parser, so the
+   * cache only needs a single segment.
+   */
   private static class ExpressionCachingParser extends Parser {
 
     private final Cache<String, Expression> expressionCache =
-        CacheBuilder.newBuilder().softValues().build();
+        CacheBuilder.newBuilder()
+            .concurrencyLevel(1)
+            .maximumWeight(MAX_CACHED_EXPRESSION_LENGTH)
+            .weigher((String expression, Expression exp) -> expression.length())
+            .recordStats()
+            .build();
+
+    private ExpressionCachingParser() {
+      expressionCaches.add(expressionCache);
+    }
 
     @Override
     public Expression parseExpression(String expression) throws ParserException {
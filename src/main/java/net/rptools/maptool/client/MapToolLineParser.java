@@ -22,6 +22,8 @@
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import net.rptools.dicelib.expression.Result;
+import net.rptools.dicelib.expression.RunData;
+import net.rptools.lib.telemetry.Telemetry;
 import net.rptools.maptool.client.functions.*;
 import net.rptools.maptool.client.functions.exceptions.*;
 import net.rptools.maptool.client.functions.json.JSONMacroFunctions;
@@ -29,6 +31,7 @@
 import net.rptools.maptool.client.ui.htmlframe.HTMLFrameFactory.FrameType;
 import net.rptools.maptool.client.ui.macrobuttons.buttons.MacroButtonPrefs;
 import net.rptools.maptool.client.ui.zone.renderer.ZoneRenderer;
+import net.rptools.maptool.events.MapToolEventBus;
 import net.rptools.maptool.language.I18N;
 import net.rptools.maptool.model.MacroButtonProperties;
 import net.rptools.maptool.model.Token;
@@ -40,6 +43,13 @@
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Runs macros and the inline rolls in chat.
+ *
+ * <p>Macros run on one thread at a time, normally the event dispatch thread. The {@link
+ * #expressionParser} may evaluate expressions on several threads at once, but the macro context
+ * stack and the other state of this class are not guarded, so macros must not be run concurrently.
+ */
 public class MapToolLineParser {
 
   // Logger for this class.
@@ -118,6 +128,70 @@ private enum CodeType { // Mutually exclusive code-execution options
     CODEBLOCK,
   }
 
+  /**
+   * The regexes used to extract the branches from the body of a roll. Each branch regex defines one
+   * matcher group for the parseable content of the branch. These are compiled once as they are
+   * needed for every roll.
+   */
+  private static class BranchPatterns {
+    /** The separator between branches. */
+    private static final String SEP_REGEX = ";";
+
+    /** The last clause doesn't have to end with a separator. */
+    private static final String LAST_SEP_REGEX = ";?";
+
+    /**
+     * Matches 'default', 'case 123:', 'case "123":', 'case "abc":', but not 'case abc:' in front of
+     * a branch.
+     */
+    private static final String CASE_REGEX =
+        "(?:case\\s*\"?((?<!\")(?:\\+|-)?[\\d]+(?!\")|(?<=\")[^\"]*(?=\"))\"?|(default))\\s*:\\s*";
+
+    /** Matches a body with a single branch. */
+    private final Pattern single;
+
+    /** Matches a body with one or two branches for IF. */
+    private final Pattern ifElse;
+
+    /** Verifies that the body is a well-formed list of SWITCH cases. */
+    private final Pattern switchTest;
+
+    /** Scans through the SWITCH cases one at a time. */
+    private final Pattern switchScan;
+
+    private BranchPatterns(String branchRegex) {
+      single = Pattern.compile(String.format("^\\s*%s\\s*$", branchRegex));
+      ifElse =
+          Pattern.compile(
+              String.format(
+                  "^\\s*%s\\s*(?:%s\\s*%s\\s*%s)?\\s*$",
+                  branchRegex, SEP_REGEX, branchRegex, LAST_SEP_REGEX));
+      String caseRegex = CASE_REGEX + branchRegex;
+      switchTest =
+          Pattern.compile(
+              String.format(
+                  "^(?:\\s*%s\\s*%s\\s*)*\\s*%s\\s*%s\\s*$",
+                  caseRegex, SEP_REGEX, caseRegex, LAST_SEP_REGEX));
+      switchScan = Pattern.compile(String.format("\\s*%s\\s*(?:%s)?", caseRegex, SEP_REGEX));
+    }
+  }
+
+  /** Branch regexes for rolls without code blocks, any text not containing a ";". */
+  private static final BranchPatterns NO_CODE_BRANCH_PATTERNS =
+      new BranchPatterns("((?:[^\";]|\"[^\"]*\"|'[^']*')*)");
+
+  /**
+   * Branch regexes for code blocks, text inside braces "{...}" skipping over strings (one level of
+   * {} nesting allowed).
+   */
+  private static final BranchPatterns CODE_BRANCH_PATTERNS =
+      new BranchPatterns(
+          "\\{((?:[^{}\"]|\"[^\"]*\"|'[^']*'|\\{(?:[^}\"]|\"[^\"]*\"|'[^']*')*})*)}");
+
+  /** Matches the characters that untrusted macros are not allowed to output. */
+  private static final Pattern UNTRUSTED_OUTPUT_PATTERN =
+      Pattern.compile("\u00AB|\u00BB|&#171;|&#187;|&laquo;|&raquo;|\036|\037");
+
   private enum OutputLoc { // Mutually exclusive output location
     CHAT,
     DIALOG,
@@ -127,13 +201,6 @@ private enum OutputLoc { // Mutually exclusive output location
     FRAME5
   }
 
-  private enum ScanState {
-    SEARCHING_FOR_ROLL,
-    SEARCHING_FOR_QUOTE,
-    SEARCHING_FOR_CLOSE_BRACKET,
-    SKIP_NEXT_CHAR
-  }
-
   public Map<String, String> listAllMacroFunctions() {
     Map<String, String> functionList = new HashMap<String, String>();
 
@@ -152,62 +219,6 @@ public Map<String, String> listAllMacroFunctions() {
     return functionList;
   }
 
-  // Class to hold the inline rolls and where they start and end.
-  private static class InlineRollMatch {
-    final int start;
-    final int end;
-    final String match;
-    final int optEnd;
-
-    @SuppressWarnings("unused")
-    InlineRollMatch(int start, int end, String match) {
-      this.start = start;
-      this.end = end;
-      this.match = match;
-      this.optEnd = -1;
-    }
-
-    InlineRollMatch(int start, int end, String match, int optEnd) {
-      this.start = start;
-      this.end = end;
-      this.match = match;
-      this.optEnd = optEnd;
-    }
-
-    public int getStart() {
-      return start;
-    }
-
-    public int getEnd() {
-      return end;
-    }
-
-    public String getMatch() {
-      return match;
-    }
-
-    @SuppressWarnings("unused")
-    public int getOptEnd() {
-      return optEnd;
-    }
-
-    public String getOpt() {
-      if (optEnd > 0) {
-        return match.substring(1, optEnd - start);
-      } else {
-        return "";
-      }
-    }
-
-    public String getRoll() {
-      if (optEnd > 0) {
-        return match.substring(optEnd + 1 - start, end - start);
-      } else {
-        return match.substring(1, end - start);
-      }
-    }
-  }
-
   public String parseLine(String line) throws ParserException {
     return parseLine(null, line);
   }
@@ -240,28 +251,36 @@ public String parseLine(
     if (line == null) {
       return "";
     }
-    line = line.trim();
-    if (line.length() == 0) {
+    CompiledMacro compiledMacro = CompiledMacro.compile(line);
+    if (compiledMacro.isEmpty()) {
       return "";
     }
+    line = compiledMacro.getSource();
     Stack<Token> contextTokenStack = new Stack<Token>();
     context = enterContext(context);
     MapToolVariableResolver resolver = null;
     boolean resolverInitialized = false;
+    Telemetry.Span span = null;
     String opts = null;
     String roll = null;
     try {
       // Keep the same variable context for this line
       resolver = (res == null) ? new MapToolVariableResolver(tokenInContext) : res;
       resolverInitialized = resolver.initialize();
+      if (resolverInitialized) {
+        span = Telemetry.start(Telemetry.Category.MACRO, context.getName());
+        RunData.setReplayable(DeveloperOptions.Toggle.LogReplaySeeds.isEnabled());
+        // Send the token updates made by the macro to the server together.
+        MapTool.serverCommand().beginTokenUpdateBatch();
+      }
       StringBuilder builder = new StringBuilder();
-      int start = 0;
-      List<InlineRollMatch> matches = this.locateInlineRolls(line);
-
-      for (InlineRollMatch match : matches) {
-        builder.append(line, start, match.getStart()); // add everything before the roll
 
-        start = match.getEnd() + 1;
+      for (CompiledMacro.Node node : compiledMacro.getNodes()) {
+        if (node instanceof CompiledMacro.Literal literal) {
+          builder.append(literal.text());
+          continue;
+        }
+        CompiledMacro.InlineRoll match = (CompiledMacro.InlineRoll) node;
         // These variables will hold data extracted from the roll options.
         Output output =
             context.isUseToolTipsForUnformatedRolls()
@@ -288,16 +307,14 @@ public String parseLine(
         String frameName = null;
         String frameOpts = null;
 
-        if (match.getMatch().startsWith("[")) {
-          opts = match.getOpt();
-          roll = match.getRoll();
+        if (match.bracketed()) {
+          opts = match.options();
+          roll = match.body();
           if (opts != null) {
-            // Turn the opts string into a list of OptionInfo objects.
-            List<OptionInfo> optionList = null;
-            try {
-              optionList = OptionInfo.getRollOptionList(opts);
-            } catch (OptionInfo.RollOptionException roe) {
-              throw doError(roe.msg, opts, roll);
+            // The opts string was turned into a list of OptionInfo objects when compiled.
+            List<OptionInfo> optionList = match.optionList();
+            if (optionList == null) {
+              throw doError(match.optionError(), opts, roll);
             }
 
             // Scan the roll options and prepare variables for later use
@@ -688,25 +705,10 @@ public String parseLine(
               }
             }
 
-            // Set up regexes for scanning through the branches.
-            // branchRegex then defines one matcher group for the parseable content of the branch.
+            // Pick the precompiled regexes for scanning through the branches.
             String rollBranch = roll;
-            String branchRegex, branchSepRegex, branchLastSepRegex;
-            if (codeType != CodeType.CODEBLOCK) {
-              // matches any text not containing a ";" (skipping over strings)
-              String noCodeRegex = "((?:[^\";]|\"[^\"]*\"|'[^']*')*)";
-              branchRegex = noCodeRegex;
-              branchSepRegex = ";";
-              branchLastSepRegex = ";?"; // The last clause doesn't have to end with a separator
-            } else {
-              // matches text inside braces "{...}", skipping over strings (one level of {} nesting
-              // allowed)
-              String codeRegex =
-                  "\\{((?:[^{}\"]|\"[^\"]*\"|'[^']*'|\\{(?:[^}\"]|\"[^\"]*\"|'[^']*')*})*)}";
-              branchRegex = codeRegex;
-              branchSepRegex = ";";
-              branchLastSepRegex = ";?"; // The last clause doesn't have to end with a separator
-            }
+            BranchPatterns branchPatterns =
+                codeType != CodeType.CODEBLOCK ? NO_CODE_BRANCH_PATTERNS : CODE_BRANCH_PATTERNS;
 
             // Extract the branch to use
             switch (branchType) {
@@ -716,8 +718,7 @@ public String parseLine(
               case NO_BRANCH:
                 {
                   // There's only one branch, so our regex is very simple
-                  String testRegex = String.format("^\\s*%s\\s*$", branchRegex);
-                  Matcher testMatcher = Pattern.compile(testRegex).matcher(roll);
+                  Matcher testMatcher = branchPatterns.single.matcher(roll);
                   if (testMatcher.find()) {
                     rollBranch = testMatcher.group(1);
                   } else {
@@ -739,11 +740,7 @@ public String parseLine(
                         roll);
                   }
                   int whichBranch = (branchConditionValue != 0) ? 0 : 1;
-                  String testRegex =
-                      String.format(
-                          "^\\s*%s\\s*(?:%s\\s*%s\\s*%s)?\\s*$",
-                          branchRegex, branchSepRegex, branchRegex, branchLastSepRegex);
-                  Matcher testMatcher = Pattern.compile(testRegex).matcher(roll);
+                  Matcher testMatcher = branchPatterns.ifElse.matcher(roll);
                   if (testMatcher.find()) { // verifies that roll body is well-formed
                     rollBranch = testMatcher.group(1 + whichBranch);
                     if (rollBranch == null) {
@@ -758,24 +755,12 @@ public String parseLine(
                 }
               case SWITCH:
                 {
-                  // We augment the branch regex to detect the "case xxx:" or "default:" prefixes,
-                  // and search for a match. An error is thrown if no case match is found.
-
-                  // Regex matches 'default', 'case 123:', 'case "123":', 'case "abc":', but not
-                  // 'case abc:'
-                  branchRegex =
-                      "(?:case\\s*\"?((?<!\")(?:\\+|-)?[\\d]+(?!\")|(?<=\")[^\"]*(?=\"))\"?|(default))\\s*:\\s*"
-                          + branchRegex;
+                  // The case regexes detect the "case xxx:" or "default:" prefixes, and we search
+                  // for a match. An error is thrown if no case match is found.
                   String caseTarget = branchConditionParsed.toString();
-                  String testRegex =
-                      String.format(
-                          "^(?:\\s*%s\\s*%s\\s*)*\\s*%s\\s*%s\\s*$",
-                          branchRegex, branchSepRegex, branchRegex, branchLastSepRegex);
-                  Matcher testMatcher = Pattern.compile(testRegex).matcher(roll);
+                  Matcher testMatcher = branchPatterns.switchTest.matcher(roll);
                   if (testMatcher.find()) { // verifies that roll body is well-formed
-                    String scanRegex =
-                        String.format("\\s*%s\\s*(?:%s)?", branchRegex, branchSepRegex);
-                    Matcher scanMatcher = Pattern.compile(scanRegex).matcher(roll);
+                    Matcher scanMatcher = branchPatterns.switchScan.matcher(roll);
                     boolean foundMatch = false;
                     while (!foundMatch && scanMatcher.find()) {
                       String caseLabel = scanMatcher.group(1); // "case (xxx):"
@@ -824,9 +809,7 @@ public String parseLine(
                     result = parseExpression(resolver, tokenInContext, rollBranch, false);
                     output_text = result != null ? result.getValue().toString() : "";
                     if (!this.isMacroTrusted()) {
-                      output_text =
-                          output_text.replaceAll(
-                              "\u00AB|\u00BB|&#171;|&#187;|&laquo;|&raquo;|\036|\037", "");
+                      output_text = UNTRUSTED_OUTPUT_PATTERN.matcher(output_text).replaceAll("");
                     }
                     if (outputOpts.isEmpty()) {
                       expressionBuilder.append(output_text);
@@ -981,23 +964,19 @@ public String parseLine(
           if (contextTokenStack.size() > 0) {
             resolver.setTokenIncontext(contextTokenStack.pop());
           }
-        } else if (match.getMatch().startsWith("{")) {
-          roll = match.getRoll();
+        } else {
+          roll = match.body();
           Result result = parseExpression(resolver, tokenInContext, roll, false);
           if (isMacroTrusted()) {
             builder.append(result != null ? result.getValue().toString() : "");
           } else {
             builder.append(
                 result != null
-                    ? result
-                        .getValue()
-                        .toString()
-                        .replaceAll("\u00AB|\u00BB|&#171;|&#187;|&laquo;|&raquo;|\036|\037", "")
+                    ? UNTRUSTED_OUTPUT_PATTERN.matcher(result.getValue().toString()).replaceAll("")
                     : "");
           }
         }
       }
-      builder.append(line.substring(start));
       return builder.toString();
     } catch (ParserException e) {
       // do nothing; this exception will never generate any output
@@ -1011,7 +990,19 @@ public String parseLine(
       exitContext();
       if (resolverInitialized) {
         // This is the top level call, time to clean up
-        resolver.flush();
+        // The zone events of the flushed tokens are posted together.
+        var eventBus = new MapToolEventBus();
+        eventBus.beginBatch();
+        try {
+          resolver.flush();
+        } finally {
+          eventBus.endBatch();
+          MapTool.serverCommand().endTokenUpdateBatch();
+          span.close();
+        }
+        if (DeveloperOptions.Toggle.LogExpressionCacheStatistics.isEnabled()) {
+          log.info(MapToolExpressionParser.getExpressionCacheStatistics());
+        }
       }
       if (MapTool.getFrame() != null) {
         // Repaint in case macros changed anything.
@@ -1049,7 +1040,16 @@ public Result parseExpression(
         log.debug(b);
       }
       List<Integer> origRolled = List.copyOf(rolled);
+      boolean topLevel = !RunData.hasCurrent();
       Result res = expressionParser.evaluate(expression, resolver, makeDeterministic);
+      if (topLevel && res.getReplaySeed() != null) {
+        log.info(
+            "Rolled {} for {} (deterministic {}, replay seed {})",
+            res.getRolled(),
+            expression,
+            makeDeterministic,
+            res.getReplaySeed());
+      }
       // if rolled has changed, we've been in a context that has updated it already
       if (origRolled.equals(rolled)) {
         rolled.addAll(res.getRolled());
@@ -1283,7 +1283,7 @@ public String runMacro(
     try {
       String macroOutput = null;
 
-      try {
+      try (var span = Telemetry.start(Telemetry.Category.MACRO, qMacroName)) {
         macroOutput = runMacroBlock(macroResolver, tokenInContext, macroBody, macroContext);
         // Copy the return value of the macro into our current variable scope.
         resolver.setVariable("macro.return", macroResolver.getVariable("macro.return"));
@@ -1621,80 +1621,6 @@ public boolean isMacroTrusted() {
     return !contextStack.isEmpty() && contextStack.peek().isTrusted();
   }
 
-  /**
-   * Locate the inline rolls within the input line.
-   *
-   * @param line The line to search for the rolls in.
-   * @return A list of the rolls.
-   */
-  private List<InlineRollMatch> locateInlineRolls(String line) {
-    List<InlineRollMatch> matches = new ArrayList<InlineRollMatch>();
-    ScanState scanState = ScanState.SEARCHING_FOR_ROLL;
-    int startMatch = 0;
-    int bracketLevel = 0;
-    char quoteChar = ' ';
-    char bracketChar = ' ';
-    ScanState savedState = null;
-    int optEnd = -1;
-
-    for (int i = 0, strMax = line.length(); i < strMax; i++) {
-      char c = line.charAt(i);
-      switch (scanState) {
-        case SEARCHING_FOR_ROLL:
-          if (c == '{' || c == '[') {
-            startMatch = i;
-            scanState = ScanState.SEARCHING_FOR_CLOSE_BRACKET;
-            bracketChar = c;
-            bracketLevel++;
-            optEnd = -1;
-          }
-          break;
-
-        case SEARCHING_FOR_CLOSE_BRACKET:
-          if (c == bracketChar) {
-            bracketLevel++;
-          } else if (bracketChar == '[' && c == ']') {
-            bracketLevel--;
-            if (bracketLevel == 0) {
-              matches.add(
-                  new InlineRollMatch(startMatch, i, line.substring(startMatch, i + 1), optEnd));
-              scanState = ScanState.SEARCHING_FOR_ROLL;
-            }
-          } else if (bracketChar == '{' && c == '}') {
-            bracketLevel--;
-            if (bracketLevel == 0) {
-              matches.add(
-                  new InlineRollMatch(startMatch, i, line.substring(startMatch, i + 1), optEnd));
-              scanState = ScanState.SEARCHING_FOR_ROLL;
-            }
-          } else if (c == '"' || c == '\'') {
-            quoteChar = c;
-            scanState = ScanState.SEARCHING_FOR_QUOTE;
-          } else if (c == '\\') {
-            savedState = scanState;
-            scanState = ScanState.SKIP_NEXT_CHAR;
-          } else if (bracketChar == '[' && optEnd == -1 && c == ':') {
-            optEnd = i;
-          }
-          break;
-
-        case SEARCHING_FOR_QUOTE:
-          if (c == quoteChar) {
-            scanState = ScanState.SEARCHING_FOR_CLOSE_BRACKET;
-          } else if (c == '\\') {
-            savedState = scanState;
-            scanState = ScanState.SKIP_NEXT_CHAR;
-          }
-          break;
-
-        case SKIP_NEXT_CHAR:
-          scanState = savedState;
-          break;
-      }
-    }
-    return matches;
-  }
-
   /**
    * Gets if the whole of the macro path up to this point has been running in a trusted context.
    *
@@ -0,0 +1,55 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import net.rptools.maptool.model.Campaign;
+import net.rptools.maptool.server.ZoneVersions;
+import net.rptools.maptool.server.proto.CampaignResumeDto;
+
+/**
+ * The campaign of a remote server the connection to which was lost. If the client connects to the
+ * same server again, the server only has to send the zones that changed in the meantime.
+ *
+ * @param server the host and port of the server.
+ * @param campaign the campaign as it was when the connection was lost.
+ * @param zoneVersions the versions of the zones of the campaign.
+ */
+public record ResumableCampaign(String server, Campaign campaign, ZoneVersions zoneVersions) {
+
+  /**
+   * Returns the key identifying a server.
+   *
+   * @param hostName the host name of the server.
+   * @param port the port of the server.
+   * @return the key.
+   */
+  public static String serverKey(String hostName, int port) {
+    return hostName + ":" + port;
+  }
+
+  /**
+   * Returns the zone versions to send to the server in the handshake.
+   *
+   * @return the DTO.
+   */
+  public CampaignResumeDto toDto() {
+    var dto = CampaignResumeDto.newBuilder().setCampaignEpoch(zoneVersions.getEpoch());
+    // Zones that did not change in the epoch are at version 0 on the server too.
+    for (var zone : campaign.getZones()) {
+      dto.putZoneVersions(zone.getId().toString(), zoneVersions.get(zone.getId()));
+    }
+    return dto.build();
+  }
+}
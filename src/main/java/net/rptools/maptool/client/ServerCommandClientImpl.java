@@ -23,6 +23,7 @@
 import java.util.Set;
 import java.util.stream.Collectors;
 import net.rptools.lib.MD5Key;
+import net.rptools.lib.telemetry.Telemetry;
 import net.rptools.maptool.client.functions.ExecFunction;
 import net.rptools.maptool.client.functions.MacroLinkFunction;
 import net.rptools.maptool.model.*;
@@ -35,10 +36,12 @@
 import net.rptools.maptool.model.gamedata.proto.GameDataValueDto;
 import net.rptools.maptool.model.library.addon.TransferableAddOnLibrary;
 import net.rptools.maptool.model.player.Player;
+import net.rptools.maptool.server.AreaSync;
 import net.rptools.maptool.server.Mapper;
 import net.rptools.maptool.server.ServerCommand;
 import net.rptools.maptool.server.ServerMessageHandler;
 import net.rptools.maptool.server.ServerPolicy;
+import net.rptools.maptool.server.ZoneVersions;
 import net.rptools.maptool.server.proto.*;
 import net.rptools.maptool.server.proto.drawing.IntPointDto;
 import org.apache.logging.log4j.LogManager;
@@ -52,9 +55,27 @@
 public class ServerCommandClientImpl implements ServerCommand {
   private static final Logger log = LogManager.getLogger(ServerCommandClientImpl.class);
 
+  /**
+   * Exposed areas are sent with their coordinates rounded to 1/256 of a map unit, which is far
+   * below anything visible but keeps the curved edges of vision areas small on the wire.
+   */
+  private static final int EXPOSED_AREA_SCALE = 256;
+
+  /** The number of game data updates after which they are sent without waiting. */
+  private static final int MAX_DATA_UPDATE_BATCH_SIZE = 500;
+
   private final MapToolClient client;
   private final TimedEventQueue movementUpdateQueue = new TimedEventQueue(100);
 
+  /** The token updates collected on each thread, see {@link #beginTokenUpdateBatch()}. */
+  private final ThreadLocal<TokenUpdateBatch> tokenUpdateBatch = new ThreadLocal<>();
+
+  /**
+   * The game data updates not yet sent. They are sent before the next other message, or by the
+   * {@link #movementUpdateQueue} thread if no other message is sent.
+   */
+  private final DataUpdateBatch dataUpdateBatch = new DataUpdateBatch();
+
   public ServerCommandClientImpl(MapToolClient client) {
     this.client = client;
     movementUpdateQueue.start();
@@ -393,22 +414,27 @@ public void toggleTokenMoveWaypoint(GUID zoneGUID, GUID tokenGUID, ZonePoint cp)
   }
 
   public void addTopology(GUID zoneGUID, Area area, Zone.TopologyType topologyType) {
-    var msg =
-        AddTopologyMsg.newBuilder()
-            .setZoneGuid(zoneGUID.toString())
-            .setType(TopologyTypeDto.valueOf(topologyType.name()))
-            .setArea(Mapper.map(area));
-
-    makeServerCall(Message.newBuilder().setAddTopologyMsg(msg).build());
+    var msg = topologyDelta(zoneGUID, topologyType).setAdded(Mapper.map(area));
+    makeServerCall(Message.newBuilder().setAreaDeltaMsg(msg).build());
   }
 
   public void removeTopology(GUID zoneGUID, Area area, Zone.TopologyType topologyType) {
-    var msg =
-        RemoveTopologyMsg.newBuilder()
-            .setZoneGuid(zoneGUID.toString())
-            .setArea(Mapper.map(area))
-            .setType(TopologyTypeDto.valueOf(topologyType.name()));
-    makeServerCall(Message.newBuilder().setRemoveTopologyMsg(msg).build());
+    var msg = topologyDelta(zoneGUID, topologyType).setRemoved(Mapper.map(area));
+    makeServerCall(Message.newBuilder().setAreaDeltaMsg(msg).build());
+  }
+
+  /** Starts a topology delta for a change that has already been made to the local zone. */
+  private AreaDeltaMsg.Builder topologyDelta(GUID zoneGUID, Zone.TopologyType topologyType) {
+    long version = client.getCampaign().getZone(zoneGUID).getTopologyVersion(topologyType);
+    return AreaDeltaMsg.newBuilder()
+        .setZoneGuid(zoneGUID.toString())
+        .setTarget(AreaSync.topologyTarget(topologyType))
+        .setBaseVersion(version - 1);
+  }
+
+  public void requestAreaSync(GUID zoneGUID, AreaTargetDto target) {
+    var msg = RequestAreaSyncMsg.newBuilder().setZoneGuid(zoneGUID.toString()).setTarget(target);
+    makeServerCall(Message.newBuilder().setRequestAreaSyncMsg(msg).build());
   }
 
   public void exposePCArea(GUID zoneGUID) {
@@ -419,7 +445,10 @@ public void exposePCArea(GUID zoneGUID) {
   public void exposeFoW(GUID zoneGUID, Area area, Set<GUID> selectedToks) {
     // Expose locally right away.
     client.getCampaign().getZone(zoneGUID).exposeArea(area, selectedToks);
-    var msg = ExposeFowMsg.newBuilder().setZoneGuid(zoneGUID.toString()).setArea(Mapper.map(area));
+    var msg =
+        ExposeFowMsg.newBuilder()
+            .setZoneGuid(zoneGUID.toString())
+            .setArea(Mapper.map(area, EXPOSED_AREA_SCALE));
     msg.addAllTokenGuid(selectedToks.stream().map(g -> g.toString()).collect(Collectors.toList()));
     makeServerCall(Message.newBuilder().setExposeFowMsg(msg).build());
   }
@@ -428,14 +457,17 @@ public void setFoW(GUID zoneGUID, Area area, Set<GUID> selectedToks) {
     var msg =
         SetFowMsg.newBuilder()
             .setZoneGuid(zoneGUID.toString())
-            .setArea(Mapper.map(area))
+            .setArea(Mapper.map(area, EXPOSED_AREA_SCALE))
             .addAllSelectedTokens(
                 selectedToks.stream().map(t -> t.toString()).collect(Collectors.toList()));
     makeServerCall(Message.newBuilder().setSetFowMsg(msg).build());
   }
 
   public void hideFoW(GUID zoneGUID, Area area, Set<GUID> selectedToks) {
-    var msg = HideFowMsg.newBuilder().setZoneGuid(zoneGUID.toString()).setArea(Mapper.map(area));
+    var msg =
+        HideFowMsg.newBuilder()
+            .setZoneGuid(zoneGUID.toString())
+            .setArea(Mapper.map(area, EXPOSED_AREA_SCALE));
     msg.addAllTokenGuid(selectedToks.stream().map(g -> g.toString()).collect(Collectors.toList()));
     makeServerCall(Message.newBuilder().setHideFowMsg(msg).build());
   }
@@ -517,7 +549,69 @@ public void clearExposedArea(GUID zoneGUID, boolean globalOnly) {
     makeServerCall(Message.newBuilder().setClearExposedAreaMsg(msg).build());
   }
 
+  @Override
+  public void beginTokenUpdateBatch() {
+    TokenUpdateBatch batch = tokenUpdateBatch.get();
+    if (batch == null) {
+      batch = new TokenUpdateBatch();
+      tokenUpdateBatch.set(batch);
+    }
+    batch.begin();
+  }
+
+  @Override
+  public void endTokenUpdateBatch() {
+    TokenUpdateBatch batch = tokenUpdateBatch.get();
+    if (batch != null && batch.end()) {
+      tokenUpdateBatch.remove();
+      sendTokenUpdates(batch);
+    }
+  }
+
+  private void sendTokenUpdates(TokenUpdateBatch batch) {
+    Message msg = batch.drain();
+    if (msg != null) {
+      sendServerMessage(msg);
+    }
+  }
+
   private void makeServerCall(Message msg) {
+    TokenUpdateBatch batch = tokenUpdateBatch.get();
+    if (batch != null) {
+      if (batch.add(msg)) {
+        return;
+      }
+      // Keep the order of the messages, the token updates so far go first
+      sendTokenUpdates(batch);
+    }
+    sendServerMessage(msg);
+  }
+
+  private void makeDataUpdateCall(Message msg) {
+    synchronized (dataUpdateBatch) {
+      dataUpdateBatch.add(msg);
+      if (dataUpdateBatch.size() >= MAX_DATA_UPDATE_BATCH_SIZE) {
+        sendDataUpdates();
+      }
+    }
+  }
+
+  private void sendDataUpdates() {
+    synchronized (dataUpdateBatch) {
+      Message msg = dataUpdateBatch.drain();
+      if (msg != null) {
+        sendMessage(msg);
+      }
+    }
+  }
+
+  private void sendServerMessage(Message msg) {
+    // Keep the order of the messages, the game data updates so far go first
+    sendDataUpdates();
+    sendMessage(msg);
+  }
+
+  private void sendMessage(Message msg) {
     log.debug(
         "{} making server call {}; state is {}",
         client.getPlayer().getName(),
@@ -525,7 +619,15 @@ private void makeServerCall(Message msg) {
         client.getState());
 
     if (client.getState() == MapToolClient.State.Connected) {
+      // The server does not echo our changes, so these zones must be sent again on reconnect.
+      client.getZoneVersions().markUnknown(ZoneVersions.changedZones(msg));
+      var start = System.nanoTime();
       client.getConnection().sendMessage(msg);
+      Telemetry.recordMessage(
+          true,
+          msg.getMessageTypeCase().name(),
+          msg.getSerializedSize(),
+          System.nanoTime() - start);
     }
   }
 
@@ -555,13 +657,27 @@ public void updateExposedAreaMeta(
     var msg =
         UpdateExposedAreaMetaMsg.newBuilder()
             .setZoneGuid(zoneGUID.toString())
-            .setArea(Mapper.map(meta.getExposedAreaHistory()));
+            .setArea(Mapper.map(meta.getExposedAreaHistory(), EXPOSED_AREA_SCALE));
+    meta.setVersion(meta.getVersion() + 1);
+    msg.setVersion(meta.getVersion());
     if (tokenExposedAreaGUID != null) {
       msg.setTokenGuid(StringValue.of(tokenExposedAreaGUID.toString()));
     }
     makeServerCall(Message.newBuilder().setUpdateExposedAreaMetaMsg(msg).build());
   }
 
+  public void addToExposedAreaMeta(GUID zoneGUID, GUID tokenExposedAreaGUID, Area area) {
+    var meta = client.getCampaign().getZone(zoneGUID).getExposedAreaMetaData(tokenExposedAreaGUID);
+    var msg =
+        AreaDeltaMsg.newBuilder()
+            .setZoneGuid(zoneGUID.toString())
+            .setTarget(AreaSync.exposedAreaTarget(tokenExposedAreaGUID))
+            .setBaseVersion(meta.getVersion())
+            .setAdded(Mapper.map(area, EXPOSED_AREA_SCALE));
+    meta.setVersion(meta.getVersion() + 1);
+    makeServerCall(Message.newBuilder().setAreaDeltaMsg(msg).build());
+  }
+
   @Override
   public void addAddOnLibrary(List<TransferableAddOnLibrary> addOnLibraries) {
     var msg =
@@ -602,7 +718,7 @@ public void updateDataNamespace(GameDataDto gameData) {
   @Override
   public void updateData(String type, String namespace, GameDataValueDto gameData) {
     var msg = UpdateDataMsg.newBuilder().setType(type).setNamespace(namespace).setValue(gameData);
-    makeServerCall(Message.newBuilder().setUpdateDataMsg(msg).build());
+    makeDataUpdateCall(Message.newBuilder().setUpdateDataMsg(msg).build());
   }
 
   @Override
@@ -620,7 +736,7 @@ public void removeDataNamespace(String type, String namespace) {
   @Override
   public void removeData(String type, String namespace, String name) {
     var msg = RemoveDataMsg.newBuilder().setType(type).setNamespace(namespace).setName(name);
-    makeServerCall(Message.newBuilder().setRemoveDataMsg(msg).build());
+    makeDataUpdateCall(Message.newBuilder().setRemoveDataMsg(msg).build());
   }
 
   @Override
@@ -832,6 +948,7 @@ public void run() {
       while (true) {
 
         flush();
+        sendDataUpdates();
         synchronized (sleepSemaphore) {
           try {
             Thread.sleep(delay);
@@ -0,0 +1,151 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.server.proto.Message;
+import net.rptools.maptool.server.proto.TokenUpdateBatchMsg;
+
+/**
+ * Collects the token update messages sent while a macro runs so that they can be sent to the server
+ * as a single message. Updates that are made obsolete by a later put or removal of the same token
+ * are dropped.
+ *
+ * <p>Batches can be nested, the messages are only sent when the outermost batch ends.
+ */
+class TokenUpdateBatch {
+
+  /** Updates that change the token again each time they are applied. */
+  private static final Set<Token.Update> CUMULATIVE_UPDATES =
+      EnumSet.of(
+          Token.Update.flipX,
+          Token.Update.flipY,
+          Token.Update.flipIso,
+          Token.Update.addLightSource);
+
+  /** The collected messages in the order they were sent, {@code null} if dropped. */
+  private final List<Message> messages = new ArrayList<>();
+
+  /** The indexes in {@link #messages} of the messages for each token. */
+  private final Map<String, List<Integer>> messagesByToken = new HashMap<>();
+
+  private int messageCount;
+
+  private int depth;
+
+  /** Starts a (possibly nested) batch. */
+  void begin() {
+    depth++;
+  }
+
+  /**
+   * Ends a (possibly nested) batch.
+   *
+   * @return {@code true} if the outermost batch ended and the messages should be sent.
+   */
+  boolean end() {
+    return --depth == 0;
+  }
+
+  /**
+   * Adds a message to the batch if it is a token update.
+   *
+   * @param msg the message.
+   * @return {@code true} if the message was added, {@code false} if it is not a token update and
+   *     has to be sent on its own.
+   */
+  boolean add(Message msg) {
+    String tokenKey = getTokenKey(msg);
+    if (tokenKey == null) {
+      return false;
+    }
+
+    List<Integer> indexes = messagesByToken.computeIfAbsent(tokenKey, k -> new ArrayList<>());
+    if (msg.getMessageTypeCase() != Message.MessageTypeCase.UPDATE_TOKEN_PROPERTY_MSG) {
+      // The whole token is replaced or removed, so the earlier updates are not needed.
+      for (int index : indexes) {
+        messages.set(index, null);
+        messageCount--;
+      }
+      indexes.clear();
+    } else if (!indexes.isEmpty()
+        && msg.equals(messages.get(indexes.get(indexes.size() - 1)))
+        && !CUMULATIVE_UPDATES.contains(
+            Token.Update.valueOf(msg.getUpdateTokenPropertyMsg().getProperty().name()))) {
+      // Applying the same update as the last one for this token again changes nothing.
+      return true;
+    }
+    indexes.add(messages.size());
+    messages.add(msg);
+    messageCount++;
+    return true;
+  }
+
+  /**
+   * Removes the collected messages from the batch and returns them as a single message.
+   *
+   * @return the collected messages, or {@code null} if there are none.
+   */
+  Message drain() {
+    Message result = null;
+    if (messageCount == 1) {
+      result = messages.stream().filter(Objects::nonNull).findFirst().orElseThrow();
+    } else if (messageCount > 1) {
+      var batchMsg = TokenUpdateBatchMsg.newBuilder();
+      for (Message msg : messages) {
+        if (msg != null) {
+          batchMsg.addMessages(msg);
+        }
+      }
+      result = Message.newBuilder().setTokenUpdateBatchMsg(batchMsg).build();
+    }
+    messages.clear();
+    messagesByToken.clear();
+    messageCount = 0;
+    return result;
+  }
+
+  /**
+   * Returns the key of the token a message updates.
+   *
+   * @param msg the message.
+   * @return the zone and token id, or {@code null} if the message is not a token update.
+   */
+  private static String getTokenKey(Message msg) {
+    return switch (msg.getMessageTypeCase()) {
+      case PUT_TOKEN_MSG -> getTokenKey(
+          msg.getPutTokenMsg().getZoneGuid(), msg.getPutTokenMsg().getToken().getId());
+      case EDIT_TOKEN_MSG -> getTokenKey(
+          msg.getEditTokenMsg().getZoneGuid(), msg.getEditTokenMsg().getToken().getId());
+      case REMOVE_TOKEN_MSG -> getTokenKey(
+          msg.getRemoveTokenMsg().getZoneGuid(), msg.getRemoveTokenMsg().getTokenGuid());
+      case UPDATE_TOKEN_PROPERTY_MSG -> getTokenKey(
+          msg.getUpdateTokenPropertyMsg().getZoneGuid(),
+          msg.getUpdateTokenPropertyMsg().getTokenGuid());
+      default -> null;
+    };
+  }
+
+  private static String getTokenKey(String zoneGuid, String tokenGuid) {
+    return zoneGuid + "/" + tokenGuid;
+  }
+}
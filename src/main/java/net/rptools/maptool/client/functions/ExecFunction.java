@@ -19,7 +19,7 @@
 import java.util.*;
 import java.util.List;
 import net.rptools.maptool.client.MapTool;
-import net.rptools.maptool.client.MapToolExpressionParser;
+import net.rptools.maptool.client.MapToolLineParser;
 import net.rptools.maptool.client.MapToolVariableResolver;
 import net.rptools.maptool.client.functions.json.JSONMacroFunctions;
 import net.rptools.maptool.client.functions.json.JsonArrayFunctions;
@@ -204,7 +204,7 @@ public static boolean isMessageGlobal(String target, String source) {
    * @param execArgs the arguments to the function
    */
   private static void runExecFunction(String functionName, List<Object> execArgs) {
-    Parser parser = new MapToolExpressionParser().getParser();
+    Parser parser = MapToolLineParser.expressionParser.getParser();
     Function function = parser.getFunction(functionName);
     MapTool.getParser().enterTrustedContext(functionName, "execFunction");
     try {
@@ -408,7 +408,6 @@ private static Object getTokenList(
     JsonObject jobj = JsonParser.parseString(jsonString).getAsJsonObject();
 
     // First get a list of all our tokens. By default this is limited to the TOKEN and GM layers.
-    List<Token> allTokens = null;
     JsonArray layers = null;
     if (!jobj.has("layer")) {
       layers = new JsonArray();
@@ -444,9 +443,8 @@ private static Object getTokenList(
       }
     }
     Zone zone = zoneRenderer.getZone();
-    allTokens = zone.getTokensFiltered(new LayerFilter(layers));
-    List<Token> tokenList = new ArrayList<Token>(allTokens.size());
-    tokenList.addAll(allTokens);
+    List<Token> tokenList =
+        getTokensFiltered(new LayerFilter(layers), getCandidateTokens(zone, layers, jobj, mapName));
     JsonObject range = null;
     JsonObject area = null;
 
@@ -561,25 +559,7 @@ private static Object getTokenList(
     // Loop through and compare ranges if we have them
     if (range != null) {
       TokenLocationFunctions instance = TokenLocationFunctions.getInstance();
-      Token token;
-      if (range.has("token")) {
-        token = findToken(range.get("token").getAsString(), mapName);
-        if (token == null) {
-          throw new ParserException(
-              I18N.getText(
-                  "macro.function.general.unknownToken",
-                  "getTokens",
-                  range.get("token").getAsString()));
-        }
-      } else {
-        GUID guid = MapTool.getFrame().getCommandPanel().getIdentityGUID();
-        if (guid != null) token = zone.getToken(guid);
-        else token = findToken(MapTool.getFrame().getCommandPanel().getIdentity(), mapName);
-        if (token == null) {
-          throw new ParserException(
-              I18N.getText("macro.function.general.noImpersonated", "getTokens"));
-        }
-      }
+      Token token = getSourceToken(range, mapName, zone);
       int from = Integer.MIN_VALUE;
       int upto = Integer.MAX_VALUE;
 
@@ -598,7 +578,7 @@ private static Object getTokenList(
       if (range.has("metric")) {
         metric = range.get("metric").getAsString();
       }
-      List<Token> inrange = new LinkedList<Token>();
+      Set<Token> inrange = new HashSet<Token>();
       for (Token targetToken : tokenList) {
         double distance = instance.getDistance(token, targetToken, useDistancePerCell, metric);
         if (distance <= upto && distance >= from && token != targetToken) {
@@ -610,53 +590,8 @@ private static Object getTokenList(
 
     // Loop through and compare the area if we have it
     if (area != null) {
-      TokenLocationFunctions instance = TokenLocationFunctions.getInstance();
-      Token token;
-      if (area.has("token")) {
-        token = findToken(area.get("token").getAsString(), mapName);
-        if (token == null) {
-          throw new ParserException(
-              I18N.getText(
-                  "macro.function.general.unknownToken",
-                  "getTokens",
-                  area.get("token").getAsString()));
-        }
-      } else {
-        GUID guid = MapTool.getFrame().getCommandPanel().getIdentityGUID();
-        if (guid != null) token = zone.getToken(guid);
-        else token = findToken(MapTool.getFrame().getCommandPanel().getIdentity(), mapName);
-        if (token == null) {
-          throw new ParserException(
-              I18N.getText("macro.function.general.noImpersonated", "getTokens"));
-        }
-      }
-      JsonArray offsets = area.get("offsets").getAsJsonArray();
-      if (offsets == null) {
-        throw new ParserException(
-            I18N.getText("macro.function.findTokenFunctions.offsetArray", "getTokens"));
-      }
-      String metric = null;
-      if (area.has("metric")) {
-        metric = area.get("metric").getAsString();
-      }
-      CellPoint cp = instance.getTokenCell(token);
-
-      Point[] points = new Point[offsets.size()];
-      int ip = 0; // create an array of points for each cell
-      for (Object o : offsets) {
-        if (!(o instanceof JsonObject)) {
-          throw new ParserException(
-              I18N.getText("macro.function.findTokenFunctions.offsetArray", "getTokens"));
-        }
-        JsonObject joff = (JsonObject) o;
-        if (!joff.has("x") || !joff.has("y")) {
-          throw new ParserException(
-              I18N.getText("macro.function.findTokenFunctions.offsetArray", "getTokens"));
-        }
-        // note: cp.x and cp.y returns the top left cell (pixel for gridless
-        points[ip] = new Point(joff.get("x").getAsInt() + cp.x, joff.get("y").getAsInt() + cp.y);
-        ip += 1;
-      }
+      Token token = getSourceToken(area, mapName, zone);
+      Point[] points = getAreaPoints(area, token);
       Set<Token> matching = new HashSet<Token>();
       for (Token targetToken : tokenList) {
         if (TokenLocationFunctions.isTokenAtXY(targetToken, zone, points))
@@ -684,6 +619,233 @@ private static Object getTokenList(
     }
   }
 
+  /**
+   * Returns the tokens that may match the conditions, in z-order. The token indexes of the zone are
+   * intersected for the conditions that can use them, so that only these tokens have to be checked
+   * against the conditions. Conditions that can not be used, or that are malformed, do not narrow
+   * down the tokens, the errors are reported when the conditions are checked.
+   *
+   * @param zone the zone to search.
+   * @param layers the layers to search.
+   * @param jobj the conditions.
+   * @param mapName the name of the map, or {@code null} for the current map.
+   * @return the tokens that may match.
+   */
+  private static List<Token> getCandidateTokens(
+      Zone zone, JsonArray layers, JsonObject jobj, String mapName) {
+    TokenIndex index = zone.getTokenIndex();
+    List<Set<Token>> indexed = new ArrayList<>();
+
+    try {
+      Set<Token> onLayers = new HashSet<>();
+      for (JsonElement layer : layers) {
+        onLayers.addAll(
+            index.getTokensOnLayer(Zone.Layer.getByName(layer.getAsString().toUpperCase())));
+      }
+      indexed.add(onLayers);
+    } catch (RuntimeException e) {
+      return zone.getAllTokens();
+    }
+
+    for (String searchType : jobj.keySet()) {
+      JsonElement json = jobj.get(searchType);
+      try {
+        switch (searchType.toLowerCase()) {
+          case "npc" -> {
+            if (booleanCheck(jobj, searchType)) {
+              indexed.add(index.getTokensOfType(Token.Type.NPC));
+            }
+          }
+          case "pc" -> {
+            if (booleanCheck(jobj, searchType)) {
+              indexed.add(index.getTokensOfType(Token.Type.PC));
+            }
+          }
+          case "setstates" -> {
+            for (JsonElement state : json.isJsonArray() ? json.getAsJsonArray() : List.of(json)) {
+              indexed.add(index.getTokensWithState(state.getAsString()));
+            }
+          }
+          case "propertytype" -> {
+            Set<Token> ofTypes = new HashSet<>();
+            for (JsonElement type : json.isJsonArray() ? json.getAsJsonArray() : List.of(json)) {
+              ofTypes.addAll(index.getTokensWithPropertyType(type.getAsString()));
+            }
+            indexed.add(ofTypes);
+          }
+          case "owned" -> {
+            if (json.isJsonArray()) {
+              Set<String> owners = new HashSet<>();
+              for (JsonElement owner : json.getAsJsonArray()) {
+                owners.add(owner.getAsString());
+              }
+              indexed.add(index.getTokensOwnedBy(owners));
+            } else if (json.isJsonPrimitive()
+                && getOwnership(json.getAsString()) == Ownership.SELF) {
+              indexed.add(index.getTokensOwnedBy(List.of(MapTool.getPlayer().getName())));
+            }
+          }
+          case "range" -> {
+            JsonObject range = json.getAsJsonObject();
+            int distance = getRangeSearchDistance(zone, range);
+            if (distance >= 0) {
+              indexed.add(index.getTokensNear(getSourceToken(range, mapName, zone), distance));
+            }
+          }
+          case "area" -> {
+            JsonObject area = json.getAsJsonObject();
+            Point[] points = getAreaPoints(area, getSourceToken(area, mapName, zone));
+            indexed.add(index.getTokensIn(getAreaSearchBounds(zone, points)));
+          }
+          default -> {}
+        }
+      } catch (ParserException | RuntimeException e) {
+        // Checked again, and reported, with the rest of the conditions.
+      }
+    }
+
+    // Look through the smallest set for the tokens that are in all of them.
+    indexed.sort(Comparator.comparingInt(Set::size));
+    Set<Token> smallest = indexed.get(0);
+    List<Set<Token>> others = indexed.subList(1, indexed.size());
+    List<Token> candidates = new ArrayList<>(smallest.size());
+    for (Token token : smallest) {
+      if (others.stream().allMatch(tokens -> tokens.contains(token))) {
+        candidates.add(token);
+      }
+    }
+    candidates.sort(Zone.TOKEN_Z_ORDER_COMPARATOR);
+    return candidates;
+  }
+
+  /**
+   * Returns the token a range or area condition is measured from, either the one it names or the
+   * impersonated token.
+   *
+   * @param condition the range or area condition.
+   * @param mapName the name of the map, or {@code null} for the current map.
+   * @param zone the zone of the map.
+   * @return the token.
+   * @throws ParserException if the token can not be found.
+   */
+  private static Token getSourceToken(JsonObject condition, String mapName, Zone zone)
+      throws ParserException {
+    Token token;
+    if (condition.has("token")) {
+      token = findToken(condition.get("token").getAsString(), mapName);
+      if (token == null) {
+        throw new ParserException(
+            I18N.getText(
+                "macro.function.general.unknownToken",
+                "getTokens",
+                condition.get("token").getAsString()));
+      }
+    } else {
+      GUID guid = MapTool.getFrame().getCommandPanel().getIdentityGUID();
+      if (guid != null) token = zone.getToken(guid);
+      else token = findToken(MapTool.getFrame().getCommandPanel().getIdentity(), mapName);
+      if (token == null) {
+        throw new ParserException(
+            I18N.getText("macro.function.general.noImpersonated", "getTokens"));
+      }
+    }
+    return token;
+  }
+
+  /**
+   * Returns the cells of an area condition, the offsets in the condition added to the cell of the
+   * token.
+   *
+   * @param area the area condition.
+   * @param token the token the offsets are from.
+   * @return the cells, in pixels for gridless maps.
+   * @throws ParserException if the offsets are not valid.
+   */
+  private static Point[] getAreaPoints(JsonObject area, Token token) throws ParserException {
+    JsonArray offsets = area.get("offsets").getAsJsonArray();
+    if (offsets == null) {
+      throw new ParserException(
+          I18N.getText("macro.function.findTokenFunctions.offsetArray", "getTokens"));
+    }
+    CellPoint cp = TokenLocationFunctions.getInstance().getTokenCell(token);
+
+    Point[] points = new Point[offsets.size()];
+    int ip = 0; // create an array of points for each cell
+    for (Object o : offsets) {
+      if (!(o instanceof JsonObject)) {
+        throw new ParserException(
+            I18N.getText("macro.function.findTokenFunctions.offsetArray", "getTokens"));
+      }
+      JsonObject joff = (JsonObject) o;
+      if (!joff.has("x") || !joff.has("y")) {
+        throw new ParserException(
+            I18N.getText("macro.function.findTokenFunctions.offsetArray", "getTokens"));
+      }
+      // note: cp.x and cp.y returns the top left cell (pixel for gridless
+      points[ip] = new Point(joff.get("x").getAsInt() + cp.x, joff.get("y").getAsInt() + cp.y);
+      ip += 1;
+    }
+    return points;
+  }
+
+  /**
+   * Returns the part of the map that tokens within an area condition must cover.
+   *
+   * @param zone the zone.
+   * @param points the cells of the area, in pixels for gridless maps.
+   * @return the bounds of the area.
+   */
+  private static Rectangle getAreaSearchBounds(Zone zone, Point[] points) {
+    Grid grid = zone.getGrid();
+    Rectangle bounds = null;
+    for (Point point : points) {
+      Rectangle pointBounds =
+          grid.getCapabilities().isPathingSupported()
+              ? grid.getBounds(new CellPoint(point.x, point.y))
+              : new Rectangle(point.x, point.y, 1, 1);
+      if (bounds == null) {
+        bounds = pointBounds;
+      } else {
+        bounds.add(pointBounds);
+      }
+    }
+    if (bounds == null) {
+      return new Rectangle();
+    }
+    // Footprints may not line up exactly with the cells of the token.
+    int margin = (int) Math.ceil(getCellSize(grid));
+    bounds.grow(margin, margin);
+    return bounds;
+  }
+
+  /**
+   * Returns how far in pixels from a token the tokens within a range condition can be.
+   *
+   * @param zone the zone.
+   * @param range the range condition.
+   * @return the distance in pixels, or -1 if the range does not limit it.
+   */
+  private static int getRangeSearchDistance(Zone zone, JsonObject range) {
+    if (!range.has("upto")) {
+      return -1;
+    }
+    double cells = Math.max(0, range.get("upto").getAsInt());
+    if (!range.has("distancePerCell") || booleanCheck(range, "distancePerCell")) {
+      if (zone.getUnitsPerCell() <= 0) {
+        return -1;
+      }
+      cells /= zone.getUnitsPerCell();
+    }
+    // A step to a neighbouring hex can change the cell coordinates by one and a half cells. Allow
+    // for that and for footprints that do not line up exactly with the token bounds.
+    double distance = (1.5 * cells + 3) * getCellSize(zone.getGrid());
+    return distance < Integer.MAX_VALUE / 4 ? (int) Math.ceil(distance) : -1;
+  }
+
+  private static double getCellSize(Grid grid) {
+    return Math.max(grid.getSize(), Math.max(grid.getCellWidth(), grid.getCellHeight()));
+  }
+
   private static boolean booleanCheck(JsonObject jobj, String searchType) {
     JsonElement jel = jobj.get(searchType);
     if (jel.isJsonPrimitive()) {
@@ -802,9 +964,10 @@ private static List<Token> getTokensFiltered(Zone.Filter filter, List<Token> ori
   private static List<Token> getTokensFiltered(
       List<Token> editList, List<Token> originalList, boolean match) {
     List<Token> tokenList = new ArrayList<Token>(originalList);
+    Set<Token> editSet = new HashSet<Token>(editList);
 
-    if (match) tokenList.retainAll(editList); // keep tokens in both lists
-    else tokenList.removeAll(editList); // remove edit list from original list
+    if (match) tokenList.retainAll(editSet); // keep tokens in both lists
+    else tokenList.removeAll(editSet); // remove edit list from original list
     return tokenList;
   }
 
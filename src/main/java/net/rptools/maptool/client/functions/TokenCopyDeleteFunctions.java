@@ -73,7 +73,8 @@ public Object childEvaluate(
       int nCopies = psize > 1 ? FunctionUtil.paramAsInteger(functionName, parameters, 1, false) : 1;
       JsonObject newVals;
       if (psize > 3) {
-        newVals = FunctionUtil.paramAsJsonObject(functionName, parameters, 3);
+        // Copied as the legacy image keys are added to it.
+        newVals = FunctionUtil.paramAsJsonObject(functionName, parameters, 3).deepCopy();
       } else {
         newVals = new JsonObject();
       }
@@ -109,6 +109,8 @@ public Object childEvaluate(
       return getDebugInfo();
     } else if (infoType.equalsIgnoreCase("functions")) {
       return getFunctionLists();
+    } else if (infoType.equalsIgnoreCase("caches")) {
+      return getCacheInfo();
     } else {
       throw new ParserException(
           I18N.getText("macro.function.getInfo.invalidArg", param.get(0).toString()));
@@ -131,6 +133,27 @@ private JsonObject getFunctionLists() {
     return fInfo;
   }
 
+  /**
+   * Retrieves the statistics of the macro caches.
+   *
+   * @return the cache statistics.
+   */
+  private JsonObject getCacheInfo() {
+    var expressionStats = MapToolExpressionParser.getExpressionCacheStatistics();
+    JsonObject expressions = new JsonObject();
+    expressions.addProperty("size", expressionStats.size());
+    expressions.addProperty("length", expressionStats.length());
+    expressions.addProperty("max length", expressionStats.maxLength());
+    expressions.addProperty("hits", expressionStats.hitCount());
+    expressions.addProperty("misses", expressionStats.missCount());
+    expressions.addProperty("hit rate", expressionStats.hitRate());
+    expressions.addProperty("evictions", expressionStats.evictionCount());
+
+    JsonObject cinfo = new JsonObject();
+    cinfo.add("expressions", expressions);
+    return cinfo;
+  }
+
   /**
    * Retrieves the information about the current zone/map and returns it as a JSON Object.
    *
@@ -849,23 +849,6 @@ private Object handleJsonPathFunctions(String functionName, List<Object> paramet
     }
   }
 
-  /**
-   * Returns a shallow copy of the passed in {@link JsonElement}. If the value is immutable then
-   * this method may just return the value itself without making a copy.
-   *
-   * @param jsonElement The {@link JsonElement} to copy.
-   * @return The resulting json data.
-   */
-  private JsonElement shallowCopy(JsonElement jsonElement) {
-    if (jsonElement.isJsonObject()) {
-      return jsonObjectFunctions.shallowCopy(jsonElement.getAsJsonObject());
-    } else if (jsonElement.isJsonArray()) {
-      return jsonArrayFunctions.shallowCopy(jsonElement.getAsJsonArray());
-    } else {
-      return jsonElement; // Is immutable so no need to return copy,
-    }
-  }
-
   /**
    * Returns a copy of the passed in json with the specified path removed.
    *
@@ -875,7 +858,10 @@ private JsonElement shallowCopy(JsonElement jsonElement) {
    */
   private JsonElement jsonPathDelete(JsonElement json, String path) {
     try {
-      return JsonPath.using(jaywayConfig).parse(shallowCopy(json)).delete(path).json();
+      return JsonPath.using(jaywayConfig)
+          .parse(typeConversion.asClonedJsonElement(json))
+          .delete(path)
+          .json();
     } catch (PathNotFoundException ex) {
       // Return original json, this is to preserve backwards compatability pre library update
       return json;
@@ -895,7 +881,10 @@ private JsonElement jsonPathPut(JsonElement json, String path, String key, Objec
     Object value = asJsonElement(info);
 
     try {
-      return JsonPath.using(jaywayConfig).parse(shallowCopy(json)).put(path, key, value).json();
+      return JsonPath.using(jaywayConfig)
+          .parse(typeConversion.asClonedJsonElement(json))
+          .put(path, key, value)
+          .json();
     } catch (PathNotFoundException ex) {
       // Return original json, this is to preserve backwards compatability pre library update
       return json;
@@ -914,7 +903,10 @@ private JsonElement jsonPathSet(JsonElement json, String path, Object info) {
     Object value = asJsonElement(info);
 
     try {
-      return JsonPath.using(jaywayConfig).parse(shallowCopy(json)).set(path, value).json();
+      return JsonPath.using(jaywayConfig)
+          .parse(typeConversion.asClonedJsonElement(json))
+          .set(path, value)
+          .json();
     } catch (PathNotFoundException ex) {
       // Return original json, this is to preserve backwards compatability pre library update
       return json;
@@ -968,7 +960,8 @@ public JsonObjectFunctions getJsonObjectFunctions() {
   }
 
   /**
-   * This method returns the object passed in as the appropriate json type.
+   * This method returns the object passed in as the appropriate json type. The parsed value of a
+   * json string is shared, so the returned value must not be modified.
    *
    * @param o the object to convert.
    * @return the json representation..
@@ -14,6 +14,8 @@
  */
 package net.rptools.maptool.client.functions.json;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
@@ -26,6 +28,19 @@ class JsonMTSTypeConversion {
   /** An empty <code>String</code> as a {@link JsonPrimitive}. */
   public static final JsonPrimitive EMPTY_STRING_ELEMENT = new JsonPrimitive("");
 
+  /** The maximum total length of the json strings to keep parsed values for. */
+  private static final long MAX_CACHED_CHARS = 4_000_000;
+
+  /**
+   * Parsed json values keyed by their text, so the same json string passed around in macros and
+   * token properties is only parsed once. The values are shared and must never be modified.
+   */
+  private static final Cache<String, JsonElement> PARSED_JSON_CACHE =
+      CacheBuilder.newBuilder()
+          .maximumWeight(MAX_CACHED_CHARS)
+          .<String, JsonElement>weigher((json, parsed) -> json.length())
+          .build();
+
   /** Creates a new <code>JsonMTSTypeConversion</code> object. */
   JsonMTSTypeConversion() {}
 
@@ -79,7 +94,9 @@ public String jsonToScriptString(JsonElement element) {
   }
 
   /**
-   * Returns a {@link JsonElement} version of the passed in object.
+   * Returns a {@link JsonElement} version of the passed in object. Json strings are parsed once and
+   * the parsed value is shared between callers, so the returned value must not be modified, use
+   * {@link #asClonedJsonElement(Object)} to get a copy that can be.
    *
    * @param o the object tp convert to a {@link JsonElement}.
    * @return a {@link JsonElement} version of the object.
@@ -95,7 +112,7 @@ JsonElement asJsonElement(Object o) {
         // if it could be a json object try parse it, if we want to try convert strings to numbers
         // parsing it will do this
         try {
-          return JsonParser.parseString(o.toString());
+          return parseJson(s);
         } catch (JsonSyntaxException e) {
           // Do nothing as we will return a JsonPrimitive of the string
         }
@@ -118,12 +135,29 @@ JsonElement asJsonElement(Object o) {
    * @return a {@link JsonElement} version of the object.
    */
   JsonElement asClonedJsonElement(Object json) {
-    if (json instanceof JsonElement) {
-      JsonElement jsonElement = (JsonElement) json;
-      return jsonElement.deepCopy();
-    } else {
-      return asJsonElement(json);
+    // Parsed json strings are shared as well, so they have to be copied too.
+    return asJsonElement(json).deepCopy();
+  }
+
+  /**
+   * Returns the parsed value of a json string, from the cache if it has been parsed before.
+   *
+   * @param json the json string.
+   * @return the shared parsed value.
+   * @throws JsonSyntaxException if the string is not valid json.
+   */
+  private static JsonElement parseJson(String json) {
+    JsonElement parsed = PARSED_JSON_CACHE.getIfPresent(json);
+    if (parsed == null) {
+      parsed = JsonParser.parseString(json);
+      PARSED_JSON_CACHE.put(json, parsed);
     }
+    return parsed;
+  }
+
+  /** Removes all parsed json values from the cache. */
+  static void clearCache() {
+    PARSED_JSON_CACHE.invalidateAll();
   }
 
   /**
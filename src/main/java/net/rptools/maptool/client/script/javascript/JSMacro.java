@@ -46,6 +46,21 @@ private JSMacro() {
     super(0, UNLIMITED_PARAMETERS);
   }
 
+  /**
+   * Returns if any of the registered macros were defined in the given context.
+   *
+   * @param context the context to check.
+   * @return {@code true} if a registered macro refers to the context.
+   */
+  public static boolean hasMacrosFrom(JSContext context) {
+    for (JSAPIRegisteredMacro macro : macros.values()) {
+      if (macro.context == context) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public static boolean isFunctionDefined(String functionName) {
     return macros.containsKey(functionName);
   }
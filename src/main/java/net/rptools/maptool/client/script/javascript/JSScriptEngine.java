@@ -14,6 +14,8 @@
  */
 package net.rptools.maptool.client.script.javascript;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.oracle.truffle.js.scriptengine.*;
 import java.util.*;
 import java.util.List;
@@ -31,6 +33,11 @@
 
 public class JSScriptEngine {
 
+  /** The maximum number of parsed scripts to keep around. */
+  private static final int MAX_CACHED_SOURCES = 500;
+
+  private static final String ANONYMOUS_CONTEXT_NAME = "<anonymous>";
+
   private static Context.Builder cbuilder;
   private static final JSScriptEngine jsScriptEngine = new JSScriptEngine();
   private static final Logger log = LogManager.getLogger(JSScriptEngine.class);
@@ -38,6 +45,34 @@ public class JSScriptEngine {
   private static final Map<String, JSContext> addOnContexts = new HashMap<String, JSContext>();
   private static final Stack<JSContext> contextStack = new Stack<>();
 
+  /**
+   * An API object that is bound into every context.
+   *
+   * @param name the JavaScript variable name of the object.
+   * @param apiClass the class of the object.
+   */
+  private record APIBinding(String name, Class<? extends MapToolJSAPIInterface> apiClass) {}
+
+  /** The API objects to bind into each context, found once by scanning the api package. */
+  private static final List<APIBinding> apiBindings = findAPIBindings();
+
+  /**
+   * Parsed scripts keyed by script text. Sources evaluated in contexts created from the shared
+   * engine are only parsed once.
+   */
+  private static final Cache<String, Source> sourceCache =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SOURCES).build();
+
+  /** Parsed anonymous scripts keyed by the script text before it is wrapped in a function. */
+  private static final Cache<String, Source> anonymousSourceCache =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SOURCES).build();
+
+  /**
+   * The anonymous context last used on this thread. It is closed when the next one is used rather
+   * than straight away, as the caller may still be reading the result of its script.
+   */
+  private static final ThreadLocal<Context> droppedAnonymousContext = new ThreadLocal<>();
+
   public static JSContext getCurrentContext() {
     return contextStack.peek();
   }
@@ -49,9 +84,22 @@ public static boolean inTrustedContext() {
     return JSScriptEngine.contextStack.peek().trusted();
   }
 
-  private void registerAPIObject(Value bindings, MapToolJSAPIInterface apiObj) {
-    MapToolJSAPIDefinition def = apiObj.getClass().getAnnotation(MapToolJSAPIDefinition.class);
-    bindings.putMember(def.javaScriptVariableName(), apiObj);
+  private static List<APIBinding> findAPIBindings() {
+    Reflections reflections = new Reflections("net.rptools.maptool.client.script.javascript.api");
+    Set<Class<?>> annotated = reflections.getTypesAnnotatedWith(MapToolJSAPIDefinition.class);
+
+    List<APIBinding> bindings = new ArrayList<>();
+    for (Class<?> apiClass : annotated) {
+      if (MapToolJSAPIInterface.class.isAssignableFrom(apiClass)) {
+        MapToolJSAPIDefinition def = apiClass.getAnnotation(MapToolJSAPIDefinition.class);
+        bindings.add(
+            new APIBinding(
+                def.javaScriptVariableName(), apiClass.asSubclass(MapToolJSAPIInterface.class)));
+      } else {
+        log.error("Could not add API object " + apiClass.getName() + " (missing interface)");
+      }
+    }
+    return List.copyOf(bindings);
   }
 
   private JSScriptEngine() {
@@ -65,7 +113,9 @@ private JSScriptEngine() {
 
     HostAccess access = habuilder.build();
 
+    // Contexts created from the same engine share parsed and compiled code.
     cbuilder = Context.newBuilder("js");
+    cbuilder.engine(Engine.create());
     cbuilder.allowHostAccess(access);
     cbuilder.option("js.ecmascript-version", "2021");
   }
@@ -103,6 +153,11 @@ public static void resetContexts() {
     JSMacro.clear();
     contexts.clear();
     addOnContexts.clear();
+    Context dropped = droppedAnonymousContext.get();
+    droppedAnonymousContext.remove();
+    if (dropped != null) {
+      dropped.close();
+    }
   }
 
   public static JSContext registerAddOnContext(String name) {
@@ -131,23 +186,50 @@ public Context makeContext() {
     Context context = cbuilder.build();
     Value bindings = context.getBindings("js");
 
-    Reflections reflections = new Reflections("net.rptools.maptool.client.script.javascript.api");
-    Set<Class<?>> annotated = reflections.getTypesAnnotatedWith(MapToolJSAPIDefinition.class);
-
-    for (Class<?> apiClass : annotated) {
+    for (APIBinding binding : apiBindings) {
       try {
-        if (MapToolJSAPIInterface.class.isAssignableFrom(apiClass)) {
-          registerAPIObject(bindings, (MapToolJSAPIInterface) apiClass.newInstance());
-        } else {
-          log.error("Could not add API object " + apiClass.getName() + " (missing interface)");
-        }
+        bindings.putMember(
+            binding.name(), binding.apiClass().getDeclaredConstructor().newInstance());
       } catch (Exception e) {
-        log.error("Could not add API object " + apiClass.getName(), e);
+        log.error("Could not add API object " + binding.apiClass().getName(), e);
       }
     }
     return context;
   }
 
+  /**
+   * Returns the parsed form of a script, parsing it if it is not already in the cache.
+   *
+   * @param script the script text.
+   * @return the source for the script.
+   */
+  private static Source getSource(String script) {
+    Source source = sourceCache.getIfPresent(script);
+    if (source == null) {
+      source = Source.create("js", script);
+      sourceCache.put(script, source);
+    }
+    return source;
+  }
+
+  /**
+   * Returns the parsed form of an anonymous script, wrapped in a function so that its variables do
+   * not end up in the global scope.
+   *
+   * @param script the script text.
+   * @return the source for the wrapped script.
+   */
+  private static Source getAnonymousSource(String script) {
+    Source source = anonymousSourceCache.getIfPresent(script);
+    if (source == null) {
+      String wrapped =
+          "(function() { var args = MTScript.getMTScriptCallingArgs(); " + script + "})();";
+      source = Source.newBuilder("js", wrapped, ANONYMOUS_CONTEXT_NAME).buildLiteral();
+      anonymousSourceCache.put(script, source);
+    }
+    return source;
+  }
+
   public static JSScriptEngine getJSScriptEngine() {
     return jsScriptEngine;
   }
@@ -184,7 +266,7 @@ public Value evalScript(JSContext context, String script, boolean trusted)
     }
     contextStack.push(context);
     try {
-      return context.context().eval("js", script);
+      return context.context().eval(getSource(script));
     } finally {
       contextStack.pop();
     }
@@ -204,19 +286,44 @@ public Object applyFunction(JSAPIRegisteredMacro macro, Object[] args) {
   }
 
   public Value evalAnonymous(String script) throws ScriptException {
+    return evalAnonymous(script, MapTool.getParser().isMacroTrusted());
+  }
 
-    StringBuilder wrapped = new StringBuilder();
-    wrapped
-        .append("(function() { var args = MTScript.getMTScriptCallingArgs(); ")
-        .append(script)
-        .append("})();");
-    Context c = makeContext();
-    JSContext jc = new JSContext(MapTool.getParser().isMacroTrusted(), c, "<anonymous>");
+  /**
+   * Evaluates a script in a new anonymous context, so that nothing the script changes is seen by
+   * other scripts. The context is created from the shared engine, so the script is only parsed and
+   * compiled once however often it is evaluated.
+   *
+   * @param script the script to evaluate.
+   * @param trusted if the script is trusted.
+   * @return the result of the script.
+   */
+  public Value evalAnonymous(String script, boolean trusted) {
+    JSContext jc = new JSContext(trusted, makeContext(), ANONYMOUS_CONTEXT_NAME);
     contextStack.push(jc);
     try {
-      return makeContext().eval("js", wrapped.toString());
+      return jc.context().eval(getAnonymousSource(script));
     } finally {
       contextStack.pop();
+      drop(jc);
+    }
+  }
+
+  /**
+   * Drops an anonymous context once its script has been evaluated, closing the one dropped before
+   * it. A context is kept open while macros registered by its script refer to it.
+   *
+   * @param jc the context to drop.
+   */
+  private static void drop(JSContext jc) {
+    Context previous = droppedAnonymousContext.get();
+    if (JSMacro.hasMacrosFrom(jc)) {
+      droppedAnonymousContext.remove();
+    } else {
+      droppedAnonymousContext.set(jc.context());
+    }
+    if (previous != null) {
+      previous.close();
     }
   }
 }
@@ -125,7 +125,8 @@ private String getEncodedCombinedData(String formData, String linkData, String m
 
     JsonObject jobjLinkData = null;
     if (jLinkData != null && jLinkData.isJsonObject()) {
-      jobjLinkData = jLinkData.getAsJsonObject();
+      // Copied as the form data is added to it.
+      jobjLinkData = jLinkData.getAsJsonObject().deepCopy();
     }
 
     if (jLinkData != null && (jobjLinkData == null || jobjLinkData.has("form"))) {
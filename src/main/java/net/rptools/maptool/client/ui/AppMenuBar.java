@@ -191,6 +191,7 @@ protected JMenu createToolsMenu() {
     menu.add(new JSeparator());
 
     menu.add(new RPCheckBoxMenuItem(AppActions.TOGGLE_COLLECT_PROFILING_DATA, menu));
+    menu.add(new JMenuItem(AppActions.EXPORT_PERFORMANCE_SUMMARY));
     menu.add(new RPCheckBoxMenuItem(AppActions.TOGGLE_LOG_CONSOLE, menu));
 
     return menu;
@@ -1983,6 +1983,7 @@ public void close() {
 
     // If closing cleanly, remove the autosave file
     MapTool.getAutoSaveManager().purge();
+    commandPanel.dispose();
     setVisible(false);
 
     EventQueue.invokeLater(this::dispose);
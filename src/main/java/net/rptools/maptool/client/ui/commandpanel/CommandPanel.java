@@ -746,6 +746,11 @@ public void clearMessagePanel() {
     messagePanel.clearMessages();
   }
 
+  /** Releases the chat log of the message panel. Called when the frame is closed. */
+  public void dispose() {
+    messagePanel.dispose();
+  }
+
   /** Cancel the current command in the command field. */
   public void cancelCommand() {
     commandTextArea.setText("");
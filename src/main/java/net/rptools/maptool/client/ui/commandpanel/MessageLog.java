@@ -0,0 +1,151 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.commandpanel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An append-only log of the chat messages, kept in a temporary file so that only the recent
+ * messages have to stay in the chat document. Each message is stored as its length followed by its
+ * UTF-8 bytes, and is found again by its index.
+ *
+ * <p>The file holds the chat in plain text, including whispers, so only its owner can read it and
+ * it is deleted when the log is cleared or closed.
+ */
+class MessageLog implements AutoCloseable {
+
+  private final File directory;
+  private File file;
+  private RandomAccessFile data;
+
+  /** The offset of each message in the file. */
+  private long[] offsets = new long[1024];
+
+  private int size;
+
+  /**
+   * Creates a log that will keep its file in a directory. The file is only created when the first
+   * message is appended.
+   *
+   * @param directory the directory for the file.
+   */
+  MessageLog(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Returns the number of messages in the log.
+   *
+   * @return the number of messages.
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Appends a message to the log.
+   *
+   * @param message the HTML of the message.
+   * @throws IOException if the message can not be written.
+   */
+  synchronized void append(String message) throws IOException {
+    if (data == null) {
+      file = createFile();
+      file.deleteOnExit();
+      data = new RandomAccessFile(file, "rw");
+    }
+    if (size == offsets.length) {
+      offsets = Arrays.copyOf(offsets, size * 2);
+    }
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    long offset = data.length();
+    data.seek(offset);
+    data.writeInt(bytes.length);
+    data.write(bytes);
+    offsets[size++] = offset;
+  }
+
+  /**
+   * Creates the file of the log, readable and writable by its owner only. Where the file system has
+   * no POSIX permissions the file gets those of the directory, which is in the user's MapTool home.
+   */
+  private File createFile() throws IOException {
+    Path dir = Files.createDirectories(directory.toPath());
+    if (dir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      var ownerOnly =
+          PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+      return Files.createTempFile(dir, "chat", ".log", ownerOnly).toFile();
+    }
+    return Files.createTempFile(dir, "chat", ".log").toFile();
+  }
+
+  /**
+   * Reads messages back from the log.
+   *
+   * @param from the index of the first message.
+   * @param to the index after the last message.
+   * @return the messages, oldest first.
+   * @throws IOException if the messages can not be read.
+   */
+  synchronized List<String> read(int from, int to) throws IOException {
+    if (from < 0 || to > size || from > to) {
+      throw new IndexOutOfBoundsException("Messages " + from + " to " + to + " of " + size);
+    }
+    var messages = new ArrayList<String>(to - from);
+    if (from == to) {
+      return messages;
+    }
+    data.seek(offsets[from]);
+    for (int i = from; i < to; i++) {
+      byte[] bytes = new byte[data.readInt()];
+      data.readFully(bytes);
+      messages.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return messages;
+  }
+
+  /**
+   * Removes all messages from the log and deletes its file. The next message appended creates a new
+   * file.
+   *
+   * @throws IOException if the file can not be closed.
+   */
+  synchronized void clear() throws IOException {
+    size = 0;
+    if (data != null) {
+      try {
+        data.close();
+      } finally {
+        data = null;
+        file.delete();
+      }
+    }
+  }
+
+  /** Closes and deletes the file of the log. */
+  @Override
+  public void close() throws IOException {
+    clear();
+  }
+}
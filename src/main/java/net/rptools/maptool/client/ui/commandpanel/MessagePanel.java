@@ -23,9 +23,14 @@
 import java.awt.event.ComponentListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.swing.JEditorPane;
@@ -40,6 +45,7 @@
 import javax.swing.text.html.StyleSheet;
 import net.rptools.lib.sound.SoundManager;
 import net.rptools.maptool.client.AppPreferences;
+import net.rptools.maptool.client.AppUtil;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.client.functions.MacroLinkFunction;
 import net.rptools.maptool.client.swing.MessagePanelEditorKit;
@@ -48,8 +54,11 @@
 import net.rptools.maptool.events.MapToolEventBus;
 import net.rptools.maptool.model.TextMessage;
 import net.rptools.maptool.util.MessageUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 public class MessagePanel extends JPanel {
+  private static final Logger log = LogManager.getLogger(MessagePanel.class);
 
   private final JScrollPane scrollPane;
   private final HTMLDocument document;
@@ -57,6 +66,24 @@ public class MessagePanel extends JPanel {
 
   private static final String SND_MESSAGE_RECEIVED = "messageReceived";
 
+  /** The number of messages kept in the document while following the chat. */
+  private static final int MAX_RENDERED_MESSAGES = 500;
+
+  /** The number of older messages read back from the log at a time when scrolling up. */
+  private static final int PAGE_SIZE = 100;
+
+  /** Every message shown, so the old ones can be dropped from the document and read back later. */
+  private final MessageLog messageLog;
+
+  /** Whether the messages are in the log. If it can not be written all messages are kept. */
+  private boolean messageLogAvailable = true;
+
+  /** The elements of each message in the document, oldest first. */
+  private final Deque<List<Element>> renderedMessages = new ArrayDeque<>();
+
+  /** The index in the log of the oldest message in the document. */
+  private volatile int firstRenderedMessage;
+
   /** From ImageView */
   private static final String IMAGE_CACHE_PROPERTY = "imageCache";
 
@@ -66,6 +93,12 @@ public class MessagePanel extends JPanel {
   public MessagePanel() {
     setLayout(new GridLayout());
 
+    File tmpDir = AppUtil.getTmpDir();
+    messageLog =
+        new MessageLog(
+            new File(
+                tmpDir != null ? tmpDir : new File(System.getProperty("java.io.tmpdir")), "chat"));
+
     textPane = new JEditorPane();
     textPane.setEditable(false);
     textPane.setEditorKit(new MessagePanelEditorKit());
@@ -136,6 +169,19 @@ public void mouseDragged(MouseEvent e) {
                 MapTool.getFrame().getCommandPanel().getScrollLockButton().setSelected(lock);
               }
             });
+    scrollPane
+        .getVerticalScrollBar()
+        .addAdjustmentListener(
+            e -> {
+              var scrollBar = scrollPane.getVerticalScrollBar();
+              if (!e.getValueIsAdjusting()
+                  && e.getValue() == scrollBar.getMinimum()
+                  && scrollBar.getMaximum() > scrollBar.getVisibleAmount()
+                  && firstRenderedMessage > 0) {
+                // Don't change the document while the scroll bar is being updated.
+                SwingUtilities.invokeLater(this::showOlderMessages);
+              }
+            });
 
     add(scrollPane);
     clearMessages();
@@ -194,9 +240,40 @@ public void setTrustedMacroPrefixColors(Color foreground, Color background) {
     repaint();
   }
 
+  /**
+   * Returns the HTML of all the messages, including the older ones that are no longer in the
+   * document.
+   *
+   * @return the HTML of the chat.
+   */
   public String getMessagesText() {
+    String text = textPane.getText();
+    int olderMessages = firstRenderedMessage;
+    if (olderMessages == 0) {
+      return text;
+    }
 
-    return textPane.getText();
+    Matcher body = BODY_START_PATTERN.matcher(text);
+    if (!body.find()) {
+      return text;
+    }
+    try {
+      String older = String.join("\n", messageLog.read(0, olderMessages));
+      return text.substring(0, body.end()) + older + text.substring(body.end());
+    } catch (IOException e) {
+      log.error("Could not read the older chat messages", e);
+      return text;
+    }
+  }
+
+  /** Closes the chat log, deleting its file. Called when the chat panel is no longer used. */
+  public void dispose() {
+    try {
+      messageLog.close();
+    } catch (IOException e) {
+      log.error("Could not close the chat log", e);
+    }
+    messageLogAvailable = false;
   }
 
   public void clearMessages() {
@@ -204,16 +281,124 @@ public void clearMessages() {
         () -> {
           textPane.setText("<html><body id=\"body\"></body></html>");
           ((MessagePanelEditorKit) textPane.getEditorKit()).flush();
+
+          renderedMessages.clear();
+          firstRenderedMessage = 0;
+          try {
+            messageLog.clear();
+            messageLogAvailable = true;
+          } catch (IOException e) {
+            log.error("Could not clear the chat log", e);
+            messageLogAvailable = false;
+          }
         });
   }
 
+  private boolean isScrollLocked() {
+    return MapTool.getFrame().getCommandPanel().getScrollLockButton().isSelected();
+  }
+
+  private static List<Element> childElements(Element parent, int from, int to) {
+    var children = new ArrayList<Element>(Math.max(0, to - from));
+    for (int i = from; i < to; i++) {
+      children.add(parent.getElement(i));
+    }
+    return children;
+  }
+
+  /**
+   * Adds a message to the end of the document and the log. While the user follows the chat, the
+   * oldest messages are dropped from the document once there are too many.
+   *
+   * @param html the HTML of the message.
+   */
+  private void appendMessage(String html) throws IOException, BadLocationException {
+    Element body = document.getElement("body");
+    int before = body.getElementCount();
+    document.insertBeforeEnd(body, html);
+    renderedMessages.addLast(childElements(body, before, body.getElementCount()));
+
+    if (!messageLogAvailable) {
+      return;
+    }
+    try {
+      messageLog.append(html);
+    } catch (IOException e) {
+      log.error("Could not write to the chat log, keeping all messages in the chat", e);
+      messageLogAvailable = false;
+      return;
+    }
+
+    if (!isScrollLocked()) {
+      while (renderedMessages.size() > MAX_RENDERED_MESSAGES) {
+        for (Element element : renderedMessages.removeFirst()) {
+          document.removeElement(element);
+        }
+        firstRenderedMessage++;
+      }
+    }
+  }
+
+  /** Reads the previous page of messages back from the log into the top of the document. */
+  private void showOlderMessages() {
+    int to = firstRenderedMessage;
+    if (!messageLogAvailable || to == 0) {
+      return;
+    }
+    int from = Math.max(0, to - PAGE_SIZE);
+    List<String> messages;
+    try {
+      messages = messageLog.read(from, to);
+    } catch (IOException e) {
+      log.error("Could not read the older chat messages", e);
+      return;
+    }
+
+    // Keep the user reading where they are instead of jumping to the bottom.
+    MapTool.getFrame().getCommandPanel().getScrollLockButton().setSelected(true);
+    var scrollBar = scrollPane.getVerticalScrollBar();
+    int oldMaximum = scrollBar.getMaximum();
+
+    Element body = document.getElement("body");
+    try {
+      for (int i = messages.size() - 1; i >= 0; i--) {
+        int before = body.getElementCount();
+        document.insertAfterStart(body, messages.get(i));
+        renderedMessages.addFirst(childElements(body, 0, body.getElementCount() - before));
+        firstRenderedMessage--;
+      }
+    } catch (IOException | BadLocationException e) {
+      log.error("Could not show the older chat messages", e);
+    }
+    SwingUtilities.invokeLater(
+        () -> scrollBar.setValue(scrollBar.getValue() + scrollBar.getMaximum() - oldMaximum));
+  }
+
   /*
    * We use ASCII control characters to mark off the rolls so that there's no limitation on what (printable) characters the output can include Rolls look like "\036roll output\036" or
    * "\036tooltip\037roll output\036" or "\036\001format info\002roll output\036" or "\036\001format info\002tooltip\037roll output\036"
    */
-  private static Pattern roll_pattern =
+  private static final Pattern roll_pattern =
       Pattern.compile("\036(?:\001([^\002]*)\002)?([^\036\037]*)(?:\037([^\036]*))?\036");
 
+  /** Plain {HTTP|HTTPS} URLs, which are turned into links. */
+  private static final Pattern URL_LINK_PATTERN =
+      Pattern.compile("(^|\\s|>|\002)(https?://[^<>\002\003\\s]+)");
+
+  // TODO change this so 'macro' is case-insensitive
+  private static final Pattern MACRO_LINK_PATTERN =
+      Pattern.compile(
+          "href=([\"'])\\s*(macro://(?:[^/]*)/(?:[^?]*)(?:\\?(?:.*?))?)\\1\\s*",
+          Pattern.CASE_INSENSITIVE);
+
+  // TODO The leading and trailing '.*' are probably not needed -- test this before removing them
+  private static final Pattern EMPTY_OUTPUT_PATTERN = Pattern.compile(".*\002\\s*\003.*");
+
+  private static final Pattern OUTPUT_MARKER_PATTERN = Pattern.compile("\002|\003");
+
+  private static final Pattern BODY_START_PATTERN =
+      Pattern.compile("<body[^>]*>", Pattern.CASE_INSENSITIVE);
+
   public void addMessage(final TextMessage message) {
     EventQueue.invokeLater(
         () -> {
@@ -262,39 +447,29 @@ else if (options.contains("s")
           // Auto inline expansion for {HTTP|HTTPS} URLs
           // output = output.replaceAll("(^|\\s|>|\002)(https?://[\\w.%-/~?&+#=]+)", "$1<a
           // href='$2'>$2</a>");
-          output =
-              output.replaceAll(
-                  "(^|\\s|>|\002)(https?://[^<>\002\003\\s]+)", "$1<a href='$2'>$2</a>");
+          output = URL_LINK_PATTERN.matcher(output).replaceAll("$1<a href='$2'>$2</a>");
 
           if (!message.getSource().equals(MapTool.getPlayer().getName())) {
-            // TODO change this so 'macro' is case-insensitive
-            Matcher m =
-                Pattern.compile(
-                        "href=([\"'])\\s*(macro://(?:[^/]*)/(?:[^?]*)(?:\\?(?:.*?))?)\\1\\s*",
-                        Pattern.CASE_INSENSITIVE)
-                    .matcher(output);
+            Matcher m = MACRO_LINK_PATTERN.matcher(output);
             while (m.find()) {
               MacroLinkFunction.getInstance().processMacroLink(m.group(2));
             }
           }
           // if rolls not being visible to this user result in an empty message, display nothing
-          // TODO The leading and trailing '.*' are probably not needed -- test this before
-          // removing them
-          if (!output.matches(".*\002\\s*\003.*")) {
-            output = output.replaceAll("\002|\003", "");
+          if (!EMPTY_OUTPUT_PATTERN.matcher(output).matches()) {
+            output = OUTPUT_MARKER_PATTERN.matcher(output).replaceAll("");
 
             try {
-              Element element = document.getElement("body");
               if (!output.toLowerCase().startsWith("<div") || !output.endsWith("</div>")) {
-                document.insertBeforeEnd(element, "<div>" + output + "</div>");
+                appendMessage("<div>" + output + "</div>");
               } else {
-                document.insertBeforeEnd(element, output);
+                appendMessage(output);
               }
               if (!message.getSource().equals(MapTool.getPlayer().getName())) {
                 MapTool.playSound(SND_MESSAGE_RECEIVED);
               }
             } catch (IOException | BadLocationException ioe) {
-              ioe.printStackTrace();
+              log.error("Could not add the message to the chat", ioe);
             }
           }
         });
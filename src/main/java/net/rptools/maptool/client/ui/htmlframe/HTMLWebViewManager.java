@@ -753,7 +753,8 @@ private void getDataAndSubmit(org.w3c.dom.events.Event event) {
   private String getEncodedCombinedData(JsonObject formData, JsonElement linkData) {
     JsonObject jobjLinkData = null;
     if (linkData != null && linkData.isJsonObject()) {
-      jobjLinkData = linkData.getAsJsonObject();
+      // Copied as the form data is added to it.
+      jobjLinkData = linkData.getAsJsonObject().deepCopy();
     }
 
     String combinedData;
@@ -0,0 +1,143 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone;
+
+import java.awt.geom.Area;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The union of a changing collection of areas.
+ *
+ * <p>The areas are the leaves of a balanced binary tree in which every inner node caches the union
+ * of the areas below it. Adding or removing an area only recombines the unions on the path from its
+ * leaf to the root, so a change costs a logarithmic number of {@link Area#add(Area)} calls instead
+ * of unioning every area again.
+ *
+ * <p>Areas are identified by identity, and must not be modified while they are in the union.
+ */
+final class AreaUnion {
+  /** The number of leaves. Always a power of two. */
+  private int capacity = 2;
+
+  /**
+   * The tree in heap layout: the root is at 1, the children of {@code i} at {@code 2i} and {@code
+   * 2i + 1}, and the leaves from {@link #capacity} on. A {@code null} entry is an empty area.
+   */
+  private Area[] tree = new Area[2 * capacity];
+
+  /** Marks the inner nodes whose union has to be recombined. */
+  private boolean[] stale = new boolean[capacity];
+
+  /** The number of leaves that have been used so far. */
+  private int usedLeaves;
+
+  /** The leaves that have been emptied and can be reused. */
+  private final Deque<Integer> freeLeaves = new ArrayDeque<>();
+
+  /** The leaves holding each area. An area added more than once holds more than one leaf. */
+  private final Map<Area, Deque<Integer>> leavesByArea = new IdentityHashMap<>();
+
+  /**
+   * Adds an area to the union.
+   *
+   * @param area the area to add.
+   */
+  void add(Area area) {
+    Integer leaf = freeLeaves.poll();
+    if (leaf == null) {
+      if (usedLeaves == capacity) {
+        grow();
+      }
+      leaf = usedLeaves++;
+    }
+    tree[capacity + leaf] = area;
+    leavesByArea.computeIfAbsent(area, a -> new ArrayDeque<>()).push(leaf);
+    markStale(leaf);
+  }
+
+  /**
+   * Removes an area from the union.
+   *
+   * @param area the area to remove.
+   * @return {@code true} if the area was in the union.
+   */
+  boolean remove(Area area) {
+    Deque<Integer> leaves = leavesByArea.get(area);
+    if (leaves == null) {
+      return false;
+    }
+    int leaf = leaves.pop();
+    if (leaves.isEmpty()) {
+      leavesByArea.remove(area);
+    }
+    tree[capacity + leaf] = null;
+    freeLeaves.push(leaf);
+    markStale(leaf);
+    return true;
+  }
+
+  /**
+   * Returns the union of the areas.
+   *
+   * @return the union, or {@code null} if there are no areas. The result may be one of the areas
+   *     that were added, and must not be modified.
+   */
+  @Nullable
+  Area getUnion() {
+    return union(1);
+  }
+
+  private Area union(int node) {
+    if (node >= capacity || !stale[node]) {
+      return tree[node];
+    }
+    Area left = union(2 * node);
+    Area right = union(2 * node + 1);
+    Area result;
+    if (left == null) {
+      result = right;
+    } else if (right == null) {
+      result = left;
+    } else {
+      result = new Area(left);
+      result.add(right);
+    }
+    tree[node] = result;
+    stale[node] = false;
+    return result;
+  }
+
+  private void markStale(int leaf) {
+    // The ancestors of a stale node are always stale as well, so we can stop at the first one.
+    for (int node = (capacity + leaf) / 2; node >= 1 && !stale[node]; node /= 2) {
+      stale[node] = true;
+    }
+  }
+
+  private void grow() {
+    int newCapacity = capacity * 2;
+    Area[] newTree = new Area[2 * newCapacity];
+    System.arraycopy(tree, capacity, newTree, newCapacity, capacity);
+    tree = newTree;
+    stale = new boolean[newCapacity];
+    Arrays.fill(stale, true);
+    capacity = newCapacity;
+  }
+}
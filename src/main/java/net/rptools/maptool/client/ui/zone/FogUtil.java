@@ -454,7 +454,7 @@ public static void exposeLastPath(final ZoneRenderer renderer, final Set<GUID> t
 
             timer.start("Send results");
             MapTool.serverCommand().exposeFoW(zone.getId(), visionArea, filteredToks);
-            MapTool.serverCommand().updateExposedAreaMeta(zone.getId(), exposedGUID, meta);
+            MapTool.serverCommand().addToExposedAreaMeta(zone.getId(), exposedGUID, visionArea);
             timer.stop("Send results");
 
             timer.stop("exposeLastPath-" + token.getName());
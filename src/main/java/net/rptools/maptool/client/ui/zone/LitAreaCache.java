@@ -0,0 +1,149 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import net.rptools.maptool.client.ui.zone.IlluminationModel.ContributedLight;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.Grid;
+import net.rptools.maptool.model.LightSource;
+
+/**
+ * Caches the lit areas of each light source of each token, so they are only calculated again when
+ * the light itself or the topology around it changes.
+ *
+ * <p>An entry is only used while the light source is the same definition at the same place. A
+ * change to the topology invalidates the entries whose reach overlaps the changed region, leaving
+ * the lights elsewhere on the map alone.
+ */
+final class LitAreaCache {
+
+  /**
+   * Identifies a light source of a token.
+   *
+   * @param tokenId the token the light source is attached to.
+   * @param lightSourceId the id of the light source, null for personal lights.
+   * @param multiplier the magnification of the sight the lit areas are for.
+   */
+  record Key(GUID tokenId, @Nullable GUID lightSourceId, double multiplier) {}
+
+  /**
+   * Where a light source shines from. Together with the light source definition this is all the lit
+   * areas depend on, apart from the topology.
+   *
+   * @param center the vision center of the token.
+   * @param tokenBounds the bounds of the token, which sizes lights that scale with the token.
+   * @param facing the facing of the token, which points cones and beams.
+   * @param grid the grid of the zone.
+   * @param gridSize the size of the grid.
+   */
+  record Placement(Point center, Rectangle tokenBounds, int facing, Grid grid, int gridSize) {}
+
+  /**
+   * The lit areas of a light source.
+   *
+   * @param lightSource the light source definition the lit areas were calculated for.
+   * @param placement where the light source was.
+   * @param reach the region whose topology affects the lit areas, null if it ignores topology.
+   * @param litAreas the lit areas.
+   */
+  private record Entry(
+      LightSource lightSource,
+      Placement placement,
+      @Nullable Rectangle2D reach,
+      List<ContributedLight> litAreas) {}
+
+  private final Map<Key, Entry> entries = new HashMap<>();
+
+  /**
+   * Returns the cached lit areas of a light source.
+   *
+   * @param key identifies the light source.
+   * @param lightSource the current definition of the light source.
+   * @param placement where the light source is now.
+   * @return the lit areas, or null if they are not cached or are out of date.
+   */
+  @Nullable
+  List<ContributedLight> get(Key key, LightSource lightSource, Placement placement) {
+    var entry = entries.get(key);
+    // Light source definitions are replaced, not modified, when they are edited.
+    if (entry == null
+        || entry.lightSource() != lightSource
+        || !entry.placement().equals(placement)) {
+      return null;
+    }
+    return entry.litAreas();
+  }
+
+  /**
+   * Caches the lit areas of a light source.
+   *
+   * @param key identifies the light source.
+   * @param lightSource the definition of the light source.
+   * @param placement where the light source is.
+   * @param reach the region whose topology affects the lit areas, null if it ignores topology.
+   * @param litAreas the lit areas, which must not be modified afterwards.
+   */
+  void put(
+      Key key,
+      LightSource lightSource,
+      Placement placement,
+      @Nullable Rectangle2D reach,
+      List<ContributedLight> litAreas) {
+    entries.put(key, new Entry(lightSource, placement, reach, List.copyOf(litAreas)));
+  }
+
+  /**
+   * Removes the lit areas that may be affected by a change to the topology in a region.
+   *
+   * @param region the bounds of the change.
+   * @return the tokens that had lit areas removed.
+   */
+  Set<GUID> invalidate(Rectangle2D region) {
+    var tokens = new HashSet<GUID>();
+    var iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      var entry = iterator.next();
+      var reach = entry.getValue().reach();
+      if (reach != null && reach.intersects(region)) {
+        tokens.add(entry.getKey().tokenId());
+        iterator.remove();
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * Removes the lit areas of a token.
+   *
+   * @param tokenId the token.
+   */
+  void removeToken(GUID tokenId) {
+    entries.keySet().removeIf(key -> key.tokenId().equals(tokenId));
+  }
+
+  /** Removes all lit areas. */
+  void clear() {
+    entries.clear();
+  }
+}
@@ -19,12 +19,15 @@
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
 import java.util.*;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import net.rptools.lib.telemetry.Telemetry;
 import net.rptools.maptool.client.AppUtil;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.client.ui.zone.Illumination.LumensLevel;
@@ -120,6 +123,15 @@ private void addLightSourceToken(Token token, Set<Player.Role> roles) {
 
   private final Map<IlluminationKey, IlluminationModel> illuminationModels = new HashMap<>();
 
+  /**
+   * The lit areas of each light source. These outlive flushes, and are only invalidated by topology
+   * changes near the light, see {@link #flushTopology(Rectangle2D)}.
+   */
+  private final LitAreaCache litAreaCache = new LitAreaCache();
+
+  /** The bounds of the topology of each token with topology, to know where it was before a move. */
+  private final Map<GUID, Rectangle2D> tokenTopologyBounds = new HashMap<>();
+
   // endregion
 
   // region These fields cache information that is specific to the current PlayerView. They need to
@@ -164,6 +176,7 @@ public ZoneView(Zone zone) {
     this.zone = zone;
 
     updateLightSourcesFromTokens(zone.getAllTokens());
+    updateTokenTopologyBounds(zone.getAllTokens(), false);
 
     new MapToolEventBus().getMainEventBus().register(this);
   }
@@ -338,24 +351,48 @@ private List<ContributedLight> calculateLitAreaForLightSource(
     final var p = FogUtil.calculateVisionCenter(lightSourceToken, zone);
     final var translateTransform = AffineTransform.getTranslateInstance(p.x, p.y);
 
+    final var cacheKey =
+        new LitAreaCache.Key(lightSourceToken.getId(), lightSource.getId(), multiplier);
+    final var placement =
+        new LitAreaCache.Placement(
+            p,
+            lightSourceToken.getBounds(zone),
+            lightSourceToken.getFacing(),
+            zone.getGrid(),
+            zone.getGrid().getSize());
+    final var cached = litAreaCache.get(cacheKey, lightSource, placement);
+    if (cached != null) {
+      return cached;
+    }
+
     // Calculate exposed area
     final var lightSourceArea = lightSource.getArea(lightSourceToken, zone, multiplier);
     lightSourceArea.transform(translateTransform);
 
+    // Topology can only block the light where the light reaches.
+    Rectangle2D reach = null;
+    if (!lightSource.isIgnoresVBL()) {
+      reach = lightSourceArea.getBounds2D();
+      reach.add(p);
+    }
+
     Area lightSourceVisibleArea = lightSourceArea;
 
     if (!lightSource.isIgnoresVBL()) {
-      lightSourceVisibleArea =
-          FogUtil.calculateVisibility(
-              p,
-              lightSourceArea,
-              getTopologyTree(Zone.TopologyType.WALL_VBL),
-              getTopologyTree(Zone.TopologyType.HILL_VBL),
-              getTopologyTree(Zone.TopologyType.PIT_VBL),
-              getTopologyTree(Zone.TopologyType.COVER_VBL));
+      try (var span = Telemetry.start(Telemetry.Category.VISION, "light")) {
+        lightSourceVisibleArea =
+            FogUtil.calculateVisibility(
+                p,
+                lightSourceArea,
+                getTopologyTree(Zone.TopologyType.WALL_VBL),
+                getTopologyTree(Zone.TopologyType.HILL_VBL),
+                getTopologyTree(Zone.TopologyType.PIT_VBL),
+                getTopologyTree(Zone.TopologyType.COVER_VBL));
+      }
     }
     if (lightSourceVisibleArea.isEmpty()) {
       // Nothing illuminated for this source.
+      litAreaCache.put(cacheKey, lightSource, placement, reach, Collections.emptyList());
       return Collections.emptyList();
     }
 
@@ -407,6 +444,7 @@ private List<ContributedLight> calculateLitAreaForLightSource(
       cummulativeStrongerArea.add(originalArea);
     }
 
+    litAreaCache.put(cacheKey, lightSource, placement, reach, litAreas);
     return litAreas;
   }
 
@@ -588,17 +626,19 @@ private Area getTokenVisibleArea(@Nonnull Token token) {
 
     if (tokenVisibleArea == null) {
       // Not cached yet.
-      Point p = FogUtil.calculateVisionCenter(token, zone);
-      Area visibleArea = sight.getVisionShape(token, zone);
-      visibleArea.transform(AffineTransform.getTranslateInstance(p.x, p.y));
-      tokenVisibleArea =
-          FogUtil.calculateVisibility(
-              p,
-              visibleArea,
-              getTopologyTree(Zone.TopologyType.WALL_VBL),
-              getTopologyTree(Zone.TopologyType.HILL_VBL),
-              getTopologyTree(Zone.TopologyType.PIT_VBL),
-              getTopologyTree(Zone.TopologyType.COVER_VBL));
+      try (var span = Telemetry.start(Telemetry.Category.VISION, "sight")) {
+        Point p = FogUtil.calculateVisionCenter(token, zone);
+        Area visibleArea = sight.getVisionShape(token, zone);
+        visibleArea.transform(AffineTransform.getTranslateInstance(p.x, p.y));
+        tokenVisibleArea =
+            FogUtil.calculateVisibility(
+                p,
+                visibleArea,
+                getTopologyTree(Zone.TopologyType.WALL_VBL),
+                getTopologyTree(Zone.TopologyType.HILL_VBL),
+                getTopologyTree(Zone.TopologyType.PIT_VBL),
+                getTopologyTree(Zone.TopologyType.COVER_VBL));
+      }
       tokenVisibleAreaCache.put(token.getId(), tokenVisibleArea);
     }
 
@@ -683,14 +723,16 @@ public List<DrawableLight> getDrawableAuras(PlayerView view) {
                   Area visibleArea = lightSourceArea;
 
                   if (!lightSource.isIgnoresVBL()) {
-                    visibleArea =
-                        FogUtil.calculateVisibility(
-                            p,
-                            lightSourceArea,
-                            getTopologyTree(Zone.TopologyType.WALL_VBL),
-                            getTopologyTree(Zone.TopologyType.HILL_VBL),
-                            getTopologyTree(Zone.TopologyType.PIT_VBL),
-                            getTopologyTree(Zone.TopologyType.COVER_VBL));
+                    try (var span = Telemetry.start(Telemetry.Category.VISION, "aura")) {
+                      visibleArea =
+                          FogUtil.calculateVisibility(
+                              p,
+                              lightSourceArea,
+                              getTopologyTree(Zone.TopologyType.WALL_VBL),
+                              getTopologyTree(Zone.TopologyType.HILL_VBL),
+                              getTopologyTree(Zone.TopologyType.PIT_VBL),
+                              getTopologyTree(Zone.TopologyType.COVER_VBL));
+                    }
                   }
 
                   // This needs to be cached somehow
@@ -791,6 +833,9 @@ public Collection<DrawableLight> getDrawableLights(PlayerView view) {
    * changed. These are all external factors that directly affect vision and illumination. In the
    * future moves on, these situations should be handled by events instead, and the need for an
    * explicit flush should go away or at least be reduced.
+   *
+   * <p>The lit areas of the light sources in {@link #litAreaCache} are kept, as they check
+   * themselves against the lights and are invalidated by topology changes.
    */
   public void flush() {
     // Recalculate everything.
@@ -863,15 +908,82 @@ public void flush(Token token) {
     }
   }
 
+  /**
+   * Flush the caches that depend on topology after a change to the topology.
+   *
+   * <p>Only the lit areas of the lights that reach the changed region are calculated again.
+   *
+   * @param region the bounds of the change, or null to recalculate all lit areas.
+   */
+  private void flushTopology(@Nullable Rectangle2D region) {
+    topologyAreas.clear();
+    topologyTrees.clear();
+
+    if (region == null) {
+      litAreaCache.clear();
+      flush();
+      return;
+    }
+
+    final var affectedTokens = litAreaCache.invalidate(region);
+    for (final var model : illuminationModels.values()) {
+      affectedTokens.forEach(model::removeToken);
+    }
+
+    // Sight is not cached per token yet, and personal lights are cheap to put back together from
+    // the lit area cache.
+    contributedPersonalLightsByToken.clear();
+    tokenVisibleAreaCache.clear();
+
+    tokenVisionCachePerView.clear();
+    illuminationsPerView.clear();
+    exposedAreaMap.clear();
+    visibleAreaMap.clear();
+
+    flushLights();
+  }
+
+  /**
+   * Record the bounds of the topology of the tokens.
+   *
+   * @param tokens the tokens that were added, changed or removed.
+   * @param removed true if the tokens were removed.
+   * @return the region where the topology of the tokens may have changed, or null if none of the
+   *     tokens had or has topology.
+   */
+  private @Nullable Rectangle2D updateTokenTopologyBounds(Iterable<Token> tokens, boolean removed) {
+    Rectangle2D region = null;
+    for (final var token : tokens) {
+      Rectangle2D bounds = null;
+      if (!removed) {
+        for (final var topologyType : Zone.TopologyType.values()) {
+          if (token.hasTopology(topologyType)) {
+            final var typeBounds = token.getTransformedTopology(topologyType).getBounds2D();
+            bounds = bounds == null ? typeBounds : bounds.createUnion(typeBounds);
+          }
+        }
+      }
+
+      final var oldBounds =
+          bounds == null
+              ? tokenTopologyBounds.remove(token.getId())
+              : tokenTopologyBounds.put(token.getId(), bounds);
+      for (final var changed : new Rectangle2D[] {oldBounds, bounds}) {
+        if (changed != null) {
+          region = region == null ? changed : region.createUnion(changed);
+        }
+      }
+    }
+    return region;
+  }
+
   @Subscribe
   private void onTopologyChanged(TopologyChanged event) {
     if (event.zone() != this.zone) {
       return;
     }
 
-    flush();
-    topologyAreas.clear();
-    topologyTrees.clear();
+    flushTopology(event.bounds());
   }
 
   @Subscribe
@@ -922,10 +1034,13 @@ private void onTokensRemoved(TokensRemoved event) {
       flushLights();
     }
 
-    if (event.tokens().stream().anyMatch(Token::hasAnyTopology)) {
-      flush();
-      topologyAreas.clear();
-      topologyTrees.clear();
+    for (var token : event.tokens()) {
+      litAreaCache.removeToken(token.getId());
+    }
+
+    final var topologyRegion = updateTokenTopologyBounds(event.tokens(), true);
+    if (topologyRegion != null) {
+      flushTopology(topologyRegion);
     }
   }
 
@@ -953,10 +1068,9 @@ private void processTokenAddChangeEvent(List<Token> tokens) {
       visibleAreaMap.clear();
     }
 
-    if (tokens.stream().anyMatch(Token::hasAnyTopology)) {
-      flush();
-      topologyAreas.clear();
-      topologyTrees.clear();
+    final var topologyRegion = updateTokenTopologyBounds(tokens, false);
+    if (topologyRegion != null) {
+      flushTopology(topologyRegion);
     }
   }
 
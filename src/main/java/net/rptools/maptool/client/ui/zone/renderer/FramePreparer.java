@@ -0,0 +1,282 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone.renderer;
+
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import net.rptools.maptool.model.IsometricGrid;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.Zone.Layer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Prepares the parts of a {@link ZoneRenderer} frame that do not depend on the view on a background
+ * thread: the tokens of each layer, the figure tokens in their drawing order, and the flipped and
+ * isometric token images.
+ *
+ * <p>The tokens are snapshot on the EDT and the frame, including the token images, is built from
+ * the snapshot in the background. Tokens are only changed on the EDT, and every change must {@link
+ * #invalidate()} the preparer, so a frame built while a token changed is thrown away instead of
+ * being used. Until a frame for the current state is ready, {@link #getFrame(Predicate, Function)}
+ * works out the token lists inline and leaves the token images to the renderer.
+ */
+final class FramePreparer {
+  private static final Logger log = LogManager.getLogger(FramePreparer.class);
+
+  /** The threads frames are prepared on, shared by all renderers. */
+  private static final ExecutorService PREPARER_THREADS =
+      Executors.newFixedThreadPool(
+          Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+          Thread.ofPlatform().name("FramePreparer-", 0).daemon().factory());
+
+  /**
+   * The token lists and images prepared for painting a frame.
+   *
+   * @param tokensOnLayer the tokens on each layer that are not always visible, in z-order.
+   * @param alwaysVisibleTokens the tokens that are always visible, in z-order.
+   * @param figureTokens the figure tokens, in figure drawing order.
+   * @param flippedImages the flipped images of the tokens that needed one.
+   * @param isoImages the isometric images of the tokens that needed one.
+   */
+  record PreparedFrame(
+      Map<Layer, List<Token>> tokensOnLayer,
+      List<Token> alwaysVisibleTokens,
+      List<Token> figureTokens,
+      Map<Token, BufferedImage> flippedImages,
+      Map<Token, BufferedImage> isoImages) {
+
+    /**
+     * Returns the tokens on the layer that are not always visible.
+     *
+     * @param layer the layer.
+     * @return the tokens in z-order.
+     */
+    List<Token> getTokensOnLayer(Layer layer) {
+      return tokensOnLayer.getOrDefault(layer, List.of());
+    }
+  }
+
+  /** The state of a token taken on the EDT. */
+  private record TokenState(Token token, Layer layer, boolean alwaysVisible, boolean figure) {}
+
+  /** A token whose image has to be flipped or projected onto the isometric plane. */
+  private record ImageJob(Token token, boolean flippedX, boolean flippedY, boolean flippedIso) {}
+
+  private final Zone zone;
+  private final Consumer<PreparedFrame> onPrepared;
+
+  /** Counts the changes made to the zone. Changes may be reported from any thread. */
+  private final AtomicLong version = new AtomicLong();
+
+  /** The version a frame is being prepared for, -1 if none. Only used on the EDT. */
+  private long preparingVersion = -1;
+
+  private PreparedFrame frame;
+  private long frameVersion = -1;
+
+  /**
+   * Creates a preparer for the frames of a zone.
+   *
+   * @param zone the zone.
+   * @param onPrepared called on the EDT with each frame once it is ready.
+   */
+  FramePreparer(Zone zone, Consumer<PreparedFrame> onPrepared) {
+    this.zone = zone;
+    this.onPrepared = onPrepared;
+  }
+
+  /** Marks the current frame as stale after a change to the zone or its tokens. */
+  void invalidate() {
+    version.incrementAndGet();
+  }
+
+  /**
+   * Returns the frame prepared for the current state of the zone. If there is none, one is prepared
+   * in the background, and the token lists of the frame returned are worked out inline without any
+   * token images. Must be called on the EDT.
+   *
+   * @param needsImage tells whether the image of a token still has to be flipped or projected.
+   * @param tokenImage returns the image of a token. Called on a background thread.
+   * @return the frame.
+   */
+  PreparedFrame getFrame(Predicate<Token> needsImage, Function<Token, BufferedImage> tokenImage) {
+    long current = version.get();
+    if (frameVersion == current) {
+      return frame;
+    }
+    List<TokenState> states = snapshot();
+    if (preparingVersion != current) {
+      preparingVersion = current;
+      prepare(current, states, needsImage, tokenImage);
+    }
+    return buildFrame(states, List.of(), tokenImage);
+  }
+
+  private List<TokenState> snapshot() {
+    List<Token> tokens = zone.getAllTokens();
+    List<TokenState> states = new ArrayList<>(tokens.size());
+    for (Token token : tokens) {
+      states.add(
+          new TokenState(
+              token,
+              token.getLayer(),
+              token.isAlwaysVisible(),
+              token.getShape() == Token.TokenShape.FIGURE));
+    }
+    return states;
+  }
+
+  private void prepare(
+      long snapshotVersion,
+      List<TokenState> states,
+      Predicate<Token> needsImage,
+      Function<Token, BufferedImage> tokenImage) {
+    List<ImageJob> imageJobs = new ArrayList<>();
+    for (TokenState state : states) {
+      Token token = state.token();
+      if (needsImage.test(token)) {
+        imageJobs.add(
+            new ImageJob(token, token.isFlippedX(), token.isFlippedY(), token.isFlippedIso()));
+      }
+    }
+
+    PREPARER_THREADS.execute(
+        () -> {
+          PreparedFrame prepared;
+          try {
+            prepared = buildFrame(states, imageJobs, tokenImage);
+          } catch (RuntimeException e) {
+            // A token changed while the frame was built. The frame is stale anyway, so the next
+            // paint will ask for a new one.
+            log.debug("Unable to prepare frame", e);
+            EventQueue.invokeLater(
+                () -> {
+                  if (preparingVersion == snapshotVersion) {
+                    preparingVersion = -1;
+                  }
+                });
+            return;
+          }
+          EventQueue.invokeLater(
+              () -> {
+                if (preparingVersion == snapshotVersion) {
+                  preparingVersion = -1;
+                }
+                if (version.get() == snapshotVersion) {
+                  frame = prepared;
+                  frameVersion = snapshotVersion;
+                  onPrepared.accept(prepared);
+                }
+              });
+        });
+  }
+
+  private PreparedFrame buildFrame(
+      List<TokenState> states,
+      List<ImageJob> imageJobs,
+      Function<Token, BufferedImage> tokenImage) {
+    Map<Layer, List<Token>> tokensOnLayer = new EnumMap<>(Layer.class);
+    List<Token> alwaysVisible = new ArrayList<>();
+    List<Token> figures = new ArrayList<>();
+    for (TokenState state : states) {
+      if (state.alwaysVisible()) {
+        alwaysVisible.add(state.token());
+      } else {
+        tokensOnLayer.computeIfAbsent(state.layer(), l -> new ArrayList<>()).add(state.token());
+      }
+      if (state.figure()) {
+        figures.add(state.token());
+      }
+    }
+    figures.sort(zone.getFigureZOrderComparator());
+    tokensOnLayer.replaceAll((layer, list) -> Collections.unmodifiableList(list));
+
+    Map<Token, BufferedImage> flippedImages = new HashMap<>();
+    Map<Token, BufferedImage> isoImages = new HashMap<>();
+    for (var prepared : imageJobs.parallelStream().map(j -> prepareImage(j, tokenImage)).toList()) {
+      if (prepared == null) {
+        continue;
+      }
+      ImageJob job = prepared.job();
+      if (job.flippedX() || job.flippedY()) {
+        flippedImages.put(job.token(), prepared.flipped());
+      }
+      if (prepared.iso() != null) {
+        isoImages.put(job.token(), prepared.iso());
+      }
+    }
+
+    return new PreparedFrame(
+        Collections.unmodifiableMap(tokensOnLayer),
+        Collections.unmodifiableList(alwaysVisible),
+        Collections.unmodifiableList(figures),
+        Collections.unmodifiableMap(flippedImages),
+        Collections.unmodifiableMap(isoImages));
+  }
+
+  private record PreparedImage(ImageJob job, BufferedImage flipped, BufferedImage iso) {}
+
+  private static PreparedImage prepareImage(
+      ImageJob job, Function<Token, BufferedImage> tokenImage) {
+    BufferedImage image = tokenImage.apply(job.token());
+    if (image == null) {
+      return null;
+    }
+    BufferedImage flipped = flipImage(image, job.flippedX(), job.flippedY());
+    BufferedImage iso = job.flippedIso() ? IsometricGrid.isoImage(flipped) : null;
+    return new PreparedImage(job, flipped, iso);
+  }
+
+  /**
+   * Returns a copy of the image that is mirrored horizontally and/or vertically.
+   *
+   * @param image the image.
+   * @param flippedX {@code true} to mirror the image horizontally.
+   * @param flippedY {@code true} to mirror the image vertically.
+   * @return the flipped image, or the image itself if it is not flipped at all.
+   */
+  static BufferedImage flipImage(BufferedImage image, boolean flippedX, boolean flippedY) {
+    if (!flippedX && !flippedY) {
+      return image;
+    }
+    BufferedImage workImage =
+        new BufferedImage(image.getWidth(), image.getHeight(), image.getTransparency());
+
+    int workW = image.getWidth() * (flippedX ? -1 : 1);
+    int workH = image.getHeight() * (flippedY ? -1 : 1);
+    int workX = flippedX ? image.getWidth() : 0;
+    int workY = flippedY ? image.getHeight() : 0;
+
+    Graphics2D wig = workImage.createGraphics();
+    wig.drawImage(image, workX, workY, workW, workH, null);
+    wig.dispose();
+    return workImage;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone.renderer;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A retained offscreen surface for layers of a {@link ZoneRenderer} that rarely change, such as the
+ * board, the drawables and the grid. The layers are painted into the surface once and then copied
+ * to the screen with a single blit for as long as the view and the layers stay the same.
+ */
+final class LayerCache {
+
+  /**
+   * What the content of the surface depends on.
+   *
+   * @param offsetX the horizontal view offset.
+   * @param offsetY the vertical view offset.
+   * @param scale the view scale.
+   * @param width the width of the view.
+   * @param height the height of the view.
+   * @param state any other state the layers were painted with, compared by {@code equals()}.
+   */
+  record Key(int offsetX, int offsetY, double scale, int width, int height, List<?> state) {}
+
+  private BufferedImage surface;
+  private Key key;
+
+  /**
+   * Draws the layers, repainting them into the surface first if the key changed or the cache was
+   * invalidated since they were last painted.
+   *
+   * @param g the graphics to draw the layers to.
+   * @param key what the layers depend on.
+   * @param painter paints the layers in screen coordinates.
+   */
+  void render(Graphics2D g, Key key, Consumer<Graphics2D> painter) {
+    if (surface == null
+        || surface.getWidth() != key.width()
+        || surface.getHeight() != key.height()) {
+      surface = new BufferedImage(key.width(), key.height(), BufferedImage.TYPE_INT_ARGB_PRE);
+      this.key = null;
+    }
+    if (!key.equals(this.key)) {
+      Graphics2D sg = surface.createGraphics();
+      try {
+        sg.setComposite(AlphaComposite.Clear);
+        sg.fillRect(0, 0, key.width(), key.height());
+        sg.setComposite(AlphaComposite.SrcOver);
+        sg.setRenderingHints(g.getRenderingHints());
+        sg.setFont(g.getFont());
+        sg.setClip(0, 0, key.width(), key.height());
+        painter.accept(sg);
+      } finally {
+        sg.dispose();
+      }
+      this.key = key;
+    }
+    g.drawImage(surface, 0, 0, null);
+  }
+
+  /** Makes the layers be painted again the next time they are drawn. */
+  void invalidate() {
+    key = null;
+  }
+
+  /** Releases the surface. */
+  void flush() {
+    surface = null;
+    key = null;
+  }
+}
@@ -157,6 +157,9 @@ public class ZoneRenderer extends JComponent implements DropTargetListener {
   private final FogRenderer fogRenderer;
   private final VisionOverlayRenderer visionOverlayRenderer;
   private final DebugRenderer debugRenderer;
+  private final FramePreparer framePreparer;
+  private final LayerCache boardLayerCache = new LayerCache();
+  private final LayerCache objectLayerCache = new LayerCache();
 
   /**
    * Constructor for the ZoneRenderer from a zone.
@@ -185,6 +188,7 @@ public ZoneRenderer(Zone zone) {
     this.fogRenderer = new FogRenderer(renderHelper, zone, zoneView);
     this.visionOverlayRenderer = new VisionOverlayRenderer(renderHelper, zone, zoneView);
     this.debugRenderer = new DebugRenderer(renderHelper);
+    this.framePreparer = new FramePreparer(zone, this::onFramePrepared);
     repaintDebouncer =
         new DebounceExecutor(1000 / AppPreferences.frameRateCap.get(), this::repaint);
 
@@ -307,6 +311,7 @@ public void flushDrawableRenderer() {
     for (final var renderer : drawableRenderers.values()) {
       renderer.flush();
     }
+    invalidateLayerCaches();
   }
 
   public ScreenPoint getPointUnderMouse() {
@@ -593,6 +598,7 @@ public void flush(Token token) {
     flipImageMap.remove(token);
     flipIsoImageMap.remove(token);
     labelRenderingCache.remove(token.getId());
+    framePreparer.invalidate();
 
     // This should be smarter, but whatever
     visibleScreenArea = null;
@@ -628,6 +634,9 @@ public void flush() {
     flushDrawableRenderer();
     flipImageMap.clear();
     flipIsoImageMap.clear();
+    framePreparer.invalidate();
+    boardLayerCache.flush();
+    objectLayerCache.flush();
     zoneView.flushFog();
 
     isLoaded = false;
@@ -930,6 +939,10 @@ public void renderZone(Graphics2D g2d, PlayerView view) {
     }
     lastView = view;
 
+    // The token lists prepared in the background, or worked out now if they are not up to date.
+    FramePreparer.PreparedFrame frame =
+        framePreparer.getFrame(this::needsImagePrepared, this::getTokenImage);
+
     Map<Token, Set<Token>> drawThese = compositor.drawWhat(viewRect);
 
     timer.stop("setup");
@@ -955,42 +968,37 @@ public void renderZone(Graphics2D g2d, PlayerView view) {
     timer.stop("calcs-1");
 
     // Rendering pipeline
-    if (zone.drawBoard()) {
-      timer.start("board");
-      renderBoard(g2d, view);
-      timer.stop("board");
-    }
-    if (shouldRenderLayer(Zone.Layer.BACKGROUND, view)) {
-      List<DrawnElement> drawables = zone.getDrawnElements(Layer.BACKGROUND);
-      // if (!drawables.isEmpty()) {
-      timer.start("drawableBackground");
-      renderDrawableOverlay(g2d, drawableRenderers.get(Layer.BACKGROUND), view, drawables);
-      timer.stop("drawableBackground");
-      // }
-      List<Token> background = zone.getTokensOnLayer(Layer.BACKGROUND, false);
-      if (!background.isEmpty()) {
-        timer.start("tokensBackground");
-        renderTokens(g2d, background, view);
-        timer.stop("tokensBackground");
-      }
-    }
-    if (shouldRenderLayer(Zone.Layer.OBJECT, view)) {
-      // Drawables on the object layer are always below the grid, and...
-      List<DrawnElement> drawables = zone.getDrawnElements(Layer.OBJECT);
-      // if (!drawables.isEmpty()) {
-      timer.start("drawableObjects");
-      renderDrawableOverlay(g2d, drawableRenderers.get(Layer.OBJECT), view, drawables);
-      timer.stop("drawableObjects");
-      // }
-    }
-    timer.start("grid");
+    // The board, the drawables below the tokens and the grid are kept in layer caches, as they
+    // rarely change while tokens move. The background tokens go between the two caches.
+    List<Token> background =
+        shouldRenderLayer(Zone.Layer.BACKGROUND, view)
+            ? frame.getTokensOnLayer(Layer.BACKGROUND)
+            : List.of();
+    boolean splitStaticLayers = !background.isEmpty();
+    if (zone.isBoardChanged()) {
+      boardLayerCache.invalidate();
+    }
+    LayerCache.Key layerCacheKey = getLayerCacheKey(view, splitStaticLayers);
+    boardLayerCache.render(
+        g2d,
+        layerCacheKey,
+        lg -> {
+          renderBoardLayers(lg, view);
+          if (!splitStaticLayers) {
+            renderObjectLayers(lg, view);
+          }
+        });
+    if (splitStaticLayers) {
+      timer.start("tokensBackground");
+      renderTokens(g2d, background, view);
+      timer.stop("tokensBackground");
 
-    gridRenderer.renderGrid(g2d, view);
-    timer.stop("grid");
+      objectLayerCache.render(g2d, layerCacheKey, lg -> renderObjectLayers(lg, view));
+    }
 
     if (shouldRenderLayer(Zone.Layer.OBJECT, view)) {
       // ... Images on the object layer are always ABOVE the grid.
-      List<Token> stamps = zone.getTokensOnLayer(Layer.OBJECT, false);
+      List<Token> stamps = frame.getTokensOnLayer(Layer.OBJECT);
       if (!stamps.isEmpty()) {
         timer.start("tokensStamp");
         renderTokens(g2d, stamps, view);
@@ -1041,14 +1049,14 @@ public void renderZone(Graphics2D g2d, PlayerView view) {
         renderDrawableOverlay(g2d, drawableRenderers.get(Layer.GM), view, drawables);
         timer.stop("drawableGM");
         // }
-        List<Token> stamps = zone.getTokensOnLayer(Layer.GM, false);
+        List<Token> stamps = frame.getTokensOnLayer(Layer.GM);
         if (!stamps.isEmpty()) {
           timer.start("tokensGM");
           renderTokens(g2d, stamps, view);
           timer.stop("tokensGM");
         }
       }
-      List<Token> tokens = zone.getTokensOnLayer(Layer.TOKEN, false);
+      List<Token> tokens = frame.getTokensOnLayer(Layer.TOKEN);
       if (!tokens.isEmpty()) {
         timer.start("tokens");
         renderTokens(g2d, tokens, view);
@@ -1093,7 +1101,7 @@ public void renderZone(Graphics2D g2d, PlayerView view) {
       // Jamz: If there is fog or vision we may need to re-render vision-blocking type tokens
       // For example. this allows a "door" stamp to block vision but still allow you to see the
       // door.
-      List<Token> vblTokens = zone.getTokensAlwaysVisible();
+      List<Token> vblTokens = frame.alwaysVisibleTokens();
       if (!vblTokens.isEmpty()) {
         timer.start("tokens - always visible");
         renderTokens(g2d, vblTokens, view, true);
@@ -1102,10 +1110,8 @@ public void renderZone(Graphics2D g2d, PlayerView view) {
 
       // if there is fog or vision we may need to re-render figure type tokens
       // and figure tokens need sorting via alternative logic.
-      List<Token> tokens = zone.getFigureTokens();
-      List<Token> sortedTokens = new ArrayList<Token>(tokens);
-      sortedTokens.sort(zone.getFigureZOrderComparator());
-      if (!tokens.isEmpty()) {
+      List<Token> sortedTokens = frame.figureTokens();
+      if (!sortedTokens.isEmpty()) {
         timer.start("tokens - figures");
         renderTokens(g2d, sortedTokens, view, true);
         timer.stop("tokens - figures");
@@ -1239,6 +1245,87 @@ public boolean isLoading() {
     return !isLoaded;
   }
 
+  /**
+   * Returns what the cached board, drawable and grid layers depend on besides the zone events that
+   * invalidate them.
+   *
+   * @param view the player view.
+   * @param splitStaticLayers {@code true} if there are background tokens between the layers.
+   * @return the layer cache key.
+   */
+  private LayerCache.Key getLayerCacheKey(PlayerView view, boolean splitStaticLayers) {
+    return new LayerCache.Key(
+        zoneScale.getOffsetX(),
+        zoneScale.getOffsetY(),
+        zoneScale.getScale(),
+        getSize().width,
+        getSize().height,
+        Arrays.asList(
+            splitStaticLayers,
+            zone.drawBoard(),
+            shouldRenderLayer(Zone.Layer.BACKGROUND, view),
+            shouldRenderLayer(Zone.Layer.OBJECT, view),
+            AppState.isShowGrid(),
+            AppState.getGridSize(),
+            zone.getGrid(),
+            zone.getGrid().getSize(),
+            zone.getGrid().getOffsetX(),
+            zone.getGrid().getOffsetY(),
+            zone.getGridColor(),
+            zone.getBackgroundPaint(),
+            zone.getMapAssetId(),
+            AppPreferences.renderQuality.get(),
+            DeveloperOptions.Toggle.ShowPartitionDrawableBoundaries.isEnabled()));
+  }
+
+  /**
+   * Renders the board and the drawables on the background layer.
+   *
+   * @param g the graphics to render to.
+   * @param view the player view.
+   */
+  private void renderBoardLayers(Graphics2D g, PlayerView view) {
+    final var timer = CodeTimer.get();
+    if (zone.drawBoard()) {
+      timer.start("board");
+      renderBoard(g, view);
+      timer.stop("board");
+    }
+    if (shouldRenderLayer(Zone.Layer.BACKGROUND, view)) {
+      List<DrawnElement> drawables = zone.getDrawnElements(Layer.BACKGROUND);
+      timer.start("drawableBackground");
+      renderDrawableOverlay(g, drawableRenderers.get(Layer.BACKGROUND), view, drawables);
+      timer.stop("drawableBackground");
+    }
+  }
+
+  /**
+   * Renders the drawables on the object layer and the grid above them.
+   *
+   * @param g the graphics to render to.
+   * @param view the player view.
+   */
+  private void renderObjectLayers(Graphics2D g, PlayerView view) {
+    final var timer = CodeTimer.get();
+    if (shouldRenderLayer(Zone.Layer.OBJECT, view)) {
+      // Drawables on the object layer are always below the grid, and images on the object layer
+      // are always above it.
+      List<DrawnElement> drawables = zone.getDrawnElements(Layer.OBJECT);
+      timer.start("drawableObjects");
+      renderDrawableOverlay(g, drawableRenderers.get(Layer.OBJECT), view, drawables);
+      timer.stop("drawableObjects");
+    }
+    timer.start("grid");
+    gridRenderer.renderGrid(g, view);
+    timer.stop("grid");
+  }
+
+  /** Makes the cached board, drawable and grid layers be rendered again. */
+  private void invalidateLayerCaches() {
+    boardLayerCache.invalidate();
+    objectLayerCache.invalidate();
+  }
+
   protected void renderDrawableOverlay(
       Graphics g, DrawableRenderer renderer, PlayerView view, List<DrawnElement> drawnElements) {
     Rectangle viewport =
@@ -1437,17 +1524,10 @@ protected void showBlockedMoves(Graphics2D g, PlayerView view, Set<SelectionSet>
         // handle flipping
         BufferedImage workImage = image;
         if (token.isFlippedX() || token.isFlippedY()) {
-          workImage =
-              new BufferedImage(image.getWidth(), image.getHeight(), image.getTransparency());
-
-          int workW = image.getWidth() * (token.isFlippedX() ? -1 : 1);
-          int workH = image.getHeight() * (token.isFlippedY() ? -1 : 1);
-          int workX = token.isFlippedX() ? image.getWidth() : 0;
-          int workY = token.isFlippedY() ? image.getHeight() : 0;
-
-          Graphics2D wig = workImage.createGraphics();
-          wig.drawImage(image, workX, workY, workW, workH, null);
-          wig.dispose();
+          workImage = flipImageMap.get(token);
+          if (workImage == null) {
+            workImage = FramePreparer.flipImage(image, token.isFlippedX(), token.isFlippedY());
+          }
         }
         // on the iso plane
         if (token.isFlippedIso()) {
@@ -2075,6 +2155,30 @@ protected Shape getSquareFacingArrow(int angle, int size) {
     return gp.createTransformedShape(AffineTransform.getScaleInstance(getScale(), getScale()));
   }
 
+  /**
+   * Tells whether the image of the token still needs to be flipped or projected onto the isometric
+   * plane, so the frame preparer can do it in the background.
+   *
+   * @param token the token.
+   * @return {@code true} if there is an image to prepare for the token.
+   */
+  private boolean needsImagePrepared(Token token) {
+    boolean flip = (token.isFlippedX() || token.isFlippedY()) && !flipImageMap.containsKey(token);
+    boolean iso = token.isFlippedIso() && !flipIsoImageMap.containsKey(token);
+    return flip || iso;
+  }
+
+  /**
+   * Takes over the token images of a frame prepared in the background and paints it.
+   *
+   * @param frame the prepared frame.
+   */
+  private void onFramePrepared(FramePreparer.PreparedFrame frame) {
+    frame.flippedImages().forEach(flipImageMap::putIfAbsent);
+    frame.isoImages().forEach(flipIsoImageMap::putIfAbsent);
+    repaintDebouncer.dispatch();
+  }
+
   protected void renderTokens(Graphics2D g, List<Token> tokenList, PlayerView view) {
     renderTokens(g, tokenList, view, false);
   }
@@ -2318,18 +2422,7 @@ protected void renderTokens(
       if (token.isFlippedX() || token.isFlippedY()) {
         workImage = flipImageMap.get(token);
         if (workImage == null) {
-          workImage =
-              new BufferedImage(image.getWidth(), image.getHeight(), image.getTransparency());
-
-          int workW = image.getWidth() * (token.isFlippedX() ? -1 : 1);
-          int workH = image.getHeight() * (token.isFlippedY() ? -1 : 1);
-          int workX = token.isFlippedX() ? image.getWidth() : 0;
-          int workY = token.isFlippedY() ? image.getHeight() : 0;
-
-          Graphics2D wig = workImage.createGraphics();
-          wig.drawImage(image, workX, workY, workW, workH, null);
-          wig.dispose();
-
+          workImage = FramePreparer.flipImage(image, token.isFlippedX(), token.isFlippedY());
           flipImageMap.put(token, workImage);
         }
       }
@@ -3172,6 +3265,8 @@ public double getScaledGridSize() {
   /** This makes sure that any image updates get refreshed. This could be a little smarter. */
   @Override
   public boolean imageUpdate(Image img, int infoflags, int x, int y, int w, int h) {
+    // The image may be on the board
+    invalidateLayerCaches();
     repaintDebouncer.dispatch();
     return super.imageUpdate(img, infoflags, x, y, w, h);
   }
@@ -3524,6 +3619,7 @@ private void onTopologyChanged(TopologyChanged event) {
 
   private void markDrawableLayerDirty(Layer layer) {
     drawableRenderers.get(layer).setDirty();
+    invalidateLayerCaches();
   }
 
   @Subscribe
@@ -3551,6 +3647,7 @@ private void onBoardChanged(BoardChanged event) {
     if (event.zone() != this.zone) {
       return;
     }
+    invalidateLayerCaches();
     repaintDebouncer.dispatch();
   }
 
@@ -3563,6 +3660,8 @@ private void onGridChanged(GridChanged event) {
 
     // A change in grid can change the size of templates.
     flushDrawableRenderer();
+    // ... and the drawing order of figures.
+    framePreparer.invalidate();
     repaintDebouncer.dispatch();
   }
 
@@ -3714,6 +3813,7 @@ public long getNoiseSeed() {
   public void setNoiseValues(long seed, float alpha) {
     noise.setNoiseValues(seed, alpha);
     drawBackground = true;
+    invalidateLayerCaches();
   }
 
   /**
@@ -3734,6 +3834,7 @@ public boolean isBgTextureNoiseFilterOn() {
   public void setBgTextureNoiseFilterOn(boolean on) {
     bgTextureNoiseFilterOn = on;
     drawBackground = true;
+    invalidateLayerCaches();
     if (on) {
       noise = new DrawableNoise();
     } else {
@@ -0,0 +1,197 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone.vbl;
+
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Traces the outline of the pixels of an image that match a predicate, giving the exact union of
+ * the matching pixel squares as an {@link Area}.
+ *
+ * <p>The pixels are read into a single ARGB array. The image is cut into horizontal stripes which
+ * are traced in parallel, each into closed rings following the cracks between matching and
+ * non-matching pixels. Only the corners of the rings are kept, so straight runs of pixels become a
+ * single edge. The outlines of all the stripes are then turned into one area together.
+ */
+final class ImageOutlineTracer {
+
+  /** The number of pixel rows traced together. */
+  private static final int STRIPE_HEIGHT = 64;
+
+  /** Directions of the edges, turning right with each step in image coordinates (y down). */
+  private static final int RIGHT = 0;
+
+  private static final int DOWN = 1;
+  private static final int LEFT = 2;
+  private static final int UP = 3;
+  private static final int[] DX = {1, 0, -1, 0};
+  private static final int[] DY = {0, 1, 0, -1};
+
+  private ImageOutlineTracer() {}
+
+  /**
+   * Returns the union of the pixels of the image that match the predicate.
+   *
+   * @param image the image.
+   * @param matches tests the non-premultiplied ARGB value of a pixel.
+   * @return the area, in pixel coordinates. Empty if the tracing thread is interrupted.
+   */
+  static Area trace(BufferedImage image, IntPredicate matches) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] argb = image.getRGB(0, 0, width, height, null, 0, width);
+    var caller = Thread.currentThread();
+
+    int stripes = (height + STRIPE_HEIGHT - 1) / STRIPE_HEIGHT;
+    var outlines =
+        IntStream.range(0, stripes)
+            .parallel()
+            .mapToObj(
+                stripe -> {
+                  if (caller.isInterrupted()) {
+                    return new Path2D.Double();
+                  }
+                  int top = stripe * STRIPE_HEIGHT;
+                  int bottom = Math.min(height, top + STRIPE_HEIGHT);
+                  return new Stripe(argb, width, top, bottom, matches).trace();
+                })
+            .toList();
+    if (caller.isInterrupted()) {
+      return new Area();
+    }
+
+    // Rings of neighbouring stripes run in opposite directions along the edge they share, so
+    // with the non-zero winding rule that edge cancels out and the stripes merge into one area.
+    var outline = new Path2D.Double(Path2D.WIND_NON_ZERO);
+    outlines.forEach(stripeOutline -> outline.append(stripeOutline, false));
+    return new Area(outline);
+  }
+
+  /** The pixel rows of one stripe of the image. Everything outside the stripe is unmatched. */
+  private static final class Stripe {
+    private final int width;
+    private final int top;
+    private final int rows;
+    private final boolean[] matched;
+
+    /**
+     * The horizontal edges already traced, indexed by the row of the edge within the stripe and the
+     * column of its left end.
+     */
+    private final boolean[] visited;
+
+    private final Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO);
+
+    Stripe(int[] argb, int width, int top, int bottom, IntPredicate matches) {
+      this.width = width;
+      this.top = top;
+      this.rows = bottom - top;
+      this.matched = new boolean[width * rows];
+      this.visited = new boolean[width * (rows + 1)];
+
+      int offset = top * width;
+      for (int i = 0; i < matched.length; i++) {
+        matched[i] = matches.test(argb[offset + i]);
+      }
+    }
+
+    /**
+     * Returns whether a pixel matches.
+     *
+     * @param x the column of the pixel.
+     * @param y the row of the pixel within the stripe.
+     * @return true if the pixel is inside the stripe and matches.
+     */
+    private boolean matched(int x, int y) {
+      return x >= 0 && x < width && y >= 0 && y < rows && matched[y * width + x];
+    }
+
+    /**
+     * Returns whether there is a boundary edge leaving a grid vertex in a direction. Edges are
+     * directed so that the matching pixel is on their right.
+     *
+     * @param x the column of the vertex.
+     * @param y the row of the vertex within the stripe.
+     * @param direction the direction.
+     * @return true if there is an edge.
+     */
+    private boolean hasEdge(int x, int y, int direction) {
+      return switch (direction) {
+        case RIGHT -> matched(x, y) && !matched(x, y - 1);
+        case DOWN -> matched(x - 1, y) && !matched(x, y);
+        case LEFT -> matched(x - 1, y - 1) && !matched(x - 1, y);
+        default -> matched(x, y - 1) && !matched(x - 1, y - 1);
+      };
+    }
+
+    Path2D trace() {
+      for (int y = 0; y <= rows; y++) {
+        for (int x = 0; x < width; x++) {
+          if (visited[y * width + x]) {
+            continue;
+          }
+          if (hasEdge(x, y, RIGHT)) {
+            traceRing(x, y, RIGHT);
+          } else if (hasEdge(x + 1, y, LEFT)) {
+            traceRing(x + 1, y, LEFT);
+          }
+        }
+      }
+      return path;
+    }
+
+    /**
+     * Follows the boundary from an edge until it gets back to it, adding the ring to the path.
+     * Where two matching pixels only touch at a corner the ring turns right, so it keeps to the
+     * pixels it started on.
+     *
+     * @param startX the column of the start vertex.
+     * @param startY the row of the start vertex within the stripe.
+     * @param startDirection the direction of the first edge.
+     */
+    private void traceRing(int startX, int startY, int startDirection) {
+      path.moveTo(startX, top + startY);
+      int x = startX;
+      int y = startY;
+      int direction = startDirection;
+      do {
+        if (direction == RIGHT) {
+          visited[y * width + x] = true;
+        } else if (direction == LEFT) {
+          visited[y * width + x - 1] = true;
+        }
+        x += DX[direction];
+        y += DY[direction];
+
+        int next = (direction + 1) & 3;
+        if (!hasEdge(x, y, next)) {
+          next = direction;
+          if (!hasEdge(x, y, next)) {
+            next = (direction + 3) & 3;
+          }
+        }
+        if (next != direction) {
+          path.lineTo(x, top + y);
+          direction = next;
+        }
+      } while (x != startX || y != startY || direction != startDirection);
+      path.closePath();
+    }
+  }
+}
@@ -21,9 +21,6 @@
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import net.rptools.maptool.client.MapTool;
@@ -37,14 +34,11 @@
 import org.apache.logging.log4j.Logger;
 import org.locationtech.jts.awt.ShapeReader;
 import org.locationtech.jts.awt.ShapeWriter;
-import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryCollection;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
 import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
 import org.locationtech.jts.simplify.VWSimplifier;
-import org.locationtech.jts.util.GeometricShapeFactory;
 
 /**
  * A utility class that creates and returns an Area based on image pixels. A few convenience methods
@@ -90,32 +84,13 @@ public static Area createTopologyAreaFromToken(
     Stopwatch stopwatch = Stopwatch.createStarted();
     BufferedImage image = ImageManager.getImageAndWait(token.getImageAssetId());
 
-    List<Geometry> geometryList =
-        createTopologyGeometry(image, alphaSensitivity, inverseTopology, ignoredColor);
-    log.debug(
-        "Time to complete createTopologyGeometry(): {}", stopwatch.elapsed(TimeUnit.MILLISECONDS));
-
-    final Area area = createAreaFromGeometries(geometryList);
+    final Area area = createTopologyArea(image, alphaSensitivity, inverseTopology, ignoredColor);
     log.debug(
         "Total time for createTopologyAreaFromToken(): {}",
         stopwatch.elapsed(TimeUnit.MILLISECONDS));
     return area;
   }
 
-  private static Area createAreaFromGeometries(List<Geometry> geometryList) {
-    if (geometryList.isEmpty()) {
-      return new Area();
-    } else {
-      Stopwatch stopwatch = Stopwatch.createStarted();
-      GeometryCollection geometryCollection =
-          (GeometryCollection) new GeometryFactory().buildGeometry(geometryList);
-
-      final Area area = new Area(new ShapeWriter().toShape(geometryCollection));
-      log.debug("Time to complete convert to Area: {}", stopwatch.elapsed(TimeUnit.MILLISECONDS));
-      return area;
-    }
-  }
-
   public static Area simplifyArea(
       Area topologyArea, double distanceTolerance, JTS_SimplifyMethodType simplifyMethod) {
 
@@ -320,10 +295,9 @@ public static Area getTopology_underToken(
   }
 
   /**
-   * Create a topology area from a bufferedImage and alphaSensitity. The area is created by
-   * combining topology rectangle where the alpha of the image is greater or equal to the
-   * sensitivity. Assumes all colors form the topology area, everything except transparent pixels
-   * with alpha >= alphaSensitivity
+   * Create a topology area from a bufferedImage and alphaSensitity. The area is the union of the
+   * pixels whose color is within the tolerance of the pick color, or of all the other pixels if
+   * inversePickColor is set. See {@link ImageOutlineTracer}.
    *
    * @param image the buffered image.
    * @param colorTolerance the alphaSensitivity.
@@ -331,67 +305,28 @@ public static Area getTopology_underToken(
    * @param pickColor color to compare against pixel color
    * @return the area.
    */
-  private static List<Geometry> createTopologyGeometry(
+  private static Area createTopologyArea(
       BufferedImage image, int colorTolerance, boolean inversePickColor, Color pickColor) {
 
     if (image == null) {
-      return Collections.emptyList();
+      return new Area();
     }
 
-    ArrayList<Geometry> geometryList = new ArrayList<>();
-    GeometricShapeFactory gsf = new GeometricShapeFactory();
-    gsf.setNumPoints(4);
-    gsf.setWidth(1);
-
-    int y1, y2;
-    boolean addArea = false;
-
-    for (int x = 0; x < image.getWidth(); x++) {
-      y1 = 99;
-      y2 = -1;
-      for (int y = 0; y < image.getHeight(); y++) {
-        if (Thread.interrupted()) {
-          log.info("Thread interrupted!");
-          return geometryList;
-        }
-
-        Color pixelColor = new Color(image.getRGB(x, y), true);
-
-        if (colorWithinTolerance(pickColor, pixelColor, colorTolerance, inversePickColor)) {
-          if (y1 == 99) {
-            y1 = y;
-            y2 = y;
-          }
-          if (y > (y2 + 1)) {
-            gsf.setHeight(y2 - y1);
-            gsf.setBase(new Coordinate(x, y1));
-            geometryList.add(gsf.createRectangle());
-            y1 = y;
-            y2 = y;
-          }
-          y2 = y;
-        }
-      }
-
-      if ((y2 - y1) >= 0) {
-        gsf.setHeight(y2 - y1 + 1);
-        gsf.setBase(new Coordinate(x, y1));
-        geometryList.add(gsf.createRectangle());
-      }
+    final int pick = pickColor.getRGB();
+    final Area area =
+        ImageOutlineTracer.trace(
+            image, pixel -> colorWithinTolerance(pick, pixel, colorTolerance, inversePickColor));
+    if (Thread.currentThread().isInterrupted()) {
+      log.info("Thread interrupted!");
     }
-
-    return geometryList;
+    return area;
   }
 
   private static boolean colorWithinTolerance(
-      Color pick, Color pixel, int tolerance, boolean inversePick) {
+      int pick, int pixel, int tolerance, boolean inversePick) {
 
     double distance = distanceSquared(pick, pixel);
 
-    if (distance > tolerance) {
-      log.trace("Color Distance: {}", distance);
-    }
-
     if (distance <= tolerance) {
       return !inversePick;
     } else {
@@ -399,17 +334,19 @@ private static boolean colorWithinTolerance(
     }
   }
 
-  private static double distanceSquared(Color a, Color b) {
-    int deltaR = a.getRed() - b.getRed();
-    int deltaG = a.getGreen() - b.getGreen();
-    int deltaB = a.getBlue() - b.getBlue();
-    int deltaAlpha = a.getAlpha() - b.getAlpha();
+  private static double distanceSquared(int a, int b) {
+    int alphaA = a >>> 24;
+    int alphaB = b >>> 24;
+    int deltaR = ((a >> 16) & 0xFF) - ((b >> 16) & 0xFF);
+    int deltaG = ((a >> 8) & 0xFF) - ((b >> 8) & 0xFF);
+    int deltaB = (a & 0xFF) - (b & 0xFF);
+    int deltaAlpha = alphaA - alphaB;
 
     double rgbDistanceSquared = (deltaR * deltaR + deltaG * deltaG + deltaB * deltaB) / 3;
 
     double result =
         deltaAlpha * deltaAlpha / 2.0
-            + rgbDistanceSquared * a.getAlpha() * b.getAlpha() / 65025; // 255^2 = 65025
+            + rgbDistanceSquared * alphaA * alphaB / 65025; // 255^2 = 65025
 
     return Math.sqrt(result);
   }
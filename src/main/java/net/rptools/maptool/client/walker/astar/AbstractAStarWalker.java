@@ -56,6 +56,15 @@
 public abstract class AbstractAStarWalker extends AbstractZoneWalker {
   private record TerrainModifier(Token.TerrainModifierOperation operation, double value) {}
 
+  /**
+   * The areas that limit where a path may go.
+   *
+   * @param blocked the topology that blocks movement.
+   * @param fowExposedArea the area exposed in the fog of war, empty if the fog does not limit
+   *     movement.
+   */
+  protected record MovementLimits(Area blocked, Area fowExposedArea) {}
+
   private static boolean isInteger(double d) {
     return (int) d == d;
   }
@@ -186,52 +195,9 @@ protected List<CellPoint> calculatePath(CellPoint start, CellPoint goal) {
     // Get current VBL for map...
     // Using JTS because AWT Area can only intersect with Area and we want to use simple lines here.
     // Render VBL to Geometry class once and store.
-    // Note: zoneRenderer will be null if map is not visible to players.
-    Area newVbl = new Area();
-    Area newFowExposedArea = new Area();
-    final var zoneRenderer = MapTool.getFrame().getZoneRenderer(zone);
-    if (zoneRenderer != null) {
-      final var zoneView = zoneRenderer.getZoneView();
-
-      var mbl = zoneView.getTopology(Zone.TopologyType.MBL);
-      if (tokenMbl != null) {
-        mbl = new Area(mbl);
-        mbl.subtract(tokenMbl);
-      }
-
-      if (MapTool.getServerPolicy().getVblBlocksMove()) {
-        var wallVbl = zoneView.getTopology(Zone.TopologyType.WALL_VBL);
-        var hillVbl = zoneView.getTopology(Zone.TopologyType.HILL_VBL);
-        var pitVbl = zoneView.getTopology(Zone.TopologyType.PIT_VBL);
-
-        // A token's topology should not be used to block itself!
-        if (tokenWallVbl != null) {
-          wallVbl = new Area(wallVbl);
-          wallVbl.subtract(tokenWallVbl);
-        }
-        if (tokenHillVbl != null) {
-          hillVbl = new Area(hillVbl);
-          hillVbl.subtract(tokenHillVbl);
-        }
-        if (tokenPitVbl != null) {
-          pitVbl = new Area(pitVbl);
-          pitVbl.subtract(tokenPitVbl);
-        }
-
-        newVbl.add(wallVbl);
-        newVbl.add(hillVbl);
-        newVbl.add(pitVbl);
-
-        // Finally, add the Move Blocking Layer!
-        newVbl.add(mbl);
-      } else {
-        newVbl = mbl;
-      }
-
-      var view = zoneRenderer.getPlayerView();
-      newFowExposedArea =
-          zone.hasFog() && !view.isGMView() ? zoneView.getExposedArea(view) : new Area();
-    }
+    var limits = getMovementLimits();
+    Area newVbl = limits.blocked();
+    Area newFowExposedArea = limits.fowExposedArea();
 
     if (!newVbl.equals(vbl)) {
       // The move cache may no longer accurately reflect the VBL limitations.
@@ -279,7 +245,7 @@ protected List<CellPoint> calculatePath(CellPoint start, CellPoint goal) {
         });
 
     // Timeout quicker for GM cause reasons
-    if (MapTool.getPlayer().isGM()) {
+    if (isGM()) {
       estimatedTimeoutNeeded = estimatedTimeoutNeeded / 2;
     }
 
@@ -381,6 +347,71 @@ protected List<CellPoint> calculatePath(CellPoint start, CellPoint goal) {
     return returnedCellPointList;
   }
 
+  /**
+   * Returns the topology and fog of war that limit the path, as currently shown for the map.
+   *
+   * @return the movement limits, nothing is blocked if the map is not visible to the player.
+   */
+  protected MovementLimits getMovementLimits() {
+    Area newVbl = new Area();
+    Area newFowExposedArea = new Area();
+    // Note: zoneRenderer will be null if map is not visible to players.
+    final var zoneRenderer = MapTool.getFrame().getZoneRenderer(zone);
+    if (zoneRenderer != null) {
+      final var zoneView = zoneRenderer.getZoneView();
+
+      var mbl = zoneView.getTopology(Zone.TopologyType.MBL);
+      if (tokenMbl != null) {
+        mbl = new Area(mbl);
+        mbl.subtract(tokenMbl);
+      }
+
+      if (MapTool.getServerPolicy().getVblBlocksMove()) {
+        var wallVbl = zoneView.getTopology(Zone.TopologyType.WALL_VBL);
+        var hillVbl = zoneView.getTopology(Zone.TopologyType.HILL_VBL);
+        var pitVbl = zoneView.getTopology(Zone.TopologyType.PIT_VBL);
+
+        // A token's topology should not be used to block itself!
+        if (tokenWallVbl != null) {
+          wallVbl = new Area(wallVbl);
+          wallVbl.subtract(tokenWallVbl);
+        }
+        if (tokenHillVbl != null) {
+          hillVbl = new Area(hillVbl);
+          hillVbl.subtract(tokenHillVbl);
+        }
+        if (tokenPitVbl != null) {
+          pitVbl = new Area(pitVbl);
+          pitVbl.subtract(tokenPitVbl);
+        }
+
+        newVbl.add(wallVbl);
+        newVbl.add(hillVbl);
+        newVbl.add(pitVbl);
+
+        // Finally, add the Move Blocking Layer!
+        newVbl.add(mbl);
+      } else {
+        newVbl = mbl;
+      }
+
+      var view = zoneRenderer.getPlayerView();
+      newFowExposedArea =
+          zone.hasFog() && !view.isGMView() ? zoneView.getExposedArea(view) : new Area();
+    }
+
+    return new MovementLimits(newVbl, newFowExposedArea);
+  }
+
+  /**
+   * Returns if the path is found for the GM, who gets a shorter time limit.
+   *
+   * @return {@code true} if the local player is a GM.
+   */
+  protected boolean isGM() {
+    return MapTool.getPlayer().isGM();
+  }
+
   /**
    * Find a suitable bounding box in which A* can look for paths.
    *
@@ -0,0 +1,182 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.events;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.zones.BoardChanged;
+import net.rptools.maptool.model.zones.FogChanged;
+import net.rptools.maptool.model.zones.GridChanged;
+import net.rptools.maptool.model.zones.InitiativeListChanged;
+import net.rptools.maptool.model.zones.TokenEdited;
+import net.rptools.maptool.model.zones.TokensAdded;
+import net.rptools.maptool.model.zones.TokensChanged;
+import net.rptools.maptool.model.zones.TokensRemoved;
+import net.rptools.maptool.model.zones.TopologyChanged;
+import net.rptools.maptool.model.zones.ZoneLightingChanged;
+
+/**
+ * Collects the events posted during an operation so that they can be posted together when it ends.
+ * Events that can be combined are merged on the way:
+ *
+ * <ul>
+ *   <li>Consecutive {@link TokensAdded}, {@link TokensChanged} or {@link TokensRemoved} events for
+ *       the same zone become a single event listing every token once.
+ *   <li>{@link TopologyChanged} events for the same zone become a single event covering the union
+ *       of the changed regions.
+ *   <li>Repeats of events that only say that something changed, such as {@link FogChanged}, are
+ *       dropped.
+ * </ul>
+ *
+ * <p>Batches can be nested, the events are only posted when the outermost batch ends.
+ */
+class EventBatch {
+
+  /** Events that carry no more information when they are posted again. */
+  private static final Set<Class<?>> REPEATABLE_EVENTS =
+      Set.of(
+          BoardChanged.class,
+          FogChanged.class,
+          GridChanged.class,
+          InitiativeListChanged.class,
+          TokenEdited.class,
+          ZoneLightingChanged.class);
+
+  /**
+   * The tokens of the merged token events for a zone.
+   *
+   * @param type the type of the event.
+   * @param factory creates the event for the tokens.
+   * @param zone the zone of the tokens.
+   * @param tokens the tokens, by id in the order they were first posted.
+   */
+  private record PendingTokens(
+      Class<?> type,
+      BiFunction<Zone, List<Token>, Object> factory,
+      Zone zone,
+      Map<GUID, Token> tokens) {
+    Object toEvent() {
+      return factory.apply(zone, new ArrayList<>(tokens.values()));
+    }
+  }
+
+  /** The collected events in order, token events are held as {@link PendingTokens}. */
+  private final List<Object> events = new ArrayList<>();
+
+  /** The index in {@link #events} of the last token event for each zone. */
+  private final Map<Zone, Integer> lastTokenEvents = new IdentityHashMap<>();
+
+  /** The index in {@link #events} of the topology event for each zone. */
+  private final Map<Zone, Integer> topologyEvents = new IdentityHashMap<>();
+
+  /** The repeatable events already collected. */
+  private final Set<Object> repeatableEvents = new HashSet<>();
+
+  private int depth;
+
+  /** Starts a (possibly nested) batch. */
+  void begin() {
+    depth++;
+  }
+
+  /**
+   * Ends a (possibly nested) batch.
+   *
+   * @return {@code true} if the outermost batch ended and the events should be posted.
+   */
+  boolean end() {
+    return --depth == 0;
+  }
+
+  /**
+   * Adds an event to the batch, merging it with the collected events where possible.
+   *
+   * @param event the event.
+   */
+  void add(Object event) {
+    if (event instanceof TokensAdded added) {
+      addTokens(TokensAdded.class, added.zone(), added.tokens(), TokensAdded::new);
+    } else if (event instanceof TokensChanged changed) {
+      addTokens(TokensChanged.class, changed.zone(), changed.tokens(), TokensChanged::new);
+    } else if (event instanceof TokensRemoved removed) {
+      addTokens(TokensRemoved.class, removed.zone(), removed.tokens(), TokensRemoved::new);
+    } else if (event instanceof TopologyChanged topologyChanged) {
+      addTopology(topologyChanged);
+    } else if (!REPEATABLE_EVENTS.contains(event.getClass()) || repeatableEvents.add(event)) {
+      events.add(event);
+    }
+  }
+
+  private void addTokens(
+      Class<?> type, Zone zone, List<Token> tokens, BiFunction<Zone, List<Token>, Object> factory) {
+    // Only merge with the last token event of the zone, so that e.g. a token that is added and then
+    // removed is not reported as removed first.
+    Integer index = lastTokenEvents.get(zone);
+    PendingTokens pending = null;
+    if (index != null && events.get(index) instanceof PendingTokens last && last.type() == type) {
+      pending = last;
+    }
+    if (pending == null) {
+      pending = new PendingTokens(type, factory, zone, new LinkedHashMap<>());
+      lastTokenEvents.put(zone, events.size());
+      events.add(pending);
+    }
+    for (Token token : tokens) {
+      pending.tokens().put(token.getId(), token);
+    }
+  }
+
+  private void addTopology(TopologyChanged event) {
+    Integer index = topologyEvents.get(event.zone());
+    if (index == null) {
+      topologyEvents.put(event.zone(), events.size());
+      events.add(event);
+      return;
+    }
+    var pending = (TopologyChanged) events.get(index);
+    Rectangle2D bounds = null;
+    if (pending.bounds() != null && event.bounds() != null) {
+      bounds = pending.bounds().createUnion(event.bounds());
+    }
+    events.set(index, new TopologyChanged(event.zone(), bounds));
+  }
+
+  /**
+   * Removes the collected events from the batch.
+   *
+   * @return the merged events, in the order they were first posted.
+   */
+  List<Object> drain() {
+    var result = new ArrayList<>(events.size());
+    for (Object event : events) {
+      result.add(event instanceof PendingTokens pending ? pending.toEvent() : event);
+    }
+    events.clear();
+    lastTokenEvents.clear();
+    topologyEvents.clear();
+    repeatableEvents.clear();
+    return result;
+  }
+}
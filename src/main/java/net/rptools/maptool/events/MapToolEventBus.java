@@ -15,12 +15,42 @@
 package net.rptools.maptool.events;
 
 import com.google.common.eventbus.EventBus;
+import java.util.List;
 
-/** Class to handle the MapTool event bus. */
+/**
+ * Class to handle the MapTool event bus.
+ *
+ * <p>Events are normally delivered to the subscribers as soon as they are posted. Between {@link
+ * #beginBatch()} and {@link #endBatch()} the events posted on the same thread are collected
+ * instead, and posted once the batch ends with the token and topology events of each zone merged,
+ * so that bulk operations do not make the subscribers run once per token.
+ */
 public class MapToolEventBus {
 
   /** The main MapTool event bus. */
-  private static final EventBus mainEventBus = new EventBus();
+  private static final BatchingEventBus mainEventBus = new BatchingEventBus();
+
+  /** The events collected on each thread, see {@link #beginBatch()}. */
+  private static final ThreadLocal<EventBatch> eventBatch = new ThreadLocal<>();
+
+  /** Event bus that holds back the events posted on a thread with a batch in progress. */
+  private static class BatchingEventBus extends EventBus {
+    @Override
+    public void post(Object event) {
+      EventBatch batch = eventBatch.get();
+      if (batch != null) {
+        batch.add(event);
+      } else {
+        super.post(event);
+      }
+    }
+
+    private void postAll(List<Object> events) {
+      for (Object event : events) {
+        super.post(event);
+      }
+    }
+  }
 
   /**
    * Returns the main MapTool {@link EventBus}.
@@ -30,4 +60,49 @@ public class MapToolEventBus {
   public EventBus getMainEventBus() {
     return mainEventBus;
   }
+
+  /**
+   * Starts collecting the events posted on the calling thread to the main event bus, so that they
+   * are posted together by the matching {@link #endBatch()}. Batches can be nested, the events are
+   * posted when the outermost batch ends.
+   *
+   * <p>Subscribers do not see the events until the batch ends, so only use a batch around code that
+   * does not depend on the subscribers having run.
+   */
+  public void beginBatch() {
+    EventBatch batch = eventBatch.get();
+    if (batch == null) {
+      batch = new EventBatch();
+      eventBatch.set(batch);
+    }
+    batch.begin();
+  }
+
+  /**
+   * Posts the events collected so far by the batch in progress on the calling thread, if there is
+   * one, without ending it. Use it before code in a batch that depends on the subscribers having
+   * run, e.g. code that reads the vision of tokens changed earlier in the batch.
+   */
+  public void flushBatch() {
+    EventBatch batch = eventBatch.get();
+    if (batch != null) {
+      // Events posted by the subscribers are delivered straight away.
+      eventBatch.remove();
+      try {
+        mainEventBus.postAll(batch.drain());
+      } finally {
+        eventBatch.set(batch);
+      }
+    }
+  }
+
+  /** Ends a batch started by {@link #beginBatch()}. */
+  public void endBatch() {
+    EventBatch batch = eventBatch.get();
+    if (batch != null && batch.end()) {
+      // Events posted by the subscribers are delivered straight away.
+      eventBatch.remove();
+      mainEventBus.postAll(batch.drain());
+    }
+  }
 }
@@ -41,6 +41,7 @@
 import java.util.concurrent.Executors;
 import net.rptools.lib.FileUtil;
 import net.rptools.lib.MD5Key;
+import net.rptools.lib.telemetry.Telemetry;
 import net.rptools.maptool.client.AppUtil;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.language.I18N;
@@ -331,7 +332,9 @@ public static Asset getAsset(MD5Key id) {
 
     if (asset == null && usePersistentCache && assetIsInPersistentCache(assetId)) {
       // Guaranteed that asset is in the cache.
-      asset = getFromPersistentCache(assetId);
+      try (var span = Telemetry.start(Telemetry.Category.ASSET, "cache")) {
+        asset = getFromPersistentCache(assetId);
+      }
     }
 
     if (asset == null && assetHasLocalReference(assetId)) {
@@ -340,7 +343,7 @@ public static Asset getAsset(MD5Key id) {
 
       if (imageFile != null) {
 
-        try {
+        try (var span = Telemetry.start(Telemetry.Category.ASSET, "file")) {
           String name = FileUtil.getNameWithoutExtension(imageFile);
           byte[] data = FileUtils.readFileToByteArray(imageFile);
 
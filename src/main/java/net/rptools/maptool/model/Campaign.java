@@ -17,6 +17,8 @@
 import com.google.protobuf.BoolValue;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import net.rptools.lib.MD5Key;
@@ -33,6 +35,7 @@
 import net.rptools.maptool.client.ui.token.TwoImageBarTokenOverlay;
 import net.rptools.maptool.model.sheet.stats.StatSheetProperties;
 import net.rptools.maptool.server.proto.CampaignDto;
+import net.rptools.maptool.server.proto.ZoneDto;
 
 /**
  * This object contains {@link Zone}s and {@link Asset}s that make up a campaign as well as links to
@@ -761,6 +764,28 @@ public static Campaign fromDto(CampaignDto dto) {
   }
 
   public CampaignDto toDto() {
+    return toDto(zone -> true);
+  }
+
+  /**
+   * Returns the DTO of the campaign with only some of its zones.
+   *
+   * @param zoneFilter selects the zones to include.
+   * @return the DTO.
+   */
+  public CampaignDto toDto(Predicate<Zone> zoneFilter) {
+    return toDto(zoneFilter, Zone::toDto);
+  }
+
+  /**
+   * Returns the DTO of the campaign with only some of its zones, converting the zones with the
+   * given function, e.g. to reuse DTOs converted earlier.
+   *
+   * @param zoneFilter selects the zones to include.
+   * @param zoneMapper converts a zone to its DTO.
+   * @return the DTO.
+   */
+  public CampaignDto toDto(Predicate<Zone> zoneFilter, Function<Zone, ZoneDto> zoneMapper) {
     var dto = CampaignDto.newBuilder();
     dto.setId(id.toString());
     dto.setName(name);
@@ -778,7 +803,8 @@ public CampaignDto toDto() {
         macroButtonProperties.stream()
             .map(MacroButtonProperties::toDto)
             .collect(Collectors.toList()));
-    dto.addAllZones(zones.values().stream().map(Zone::toDto).collect(Collectors.toList()));
+    dto.addAllZones(
+        zones.values().stream().filter(zoneFilter).map(zoneMapper).collect(Collectors.toList()));
     // gmMacroButtonProperties is null if you are loading an old campaign file < 1.5.6
     if (gmMacroButtonProperties != null) {
       dto.addAllGmMacroButtonProperties(
@@ -21,6 +21,12 @@ public class ExposedAreaMetaData {
   /** Area exposed so far. */
   private Area exposedAreaHistory;
 
+  /**
+   * The version of the exposed area, counting the updates sent to the server. Not saved with the
+   * campaign.
+   */
+  private transient long version;
+
   public ExposedAreaMetaData() {
     exposedAreaHistory = new Area();
   }
@@ -51,4 +57,12 @@ public void removeExposedAreaHistory(Area newArea) {
   public void clearExposedAreaHistory() {
     exposedAreaHistory = new Area();
   }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
 }
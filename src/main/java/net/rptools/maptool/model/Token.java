@@ -37,6 +37,7 @@
 import java.io.StringReader;
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -374,6 +375,21 @@ public String toString() {
 
   private CaseInsensitiveHashMap<Object> propertyMapCI = new CaseInsensitiveHashMap<>();
 
+  /**
+   * The parsed json values of the properties, keyed by lower case property name, so that a json
+   * property is only parsed again once its value changes. The values are shared with the macros
+   * that read them and are never modified.
+   */
+  private transient Map<String, ParsedJsonProperty> parsedJsonProperties;
+
+  /**
+   * A property value and the json it was parsed to.
+   *
+   * @param value the property value.
+   * @param json the parsed value.
+   */
+  private record ParsedJsonProperty(Object value, JsonElement json) {}
+
   private Map<String, String> macroMap;
   private Map<Integer, MacroButtonProperties> macroPropertiesMap = new HashMap<>();
 
@@ -1815,10 +1831,18 @@ public void setAllStates(Object aValue) {
 
   public void resetProperty(String key) {
     getPropertyMap().remove(key);
+    invalidateParsedJsonProperty(key);
   }
 
   public void setProperty(String key, Object value) {
     getPropertyMap().put(key, value);
+    invalidateParsedJsonProperty(key);
+  }
+
+  private void invalidateParsedJsonProperty(String key) {
+    if (parsedJsonProperties != null) {
+      parsedJsonProperties.remove(key.toLowerCase());
+    }
   }
 
   public Object getProperty(String key) {
@@ -1864,6 +1888,65 @@ public Object getEvaluatedProperty(MapToolVariableResolver resolver, String key)
     if (val == null) {
       return "";
     }
+    JsonElement parsed = getParsedJsonProperty(key, val);
+    if (parsed != null) {
+      return parsed;
+    }
+    try {
+      log.debug(
+          "Evaluating property: '{}' for token {} ({})----------------------------------------------------------------------------------",
+          key,
+          getName(),
+          getId());
+      val = MapTool.getParser().parseLine(resolver, this, val.toString());
+    } catch (ParserException pe) {
+      log.debug("Ignoring Parse Exception, continuing to evaluate {}", key);
+      val = val.toString();
+    }
+    if (val == null) {
+      val = "";
+    } else {
+      // Finally we try convert it to a JSON object. Fixes #1560.
+      if (val.toString().trim().startsWith("{")) {
+        JsonElement json = JSONMacroFunctions.getInstance().asJsonElement(val.toString());
+        if (json.isJsonObject()) {
+          return json;
+        }
+      }
+    }
+    return val;
+  }
+
+  /**
+   * Returns the json value of a property if its value is a json object or array. The parsed value
+   * is kept until the value of the property changes, so it must not be modified.
+   *
+   * @param key the key of the property.
+   * @param val the value of the property.
+   * @return the json value, or {@code null} if the value is not json.
+   */
+  @Nullable
+  private JsonElement getParsedJsonProperty(String key, Object val) {
+    String lowerKey = key.toLowerCase();
+    if (parsedJsonProperties != null) {
+      ParsedJsonProperty parsed = parsedJsonProperties.get(lowerKey);
+      if (parsed != null && parsed.value() == val) {
+        return parsed.json();
+      }
+    }
+
+    JsonElement json = parseJsonProperty(val);
+    if (json != null) {
+      if (parsedJsonProperties == null) {
+        parsedJsonProperties = new ConcurrentHashMap<>();
+      }
+      parsedJsonProperties.put(lowerKey, new ParsedJsonProperty(val, json));
+    }
+    return json;
+  }
+
+  @Nullable
+  private static JsonElement parseJsonProperty(Object val) {
     if (val.toString().trim().startsWith("{")) {
       /*
        * The normal Gson evaluator was too lenient in identifying JSON objects, so we had to move
@@ -1893,29 +1976,7 @@ public Object getEvaluatedProperty(MapToolVariableResolver resolver, String key)
         return json;
       }
     }
-    try {
-      log.debug(
-          "Evaluating property: '{}' for token {} ({})----------------------------------------------------------------------------------",
-          key,
-          getName(),
-          getId());
-      val = MapTool.getParser().parseLine(resolver, this, val.toString());
-    } catch (ParserException pe) {
-      log.debug("Ignoring Parse Exception, continuing to evaluate {}", key);
-      val = val.toString();
-    }
-    if (val == null) {
-      val = "";
-    } else {
-      // Finally we try convert it to a JSON object. Fixes #1560.
-      if (val.toString().trim().startsWith("{")) {
-        JsonElement json = JSONMacroFunctions.getInstance().asJsonElement(val.toString());
-        if (json.isJsonObject()) {
-          return json;
-        }
-      }
-    }
-    return val;
+    return null;
   }
 
   /**
@@ -0,0 +1,374 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import java.awt.Rectangle;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Secondary indexes over the tokens of a {@link Zone}, used to find the tokens that may match a
+ * query without checking every token on the map. The tokens are indexed by layer, type, set states,
+ * property type, owner and by where they are on the map.
+ *
+ * <p>The index is kept up to date by the zone as tokens are put, changed and removed. The sets it
+ * returns are supersets of the matching tokens, the callers still check each token against their
+ * conditions.
+ */
+public class TokenIndex {
+
+  /** The size in pixels of the square buckets of the spatial index. */
+  private static final int BUCKET_SIZE = 256;
+
+  /** Tokens covering more buckets than this are kept in {@link #largeTokens} instead. */
+  private static final int MAX_BUCKETS_PER_TOKEN = 64;
+
+  /**
+   * The keys a token was indexed under, so it can be removed from the indexes after it has changed.
+   *
+   * @param layer the layer of the token.
+   * @param type the type of the token.
+   * @param propertyType the property type of the token.
+   * @param setStates the states that are set on the token.
+   * @param owners the owners of the token.
+   * @param ownedByAll if the token is owned by all players.
+   * @param bounds the area of the map the token covers.
+   */
+  private record Entry(
+      Zone.Layer layer,
+      Token.Type type,
+      String propertyType,
+      Set<String> setStates,
+      Set<String> owners,
+      boolean ownedByAll,
+      Rectangle bounds) {}
+
+  private final Zone zone;
+
+  private final Map<Token, Entry> entries = new HashMap<>();
+  private final Map<Zone.Layer, Set<Token>> byLayer = new EnumMap<>(Zone.Layer.class);
+  private final Map<Token.Type, Set<Token>> byType = new EnumMap<>(Token.Type.class);
+  private final Map<String, Set<Token>> byPropertyType = new HashMap<>();
+  private final Map<String, Set<Token>> byState = new HashMap<>();
+  private final Map<String, Set<Token>> byOwner = new HashMap<>();
+  private final Set<Token> ownedByAll = new HashSet<>();
+  private final Map<Long, Set<Token>> byBucket = new HashMap<>();
+  private final Set<Token> largeTokens = new HashSet<>();
+
+  /** The grid the spatial index was built for. */
+  private Object gridKey;
+
+  /**
+   * Creates the index for the tokens of a zone.
+   *
+   * @param zone the zone.
+   * @param tokens the tokens of the zone.
+   */
+  TokenIndex(Zone zone, Collection<Token> tokens) {
+    this.zone = zone;
+    this.gridKey = getGridKey();
+    tokens.forEach(this::update);
+  }
+
+  /**
+   * Adds a token to the index, or updates the index after the token has changed.
+   *
+   * @param token the token.
+   */
+  synchronized void update(Token token) {
+    remove(token);
+
+    var entry =
+        new Entry(
+            token.getLayer(),
+            token.getType(),
+            token.getPropertyType(),
+            getSetStates(token),
+            new HashSet<>(token.getOwners()),
+            token.isOwnedByAll(),
+            getBounds(token));
+    entries.put(token, entry);
+
+    add(byLayer, entry.layer(), token);
+    add(byType, entry.type(), token);
+    add(byPropertyType, entry.propertyType(), token);
+    for (String state : entry.setStates()) {
+      add(byState, state, token);
+    }
+    for (String owner : entry.owners()) {
+      add(byOwner, owner, token);
+    }
+    if (entry.ownedByAll()) {
+      ownedByAll.add(token);
+    }
+    addToBuckets(token, entry.bounds());
+  }
+
+  /**
+   * Removes a token from the index.
+   *
+   * @param token the token.
+   */
+  synchronized void remove(Token token) {
+    Entry entry = entries.remove(token);
+    if (entry == null) {
+      return;
+    }
+
+    remove(byLayer, entry.layer(), token);
+    remove(byType, entry.type(), token);
+    remove(byPropertyType, entry.propertyType(), token);
+    for (String state : entry.setStates()) {
+      remove(byState, state, token);
+    }
+    for (String owner : entry.owners()) {
+      remove(byOwner, owner, token);
+    }
+    ownedByAll.remove(token);
+    removeFromBuckets(token, entry.bounds());
+  }
+
+  /**
+   * Returns the tokens on a layer.
+   *
+   * @param layer the layer.
+   * @return the tokens on the layer.
+   */
+  public synchronized Set<Token> getTokensOnLayer(Zone.Layer layer) {
+    return copy(byLayer.get(layer));
+  }
+
+  /**
+   * Returns the tokens of a type.
+   *
+   * @param type the type.
+   * @return the tokens of the type.
+   */
+  public synchronized Set<Token> getTokensOfType(Token.Type type) {
+    return copy(byType.get(type));
+  }
+
+  /**
+   * Returns the tokens with a property type.
+   *
+   * @param propertyType the property type.
+   * @return the tokens with the property type.
+   */
+  public synchronized Set<Token> getTokensWithPropertyType(String propertyType) {
+    return copy(byPropertyType.get(propertyType));
+  }
+
+  /**
+   * Returns the tokens that have a state set, either to {@code true} or to a non zero value.
+   *
+   * @param state the name of the state.
+   * @return the tokens with the state set.
+   */
+  public synchronized Set<Token> getTokensWithState(String state) {
+    return copy(byState.get(state));
+  }
+
+  /**
+   * Returns the tokens owned by any of the players, including the tokens owned by all players.
+   *
+   * @param players the names of the players.
+   * @return the tokens owned by the players.
+   */
+  public synchronized Set<Token> getTokensOwnedBy(Collection<String> players) {
+    var tokens = new HashSet<>(ownedByAll);
+    for (String player : players) {
+      tokens.addAll(byOwner.getOrDefault(player, Set.of()));
+    }
+    return tokens;
+  }
+
+  /**
+   * Returns the tokens that may be within a distance of a token. Both the bounds of the tokens and
+   * the cells of their footprints are taken into account.
+   *
+   * @param token the token to search around.
+   * @param distance the distance in pixels.
+   * @return the tokens that may be within the distance.
+   */
+  public synchronized Set<Token> getTokensNear(Token token, int distance) {
+    Rectangle area = getBounds(token);
+    area.grow(distance, distance);
+    return getTokensIn(area);
+  }
+
+  /**
+   * Returns the tokens that may cover part of an area of the map. Both the bounds of the tokens and
+   * the cells of their footprints are taken into account.
+   *
+   * @param area the area in map coordinates.
+   * @return the tokens that may cover the area.
+   */
+  public synchronized Set<Token> getTokensIn(Rectangle area) {
+    checkGrid();
+    var tokens = new HashSet<>(largeTokens);
+    int minX = bucket(area.x);
+    int maxX = bucket(area.x + area.width);
+    int minY = bucket(area.y);
+    int maxY = bucket(area.y + area.height);
+    if ((long) (maxX - minX + 1) * (maxY - minY + 1) > byBucket.size()) {
+      // Cheaper to look through the buckets there are than all the ones in the area.
+      for (var bucket : byBucket.entrySet()) {
+        int x = (int) (bucket.getKey() >> 32);
+        int y = (int) (long) bucket.getKey();
+        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+          tokens.addAll(bucket.getValue());
+        }
+      }
+    } else {
+      for (int x = minX; x <= maxX; x++) {
+        for (int y = minY; y <= maxY; y++) {
+          tokens.addAll(byBucket.getOrDefault(bucketKey(x, y), Set.of()));
+        }
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * Returns the states that are set on a token, the same way the token finding macro functions
+   * decide if a state is set.
+   */
+  private static Set<String> getSetStates(Token token) {
+    var setStates = new HashSet<String>();
+    for (String state : token.getStatePropertyNames()) {
+      Object value = token.getState(state);
+      if (value == null
+          || Boolean.FALSE.equals(value)
+          || (value instanceof BigDecimal bd && bd.equals(BigDecimal.ZERO))) {
+        continue;
+      }
+      setStates.add(state);
+    }
+    return setStates;
+  }
+
+  /** Returns the area of the map the token covers, its bounds and its footprint cells. */
+  private Rectangle getBounds(Token token) {
+    Grid grid = zone.getGrid();
+    Rectangle bounds = token.getBounds(zone);
+    bounds.add(
+        token
+            .getFootprint(grid)
+            .getBounds(grid, grid.convert(new ZonePoint(token.getX(), token.getY()))));
+    return bounds;
+  }
+
+  /**
+   * Returns the values of the grid the token bounds depend on, used to tell when the grid has
+   * changed.
+   */
+  private Object getGridKey() {
+    Grid grid = zone.getGrid();
+    return List.of(
+        grid.getClass(),
+        grid.getSize(),
+        grid.getOffsetX(),
+        grid.getOffsetY(),
+        grid.getCellWidth(),
+        grid.getCellHeight());
+  }
+
+  /** Rebuilds the spatial index if the grid has changed since it was built. */
+  private void checkGrid() {
+    Object key = getGridKey();
+    if (Objects.equals(key, gridKey)) {
+      return;
+    }
+    gridKey = key;
+    byBucket.clear();
+    largeTokens.clear();
+    for (var entry : entries.entrySet()) {
+      Token token = entry.getKey();
+      Entry old = entry.getValue();
+      Rectangle bounds = getBounds(token);
+      entry.setValue(
+          new Entry(
+              old.layer(),
+              old.type(),
+              old.propertyType(),
+              old.setStates(),
+              old.owners(),
+              old.ownedByAll(),
+              bounds));
+      addToBuckets(token, bounds);
+    }
+  }
+
+  private void addToBuckets(Token token, Rectangle bounds) {
+    if (isLarge(bounds)) {
+      largeTokens.add(token);
+      return;
+    }
+    for (int x = bucket(bounds.x); x <= bucket(bounds.x + bounds.width); x++) {
+      for (int y = bucket(bounds.y); y <= bucket(bounds.y + bounds.height); y++) {
+        byBucket.computeIfAbsent(bucketKey(x, y), k -> new HashSet<>()).add(token);
+      }
+    }
+  }
+
+  private void removeFromBuckets(Token token, Rectangle bounds) {
+    if (isLarge(bounds)) {
+      largeTokens.remove(token);
+      return;
+    }
+    for (int x = bucket(bounds.x); x <= bucket(bounds.x + bounds.width); x++) {
+      for (int y = bucket(bounds.y); y <= bucket(bounds.y + bounds.height); y++) {
+        remove(byBucket, bucketKey(x, y), token);
+      }
+    }
+  }
+
+  private static boolean isLarge(Rectangle bounds) {
+    long columns = bucket(bounds.x + bounds.width) - bucket(bounds.x) + 1L;
+    long rows = bucket(bounds.y + bounds.height) - bucket(bounds.y) + 1L;
+    return columns * rows > MAX_BUCKETS_PER_TOKEN;
+  }
+
+  private static int bucket(int coordinate) {
+    return Math.floorDiv(coordinate, BUCKET_SIZE);
+  }
+
+  private static long bucketKey(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+
+  private static <K> void add(Map<K, Set<Token>> index, K key, Token token) {
+    index.computeIfAbsent(key, k -> new HashSet<>()).add(token);
+  }
+
+  private static <K> void remove(Map<K, Set<Token>> index, K key, Token token) {
+    Set<Token> tokens = index.get(key);
+    if (tokens != null && tokens.remove(token) && tokens.isEmpty()) {
+      index.remove(key);
+    }
+  }
+
+  private static Set<Token> copy(Set<Token> tokens) {
+    return tokens == null ? Collections.emptySet() : new HashSet<>(tokens);
+  }
+}
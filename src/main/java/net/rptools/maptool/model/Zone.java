@@ -19,6 +19,7 @@
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -406,6 +407,12 @@ public String toString() {
   /** Token list ordered by Z. */
   private final List<Token> tokenOrderedList = new LinkedList<Token>();
 
+  /**
+   * Indexes of the tokens used to find tokens without looking at all of them. Lazily created as it
+   * is only needed when tokens are searched for.
+   */
+  private transient TokenIndex tokenIndex;
+
   private InitiativeList initiativeList = new InitiativeList(this);
 
   /** The global exposed area. */
@@ -433,6 +440,13 @@ public String toString() {
   /** The MBL topology of the zone. Does not include token MBL. Should really be called mbl. */
   private Area topologyTerrain = new Area();
 
+  /**
+   * The number of changes made to each topology type, used to check that incremental topology
+   * updates are applied to the same topology they were made against. Lazily created as it is not
+   * saved with the campaign.
+   */
+  private transient Map<TopologyType, Long> topologyVersions;
+
   // The 'board' layer, at the very bottom of the layer stack.
   // Itself has two sub-layers:
   // The top one is an optional texture, typically a pre-drawn map.
@@ -1023,8 +1037,9 @@ public void addTopology(Area area, TopologyType topologyType) {
           case MBL -> topologyTerrain;
         };
     topology.add(area);
+    incrementTopologyVersion(topologyType);
 
-    new MapToolEventBus().getMainEventBus().post(new TopologyChanged(this));
+    new MapToolEventBus().getMainEventBus().post(new TopologyChanged(this, area.getBounds2D()));
   }
 
   public void addTopology(Area area) {
@@ -1049,8 +1064,9 @@ public void removeTopology(Area area, TopologyType topologyType) {
           case MBL -> topologyTerrain;
         };
     topology.subtract(area);
+    incrementTopologyVersion(topologyType);
 
-    new MapToolEventBus().getMainEventBus().post(new TopologyChanged(this));
+    new MapToolEventBus().getMainEventBus().post(new TopologyChanged(this, area.getBounds2D()));
   }
 
   public void removeTopology(Area area) {
@@ -1059,6 +1075,77 @@ public void removeTopology(Area area) {
     }
   }
 
+  /**
+   * Returns the version of the topology, which counts the changes made to it.
+   *
+   * @param topologyType the type of the topology
+   * @return the version of the topology
+   */
+  public long getTopologyVersion(TopologyType topologyType) {
+    return getTopologyVersions().getOrDefault(topologyType, 0L);
+  }
+
+  private Map<TopologyType, Long> getTopologyVersions() {
+    if (topologyVersions == null) {
+      topologyVersions = new EnumMap<>(TopologyType.class);
+    }
+    return topologyVersions;
+  }
+
+  private void incrementTopologyVersion(TopologyType topologyType) {
+    getTopologyVersions().merge(topologyType, 1L, Long::sum);
+  }
+
+  /**
+   * Removes and adds areas to the topology as one change, and fire the event TOPOLOGY_CHANGED. The
+   * change is made even if the topology is not at the expected version, the caller then has to
+   * fetch the whole topology to get back in sync.
+   *
+   * @param topologyType the type of the topology
+   * @param baseVersion the version of the topology the change was made against
+   * @param added the area to add, or null
+   * @param removed the area to remove, or null
+   * @return true if the topology was at baseVersion
+   */
+  public boolean applyTopologyDelta(
+      TopologyType topologyType, long baseVersion, Area added, Area removed) {
+    var topology = getTopology(topologyType);
+    long version = getTopologyVersion(topologyType);
+    Rectangle2D bounds = null;
+    if (removed != null) {
+      topology.subtract(removed);
+      bounds = removed.getBounds2D();
+    }
+    if (added != null) {
+      topology.add(added);
+      bounds = bounds == null ? added.getBounds2D() : bounds.createUnion(added.getBounds2D());
+    }
+    getTopologyVersions().put(topologyType, version + 1);
+
+    if (bounds == null) {
+      // Nothing changed
+      bounds = new Rectangle2D.Double();
+    }
+    new MapToolEventBus().getMainEventBus().post(new TopologyChanged(this, bounds));
+    return version == baseVersion;
+  }
+
+  /**
+   * Replaces the topology and its version, and fire the event TOPOLOGY_CHANGED.
+   *
+   * @param topologyType the type of the topology
+   * @param area the new topology
+   * @param version the version of the new topology
+   */
+  public void setTopology(TopologyType topologyType, Area area, long version) {
+    var topology = getTopology(topologyType);
+    topology.reset();
+    topology.add(area);
+    getTopologyVersions().put(topologyType, version);
+
+    new MapToolEventBus().getMainEventBus().post(new TopologyChanged(this));
+  }
+
   /** Fire the event TOPOLOGY_CHANGED. */
   // TODO Remove this in favour of firing from token as it own its topology.
   public void tokenTopologyChanged() {
@@ -1071,6 +1158,9 @@ public void tokenTopologyChanged() {
    * @param token the token that changed
    */
   public void tokenChanged(Token token) {
+    if (tokenIndex != null) {
+      tokenIndex.update(token);
+    }
     new MapToolEventBus()
         .getMainEventBus()
         .post(new TokensChanged(this, Collections.singletonList(token)));
@@ -1522,6 +1612,9 @@ public void putToken(Token token) {
     tokenOrderedList.remove(token);
     tokenOrderedList.add(token);
     tokenOrderedList.sort(TOKEN_Z_ORDER_COMPARATOR);
+    if (tokenIndex != null) {
+      tokenIndex.update(token);
+    }
 
     if (newToken) {
       new MapToolEventBus()
@@ -1573,6 +1666,9 @@ public void putTokens(List<Token> tokens) {
     tokenOrderedList.removeAll(tokens);
     tokenOrderedList.addAll(tokens);
     tokenOrderedList.sort(TOKEN_Z_ORDER_COMPARATOR);
+    if (tokenIndex != null) {
+      tokens.forEach(tokenIndex::update);
+    }
 
     if (!addedTokens.isEmpty()) {
       new MapToolEventBus().getMainEventBus().post(new TokensAdded(this, addedTokens));
@@ -1591,6 +1687,9 @@ public void removeToken(GUID id) {
     Token token = tokenMap.remove(id);
     if (token != null) {
       tokenOrderedList.remove(token);
+      if (tokenIndex != null) {
+        tokenIndex.remove(token);
+      }
       new MapToolEventBus()
           .getMainEventBus()
           .post(new TokensRemoved(this, Collections.singletonList(token)));
@@ -1609,6 +1708,9 @@ public void removeTokens(List<GUID> ids) {
         Token token = tokenMap.remove(id);
         if (token != null) {
           tokenOrderedList.remove(token);
+          if (tokenIndex != null) {
+            tokenIndex.remove(token);
+          }
           removedTokens.add(token);
         }
       }
@@ -1622,6 +1724,19 @@ public Token getToken(GUID id) {
     return tokenMap.get(id);
   }
 
+  /**
+   * Returns the indexes of the tokens in this zone, used to narrow down the tokens to check when
+   * searching for tokens.
+   *
+   * @return the token indexes.
+   */
+  public TokenIndex getTokenIndex() {
+    if (tokenIndex == null) {
+      tokenIndex = new TokenIndex(this, tokenOrderedList);
+    }
+    return tokenIndex;
+  }
+
   /**
    * @param name the name of the token.
    * @return the first token with a given name. The name is matched case-insensitively.
@@ -2239,6 +2354,29 @@ public void setExposedAreaMetaData(GUID tokenExposedAreaGUID, ExposedAreaMetaDat
     new MapToolEventBus().getMainEventBus().post(new FogChanged(this));
   }
 
+  /**
+   * Removes and adds areas to the exposed area of a token as one change, and fire the event
+   * FOG_CHANGED. The change is made even if the exposed area is not at the expected version, the
+   * caller then has to fetch the whole exposed area to get back in sync.
+   *
+   * @param tokenExposedAreaGUID the exposed area GUID of the token
+   * @param baseVersion the version of the exposed area the change was made against
+   * @param added the area to expose, or null
+   * @param removed the area to hide, or null
+   * @return true if the exposed area was at baseVersion
+   */
+  public boolean applyExposedAreaDelta(
+      GUID tokenExposedAreaGUID, long baseVersion, Area added, Area removed) {
+    ExposedAreaMetaData meta = getExposedAreaMetaData(tokenExposedAreaGUID);
+    long version = meta.getVersion();
+    meta.removeExposedAreaHistory(removed);
+    meta.addToExposedAreaHistory(added);
+    meta.setVersion(version + 1);
+
+    new MapToolEventBus().getMainEventBus().post(new FogChanged(this));
+    return version == baseVersion;
+  }
+
   /**
    * Lee: gets setting to expose fog normally or only at way points
    *
@@ -2295,9 +2433,11 @@ public static Zone fromDto(ZoneDto dto) {
     zone.tokenOrderedList.sort(TOKEN_Z_ORDER_COMPARATOR);
     dto.getExposedAreaMetaMap()
         .forEach(
-            (id, area) ->
-                zone.exposedAreaMeta.put(
-                    GUID.valueOf(id), new ExposedAreaMetaData(Mapper.map(area))));
+            (id, area) -> {
+              var meta = new ExposedAreaMetaData(Mapper.map(area));
+              meta.setVersion(dto.getExposedAreaMetaVersionsOrDefault(id, 0));
+              zone.exposedAreaMeta.put(GUID.valueOf(id), meta);
+            });
     zone.initiativeList = InitiativeList.fromDto(dto.getInitiative());
     zone.exposedArea = Mapper.map(dto.getExposedArea());
     zone.hasFog = dto.getHasFog();
@@ -2307,6 +2447,9 @@ public static Zone fromDto(ZoneDto dto) {
     zone.pitVbl = Mapper.map(dto.getPitVbl());
     zone.coverVbl = Mapper.map(dto.getCoverVbl());
     zone.topologyTerrain = Mapper.map(dto.getTopologyTerrain());
+    dto.getTopologyVersionsMap()
+        .forEach(
+            (type, version) -> zone.getTopologyVersions().put(TopologyType.valueOf(type), version));
     zone.backgroundPaint = DrawablePaint.fromDto(dto.getBackgroundPaint());
     zone.mapAsset = dto.hasMapAsset() ? new MD5Key(dto.getMapAsset().getValue()) : null;
     zone.boardPosition.x = dto.getBoardPosition().getX();
@@ -2363,6 +2506,7 @@ public ZoneDto toDto() {
             return;
           }
           dto.putExposedAreaMeta(id.toString(), Mapper.map(area.getExposedAreaHistory()));
+          dto.putExposedAreaMetaVersions(id.toString(), area.getVersion());
         });
     dto.setInitiative(initiativeList.toDto());
     dto.setExposedArea(Mapper.map(exposedArea));
@@ -2377,6 +2521,7 @@ public ZoneDto toDto() {
     dto.setPitVbl(Mapper.map(pitVbl));
     dto.setCoverVbl(Mapper.map(coverVbl));
     dto.setTopologyTerrain(Mapper.map(topologyTerrain));
+    getTopologyVersions().forEach((type, version) -> dto.putTopologyVersions(type.name(), version));
     dto.setBackgroundPaint(backgroundPaint.toDto());
     if (mapAsset != null) {
       dto.setMapAsset(StringValue.of(mapAsset.toString()));
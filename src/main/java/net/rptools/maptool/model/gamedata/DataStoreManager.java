@@ -14,9 +14,12 @@
  */
 package net.rptools.maptool.model.gamedata;
 
+import java.io.File;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import net.rptools.lib.MD5Key;
+import net.rptools.maptool.client.AppUtil;
+import net.rptools.maptool.client.DeveloperOptions;
 import net.rptools.maptool.model.gamedata.proto.DataStoreDto;
 
 /** Class that manages the data stores. */
@@ -29,7 +32,21 @@ public class DataStoreManager {
   private static final String MEMORY_DATA_STORE_TYPE_NAME = "default";
 
   /** The memory data store. */
-  private static final DataStore memoryDataStore = new MemoryDataStore();
+  private static final DataStore memoryDataStore = createMemoryDataStore();
+
+  /**
+   * Creates the memory data store, which keeps large values in a temporary file if {@link
+   * DeveloperOptions.Toggle#StoreGameDataOnDisk} is enabled.
+   *
+   * @return the memory data store.
+   */
+  private static DataStore createMemoryDataStore() {
+    File tmpDir = AppUtil.getTmpDir();
+    if (DeveloperOptions.Toggle.StoreGameDataOnDisk.isEnabled() && tmpDir != null) {
+      return new MemoryDataStore(new DataValueFile(tmpDir));
+    }
+    return new MemoryDataStore();
+  }
 
   /**
    * Returns the default data store. Any updates to the data store using the returned data store
@@ -0,0 +1,232 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model.gamedata;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import net.rptools.maptool.model.gamedata.data.DataType;
+import net.rptools.maptool.model.gamedata.data.DataValue;
+import net.rptools.maptool.model.gamedata.data.DataValueFactory;
+
+/**
+ * An append-only file holding the text of large string and JSON data values, so that the data store
+ * only has to keep their name, type and position in memory. Each value is stored as its length
+ * followed by its UTF-8 bytes. Values are never overwritten, the space of replaced or removed
+ * values is only reclaimed when the file is cleared.
+ *
+ * <p>The most recently read values are kept in memory so that repeated reads of the same value do
+ * not go to the disk.
+ */
+class DataValueFile implements AutoCloseable {
+
+  /** Strings shorter than this are kept in memory, storing them would not save anything. */
+  static final int MIN_STORED_LENGTH = 256;
+
+  /** JSON values with fewer elements than this are kept in memory. */
+  static final int MIN_STORED_ELEMENTS = 16;
+
+  /** The maximum number of read values to keep in memory. */
+  private static final int MAX_CACHED_VALUES = 1000;
+
+  private final File directory;
+  private File file;
+  private FileChannel channel;
+
+  /** The length of the file, where the next value will be written. */
+  private long length;
+
+  /** Appends and clearing are exclusive, reads can happen at the same time. */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** The values read recently, keyed by their position in the file. */
+  private final Cache<Long, DataValue> recentValues =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_VALUES).build();
+
+  /**
+   * Creates a file that will be kept in a directory. The file is only created when the first value
+   * is appended.
+   *
+   * @param directory the directory for the file.
+   */
+  DataValueFile(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Returns if a value should be kept in the file instead of memory.
+   *
+   * @param value the value.
+   * @return {@code true} if the value is a long enough string or JSON value.
+   */
+  static boolean shouldStore(DataValue value) {
+    if (value.isUndefined()) {
+      return false;
+    }
+    return switch (value.getDataType()) {
+      case STRING -> value.asString().length() >= MIN_STORED_LENGTH;
+      case JSON_ARRAY -> value.asJsonArray().size() >= MIN_STORED_ELEMENTS;
+      case JSON_OBJECT -> value.asJsonObject().size() >= MIN_STORED_ELEMENTS;
+      default -> false;
+    };
+  }
+
+  /**
+   * Appends the text of a value to the file.
+   *
+   * @param value the string or JSON value.
+   * @return the position of the value in the file.
+   * @throws IOException if the value can not be written.
+   */
+  long append(DataValue value) throws IOException {
+    String text =
+        switch (value.getDataType()) {
+          case STRING -> value.asString();
+          case JSON_ARRAY -> value.asJsonArray().toString();
+          case JSON_OBJECT -> value.asJsonObject().toString();
+          default -> throw new IllegalArgumentException(
+              "Can not store " + value.getDataType() + " values");
+        };
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    var buffer = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+    buffer.putInt(bytes.length).put(bytes).flip();
+
+    lock.writeLock().lock();
+    try {
+      if (channel == null) {
+        directory.mkdirs();
+        file = File.createTempFile("gamedata", ".dat", directory);
+        file.deleteOnExit();
+        channel =
+            FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+      }
+      long offset = length;
+      while (buffer.hasRemaining()) {
+        channel.write(buffer, length + buffer.position());
+      }
+      length += buffer.limit();
+      return offset;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Reads a value back from the file.
+   *
+   * @param offset the position of the value in the file.
+   * @param name the name of the value.
+   * @param dataType the type of the value.
+   * @return the value.
+   * @throws UncheckedIOException if the value can not be read.
+   */
+  DataValue read(long offset, String name, DataType dataType) {
+    try {
+      return recentValues.get(offset, () -> toDataValue(name, dataType, readText(offset)));
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException ioe) {
+        throw new UncheckedIOException(ioe);
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Reads the text of a value from the file.
+   *
+   * @param offset the position of the value in the file.
+   * @return the text.
+   * @throws IOException if the text can not be read.
+   */
+  private String readText(long offset) throws IOException {
+    lock.readLock().lock();
+    try {
+      if (channel == null || offset >= length) {
+        throw new IOException("No value at " + offset + " in the game data file");
+      }
+      var lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+      readFully(lengthBuffer, offset);
+      var textBuffer = ByteBuffer.allocate(lengthBuffer.getInt(0));
+      readFully(textBuffer, offset + Integer.BYTES);
+      return new String(textBuffer.array(), StandardCharsets.UTF_8);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of the game data file");
+      }
+    }
+  }
+
+  private static DataValue toDataValue(String name, DataType dataType, String text) {
+    return switch (dataType) {
+      case STRING -> DataValueFactory.fromString(name, text);
+      case JSON_ARRAY -> DataValueFactory.fromJsonArray(
+          name, JsonParser.parseString(text).getAsJsonArray());
+      case JSON_OBJECT -> DataValueFactory.fromJsonObject(
+          name, JsonParser.parseString(text).getAsJsonObject());
+      default -> throw new IllegalArgumentException("Can not store " + dataType + " values");
+    };
+  }
+
+  /**
+   * Removes all values from the file.
+   *
+   * @throws IOException if the file can not be truncated.
+   */
+  void clear() throws IOException {
+    lock.writeLock().lock();
+    try {
+      if (channel != null) {
+        channel.truncate(0);
+      }
+      length = 0;
+      recentValues.invalidateAll();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Closes and deletes the file. */
+  @Override
+  public void close() throws IOException {
+    lock.writeLock().lock();
+    try {
+      if (channel != null) {
+        channel.close();
+        channel = null;
+        file.delete();
+      }
+      length = 0;
+      recentValues.invalidateAll();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+}
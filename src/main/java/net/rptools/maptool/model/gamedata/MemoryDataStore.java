@@ -17,9 +17,11 @@
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import net.rptools.lib.MD5Key;
 import net.rptools.maptool.model.Asset;
@@ -31,23 +33,77 @@
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-/** Class that implements the DataStore interface. */
+/**
+ * Class that implements the DataStore interface.
+ *
+ * <p>All the data is held in concurrent maps, so the operations are carried out on the calling
+ * thread and the returned futures are already complete. Large string and JSON values can be kept in
+ * a {@link DataValueFile} instead of memory.
+ */
 public class MemoryDataStore implements DataStore {
 
   private record PropertyTypeNamespace(String propertyType, String namespace) {}
 
   /** Class used to cache definitions. */
-  private final Map<String, Set<String>> propertyTypeNamespaceMap =
-      Collections.synchronizedMap(new HashMap<>());
+  private final Map<String, Set<String>> propertyTypeNamespaceMap = new ConcurrentHashMap<>();
 
   private final Map<PropertyTypeNamespace, Map<String, DataValue>> namespaceDataMap =
-      Collections.synchronizedMap(new HashMap<>());
+      new ConcurrentHashMap<>();
+
+  /** The file large values are kept in, {@code null} if they are kept in memory. */
+  private final DataValueFile valueFile;
 
   /** Class for logging. */
   private static final Logger log = LogManager.getLogger(MemoryDataStore.class);
 
-  /** Creates a new MemoryDataStore. */
-  MemoryDataStore() {}
+  /** Creates a new MemoryDataStore that keeps all values in memory. */
+  MemoryDataStore() {
+    this(null);
+  }
+
+  /**
+   * Creates a new MemoryDataStore.
+   *
+   * @param valueFile the file to keep large values in, or {@code null} to keep them in memory.
+   */
+  MemoryDataStore(DataValueFile valueFile) {
+    this.valueFile = valueFile;
+  }
+
+  /**
+   * Carries out an operation on the calling thread.
+   *
+   * @param operation the operation.
+   * @return a completed future with the result, or the exception thrown by the operation.
+   * @param <T> the type of the result.
+   */
+  private static <T> CompletableFuture<T> complete(Supplier<T> operation) {
+    try {
+      return CompletableFuture.completedFuture(operation.get());
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Returns the value to put in the maps for a value, which is the value itself unless it is moved
+   * to the {@link #valueFile}.
+   *
+   * @param value the value.
+   * @return the value to put in the maps.
+   */
+  private DataValue store(DataValue value) {
+    if (valueFile != null && DataValueFile.shouldStore(value)) {
+      try {
+        long offset = valueFile.append(value);
+        return new StoredDataValue(valueFile, offset, value.getName(), value.getDataType());
+      } catch (IOException e) {
+        log.warn(
+            "Unable to write {} to the game data file, keeping it in memory", value.getName(), e);
+      }
+    }
+    return value;
+  }
 
   /**
    * Returns if the namespace exists for the property type.
@@ -70,7 +126,7 @@ public CompletableFuture<Set<String>> getPropertyTypes() {
   @Override
   public CompletableFuture<Set<String>> getPropertyNamespaces(String type) {
 
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           var propertyTypeNamespace = propertyTypeNamespaceMap.get(type);
           if (propertyTypeNamespace != null) {
@@ -104,7 +160,7 @@ private DataValue getData(String type, String namespace, String name) {
   @Override
   public CompletableFuture<DataType> getPropertyDataType(
       String type, String namespace, String name) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           var data = getData(type, namespace, name);
           return data == null ? DataType.UNDEFINED : data.getDataType();
@@ -114,7 +170,7 @@ public CompletableFuture<DataType> getPropertyDataType(
   @Override
   public CompletableFuture<Map<String, DataType>> getPropertyDataTypeMap(
       String type, String namespace) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           var dataTypeMap = new HashMap<String, DataType>();
           var values = namespaceDataMap.get(new PropertyTypeNamespace(type, namespace));
@@ -130,7 +186,7 @@ public CompletableFuture<Map<String, DataType>> getPropertyDataTypeMap(
 
   @Override
   public CompletableFuture<Boolean> hasProperty(String type, String namespace, String name) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           var def = getData(type, namespace, name);
           if (def != null) {
@@ -143,7 +199,7 @@ public CompletableFuture<Boolean> hasProperty(String type, String namespace, Str
 
   @Override
   public CompletableFuture<Boolean> isPropertyDefined(String type, String namespace, String name) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           var data = getData(type, namespace, name);
           if (data != null) {
@@ -156,7 +212,7 @@ public CompletableFuture<Boolean> isPropertyDefined(String type, String namespac
 
   @Override
   public CompletableFuture<DataValue> getProperty(String type, String namespace, String name) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           var prop = getData(type, namespace, name);
           return Objects.requireNonNullElseGet(prop, () -> DataValueFactory.undefined(name));
@@ -165,7 +221,7 @@ public CompletableFuture<DataValue> getProperty(String type, String namespace, S
 
   @Override
   public CompletableFuture<Set<DataValue>> getProperties(String type, String namespace) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           var values = namespaceDataMap.get(new PropertyTypeNamespace(type, namespace));
           if (values != null) {
@@ -188,82 +244,77 @@ private DataValue setData(String type, String namespace, DataValue value) {
       throw InvalidDataOperation.createNamespaceDoesNotExist(namespace, type);
     }
 
-    DataValue setValue = value;
-    var existing = getData(type, namespace, value.getName());
-    // If no value exists we can put anything there, if a value exists we have to check type
-    // is
-    // correct
     var dataMap =
         namespaceDataMap.computeIfAbsent(
             new PropertyTypeNamespace(type, namespace), k -> new ConcurrentHashMap<>());
-    if (existing == null || existing.getDataType() == DataType.UNDEFINED) {
-      dataMap.put(value.getName(), value);
-    } else {
-      var newValue = DataType.convert(value, existing.getDataType());
-      dataMap.put(newValue.getName(), newValue);
-      setValue = newValue;
-    }
-
-    return setValue;
+    var setValue = new DataValue[1];
+    // The value is converted and stored while the entry is locked, so that the type checked is the
+    // one replaced and each value is only written to the value file once.
+    dataMap.compute(
+        value.getName(),
+        (name, existing) -> {
+          // If no value exists we can put anything there, if a value exists we have to check type
+          // is correct
+          if (existing == null || existing.getDataType() == DataType.UNDEFINED) {
+            setValue[0] = value;
+          } else {
+            setValue[0] = DataType.convert(value, existing.getDataType());
+          }
+          return store(setValue[0]);
+        });
+    return setValue[0];
   }
 
   @Override
   public CompletableFuture<DataValue> setProperty(String type, String namespace, DataValue value) {
-    return CompletableFuture.supplyAsync(() -> setData(type, namespace, value));
+    return complete(() -> setData(type, namespace, value));
   }
 
   @Override
   public CompletableFuture<DataValue> setLongProperty(
       String type, String namespace, String name, long value) {
-    return CompletableFuture.supplyAsync(
-        () -> setData(type, namespace, DataValueFactory.fromLong(name, value)));
+    return complete(() -> setData(type, namespace, DataValueFactory.fromLong(name, value)));
   }
 
   @Override
   public CompletableFuture<DataValue> setDoubleProperty(
       String type, String namespace, String name, double value) {
-    return CompletableFuture.supplyAsync(
-        () -> setData(type, namespace, DataValueFactory.fromDouble(name, value)));
+    return complete(() -> setData(type, namespace, DataValueFactory.fromDouble(name, value)));
   }
 
   @Override
   public CompletableFuture<DataValue> setStringProperty(
       String type, String namespace, String name, String value) {
-    return CompletableFuture.supplyAsync(
-        () -> setData(type, namespace, DataValueFactory.fromString(name, value)));
+    return complete(() -> setData(type, namespace, DataValueFactory.fromString(name, value)));
   }
 
   @Override
   public CompletableFuture<DataValue> setBooleanProperty(
       String type, String namespace, String name, boolean value) {
-    return CompletableFuture.supplyAsync(
-        () -> setData(type, namespace, DataValueFactory.fromBoolean(name, value)));
+    return complete(() -> setData(type, namespace, DataValueFactory.fromBoolean(name, value)));
   }
 
   @Override
   public CompletableFuture<DataValue> setJsonArrayProperty(
       String type, String namespace, String name, JsonArray value) {
-    return CompletableFuture.supplyAsync(
-        () -> setData(type, namespace, DataValueFactory.fromJsonArray(name, value)));
+    return complete(() -> setData(type, namespace, DataValueFactory.fromJsonArray(name, value)));
   }
 
   @Override
   public CompletableFuture<DataValue> setJsonObjectProperty(
       String type, String namespace, String name, JsonObject value) {
-    return CompletableFuture.supplyAsync(
-        () -> setData(type, namespace, DataValueFactory.fromJsonObject(name, value)));
+    return complete(() -> setData(type, namespace, DataValueFactory.fromJsonObject(name, value)));
   }
 
   @Override
   public CompletableFuture<DataValue> setAssetProperty(
       String type, String namespace, String name, Asset value) {
-    return CompletableFuture.supplyAsync(
-        () -> setData(type, namespace, DataValueFactory.fromAsset(name, value)));
+    return complete(() -> setData(type, namespace, DataValueFactory.fromAsset(name, value)));
   }
 
   @Override
   public CompletableFuture<Void> removeProperty(String type, String namespace, String name) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           var key = new PropertyTypeNamespace(type, namespace);
           var dataMap = namespaceDataMap.get(key);
@@ -284,24 +335,23 @@ public CompletableFuture<Void> removeProperty(String type, String namespace, Str
   private void createDataNamespace(
       String propertyType, String namespace, Collection<DataValue> initialData) {
 
-    Set<String> namespaces =
-        propertyTypeNamespaceMap.computeIfAbsent(
-            propertyType, k -> Collections.synchronizedSet(new HashSet<>()));
-
-    namespaces.add(namespace);
-
     var dataMap =
         namespaceDataMap.computeIfAbsent(
             new PropertyTypeNamespace(propertyType, namespace), k -> new ConcurrentHashMap<>());
 
     for (var dataValue : initialData) {
-      dataMap.put(dataValue.getName(), dataValue);
+      dataMap.put(dataValue.getName(), store(dataValue));
     }
+
+    // Added last so that the namespace is not seen before its initial data.
+    propertyTypeNamespaceMap
+        .computeIfAbsent(propertyType, k -> ConcurrentHashMap.newKeySet())
+        .add(namespace);
   }
 
   @Override
   public CompletableFuture<Void> createNamespace(String propertyType, String namespace) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           createDataNamespace(propertyType, namespace, List.of());
           return null;
@@ -311,7 +361,7 @@ public CompletableFuture<Void> createNamespace(String propertyType, String names
   @Override
   public CompletableFuture<Void> createNamespaceWithInitialData(
       String propertyType, String namespace, Collection<DataValue> initialData) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           createDataNamespace(propertyType, namespace, initialData);
           return null;
@@ -321,7 +371,7 @@ public CompletableFuture<Void> createNamespaceWithInitialData(
   @Override
   public CompletableFuture<Void> createNamespaceWithTypes(
       String propertyType, String namespace, Map<String, DataType> dataTypes) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           createDataNamespace(
               propertyType,
@@ -335,7 +385,7 @@ public CompletableFuture<Void> createNamespaceWithTypes(
 
   @Override
   public CompletableFuture<GameDataDto> toDto(String type, String namespace) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           var builder = GameDataDto.newBuilder();
           builder.setType(type);
@@ -350,7 +400,7 @@ public CompletableFuture<GameDataDto> toDto(String type, String namespace) {
 
   @Override
   public CompletableFuture<GameDataValueDto> toDto(DataValue data) {
-    return CompletableFuture.supplyAsync(() -> gameValueToDto(data));
+    return complete(() -> gameValueToDto(data));
   }
 
   /**
@@ -420,7 +470,7 @@ private GameDataValueDto gameValueToDto(DataValue data) {
 
   @Override
   public CompletableFuture<Set<MD5Key>> getAssets() {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () ->
             namespaceDataMap.values().stream()
                 .flatMap(m -> m.values().stream())
@@ -433,11 +483,18 @@ public CompletableFuture<Set<MD5Key>> getAssets() {
   public void clear() {
     propertyTypeNamespaceMap.clear();
     namespaceDataMap.clear();
+    if (valueFile != null) {
+      try {
+        valueFile.clear();
+      } catch (IOException e) {
+        log.warn("Unable to clear the game data file", e);
+      }
+    }
   }
 
   @Override
   public CompletableFuture<Void> clearNamespace(String propertyType, String namespace) {
-    return CompletableFuture.supplyAsync(
+    return complete(
         () -> {
           namespaceDataMap.remove(new PropertyTypeNamespace(propertyType, namespace));
           return null;
@@ -0,0 +1,119 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model.gamedata;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import net.rptools.maptool.model.Asset;
+import net.rptools.maptool.model.gamedata.data.DataType;
+import net.rptools.maptool.model.gamedata.data.DataValue;
+
+/**
+ * A string or JSON data value that is kept in a {@link DataValueFile}. Only the name, type and
+ * position of the value are kept in memory, the value itself is read from the file when it is used.
+ */
+final class StoredDataValue implements DataValue {
+
+  /** The file the value is kept in. */
+  private final DataValueFile file;
+
+  /** The position of the value in the file. */
+  private final long offset;
+
+  /** The name of the value. */
+  private final String name;
+
+  /** The type of the value. */
+  private final DataType dataType;
+
+  /**
+   * Creates a new StoredDataValue.
+   *
+   * @param file the file the value is kept in.
+   * @param offset the position of the value in the file.
+   * @param name the name of the value.
+   * @param dataType the type of the value.
+   */
+  StoredDataValue(DataValueFile file, long offset, String name, DataType dataType) {
+    this.file = file;
+    this.offset = offset;
+    this.name = name;
+    this.dataType = dataType;
+  }
+
+  /**
+   * Reads the value from the file.
+   *
+   * @return the value.
+   */
+  private DataValue load() {
+    return file.read(offset, name, dataType);
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public DataType getDataType() {
+    return dataType;
+  }
+
+  @Override
+  public boolean canBeConvertedTo(DataType dataType) {
+    return load().canBeConvertedTo(dataType);
+  }
+
+  @Override
+  public long asLong() {
+    return load().asLong();
+  }
+
+  @Override
+  public double asDouble() {
+    return load().asDouble();
+  }
+
+  @Override
+  public String asString() {
+    return load().asString();
+  }
+
+  @Override
+  public boolean asBoolean() {
+    return load().asBoolean();
+  }
+
+  @Override
+  public JsonArray asJsonArray() {
+    return load().asJsonArray();
+  }
+
+  @Override
+  public JsonObject asJsonObject() {
+    return load().asJsonObject();
+  }
+
+  @Override
+  public boolean isUndefined() {
+    return false;
+  }
+
+  @Override
+  public Asset asAsset() {
+    return load().asAsset();
+  }
+}
@@ -14,6 +14,24 @@
  */
 package net.rptools.maptool.model.zones;
 
+import java.awt.geom.Rectangle2D;
+import javax.annotation.Nullable;
 import net.rptools.maptool.model.Zone;
 
-public record TopologyChanged(Zone zone) {}
+/**
+ * The topology of a zone changed.
+ *
+ * @param zone the zone.
+ * @param bounds the bounds of the region that changed, or null if it is not known.
+ */
+public record TopologyChanged(Zone zone, @Nullable Rectangle2D bounds) {
+
+  /**
+   * The topology of a zone changed somewhere.
+   *
+   * @param zone the zone.
+   */
+  public TopologyChanged(Zone zone) {
+    this(zone, null);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import net.rptools.maptool.model.ExposedAreaMetaData;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.server.proto.AreaDeltaMsg;
+import net.rptools.maptool.server.proto.AreaSyncMsg;
+import net.rptools.maptool.server.proto.AreaTargetDto;
+import net.rptools.maptool.server.proto.TopologyTypeDto;
+
+/**
+ * Maps the versioned area messages ({@link AreaDeltaMsg} and {@link AreaSyncMsg}) to the topology
+ * and the token exposed areas of a zone. Used by both the server and the clients.
+ */
+public final class AreaSync {
+
+  private AreaSync() {}
+
+  /**
+   * Returns the target for a topology type.
+   *
+   * @param topologyType the type of the topology.
+   * @return the target.
+   */
+  public static AreaTargetDto topologyTarget(Zone.TopologyType topologyType) {
+    return AreaTargetDto.newBuilder()
+        .setTopologyType(TopologyTypeDto.valueOf(topologyType.name()))
+        .build();
+  }
+
+  /**
+   * Returns the target for the exposed area of a token.
+   *
+   * @param tokenExposedAreaGUID the exposed area GUID of the token.
+   * @return the target.
+   */
+  public static AreaTargetDto exposedAreaTarget(GUID tokenExposedAreaGUID) {
+    return AreaTargetDto.newBuilder().setExposedAreaGuid(tokenExposedAreaGUID.toString()).build();
+  }
+
+  /**
+   * Returns the version of the target area in the zone.
+   *
+   * @param zone the zone.
+   * @param target the target area.
+   * @return the version of the area.
+   */
+  public static long getVersion(Zone zone, AreaTargetDto target) {
+    return switch (target.getTargetTypeCase()) {
+      case TOPOLOGY_TYPE -> zone.getTopologyVersion(topologyType(target));
+      case EXPOSED_AREA_GUID -> {
+        var meta = zone.getExposedAreaMetaData().get(GUID.valueOf(target.getExposedAreaGuid()));
+        yield meta == null ? 0 : meta.getVersion();
+      }
+      case TARGETTYPE_NOT_SET -> throw new IllegalArgumentException("No area target");
+    };
+  }
+
+  /**
+   * Applies a delta to the zone.
+   *
+   * @param zone the zone.
+   * @param msg the delta.
+   * @return true if the area was at the base version of the delta, false if the whole area has to
+   *     be fetched again.
+   */
+  public static boolean apply(Zone zone, AreaDeltaMsg msg) {
+    var added = msg.hasAdded() ? Mapper.map(msg.getAdded()) : null;
+    var removed = msg.hasRemoved() ? Mapper.map(msg.getRemoved()) : null;
+    var target = msg.getTarget();
+    return switch (target.getTargetTypeCase()) {
+      case TOPOLOGY_TYPE -> zone.applyTopologyDelta(
+          topologyType(target), msg.getBaseVersion(), added, removed);
+      case EXPOSED_AREA_GUID -> zone.applyExposedAreaDelta(
+          GUID.valueOf(target.getExposedAreaGuid()), msg.getBaseVersion(), added, removed);
+      case TARGETTYPE_NOT_SET -> throw new IllegalArgumentException("No area target");
+    };
+  }
+
+  /**
+   * Creates the message that replaces the target area with the one in the zone.
+   *
+   * @param zone the zone.
+   * @param target the target area.
+   * @return the message.
+   */
+  public static AreaSyncMsg createSync(Zone zone, AreaTargetDto target) {
+    var area =
+        switch (target.getTargetTypeCase()) {
+          case TOPOLOGY_TYPE -> zone.getTopology(topologyType(target));
+          case EXPOSED_AREA_GUID -> zone.getExposedAreaMetaData(
+                  GUID.valueOf(target.getExposedAreaGuid()))
+              .getExposedAreaHistory();
+          case TARGETTYPE_NOT_SET -> throw new IllegalArgumentException("No area target");
+        };
+    return AreaSyncMsg.newBuilder()
+        .setZoneGuid(zone.getId().toString())
+        .setTarget(target)
+        .setVersion(getVersion(zone, target))
+        .setArea(Mapper.map(area))
+        .build();
+  }
+
+  /**
+   * Replaces the target area in the zone.
+   *
+   * @param zone the zone.
+   * @param msg the message with the area and its version.
+   */
+  public static void apply(Zone zone, AreaSyncMsg msg) {
+    var area = Mapper.map(msg.getArea());
+    var target = msg.getTarget();
+    switch (target.getTargetTypeCase()) {
+      case TOPOLOGY_TYPE -> zone.setTopology(topologyType(target), area, msg.getVersion());
+      case EXPOSED_AREA_GUID -> {
+        var meta = new ExposedAreaMetaData(area);
+        meta.setVersion(msg.getVersion());
+        zone.setExposedAreaMetaData(GUID.valueOf(target.getExposedAreaGuid()), meta);
+      }
+      case TARGETTYPE_NOT_SET -> throw new IllegalArgumentException("No area target");
+    }
+  }
+
+  private static Zone.TopologyType topologyType(AreaTargetDto target) {
+    return Zone.TopologyType.valueOf(target.getTopologyType().name());
+  }
+}
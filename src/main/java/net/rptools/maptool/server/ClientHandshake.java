@@ -147,6 +147,10 @@ private void startHandshakeInternal() {
             .setPlayerName(client.getPlayer().getName())
             .setVersion(MapTool.getVersion())
             .setPublicKeyMd5(md5key.toString());
+    var resumable = client.getResumableCampaign();
+    if (resumable != null) {
+      clientInitMsg.setResume(resumable.toDto());
+    }
     var handshakeMsg = HandshakeMsg.newBuilder().setClientInitMsg(clientInitMsg).build();
     sendMessage(State.AwaitingUseAuthType, handshakeMsg);
   }
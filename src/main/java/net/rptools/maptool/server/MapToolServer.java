@@ -14,12 +14,15 @@
  */
 package net.rptools.maptool.server;
 
+import java.awt.EventQueue;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import javax.swing.SwingUtilities;
 import net.rptools.clientserver.ConnectionFactory;
@@ -41,6 +44,7 @@
 import net.rptools.maptool.model.TextMessage;
 import net.rptools.maptool.model.player.Player;
 import net.rptools.maptool.model.player.ServerSidePlayerDatabase;
+import net.rptools.maptool.server.proto.CampaignResumeDto;
 import net.rptools.maptool.server.proto.Message;
 import net.rptools.maptool.server.proto.PlayerConnectedMsg;
 import net.rptools.maptool.server.proto.PlayerDisconnectedMsg;
@@ -82,6 +86,13 @@ public enum State {
   private final boolean useUPnP;
   private final ServiceAnnouncer announcer;
   private Campaign campaign;
+
+  /** The versions of the zones of the campaign, stamped on the messages sent to clients. */
+  private final ZoneVersions zoneVersions = new ZoneVersions();
+
+  /** The DTOs of the zones of the campaign, reused while the zones do not change. */
+  private final ZoneDtoCache zoneDtoCache = new ZoneDtoCache(zoneVersions);
+
   private ServerPolicy policy;
   private HeartbeatThread heartbeatThread;
   private final DisconnectHandler onConnectionDisconnected;
@@ -215,7 +226,7 @@ private void connectionAdded(Connection conn) {
             releaseClientConnection(conn);
           } else {
             log.debug("About to add new client");
-            addRemoteConnection(conn, player);
+            addRemoteConnection(conn, player, handshake.getCampaignResume());
           }
         });
     // Make sure the client is allowed
@@ -254,11 +265,19 @@ public void addLocalConnection(Connection conn, Player localPlayer) {
     installConnection(conn, localPlayer);
   }
 
-  private void addRemoteConnection(Connection conn, Player connPlayer) {
+  private void addRemoteConnection(
+      Connection conn, Player connPlayer, @Nullable CampaignResumeDto resume) {
     installConnection(conn, connPlayer);
 
-    var msg2 = SetCampaignMsg.newBuilder().setCampaign(campaign.toDto());
-    sendMessage(conn.getId(), Message.newBuilder().setSetCampaignMsg(msg2).build());
+    createSetCampaignMsg(resume)
+        .whenComplete(
+            (msg, error) -> {
+              if (error != null) {
+                log.error("Unable to send the campaign to {}", conn.getId(), error);
+              } else {
+                sendMessage(conn.getId(), Message.newBuilder().setSetCampaignMsg(msg).build());
+              }
+            });
   }
 
   public void bootPlayer(String playerId) {
@@ -317,12 +336,97 @@ public void setCampaign(Campaign campaign) {
       campaign = new Campaign();
     }
     this.campaign = campaign;
+    zoneVersions.reset();
+    zoneDtoCache.clear();
+  }
+
+  /**
+   * Creates the message that sends the campaign to a client. If the client still holds zones from
+   * an earlier connection in the same campaign epoch, the zones that have not changed since are
+   * left out and listed as unchanged instead.
+   *
+   * <p>A message is stamped with its zone versions once its change has been queued on the EDT, but
+   * the change is only applied when the EDT gets to it. So the versions are taken now and the zones
+   * are sent as they are once the EDT has applied everything queued so far. The versions sent are
+   * then never newer than the zones sent.
+   *
+   * @param resume the zone versions the client holds, or null if it holds none.
+   * @return completes on the EDT with the message.
+   */
+  CompletableFuture<SetCampaignMsg> createSetCampaignMsg(@Nullable CampaignResumeDto resume) {
+    String epoch = zoneVersions.getEpoch();
+    Map<GUID, Long> versions = zoneVersions.snapshot();
+    var future = new CompletableFuture<SetCampaignMsg>();
+    EventQueue.invokeLater(
+        () -> {
+          try {
+            future.complete(createSetCampaignMsg(resume, epoch, versions));
+          } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+          }
+        });
+    return future;
+  }
+
+  private SetCampaignMsg createSetCampaignMsg(
+      @Nullable CampaignResumeDto resume, String epoch, Map<GUID, Long> versions) {
+    var msg = SetCampaignMsg.newBuilder().setCampaignEpoch(epoch);
+    versions.forEach((zoneId, version) -> msg.putZoneVersions(zoneId.toString(), version));
+
+    if (resume == null || !resume.getCampaignEpoch().equals(epoch)) {
+      return msg.setCampaign(campaign.toDto(zone -> true, zoneDtoCache::get)).build();
+    }
+
+    var unchanged = new HashSet<GUID>();
+    resume
+        .getZoneVersionsMap()
+        .forEach(
+            (id, version) -> {
+              var zoneId = GUID.valueOf(id);
+              if (version != ZoneVersions.UNKNOWN
+                  && version == versions.getOrDefault(zoneId, 0L)
+                  && campaign.getZone(zoneId) != null) {
+                unchanged.add(zoneId);
+              }
+            });
+    log.debug("Resuming campaign with {} unchanged zones", unchanged.size());
+    unchanged.forEach(zoneId -> msg.addUnchangedZoneGuids(zoneId.toString()));
+    return msg.setCampaign(
+            campaign.toDto(zone -> !unchanged.contains(zone.getId()), zoneDtoCache::get))
+        .build();
+  }
+
+  /**
+   * Returns the versions of the zones of the campaign.
+   *
+   * @return the zone versions.
+   */
+  public ZoneVersions getZoneVersions() {
+    return zoneVersions;
+  }
+
+  /**
+   * Returns the cache of the DTOs of the zones of the campaign.
+   *
+   * @return the zone DTO cache.
+   */
+  ZoneDtoCache getZoneDtoCache() {
+    return zoneDtoCache;
   }
 
   public Campaign getCampaign() {
     return campaign;
   }
 
+  /**
+   * Returns the number of messages waiting to be sent to each connected client.
+   *
+   * @return the pending message counts keyed by connection ID.
+   */
+  public Map<String, Integer> getPendingMessageCounts() {
+    return router.getPendingMessageCounts();
+  }
+
   public ServerPolicy getPolicy() {
     return new ServerPolicy(policy);
   }
@@ -424,6 +528,13 @@ public void start() throws IOException {
     assetProducerThread.start();
   }
 
+  /**
+   * Sends a message to one client. Messages to a single client are not versioned, see {@link
+   * ZoneVersions}.
+   *
+   * @param id the id of the client.
+   * @param message the message.
+   */
   public void sendMessage(String id, Message message) {
     log.debug("{} sent to {}: {}", getName(), id, message.getMessageTypeCase());
     router.sendMessage(id, message.toByteArray());
@@ -437,7 +548,7 @@ public void sendMessage(String id, Object channel, Message message) {
 
   public void broadcastMessage(Message message) {
     log.debug("{} broadcast: {}", getName(), message.getMessageTypeCase());
-    router.broadcastMessage(message.toByteArray());
+    router.broadcastMessage(zoneVersions.stamp(message).toByteArray());
   }
 
   public void broadcastMessage(String[] exclude, Message message) {
@@ -446,7 +557,7 @@ public void broadcastMessage(String[] exclude, Message message) {
         getName(),
         message.getMessageTypeCase(),
         String.join(",", exclude));
-    router.broadcastMessage(exclude, message.toByteArray());
+    router.broadcastMessage(exclude, zoneVersions.stamp(message).toByteArray());
   }
 
   private class HeartbeatThread extends Thread {
@@ -16,12 +16,14 @@
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
+import com.google.protobuf.ByteString;
 import java.awt.*;
 import java.awt.geom.Area;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import net.rptools.maptool.server.proto.*;
@@ -33,7 +35,28 @@ public class Mapper {
   /** Instance used for log messages. */
   private static final Logger log = LogManager.getLogger(Mapper.class);
 
+  /** The number of coordinates of each {@link PathIterator} segment type. */
+  private static final int[] COORDINATE_COUNT = {2, 2, 4, 6, 0};
+
+  /** The largest scale tried when looking for an exact integer form of the coordinates. */
+  private static final int MAX_EXACT_SCALE = 1 << 10;
+
+  /** The largest magnitude up to which every integer is exactly representable as a double. */
+  private static final double MAX_EXACT_INTEGER = 1L << 53;
+
+  /**
+   * Maps an {@link AreaDto} to an {@link Area}. Both the packed and the nested form of the path are
+   * read.
+   *
+   * @param areaDto the area to map.
+   * @return the area.
+   * @throws IllegalArgumentException if the packed form of the path is malformed.
+   */
   public static Area map(AreaDto areaDto) {
+    if (areaDto.hasPacked()) {
+      return new Area(unpack(areaDto.getWindingValue(), areaDto.getPacked()));
+    }
+
     final var segments = areaDto.getSegmentsList();
     final var path = new Path2D.Double(areaDto.getWindingValue(), segments.size());
 
@@ -77,51 +100,162 @@ public static Area map(AreaDto areaDto) {
     return new Area(path);
   }
 
+  /**
+   * Maps an {@link Area} to the packed form of {@link AreaDto} without losing precision. If all
+   * coordinates are multiples of a small power of two fraction they are stored as integers,
+   * otherwise they are stored as doubles.
+   *
+   * <p>Only the packed form is written, which versions of MapTool before it was added can't read.
+   * This is safe between a client and server as the handshake requires them to have the same
+   * version.
+   *
+   * @param area the area to map.
+   * @return the area DTO, or {@code null} if the area is {@code null}.
+   */
   public static AreaDto map(Area area) {
-    if (area == null) return null;
+    return map(area, 0);
+  }
 
-    var builder = AreaDto.newBuilder();
+  /**
+   * Maps an {@link Area} to the packed form of {@link AreaDto}, rounding the coordinates to
+   * multiples of {@code 1 / scale}.
+   *
+   * @param area the area to map.
+   * @param scale the number of steps per unit the coordinates are rounded to, or 0 to keep the
+   *     coordinates exact.
+   * @return the area DTO, or {@code null} if the area is {@code null}.
+   */
+  public static AreaDto map(Area area, int scale) {
+    if (area == null) return null;
 
     var it = area.getPathIterator(null);
+    var types = new byte[16];
+    var points = new double[64];
+    int segmentCount = 0;
+    int pointCount = 0;
     double[] coords = new double[6];
-    builder.setWinding(AreaDto.WindingRule.forNumber(it.getWindingRule()));
-
     for (; !it.isDone(); it.next()) {
-      var segmentBuilder = SegmentDto.newBuilder();
-      switch (it.currentSegment(coords)) {
-        case PathIterator.SEG_MOVETO -> {
-          var point0Builder = DoublePointDto.newBuilder().setX(coords[0]).setY(coords[1]);
-          var moveTo = MoveToSegment.newBuilder().setPoint0(point0Builder);
-          segmentBuilder.setMoveTo(moveTo);
-        }
-        case PathIterator.SEG_LINETO -> {
-          var point0Builder = DoublePointDto.newBuilder().setX(coords[0]).setY(coords[1]);
-          var lineTo = LineToSegment.newBuilder().setPoint0(point0Builder);
-          segmentBuilder.setLineTo(lineTo);
-        }
-        case PathIterator.SEG_QUADTO -> {
-          var point0Builder = DoublePointDto.newBuilder().setX(coords[0]).setY(coords[1]);
-          var point1Builder = DoublePointDto.newBuilder().setX(coords[2]).setY(coords[3]);
-          var quadTo = QuadToSegment.newBuilder().setPoint0(point0Builder).setPoint1(point1Builder);
-          segmentBuilder.setQuadTo(quadTo);
+      int type = it.currentSegment(coords);
+      int count = COORDINATE_COUNT[type];
+      if (segmentCount == types.length) {
+        types = Arrays.copyOf(types, types.length * 2);
+      }
+      if (pointCount + count > points.length) {
+        points = Arrays.copyOf(points, points.length * 2);
+      }
+      types[segmentCount++] = (byte) type;
+      System.arraycopy(coords, 0, points, pointCount, count);
+      pointCount += count;
+    }
+
+    if (scale == 0) {
+      scale = exactScale(points, pointCount);
+    }
+    var packed =
+        PackedPathDto.newBuilder()
+            .setSegmentTypes(ByteString.copyFrom(types, 0, segmentCount))
+            .setScale(scale);
+    if (scale == 0) {
+      for (int i = 0; i < pointCount; i++) {
+        packed.addRawCoordinates(points[i]);
+      }
+    } else {
+      long lastX = 0;
+      long lastY = 0;
+      for (int i = 0; i < pointCount; i += 2) {
+        long x = Math.round(points[i] * scale);
+        long y = Math.round(points[i + 1] * scale);
+        packed.addCoordinates(x - lastX).addCoordinates(y - lastY);
+        lastX = x;
+        lastY = y;
+      }
+    }
+
+    return AreaDto.newBuilder()
+        .setWinding(AreaDto.WindingRule.forNumber(it.getWindingRule()))
+        .setPacked(packed)
+        .build();
+  }
+
+  /**
+   * Returns the smallest power of two scale that turns all coordinates into integers, or 0 if there
+   * is none up to {@link #MAX_EXACT_SCALE}.
+   */
+  private static int exactScale(double[] points, int count) {
+    int scale = 1;
+    for (int i = 0; i < count; i++) {
+      while (points[i] * scale != Math.rint(points[i] * scale)) {
+        if (scale == MAX_EXACT_SCALE) {
+          return 0;
         }
-        case PathIterator.SEG_CUBICTO -> {
-          var point0Builder = DoublePointDto.newBuilder().setX(coords[0]).setY(coords[1]);
-          var point1Builder = DoublePointDto.newBuilder().setX(coords[2]).setY(coords[3]);
-          var point2Builder = DoublePointDto.newBuilder().setX(coords[4]).setY(coords[5]);
-          var cubicTo =
-              CubicToSegment.newBuilder()
-                  .setPoint0(point0Builder)
-                  .setPoint1(point1Builder)
-                  .setPoint2(point2Builder);
-          segmentBuilder.setCubicTo(cubicTo);
+        scale *= 2;
+      }
+      if (Math.abs(points[i] * scale) > MAX_EXACT_INTEGER) {
+        return 0;
+      }
+    }
+    return scale;
+  }
+
+  /**
+   * Builds the path of the packed form of an {@link AreaDto}, checking first that the segment types
+   * are valid and that there are exactly as many coordinates as they need.
+   *
+   * @throws IllegalArgumentException if the packed path is malformed.
+   */
+  private static Path2D unpack(int winding, PackedPathDto packed) {
+    var types = packed.getSegmentTypes();
+    int scale = packed.getScale();
+    int coordinateCount = 0;
+    for (int segment = 0; segment < types.size(); segment++) {
+      int type = types.byteAt(segment);
+      if (type < 0 || type >= COORDINATE_COUNT.length) {
+        throw new IllegalArgumentException("Unknown path segment type: " + type);
+      }
+      if (segment == 0 && type != PathIterator.SEG_MOVETO) {
+        throw new IllegalArgumentException("Path does not start with a move");
+      }
+      coordinateCount += COORDINATE_COUNT[type];
+    }
+    if (scale < 0) {
+      throw new IllegalArgumentException("Negative path coordinate scale: " + scale);
+    }
+    int available = scale == 0 ? packed.getRawCoordinatesCount() : packed.getCoordinatesCount();
+    if (available != coordinateCount) {
+      throw new IllegalArgumentException(
+          "Path needs " + coordinateCount + " coordinates but has " + available);
+    }
+
+    var path = new Path2D.Double(winding, types.size());
+    double[] coords = new double[6];
+    int index = 0;
+    long x = 0;
+    long y = 0;
+
+    for (int segment = 0; segment < types.size(); segment++) {
+      int type = types.byteAt(segment);
+      for (int i = 0; i < COORDINATE_COUNT[type]; i += 2, index += 2) {
+        if (scale == 0) {
+          coords[i] = packed.getRawCoordinates(index);
+          coords[i + 1] = packed.getRawCoordinates(index + 1);
+        } else {
+          x += packed.getCoordinates(index);
+          y += packed.getCoordinates(index + 1);
+          coords[i] = (double) x / scale;
+          coords[i + 1] = (double) y / scale;
         }
-        case PathIterator.SEG_CLOSE -> segmentBuilder.setClose(CloseSegment.newBuilder());
       }
-      builder.addSegments(segmentBuilder);
+      switch (type) {
+        case PathIterator.SEG_MOVETO -> path.moveTo(coords[0], coords[1]);
+        case PathIterator.SEG_LINETO -> path.lineTo(coords[0], coords[1]);
+        case PathIterator.SEG_QUADTO -> path.quadTo(coords[0], coords[1], coords[2], coords[3]);
+        case PathIterator.SEG_CUBICTO -> path.curveTo(
+            coords[0], coords[1], coords[2], coords[3], coords[4], coords[5]);
+        case PathIterator.SEG_CLOSE -> path.closePath();
+      }
     }
 
-    return builder.build();
+    return path;
   }
 
   public static Point map(IntPointDto dto) {
@@ -29,8 +29,20 @@
 import net.rptools.maptool.model.gamedata.proto.GameDataValueDto;
 import net.rptools.maptool.model.library.addon.TransferableAddOnLibrary;
 import net.rptools.maptool.model.player.Player;
+import net.rptools.maptool.server.proto.AreaTargetDto;
 
 public interface ServerCommand {
+  /**
+   * Starts collecting the token updates made on the calling thread so that they are sent to the
+   * server as a single message by the matching {@link #endTokenUpdateBatch()}. Batches can be
+   * nested, the updates are sent when the outermost batch ends. Other messages are still sent
+   * straight away, after the token updates collected so far.
+   */
+  void beginTokenUpdateBatch();
+
+  /** Ends a batch started by {@link #beginTokenUpdateBatch()}. */
+  void endTokenUpdateBatch();
+
   void bootPlayer(String player);
 
   void setZoneHasFoW(GUID zoneGUID, boolean hasFog);
@@ -47,6 +59,14 @@ default void addTopology(GUID zoneGUID, Area area, Zone.TopologyTypeSet topology
     }
   }
 
+  /**
+   * Sends an area added to the topology. Only the added area is sent, as a change against the
+   * version of the topology before it, so the area must already have been added to the local zone.
+   *
+   * @param zoneGUID the GUID of the zone.
+   * @param area the added area.
+   * @param topologyType the type of the topology.
+   */
   void addTopology(GUID zoneGUID, Area area, Zone.TopologyType topologyType);
 
   default void removeTopology(GUID zoneGUID, Area area, Zone.TopologyTypeSet topologyTypes) {
@@ -55,8 +75,25 @@ default void removeTopology(GUID zoneGUID, Area area, Zone.TopologyTypeSet topol
     }
   }
 
+  /**
+   * Sends an area removed from the topology. Like {@link #addTopology(GUID, Area,
+   * Zone.TopologyType)} the area must already have been removed from the local zone.
+   *
+   * @param zoneGUID the GUID of the zone.
+   * @param area the removed area.
+   * @param topologyType the type of the topology.
+   */
   void removeTopology(GUID zoneGUID, Area area, Zone.TopologyType topologyType);
 
+  /**
+   * Asks the server for the whole of an area of a zone, after a change to it was received that does
+   * not match the local version of the area.
+   *
+   * @param zoneGUID the GUID of the zone.
+   * @param target the area to fetch.
+   */
+  void requestAreaSync(GUID zoneGUID, AreaTargetDto target);
+
   void enforceZoneView(GUID zoneGUID, int x, int y, double scale, int width, int height);
 
   void restoreZoneView(GUID zoneGUID);
@@ -169,6 +206,17 @@ default void removeTopology(GUID zoneGUID, Area area, Zone.TopologyTypeSet topol
 
   void updateExposedAreaMeta(GUID zoneGUID, GUID tokenExposedAreaGUID, ExposedAreaMetaData meta);
 
+  /**
+   * Sends an area added to the exposed area of a token. Unlike {@link #updateExposedAreaMeta(GUID,
+   * GUID, ExposedAreaMetaData)} only the added area is sent, so the area must already have been
+   * added to the exposed area of the token in the local zone.
+   *
+   * @param zoneGUID the GUID of the zone.
+   * @param tokenExposedAreaGUID the exposed area GUID of the token.
+   * @param area the added area.
+   */
+  void addToExposedAreaMeta(GUID zoneGUID, GUID tokenExposedAreaGUID, Area area);
+
   void clearExposedArea(GUID zoneGUID, boolean globalOnly);
 
   void addAddOnLibrary(List<TransferableAddOnLibrary> addOnLibraries);
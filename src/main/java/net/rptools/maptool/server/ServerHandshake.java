@@ -26,6 +26,7 @@
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
@@ -45,6 +46,7 @@
 import net.rptools.maptool.model.player.PlayerDatabase.AuthMethod;
 import net.rptools.maptool.model.player.ServerSidePlayerDatabase;
 import net.rptools.maptool.server.proto.AuthTypeEnum;
+import net.rptools.maptool.server.proto.CampaignResumeDto;
 import net.rptools.maptool.server.proto.ClientAuthMsg;
 import net.rptools.maptool.server.proto.ClientInitMsg;
 import net.rptools.maptool.server.proto.ConnectionSuccessfulMsg;
@@ -104,6 +106,9 @@ public class ServerHandshake implements Handshake<Player>, MessageHandler {
 
   private final boolean useEasyConnect;
 
+  /** The zone versions of the campaign the client still holds from an earlier connection. */
+  private CampaignResumeDto campaignResume;
+
   /**
    * Creates a new {@code ServerHandshake} instance.
    *
@@ -153,6 +158,15 @@ private synchronized String getEasyConnectName() {
     return easyConnectName;
   }
 
+  /**
+   * Returns the zone versions of the campaign the client still holds from an earlier connection.
+   *
+   * @return the zone versions, or {@code null} if the client holds no campaign.
+   */
+  public synchronized @Nullable CampaignResumeDto getCampaignResume() {
+    return campaignResume;
+  }
+
   /**
    * Sends an error response to the client and notifies any observers of the handshake that the
    * status has changed.
@@ -362,6 +376,11 @@ private void handle(ClientInitMsg clientInitMsg)
     }
 
     playerPublicKeyMD5 = new MD5Key(clientInitMsg.getPublicKeyMd5());
+    if (clientInitMsg.hasResume()) {
+      synchronized (this) {
+        campaignResume = clientInitMsg.getResume();
+      }
+    }
 
     try {
       setPlayer(playerDatabase.getPlayer(clientInitMsg.getPlayerName()));
@@ -24,6 +24,7 @@
 import java.util.stream.Collectors;
 import net.rptools.clientserver.simple.MessageHandler;
 import net.rptools.lib.MD5Key;
+import net.rptools.lib.telemetry.Telemetry;
 import net.rptools.maptool.client.ClientMessageHandler;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.client.ServerCommandClientImpl;
@@ -66,6 +67,7 @@ public ServerMessageHandler(MapToolServer server) {
   @Override
   public void handleMessage(String id, byte[] message) {
     try {
+      var start = System.nanoTime();
       var msg = Message.parseFrom(message);
       var msgType = msg.getMessageTypeCase();
 
@@ -97,8 +99,8 @@ public void handleMessage(String id, byte[] message) {
           sendToClients(id, msg);
         }
         case DRAW_MSG -> {
-          sendToAllClients(msg);
           handle(msg.getDrawMsg());
+          sendToAllClients(msg);
         }
         case EDIT_TOKEN_MSG -> {
           handle(id, msg.getEditTokenMsg());
@@ -125,6 +127,7 @@ public void handleMessage(String id, byte[] message) {
             UPDATE_DATA_NAMESPACE_MSG,
             UPDATE_DATA_MSG,
             REMOVE_DATA_MSG,
+            DATA_UPDATE_BATCH_MSG,
             REMOVE_DATA_NAMESPACE_MSG,
             REMOVE_DATA_STORE_MSG -> sendToClients(id, msg);
         case EXPOSE_FOW_MSG -> {
@@ -221,8 +224,8 @@ public void handleMessage(String id, byte[] message) {
           sendToAllClients(msg);
         }
         case UNDO_DRAW_MSG -> {
-          sendToAllClients(msg);
           handle(msg.getUndoDrawMsg());
+          sendToAllClients(msg);
         }
         case SET_SERVER_POLICY_MSG -> {
           handle(msg.getSetServerPolicyMsg());
@@ -256,10 +259,18 @@ public void handleMessage(String id, byte[] message) {
           handle(id, msg.getUpdatePlayerStatusMsg());
           sendToClients(id, msg);
         }
+        case TOKEN_UPDATE_BATCH_MSG -> {
+          handle(id, msg.getTokenUpdateBatchMsg());
+          sendToClients(id, msg);
+        }
+        case AREA_DELTA_MSG -> handle(id, msg.getAreaDeltaMsg());
+        case REQUEST_AREA_SYNC_MSG -> handle(id, msg.getRequestAreaSyncMsg());
 
         default -> log.warn(msgType + " not handled.");
       }
+      server.getZoneDtoCache().zonesChanged(ZoneVersions.changedZones(msg));
       log.debug("from " + id + " handled: " + msgType);
+      Telemetry.recordMessage(false, msgType.name(), message.length, System.nanoTime() - start);
     } catch (Exception e) {
       MapTool.showError("Unexpected error during message handling", e);
     }
@@ -269,9 +280,54 @@ private void handle(UpdateExposedAreaMetaMsg msg) {
     EventQueue.invokeLater(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
+          var meta = new ExposedAreaMetaData(Mapper.map(msg.getArea()));
+          meta.setVersion(msg.getVersion());
           zone.setExposedAreaMetaData(
               msg.hasTokenGuid() ? GUID.valueOf(msg.getTokenGuid().getValue()) : null,
-              new ExposedAreaMetaData(Mapper.map(msg.getArea()))); // update the server
+              meta); // update the server
+        });
+  }
+
+  private void handle(String id, AreaDeltaMsg msg) {
+    // The delta is passed on from the EDT as the other clients need the version of the area the
+    // server applied it to.
+    EventQueue.invokeLater(
+        () -> {
+          Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
+          if (zone == null) {
+            return;
+          }
+          long version = AreaSync.getVersion(zone, msg.getTarget());
+          boolean inSync = AreaSync.apply(zone, msg);
+          sendToClients(
+              id,
+              Message.newBuilder()
+                  .setAreaDeltaMsg(msg.toBuilder().setBaseVersion(version))
+                  .build());
+          if (!inSync) {
+            // The sender made the change against an outdated area, so it has to be sent the area
+            // as the server now has it.
+            server.sendMessage(
+                id,
+                Message.newBuilder()
+                    .setAreaSyncMsg(AreaSync.createSync(zone, msg.getTarget()))
+                    .build());
+          }
+        });
+  }
+
+  private void handle(String id, RequestAreaSyncMsg msg) {
+    EventQueue.invokeLater(
+        () -> {
+          Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
+          if (zone == null) {
+            return;
+          }
+          server.sendMessage(
+              id,
+              Message.newBuilder()
+                  .setAreaSyncMsg(AreaSync.createSync(zone, msg.getTarget()))
+                  .build());
         });
   }
 
@@ -383,15 +439,50 @@ private void handle(SetZoneVisibilityMsg msg) {
   }
 
   private void handle(UpdateTokenPropertyMsg msg) {
-    EventQueue.invokeLater(
-        () -> {
-          Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
-          Token token = zone.getToken(GUID.valueOf(msg.getTokenGuid()));
-          token.updateProperty(
-              zone,
-              Token.Update.valueOf(msg.getProperty().name()),
-              msg.getValuesList()); // update server version of token
-        });
+    EventQueue.invokeLater(() -> updateTokenProperty(msg));
+  }
+
+  private void updateTokenProperty(UpdateTokenPropertyMsg msg) {
+    Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
+    Token token = zone == null ? null : zone.getToken(GUID.valueOf(msg.getTokenGuid()));
+    if (token == null) {
+      log.warn("Token " + msg.getTokenGuid() + " not found for " + msg.getProperty() + " update.");
+      return;
+    }
+    token.updateProperty(
+        zone,
+        Token.Update.valueOf(msg.getProperty().name()),
+        msg.getValuesList()); // update server version of token
+  }
+
+  private void handle(String clientId, TokenUpdateBatchMsg msg) {
+    // Apply all the updates at once so that nothing else happens in between.
+    EventQueue.invokeLater(() -> applyTokenUpdates(clientId, msg));
+  }
+
+  /**
+   * Applies the updates of a token update batch in order. Updates for a map or token that no longer
+   * exists are skipped, so the rest of the batch is still applied as it is on the clients.
+   *
+   * @param clientId the id of the client that sent the batch.
+   * @param msg the batch.
+   */
+  void applyTokenUpdates(String clientId, TokenUpdateBatchMsg msg) {
+    for (Message update : msg.getMessagesList()) {
+      switch (update.getMessageTypeCase()) {
+        case PUT_TOKEN_MSG -> putToken(
+            clientId,
+            GUID.valueOf(update.getPutTokenMsg().getZoneGuid()),
+            Token.fromDto(update.getPutTokenMsg().getToken()));
+        case EDIT_TOKEN_MSG -> putToken(
+            clientId,
+            GUID.valueOf(update.getEditTokenMsg().getZoneGuid()),
+            Token.fromDto(update.getEditTokenMsg().getToken()));
+        case REMOVE_TOKEN_MSG -> removeToken(update.getRemoveTokenMsg());
+        case UPDATE_TOKEN_PROPERTY_MSG -> updateTokenProperty(update.getUpdateTokenPropertyMsg());
+        default -> log.warn(update.getMessageTypeCase() + " not handled in token batch.");
+      }
+    }
   }
 
   private void handle(UpdateDrawingMsg msg) {
@@ -516,13 +607,18 @@ private void handle(RemoveTokensMsg msg) {
   }
 
   private void handle(RemoveTokenMsg msg) {
-    EventQueue.invokeLater(
-        () -> {
-          var zoneGUID = GUID.valueOf(msg.getZoneGuid());
-          var tokenGUID = GUID.valueOf(msg.getTokenGuid());
-          var zone = server.getCampaign().getZone(zoneGUID);
-          zone.removeToken(tokenGUID); // remove server tokens
-        });
+    EventQueue.invokeLater(() -> removeToken(msg));
+  }
+
+  private void removeToken(RemoveTokenMsg msg) {
+    var zoneGUID = GUID.valueOf(msg.getZoneGuid());
+    var tokenGUID = GUID.valueOf(msg.getTokenGuid());
+    var zone = server.getCampaign().getZone(zoneGUID);
+    if (zone == null) {
+      log.warn("Zone " + zoneGUID + " not found to remove token " + tokenGUID + " from.");
+      return;
+    }
+    zone.removeToken(tokenGUID); // remove server tokens
   }
 
   private void handle(RemoveLabelMsg msg) {
@@ -768,12 +864,16 @@ private void getAsset(String id, MD5Key assetID) {
 
   private void getZone(String id, GUID zoneGUID) {
     var zone = server.getCampaign().getZone(zoneGUID);
-    var msg = PutZoneMsg.newBuilder().setZone(zone.toDto());
+    var msg = PutZoneMsg.newBuilder().setZone(server.getZoneDtoCache().get(zone));
     server.sendMessage(id, Message.newBuilder().setPutZoneMsg(msg).build());
   }
 
   private void putToken(String clientId, GUID zoneGUID, Token token) {
     Zone zone = server.getCampaign().getZone(zoneGUID);
+    if (zone == null) {
+      log.warn("Zone " + zoneGUID + " not found to put token " + token.getId() + " on.");
+      return;
+    }
 
     int zOrder = 0;
     boolean newToken = zone.getToken(token.getId()) == null;
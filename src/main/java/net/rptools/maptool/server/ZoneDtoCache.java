@@ -0,0 +1,132 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import java.awt.EventQueue;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.server.proto.ZoneDto;
+
+/**
+ * Cache of the DTOs of the zones of the server's campaign, so that zones requested by several
+ * clients, or sent to several clients joining at the same time, are only converted once.
+ *
+ * <p>A cached DTO is used as long as the zone has the same version in the {@link ZoneVersions} and
+ * has not been reported as changed through {@link #zonesChanged(Collection)}. The server applies
+ * many changes on the EDT after it has passed the message on, so the changes are reported both when
+ * the message is handled and once the EDT has applied them.
+ */
+class ZoneDtoCache {
+
+  /**
+   * The state of a zone a DTO was created in.
+   *
+   * @param generation the generation of the cache.
+   * @param version the version of the zone.
+   * @param changes the number of changes reported for the zone.
+   */
+  private record Stamp(long generation, long version, long changes) {}
+
+  /**
+   * A cached DTO.
+   *
+   * @param stamp the state of the zone the DTO was created in.
+   * @param dto the DTO.
+   */
+  private record Entry(Stamp stamp, ZoneDto dto) {}
+
+  private final ZoneVersions zoneVersions;
+
+  private final Map<GUID, Entry> entries = new ConcurrentHashMap<>();
+
+  /** The number of changes reported for each zone. */
+  private final Map<GUID, Long> changeCounts = new ConcurrentHashMap<>();
+
+  /** Incremented by {@link #clear()}, so that conversions in progress are not cached. */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Creates a cache for the zones versioned by a {@link ZoneVersions}.
+   *
+   * @param zoneVersions the versions of the zones.
+   */
+  ZoneDtoCache(ZoneVersions zoneVersions) {
+    this.zoneVersions = zoneVersions;
+  }
+
+  /**
+   * Returns the DTO of a zone, converting the zone if it changed since it was last converted.
+   *
+   * @param zone the zone.
+   * @return the DTO.
+   */
+  ZoneDto get(Zone zone) {
+    GUID zoneId = zone.getId();
+    Stamp stamp = getStamp(zoneId);
+    Entry entry = entries.get(zoneId);
+    if (entry != null && entry.stamp().equals(stamp)) {
+      return entry.dto();
+    }
+
+    ZoneDto dto = zone.toDto();
+    // Only keep the DTO if the zone was not changed while it was converted.
+    if (getStamp(zoneId).equals(stamp)) {
+      entries.put(zoneId, new Entry(stamp, dto));
+    }
+    return dto;
+  }
+
+  /**
+   * Returns the current state of a zone.
+   *
+   * @param zoneId the GUID of the zone.
+   * @return the generation of the cache, and the version and change count of the zone.
+   */
+  private Stamp getStamp(GUID zoneId) {
+    return new Stamp(
+        generation.get(), zoneVersions.get(zoneId), changeCounts.getOrDefault(zoneId, 0L));
+  }
+
+  /**
+   * Reports that zones have been, or are about to be, changed by a message. The cached DTOs of the
+   * zones are dropped now and again after the EDT has run the updates queued so far.
+   *
+   * @param zoneIds the GUIDs of the zones.
+   */
+  void zonesChanged(Collection<GUID> zoneIds) {
+    if (zoneIds.isEmpty()) {
+      return;
+    }
+    invalidate(zoneIds);
+    EventQueue.invokeLater(() -> invalidate(zoneIds));
+  }
+
+  private void invalidate(Collection<GUID> zoneIds) {
+    for (GUID zoneId : zoneIds) {
+      changeCounts.merge(zoneId, 1L, Long::sum);
+      entries.remove(zoneId);
+    }
+  }
+
+  /** Drops all cached DTOs, e.g. when the server gets a new campaign. */
+  void clear() {
+    generation.incrementAndGet();
+    entries.clear();
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.server.proto.Message;
+import net.rptools.maptool.server.proto.Message.MessageTypeCase;
+
+/**
+ * Version counters for the zones of a campaign, used to only send the zones that changed to a
+ * client that reconnects.
+ *
+ * <p>The server counts the messages changing a zone as it broadcasts them and stamps each message
+ * with the new versions of the zones it changes. A message is only broadcast once its change has
+ * been applied or queued on the EDT. Messages sent to a single client are not counted. Messages
+ * stamped on different threads can reach a client out of order, so a client only moves to a version
+ * once it has received all the messages up to it. The version it holds for a zone is then never
+ * newer than its copy of the zone. The versions only hold within one campaign epoch, which changes
+ * whenever the server gets a new campaign.
+ */
+public class ZoneVersions {
+
+  /** The version of a zone the client may have changed without the server knowing. */
+  public static final long UNKNOWN = -1;
+
+  /** The most versions of a zone kept while waiting for an earlier version. */
+  private static final int MAX_RECEIVED_AHEAD = 1024;
+
+  /** Messages that name a zone without changing it. */
+  private static final Set<MessageTypeCase> UNVERSIONED_TYPES =
+      EnumSet.of(
+          MessageTypeCase.ENFORCE_ZONE_MSG,
+          MessageTypeCase.ENFORCE_ZONE_VIEW_MSG,
+          MessageTypeCase.GET_ZONE_MSG,
+          MessageTypeCase.REQUEST_AREA_SYNC_MSG,
+          MessageTypeCase.RESTORE_ZONE_VIEW_MSG,
+          MessageTypeCase.START_TOKEN_MOVE_MSG,
+          MessageTypeCase.STOP_TOKEN_MOVE_MSG,
+          MessageTypeCase.TOGGLE_TOKEN_MOVE_WAYPOINT_MSG,
+          MessageTypeCase.UPDATE_TOKEN_MOVE_MSG,
+          MessageTypeCase.UPDATE_PLAYER_STATUS_MSG);
+
+  private final Map<GUID, Long> versions = new ConcurrentHashMap<>();
+
+  /** Versions received ahead of an earlier version that is still missing, keyed by zone GUID. */
+  private final Map<GUID, Set<Long>> receivedAhead = new HashMap<>();
+
+  private volatile String epoch;
+
+  /** Creates the versions for a new campaign epoch. */
+  public ZoneVersions() {
+    this(UUID.randomUUID().toString());
+  }
+
+  /**
+   * Creates the versions for a campaign epoch.
+   *
+   * @param epoch the campaign epoch.
+   */
+  public ZoneVersions(String epoch) {
+    this.epoch = epoch;
+  }
+
+  public String getEpoch() {
+    return epoch;
+  }
+
+  /**
+   * Starts a new epoch with all zones at the given versions.
+   *
+   * @param epoch the new epoch.
+   * @param zoneVersions the versions of the zones, keyed by zone GUID.
+   */
+  public synchronized void reset(String epoch, Map<String, Long> zoneVersions) {
+    this.epoch = epoch;
+    versions.clear();
+    receivedAhead.clear();
+    zoneVersions.forEach((id, version) -> versions.put(GUID.valueOf(id), version));
+  }
+
+  /** Starts a new random epoch with all zones at version 0. */
+  public void reset() {
+    reset(UUID.randomUUID().toString(), Map.of());
+  }
+
+  /**
+   * Returns the version of a zone.
+   *
+   * @param zoneId the GUID of the zone.
+   * @return the version, 0 if the zone has not changed in this epoch.
+   */
+  public long get(GUID zoneId) {
+    return versions.getOrDefault(zoneId, 0L);
+  }
+
+  /**
+   * Returns a copy of the versions of the zones that changed in this epoch.
+   *
+   * @return the versions keyed by zone GUID.
+   */
+  public Map<GUID, Long> snapshot() {
+    return new HashMap<>(versions);
+  }
+
+  /**
+   * Stamps a message about to be broadcast with the next version of each zone it changes. Only the
+   * versions are counted under the lock, the message can be serialized and sent outside it.
+   *
+   * @param message the message about to be broadcast.
+   * @return the stamped message, or the message itself if it changes no zone.
+   */
+  public Message stamp(Message message) {
+    var zones = changedZones(message);
+    if (zones.isEmpty()) {
+      return message;
+    }
+    var builder = message.toBuilder();
+    synchronized (this) {
+      for (var zoneId : zones) {
+        builder.putZoneVersions(zoneId.toString(), versions.merge(zoneId, 1L, Long::sum));
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Records the versions a received message was stamped with. A zone only moves to a version once
+   * all the versions before it have been received. Zones marked as {@link #UNKNOWN} stay unknown.
+   *
+   * @param zoneVersions the versions keyed by zone GUID.
+   */
+  public synchronized void update(Map<String, Long> zoneVersions) {
+    zoneVersions.forEach(
+        (id, version) -> {
+          var zoneId = GUID.valueOf(id);
+          long current = get(zoneId);
+          if (current == UNKNOWN || version <= current) {
+            return;
+          }
+          if (version > current + 1) {
+            var ahead = receivedAhead.computeIfAbsent(zoneId, k -> new HashSet<>());
+            if (ahead.size() == MAX_RECEIVED_AHEAD) {
+              // The missing version is not coming, the zone stays at its current version.
+              ahead.clear();
+            }
+            ahead.add(version);
+            return;
+          }
+          advance(zoneId, version);
+        });
+  }
+
+  /**
+   * Records the version of a zone that was received as a whole.
+   *
+   * @param zoneId the GUID of the zone.
+   * @param version the version of the zone.
+   */
+  public synchronized void set(GUID zoneId, long version) {
+    advance(zoneId, version);
+  }
+
+  /**
+   * Moves a zone to a version, and on past any later versions that were already received.
+   *
+   * @param zoneId the GUID of the zone.
+   * @param version the version of the zone.
+   */
+  private void advance(GUID zoneId, long version) {
+    long reached = version;
+    var ahead = receivedAhead.get(zoneId);
+    if (ahead != null) {
+      while (ahead.remove(reached + 1)) {
+        reached++;
+      }
+      final long last = reached;
+      ahead.removeIf(v -> v <= last);
+      if (ahead.isEmpty()) {
+        receivedAhead.remove(zoneId);
+      }
+    }
+    versions.put(zoneId, reached);
+  }
+
+  /**
+   * Marks the zones as changed locally. They will be sent again on reconnect, as the changes may
+   * not have reached the server.
+   *
+   * @param zoneIds the GUIDs of the zones.
+   */
+  public synchronized void markUnknown(Collection<GUID> zoneIds) {
+    zoneIds.forEach(
+        zoneId -> {
+          versions.put(zoneId, UNKNOWN);
+          receivedAhead.remove(zoneId);
+        });
+  }
+
+  /**
+   * Returns the zones a message changes.
+   *
+   * @param message the message.
+   * @return the GUIDs of the zones.
+   */
+  public static Set<GUID> changedZones(Message message) {
+    var type = message.getMessageTypeCase();
+    return switch (type) {
+      case MESSAGETYPE_NOT_SET -> Set.of();
+      case PUT_ZONE_MSG -> Set.of(GUID.valueOf(message.getPutZoneMsg().getZone().getId()));
+      case UPDATE_INITIATIVE_MSG -> {
+        var zoneId = message.getUpdateInitiativeMsg().getList().getZoneId();
+        yield zoneId.isEmpty() ? Set.of() : Set.of(GUID.valueOf(zoneId));
+      }
+      case TOKEN_UPDATE_BATCH_MSG -> {
+        var zones = new HashSet<GUID>();
+        for (var batched : message.getTokenUpdateBatchMsg().getMessagesList()) {
+          zones.addAll(changedZones(batched));
+        }
+        yield zones;
+      }
+      default -> {
+        if (UNVERSIONED_TYPES.contains(type)) {
+          yield Set.of();
+        }
+        // All other messages changing a zone name it in their zone_guid field.
+        var payloadField = Message.getDescriptor().findFieldByNumber(type.getNumber());
+        var payload = (com.google.protobuf.Message) message.getField(payloadField);
+        var zoneField = payload.getDescriptorForType().findFieldByName("zone_guid");
+        if (zoneField == null) {
+          yield Set.of();
+        }
+        var zoneId = (String) payload.getField(zoneField);
+        yield zoneId.isEmpty() ? Set.of() : Set.of(GUID.valueOf(zoneId));
+      }
+    };
+  }
+}
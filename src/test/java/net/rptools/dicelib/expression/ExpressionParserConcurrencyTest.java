@@ -0,0 +1,130 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.dicelib.expression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import net.rptools.parser.MapVariableResolver;
+import net.rptools.parser.Parser;
+import net.rptools.parser.ParserException;
+import net.rptools.parser.VariableResolver;
+import net.rptools.parser.function.AbstractFunction;
+import org.junit.jupiter.api.Test;
+
+public class ExpressionParserConcurrencyTest {
+
+  private static final int THREADS = 8;
+  private static final int ITERATIONS = 500;
+
+  @Test
+  public void getParser_isThreadConfined() throws Exception {
+    ExpressionParser expressionParser = new ExpressionParser();
+    Parser mainParser = expressionParser.getParser();
+
+    assertSame(mainParser, expressionParser.getParser());
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Parser otherParser = executor.submit(expressionParser::getParser).get();
+      assertNotSame(mainParser, otherParser);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void evaluate_independentThreads() throws Exception {
+    ExpressionParser expressionParser = new ExpressionParser();
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        final int offset = t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  int checked = 0;
+                  for (int i = 0; i < ITERATIONS; i++) {
+                    VariableResolver resolver = new MapVariableResolver();
+                    resolver.setVariable("x", BigDecimal.valueOf(offset));
+                    // Each thread uses its own string literals so a shared string literal
+                    // transformer would mix them up.
+                    Result result =
+                        expressionParser.evaluate(
+                            "if(x == " + offset + ", 'thread" + offset + "', 'wrong') + 4d1",
+                            resolver,
+                            false);
+                    assertEquals("thread" + offset + "4", result.getValue().toString());
+                    assertEquals(4, result.getRolled().size());
+                    checked++;
+                  }
+                  return checked;
+                }));
+      }
+      start.countDown();
+
+      for (Future<Integer> future : futures) {
+        assertEquals(ITERATIONS, future.get(60, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void evaluate_isReentrant() throws Exception {
+    // Functions such as eval() and user defined functions evaluate expressions while an
+    // expression is being evaluated on the same thread.
+    ExpressionParser expressionParser =
+        new ExpressionParser() {
+          @Override
+          protected void configureParser(Parser parser) {
+            super.configureParser(parser);
+            ExpressionParser outer = this;
+            parser.addFunction(
+                new AbstractFunction(1, 1, "inner") {
+                  @Override
+                  public Object childEvaluate(
+                      Parser parser,
+                      VariableResolver resolver,
+                      String functionName,
+                      List<Object> parameters)
+                      throws ParserException {
+                    return outer.evaluate(parameters.get(0).toString(), resolver, false).getValue();
+                  }
+                });
+          }
+        };
+
+    Result result = expressionParser.evaluate("10 + inner('2 * 3d1')");
+
+    assertEquals(new BigDecimal(16), result.getValue());
+    assertEquals(List.of(1, 1, 1), result.getRolled());
+  }
+}
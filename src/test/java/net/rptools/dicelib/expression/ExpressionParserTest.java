@@ -15,6 +15,7 @@
 package net.rptools.dicelib.expression;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -50,6 +51,23 @@ public void testEvaluate() throws ParserException {
     assertEquals(new BigDecimal(140), (BigDecimal) result.getValue());
   }
 
+  @Test
+  public void testReplay() throws ParserException {
+    RunData.setReplayable(true);
+    try {
+      ExpressionParser parser = new ExpressionParser();
+      Result result = parser.evaluate("10d20+1d100", new MapVariableResolver(), false);
+      Result replayed = parser.replay(result, new MapVariableResolver());
+
+      assertFalse(replayed.isDeterministic());
+      assertEquals(result.getValue(), replayed.getValue());
+      assertEquals(result.getRolled(), replayed.getRolled());
+      assertEquals(result.getDetailExpression(), replayed.getDetailExpression());
+    } finally {
+      RunData.setReplayable(false);
+    }
+  }
+
   @Test
   public void testEvaluate_Explode() throws ParserException {
     RunData.setSeed(10423L);
@@ -14,7 +14,10 @@
  */
 package net.rptools.dicelib.expression;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
@@ -56,4 +59,47 @@ public void testParentChild() {
 
     assertEquals(allRolls, parent.getRolled());
   }
+
+  @Test
+  public void testRandomIntsParentChild() {
+    RunData parent = new RunData(null);
+    RunData child = parent.createChildRunData(null);
+
+    int[] parentRolls = parent.randomInts(3, 6);
+    int[] childRolls = child.randomInts(1000, 2, 4);
+
+    for (int value : childRolls) {
+      assertTrue(2 <= value && value <= 4, String.format("Value outside range: %s", value));
+    }
+    assertArrayEquals(childRolls, child.getRolledValues());
+    assertEquals(1003, parent.getRolled().size());
+    assertEquals(parentRolls[2], parent.getRolled().get(2));
+    assertEquals(childRolls[999], parent.getRolled().get(1002));
+  }
+
+  @Test
+  public void testReplay() {
+    assertNull(new RunData(null).getReplaySeed());
+
+    RunData.setReplayable(true);
+    try {
+      RunData runData = new RunData(null);
+      RunData child = runData.createChildRunData(null);
+      runData.randomInts(10, 20);
+      child.randomInt(100);
+      runData.randomInt(5, 8);
+
+      Long seed = runData.getReplaySeed();
+      assertNotNull(seed);
+      assertEquals(seed, child.getReplaySeed());
+
+      RunData replay = new RunData(null, seed.longValue());
+      replay.randomInts(10, 20);
+      replay.createChildRunData(null).randomInt(100);
+      replay.randomInt(5, 8);
+      assertArrayEquals(runData.getRolledValues(), replay.getRolledValues());
+    } finally {
+      RunData.setReplayable(false);
+    }
+  }
 }
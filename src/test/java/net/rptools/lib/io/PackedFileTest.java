@@ -0,0 +1,139 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.lib.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PackedFileTest {
+
+  @TempDir File tmpDir;
+
+  private File file;
+
+  @BeforeEach
+  void setUp() {
+    PackedFile.init(tmpDir);
+    file = new File(tmpDir, "test.cmpgn");
+  }
+
+  private static byte[] data(int length) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) (i % 7);
+    }
+    return data;
+  }
+
+  private static byte[] read(ZipFile zipFile, String path) throws IOException {
+    try (InputStream in = zipFile.getInputStream(zipFile.getEntry(path))) {
+      return in.readAllBytes();
+    }
+  }
+
+  private static byte[] readRaw(ZipFile zipFile, String path) throws IOException {
+    try (InputStream in = zipFile.getRawInputStream(zipFile.getEntry(path))) {
+      return in.readAllBytes();
+    }
+  }
+
+  @Test
+  public void save_storesCompressedMediaAndDeflatesTheRest() throws IOException {
+    try (PackedFile packedFile = new PackedFile(file)) {
+      packedFile.setContent("content");
+      packedFile.setProperty("version", "1.0");
+      packedFile.putFile("assets/image.png", data(1000));
+      packedFile.putFile("assets/notes.txt", data(1000));
+      packedFile.save();
+    }
+
+    try (ZipFile zipFile = ZipFile.builder().setFile(file).get()) {
+      ZipArchiveEntry image = zipFile.getEntry("assets/image.png");
+      assertEquals(ZipEntry.STORED, image.getMethod());
+      assertArrayEquals(data(1000), read(zipFile, "assets/image.png"));
+
+      assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("assets/notes.txt").getMethod());
+      assertArrayEquals(data(1000), read(zipFile, "assets/notes.txt"));
+      assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("content.xml").getMethod());
+    }
+
+    try (PackedFile packedFile = new PackedFile(file)) {
+      assertEquals("content", packedFile.getContent());
+      assertEquals("1.0", packedFile.getProperty("version"));
+    }
+  }
+
+  @Test
+  public void save_copiesUnchangedEntries() throws IOException {
+    try (PackedFile packedFile = new PackedFile(file)) {
+      packedFile.setContent("content");
+      packedFile.putFile("assets/a.txt", data(1000));
+      packedFile.putFile("assets/b.txt", data(500));
+      packedFile.putFile("assets/c.txt", data(10));
+      packedFile.save();
+    }
+    byte[] rawA;
+    try (ZipFile zipFile = ZipFile.builder().setFile(file).get()) {
+      rawA = readRaw(zipFile, "assets/a.txt");
+    }
+
+    try (PackedFile packedFile = new PackedFile(file)) {
+      packedFile.putFile("assets/b.txt", data(20));
+      packedFile.removeFile("assets/c.txt");
+      packedFile.setProperty("campaignVersion", "2");
+      packedFile.save();
+    }
+
+    try (ZipFile zipFile = ZipFile.builder().setFile(file).get()) {
+      assertArrayEquals(rawA, readRaw(zipFile, "assets/a.txt"));
+      assertArrayEquals(data(1000), read(zipFile, "assets/a.txt"));
+      assertArrayEquals(data(20), read(zipFile, "assets/b.txt"));
+      assertNull(zipFile.getEntry("assets/c.txt"));
+    }
+
+    try (PackedFile packedFile = new PackedFile(file)) {
+      assertEquals("content", packedFile.getContent());
+      assertEquals("2", packedFile.getProperty("campaignVersion"));
+      assertFalse(packedFile.hasFile("assets/c.txt"));
+    }
+  }
+
+  @Test
+  public void save_keepsPropertyMap() throws IOException {
+    try (PackedFile packedFile = new PackedFile(file)) {
+      packedFile.setProperty("a", "1");
+      packedFile.setProperty("b", Map.of("c", "2"));
+      packedFile.save();
+    }
+
+    try (PackedFile packedFile = new PackedFile(file)) {
+      assertEquals("1", packedFile.getProperty("a"));
+      assertEquals(Map.of("c", "2"), packedFile.getProperty("b"));
+    }
+  }
+}
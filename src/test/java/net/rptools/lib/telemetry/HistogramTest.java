@@ -0,0 +1,83 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.lib.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class HistogramTest {
+
+  @Test
+  public void snapshot_empty() {
+    assertEquals(new Histogram.Snapshot(0, 0, 0, 0, 0, 0), new Histogram().snapshot());
+  }
+
+  @Test
+  public void snapshot_percentiles() {
+    Histogram histogram = new Histogram();
+    for (int i = 100; i >= 1; i--) {
+      histogram.record(i);
+    }
+
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(100, snapshot.count());
+    assertEquals(5050, snapshot.total());
+    assertEquals(50, snapshot.mean());
+    assertEquals(100, snapshot.max());
+    assertEquals(50, snapshot.p50());
+    assertEquals(90, snapshot.p90());
+    assertEquals(99, snapshot.p99());
+  }
+
+  @Test
+  public void snapshot_percentilesOnlyCoverRecentSamples() {
+    Histogram histogram = new Histogram();
+    histogram.record(1_000_000);
+    for (int i = 0; i < Histogram.WINDOW_SIZE; i++) {
+      histogram.record(10);
+    }
+
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(Histogram.WINDOW_SIZE + 1, snapshot.count());
+    assertEquals(1_000_000, snapshot.max());
+    assertEquals(10, snapshot.p99());
+  }
+
+  @Test
+  public void snapshot_windowSize() {
+    Histogram histogram = new Histogram(4);
+    histogram.record(100);
+    for (int i = 1; i <= 4; i++) {
+      histogram.record(i);
+    }
+
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(5, snapshot.count());
+    assertEquals(100, snapshot.max());
+    assertEquals(2, snapshot.p50());
+    assertEquals(4, snapshot.p99());
+  }
+
+  @Test
+  public void clear_discardsSamples() {
+    Histogram histogram = new Histogram();
+    histogram.record(5);
+    histogram.clear();
+    histogram.record(7);
+
+    assertEquals(new Histogram.Snapshot(1, 7, 7, 7, 7, 7), histogram.snapshot());
+  }
+}
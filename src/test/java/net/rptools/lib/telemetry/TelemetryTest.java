@@ -0,0 +1,123 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.lib.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TelemetryTest {
+
+  @AfterEach
+  public void tearDown() {
+    Telemetry.reset();
+  }
+
+  @Test
+  public void record_addsToHistogram() {
+    Telemetry.record(Telemetry.Category.SECTION, "render", 2_000_000);
+    Telemetry.record(Telemetry.Category.SECTION, "render", 4_000_000);
+
+    Histogram.Snapshot snapshot = Telemetry.getSnapshot(Telemetry.Category.SECTION, "render");
+    assertEquals(2, snapshot.count());
+    assertEquals(3_000_000, snapshot.mean());
+    assertNull(Telemetry.getSnapshot(Telemetry.Category.MACRO, "render"));
+  }
+
+  @Test
+  public void getSummary_listsEachCategory() {
+    Telemetry.record(Telemetry.Category.MACRO, "attack@lib:combat", 1_500_000);
+    Telemetry.recordMessage(true, "PUT_TOKEN_MSG", 2048, 300_000);
+
+    String summary = Telemetry.getSummary();
+    assertTrue(summary.contains("Macro runs"));
+    assertTrue(summary.contains("attack@lib:combat"));
+    assertTrue(summary.contains("Messages sent"));
+    assertTrue(summary.contains("PUT_TOKEN_MSG (2048 bytes total, 2048 mean, 2048 max)"));
+    assertFalse(summary.contains("Asset loads"));
+  }
+
+  @Test
+  public void recordCompression_addsToSummary() {
+    Telemetry.recordCompression(true, 4096, 1024, 200_000);
+    Telemetry.recordCompression(false, 4096, 1024, 100_000);
+
+    assertEquals(1, Telemetry.getSnapshot(Telemetry.Category.COMPRESSION, "compress").count());
+    String summary = Telemetry.getSummary();
+    assertTrue(summary.contains("Message compression"));
+    assertTrue(
+        summary.contains(
+            "compress (4096 bytes total, 4096 mean, 4096 max, 1024 bytes compressed)"));
+    assertTrue(
+        summary.contains(
+            "decompress (4096 bytes total, 4096 mean, 4096 max, 1024 bytes compressed)"));
+  }
+
+  @Test
+  public void reset_discardsSamples() {
+    Telemetry.record(Telemetry.Category.ASSET, "abc", 10);
+    Telemetry.reset();
+
+    assertNull(Telemetry.getSnapshot(Telemetry.Category.ASSET, "abc"));
+  }
+
+  @Test
+  public void start_emitsFlightRecorderEvent(@TempDir Path tempDir) throws Exception {
+    Path file = tempDir.resolve("telemetry.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(MacroEvent.class);
+      recording.enable(MessageEvent.class);
+      recording.start();
+      try (var span = Telemetry.start(Telemetry.Category.MACRO, "roll@lib:dice")) {
+        Thread.sleep(5);
+      }
+      Telemetry.recordMessage(false, "DRAW_MSG", 512, 1000);
+      recording.stop();
+      recording.dump(file);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    RecordedEvent macro =
+        events.stream()
+            .filter(e -> e.getEventType().getName().equals("net.rptools.maptool.Macro"))
+            .findFirst()
+            .orElse(null);
+    assertNotNull(macro);
+    assertEquals("roll@lib:dice", macro.getString("macro"));
+    assertTrue(macro.getDuration().toMillis() >= 5);
+
+    RecordedEvent message =
+        events.stream()
+            .filter(e -> e.getEventType().getName().equals("net.rptools.maptool.NetworkMessage"))
+            .findFirst()
+            .orElse(null);
+    assertNotNull(message);
+    assertEquals("DRAW_MSG", message.getString("type"));
+    assertEquals(512, message.getInt("size"));
+
+    assertEquals(1, Telemetry.getSnapshot(Telemetry.Category.MACRO, "roll@lib:dice").count());
+  }
+}
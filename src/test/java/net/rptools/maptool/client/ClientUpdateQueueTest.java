@@ -0,0 +1,130 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.common.eventbus.Subscribe;
+import java.util.ArrayList;
+import java.util.List;
+import net.rptools.maptool.events.MapToolEventBus;
+import org.junit.jupiter.api.Test;
+
+public class ClientUpdateQueueTest {
+
+  private final List<Runnable> scheduled = new ArrayList<>();
+  private final List<String> applied = new ArrayList<>();
+  private int refreshes;
+
+  private final ClientUpdateQueue queue = new ClientUpdateQueue(scheduled::add, () -> refreshes++);
+
+  private void runScheduled() {
+    List<Runnable> toRun = new ArrayList<>(scheduled);
+    scheduled.clear();
+    toRun.forEach(Runnable::run);
+  }
+
+  @Test
+  public void submit_appliesInOneDrain() {
+    queue.submit(() -> applied.add("a"));
+    queue.submit(() -> applied.add("b"));
+    queue.submit(() -> applied.add("c"));
+
+    assertEquals(1, scheduled.size());
+    runScheduled();
+    assertEquals(List.of("a", "b", "c"), applied);
+  }
+
+  @Test
+  public void submit_replacesUpdateWithSameKey() {
+    queue.submit("pointer", () -> applied.add("move 1"));
+    queue.submit(() -> applied.add("other"));
+    queue.submit("pointer", () -> applied.add("move 2"));
+
+    runScheduled();
+    assertEquals(List.of("other", "move 2"), applied);
+  }
+
+  @Test
+  public void requestRefresh_onceAfterDrain() {
+    for (int i = 0; i < 10; i++) {
+      queue.submit(
+          () -> {
+            applied.add("update");
+            queue.requestRefresh();
+          });
+    }
+
+    runScheduled();
+    assertEquals(10, applied.size());
+    assertEquals(1, refreshes);
+  }
+
+  @Test
+  public void requestRefresh_immediateOutsideDrain() {
+    queue.requestRefresh();
+
+    assertEquals(1, refreshes);
+  }
+
+  @Test
+  public void submit_duringDrainSchedulesAgain() {
+    queue.submit(() -> queue.submit(() -> applied.add("later")));
+
+    runScheduled();
+    assertEquals(List.of(), applied);
+    runScheduled();
+    assertEquals(List.of("later"), applied);
+  }
+
+  /** Stands in for the view caches that are flushed by the events of a token move. */
+  private static class VisionCache {
+    private String vision = "old";
+
+    @Subscribe
+    public void onMove(String event) {
+      vision = "new";
+    }
+  }
+
+  @Test
+  public void submitAfterEvents_seesEventsOfEarlierUpdates() {
+    var cache = new VisionCache();
+    var eventBus = new MapToolEventBus().getMainEventBus();
+    eventBus.register(cache);
+    try {
+      queue.submit(() -> eventBus.post("move"));
+      queue.submit(() -> applied.add("batched " + cache.vision));
+      queue.submitAfterEvents(() -> applied.add("expose " + cache.vision));
+
+      runScheduled();
+      assertEquals(List.of("batched old", "expose new"), applied);
+    } finally {
+      eventBus.unregister(cache);
+    }
+  }
+
+  @Test
+  public void drain_continuesAfterFailedUpdate() {
+    queue.submit(
+        () -> {
+          throw new IllegalStateException("test");
+        });
+    queue.submit(() -> applied.add("after"));
+
+    runScheduled();
+    assertEquals(List.of("after"), applied);
+  }
+}
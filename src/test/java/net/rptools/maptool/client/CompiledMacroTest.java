@@ -0,0 +1,101 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class CompiledMacroTest {
+
+  @Test
+  public void compile_splitsLiteralsAndRolls() {
+    CompiledMacro compiled = CompiledMacro.compile("  a [h, count(2): x = 1] b {x} c  ");
+
+    assertEquals("a [h, count(2): x = 1] b {x} c", compiled.getSource());
+    List<CompiledMacro.Node> nodes = compiled.getNodes();
+    assertEquals(5, nodes.size());
+    assertEquals(new CompiledMacro.Literal("a "), nodes.get(0));
+    assertEquals(new CompiledMacro.Literal(" b "), nodes.get(2));
+    assertEquals(new CompiledMacro.Literal(" c"), nodes.get(4));
+
+    var roll = assertInstanceOf(CompiledMacro.InlineRoll.class, nodes.get(1));
+    assertTrue(roll.bracketed());
+    assertEquals("h, count(2)", roll.options());
+    assertEquals(" x = 1", roll.body());
+    assertEquals(2, roll.optionList().size());
+    assertEquals(OptionInfo.OptionType.HIDDEN, roll.optionList().get(0).getOptionType());
+    assertEquals(OptionInfo.OptionType.COUNT, roll.optionList().get(1).getOptionType());
+
+    var expression = assertInstanceOf(CompiledMacro.InlineRoll.class, nodes.get(3));
+    assertFalse(expression.bracketed());
+    assertEquals("x", expression.body());
+  }
+
+  @Test
+  public void compile_rollWithoutOptions() {
+    var roll =
+        assertInstanceOf(
+            CompiledMacro.InlineRoll.class, CompiledMacro.compile("[1d6]").getNodes().get(0));
+
+    assertEquals("", roll.options());
+    assertEquals("1d6", roll.body());
+    assertTrue(roll.optionList().isEmpty());
+  }
+
+  @Test
+  public void compile_skipsBracketsInStrings() {
+    List<CompiledMacro.Node> nodes = CompiledMacro.compile("[r: \"]:\"]").getNodes();
+
+    assertEquals(1, nodes.size());
+    var roll = assertInstanceOf(CompiledMacro.InlineRoll.class, nodes.get(0));
+    assertEquals("r", roll.options());
+    assertEquals(" \"]:\"", roll.body());
+  }
+
+  @Test
+  public void compile_badOptionIsDeferred() {
+    var roll =
+        assertInstanceOf(
+            CompiledMacro.InlineRoll.class,
+            CompiledMacro.compile("[notAnOption: 1]").getNodes().get(0));
+
+    assertNull(roll.optionList());
+    assertNotNull(roll.optionError());
+  }
+
+  @Test
+  public void compile_isCached() {
+    CompiledMacro first = CompiledMacro.compile("[r: 1 + 1]");
+
+    assertSame(first, CompiledMacro.compile("[r: 1 + 1]"));
+
+    CompiledMacro.clearCache();
+    assertNotSame(first, CompiledMacro.compile("[r: 1 + 1]"));
+  }
+
+  @Test
+  public void compile_emptyMacro() {
+    assertTrue(CompiledMacro.compile("   ").isEmpty());
+  }
+}
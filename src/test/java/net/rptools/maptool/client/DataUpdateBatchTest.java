@@ -0,0 +1,107 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import net.rptools.maptool.model.gamedata.proto.GameDataValueDto;
+import net.rptools.maptool.server.proto.HeartbeatMsg;
+import net.rptools.maptool.server.proto.Message;
+import net.rptools.maptool.server.proto.RemoveDataMsg;
+import net.rptools.maptool.server.proto.UpdateDataMsg;
+import org.junit.jupiter.api.Test;
+
+public class DataUpdateBatchTest {
+
+  private static final String TYPE = "type";
+  private static final String NAMESPACE = "namespace";
+
+  private static Message updateData(String name, long value) {
+    var dataValue = GameDataValueDto.newBuilder().setName(name).setLongValue(value);
+    return Message.newBuilder()
+        .setUpdateDataMsg(
+            UpdateDataMsg.newBuilder().setType(TYPE).setNamespace(NAMESPACE).setValue(dataValue))
+        .build();
+  }
+
+  private static Message removeData(String name) {
+    return Message.newBuilder()
+        .setRemoveDataMsg(
+            RemoveDataMsg.newBuilder().setType(TYPE).setNamespace(NAMESPACE).setName(name))
+        .build();
+  }
+
+  @Test
+  public void add_onlyDataUpdates() {
+    DataUpdateBatch batch = new DataUpdateBatch();
+
+    assertFalse(
+        batch.add(Message.newBuilder().setHeartbeatMsg(HeartbeatMsg.getDefaultInstance()).build()));
+    assertEquals(0, batch.size());
+    assertNull(batch.drain());
+  }
+
+  @Test
+  public void drain_singleUpdateIsSentAsIs() {
+    DataUpdateBatch batch = new DataUpdateBatch();
+    Message update = updateData("a", 1);
+
+    assertTrue(batch.add(update));
+    assertSame(update, batch.drain());
+    assertNull(batch.drain());
+  }
+
+  @Test
+  public void add_keepsLastChangeOfEachProperty() {
+    DataUpdateBatch batch = new DataUpdateBatch();
+
+    batch.add(updateData("a", 1));
+    batch.add(updateData("b", 1));
+    batch.add(updateData("a", 2));
+    batch.add(updateData("c", 1));
+    batch.add(removeData("c"));
+    assertEquals(3, batch.size());
+
+    Message drained = batch.drain();
+    assertTrue(drained.hasDataUpdateBatchMsg());
+    assertEquals(
+        List.of(updateData("b", 1), updateData("a", 2), removeData("c")),
+        drained.getDataUpdateBatchMsg().getMessagesList());
+    assertEquals(0, batch.size());
+  }
+
+  @Test
+  public void add_keysIncludeTypeAndNamespace() {
+    DataUpdateBatch batch = new DataUpdateBatch();
+    var otherNamespace =
+        Message.newBuilder()
+            .setUpdateDataMsg(
+                UpdateDataMsg.newBuilder()
+                    .setType(TYPE)
+                    .setNamespace("other")
+                    .setValue(GameDataValueDto.newBuilder().setName("a").setLongValue(1)))
+            .build();
+
+    batch.add(updateData("a", 1));
+    batch.add(otherNamespace);
+
+    assertEquals(2, batch.size());
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import net.rptools.maptool.server.proto.HeartbeatMsg;
+import net.rptools.maptool.server.proto.Message;
+import net.rptools.maptool.server.proto.PutTokenMsg;
+import net.rptools.maptool.server.proto.RemoveTokenMsg;
+import net.rptools.maptool.server.proto.TokenDto;
+import net.rptools.maptool.server.proto.TokenPropertyValueDto;
+import net.rptools.maptool.server.proto.TokenUpdateDto;
+import net.rptools.maptool.server.proto.UpdateTokenPropertyMsg;
+import org.junit.jupiter.api.Test;
+
+public class TokenUpdateBatchTest {
+
+  private static final String ZONE = "zone";
+
+  private static Message putToken(String tokenId, String name) {
+    var token = TokenDto.newBuilder().setId(tokenId).setName(name);
+    return Message.newBuilder()
+        .setPutTokenMsg(PutTokenMsg.newBuilder().setZoneGuid(ZONE).setToken(token))
+        .build();
+  }
+
+  private static Message removeToken(String tokenId) {
+    return Message.newBuilder()
+        .setRemoveTokenMsg(RemoveTokenMsg.newBuilder().setZoneGuid(ZONE).setTokenGuid(tokenId))
+        .build();
+  }
+
+  private static Message updateToken(String tokenId, TokenUpdateDto update, int value) {
+    return Message.newBuilder()
+        .setUpdateTokenPropertyMsg(
+            UpdateTokenPropertyMsg.newBuilder()
+                .setZoneGuid(ZONE)
+                .setTokenGuid(tokenId)
+                .setProperty(update)
+                .addValues(TokenPropertyValueDto.newBuilder().setIntValue(value)))
+        .build();
+  }
+
+  @Test
+  public void add_onlyTokenUpdates() {
+    TokenUpdateBatch batch = new TokenUpdateBatch();
+
+    assertFalse(
+        batch.add(Message.newBuilder().setHeartbeatMsg(HeartbeatMsg.getDefaultInstance()).build()));
+    assertNull(batch.drain());
+  }
+
+  @Test
+  public void drain_singleMessageIsNotWrapped() {
+    TokenUpdateBatch batch = new TokenUpdateBatch();
+    Message put = putToken("a", "A");
+
+    assertTrue(batch.add(put));
+    assertSame(put, batch.drain());
+    assertNull(batch.drain());
+  }
+
+  @Test
+  public void drain_keepsOrder() {
+    TokenUpdateBatch batch = new TokenUpdateBatch();
+    Message updateA = updateToken("a", TokenUpdateDto.setX, 1);
+    Message updateB = updateToken("b", TokenUpdateDto.setX, 2);
+    Message updateA2 = updateToken("a", TokenUpdateDto.setY, 3);
+
+    batch.add(updateA);
+    batch.add(updateB);
+    batch.add(updateA2);
+
+    assertEquals(
+        List.of(updateA, updateB, updateA2),
+        batch.drain().getTokenUpdateBatchMsg().getMessagesList());
+  }
+
+  @Test
+  public void add_putReplacesEarlierUpdates() {
+    TokenUpdateBatch batch = new TokenUpdateBatch();
+    Message updateB = updateToken("b", TokenUpdateDto.setX, 2);
+    Message putA = putToken("a", "A2");
+
+    batch.add(putToken("a", "A1"));
+    batch.add(updateToken("a", TokenUpdateDto.setX, 1));
+    batch.add(updateB);
+    batch.add(putA);
+
+    assertEquals(List.of(updateB, putA), batch.drain().getTokenUpdateBatchMsg().getMessagesList());
+  }
+
+  @Test
+  public void add_removeReplacesEarlierUpdates() {
+    TokenUpdateBatch batch = new TokenUpdateBatch();
+    Message remove = removeToken("a");
+
+    batch.add(putToken("a", "A"));
+    batch.add(updateToken("a", TokenUpdateDto.setX, 1));
+    batch.add(remove);
+
+    assertSame(remove, batch.drain());
+  }
+
+  @Test
+  public void add_repeatedUpdateIsDropped() {
+    TokenUpdateBatch batch = new TokenUpdateBatch();
+    Message update = updateToken("a", TokenUpdateDto.setX, 1);
+
+    batch.add(update);
+    batch.add(updateToken("a", TokenUpdateDto.setX, 1));
+
+    assertSame(update, batch.drain());
+  }
+
+  @Test
+  public void add_repeatedFlipIsKept() {
+    TokenUpdateBatch batch = new TokenUpdateBatch();
+
+    batch.add(updateToken("a", TokenUpdateDto.flipX, 0));
+    batch.add(updateToken("a", TokenUpdateDto.flipX, 0));
+
+    assertEquals(2, batch.drain().getTokenUpdateBatchMsg().getMessagesCount());
+  }
+
+  @Test
+  public void end_onlyOutermostBatchEnds() {
+    TokenUpdateBatch batch = new TokenUpdateBatch();
+
+    batch.begin();
+    batch.begin();
+    assertFalse(batch.end());
+    assertTrue(batch.end());
+  }
+}
@@ -19,6 +19,7 @@
 import com.google.gson.JsonObject;
 import java.util.Collections;
 import java.util.List;
+import net.rptools.maptool.client.MapToolExpressionParser;
 import net.rptools.maptool.util.SysInfoProvider;
 import net.rptools.parser.ParserException;
 import org.jetbrains.annotations.NotNull;
@@ -72,6 +73,28 @@ public void setSysInfoJsonProvider() throws ParserException {
     assertNull(function.childEvaluate(null, null, "ignored", Collections.singletonList("debug")));
   }
 
+  @Test
+  public void cacheInfo() throws ParserException {
+    getInfoFunction function = getInfoFunction.getInstance();
+    MapToolExpressionParser parser = new MapToolExpressionParser();
+    String expression = "1 + 2 * 3 // cacheInfo";
+
+    JsonObject before =
+        ((JsonObject) function.childEvaluate(null, null, "ignored", List.of("caches")))
+            .getAsJsonObject("expressions");
+    parser.evaluate(expression);
+    parser.evaluate(expression);
+    JsonObject after =
+        ((JsonObject) function.childEvaluate(null, null, "ignored", List.of("caches")))
+            .getAsJsonObject("expressions");
+
+    assertEquals(before.get("hits").getAsLong() + 1, after.get("hits").getAsLong());
+    assertEquals(before.get("misses").getAsLong() + 1, after.get("misses").getAsLong());
+    assertTrue(after.get("size").getAsLong() >= 1);
+    assertTrue(after.get("length").getAsLong() >= expression.length());
+    assertTrue(after.get("length").getAsLong() <= after.get("max length").getAsLong());
+  }
+
   @NotNull
   private SysInfoProvider getDummyProvider() {
     return new SysInfoProvider() {
@@ -112,6 +112,32 @@ void asJsonElement() {
     }
   }
 
+  @Test
+  void asJsonElement_sharesParsedString() {
+    String json = "{\"list\": [1, 2, 3], \"name\": \"value\"}";
+    JsonElement parsed = typeConversion.asJsonElement(json);
+
+    assertSame(parsed, typeConversion.asJsonElement(new String(json)));
+    assertSame(parsed, new JsonMTSTypeConversion().asJsonElement(json));
+
+    JsonMTSTypeConversion.clearCache();
+    JsonElement reparsed = typeConversion.asJsonElement(json);
+    assertNotSame(parsed, reparsed);
+    assertEquals(parsed, reparsed);
+  }
+
+  @Test
+  void asClonedJsonElement_doesNotChangeSharedValue() {
+    String json = "{\"list\": [1, 2, 3]}";
+    JsonElement shared = typeConversion.asJsonElement(json);
+
+    JsonElement copy = typeConversion.asClonedJsonElement(json);
+    copy.getAsJsonObject().getAsJsonArray("list").add(4);
+
+    assertEquals(3, shared.getAsJsonObject().getAsJsonArray("list").size());
+    assertEquals(shared, typeConversion.asJsonElement(json));
+  }
+
   @Test
   void asClonedJsonElement() throws ParserException {
     JsonObject jsonObject = new JsonObject();
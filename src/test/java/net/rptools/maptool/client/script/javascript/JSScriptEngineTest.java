@@ -0,0 +1,76 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.script.javascript;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class JSScriptEngineTest {
+
+  private final JSScriptEngine engine = JSScriptEngine.getJSScriptEngine();
+
+  @Test
+  public void evalAnonymous_returnsResult() {
+    assertEquals(6, engine.evalAnonymous("return 1 + 2 + 3;", false).asInt());
+    assertEquals(0, engine.evalAnonymous("return args.length;", false).asInt());
+  }
+
+  @Test
+  public void evalAnonymous_globalsDoNotLeak() {
+    engine.evalAnonymous("leaked = 1; MTScript = null;", false);
+
+    assertEquals("undefined", engine.evalAnonymous("return typeof leaked;", false).asString());
+    assertEquals("object", engine.evalAnonymous("return typeof MTScript;", false).asString());
+  }
+
+  @Test
+  public void evalAnonymous_builtInsDoNotLeak() {
+    engine.evalAnonymous("Array.prototype.leaked = 1; JSON.stringify = () => 'leaked';", false);
+    engine.evalAnonymous("Object.freeze(Math);", false);
+
+    assertEquals("undefined", engine.evalAnonymous("return typeof [].leaked;", false).asString());
+    assertEquals("[1]", engine.evalAnonymous("return JSON.stringify([1]);", false).asString());
+    assertEquals(
+        "true",
+        engine.evalAnonymous("return String(Object.isExtensible(Math));", false).asString());
+  }
+
+  @Test
+  public void evalAnonymous_intrinsicsDoNotLeak() {
+    engine.evalAnonymous(
+        "Object.getPrototypeOf([].values()).next = () => ({done: true});"
+            + " Object.getPrototypeOf(Int8Array).prototype.leaked = 1;"
+            + " Object.getPrototypeOf(function*() {}).prototype.leaked = 1;",
+        false);
+
+    assertEquals(
+        "[1,2]", engine.evalAnonymous("return JSON.stringify([...[1, 2]]);", false).asString());
+    assertEquals(
+        "undefined",
+        engine.evalAnonymous("return typeof new Int8Array(1).leaked;", false).asString());
+    assertEquals(
+        "undefined",
+        engine.evalAnonymous("return typeof (function*() {})().leaked;", false).asString());
+  }
+
+  @Test
+  public void evalAnonymous_trustedAndUntrustedDoNotShareContexts() {
+    engine.evalAnonymous("Array.prototype.untrustedMarker = 1;", false);
+
+    assertEquals(
+        "undefined", engine.evalAnonymous("return typeof [].untrustedMarker;", true).asString());
+  }
+}
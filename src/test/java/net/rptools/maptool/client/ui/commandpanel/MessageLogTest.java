@@ -0,0 +1,92 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.commandpanel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MessageLogTest {
+
+  @TempDir File directory;
+
+  @Test
+  public void read_returnsAppendedMessages() throws IOException {
+    try (var log = new MessageLog(directory)) {
+      for (int i = 0; i < 3000; i++) {
+        log.append("<div>message " + i + " é</div>");
+      }
+
+      assertEquals(3000, log.size());
+      assertEquals(
+          List.of("<div>message 1500 é</div>", "<div>message 1501 é</div>"), log.read(1500, 1502));
+      assertEquals(List.of(), log.read(10, 10));
+    }
+  }
+
+  @Test
+  public void read_outOfRange() throws IOException {
+    try (var log = new MessageLog(directory)) {
+      log.append("one");
+
+      assertThrows(IndexOutOfBoundsException.class, () -> log.read(0, 2));
+    }
+  }
+
+  @Test
+  public void clear_startsAgain() throws IOException {
+    try (var log = new MessageLog(directory)) {
+      log.append("one");
+      log.append("two");
+      log.clear();
+      assertEquals(0, directory.listFiles().length);
+      log.append("three");
+
+      assertEquals(1, log.size());
+      assertEquals(List.of("three"), log.read(0, 1));
+    }
+  }
+
+  @Test
+  public void append_createsFileForOwnerOnly() throws IOException {
+    assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+    try (var log = new MessageLog(directory)) {
+      log.append("one");
+
+      var file = directory.listFiles()[0].toPath();
+      assertEquals(
+          PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(file));
+    }
+  }
+
+  @Test
+  public void close_deletesFile() throws IOException {
+    var log = new MessageLog(directory);
+    log.append("one");
+    assertEquals(1, directory.listFiles().length);
+
+    log.close();
+    assertEquals(0, directory.listFiles().length);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class AreaUnionTest {
+
+  private static Area square(int x, int y, int size) {
+    return new Area(new Rectangle(x, y, size, size));
+  }
+
+  private static Area union(List<Area> areas) {
+    Area result = new Area();
+    areas.forEach(result::add);
+    return result;
+  }
+
+  private static void assertUnion(List<Area> expected, AreaUnion union) {
+    Area actual = union.getUnion();
+    if (expected.isEmpty()) {
+      assertNull(actual);
+    } else {
+      assertTrue(union(expected).equals(actual));
+    }
+  }
+
+  @Test
+  public void getUnion_isEmptyWithoutAreas() {
+    assertNull(new AreaUnion().getUnion());
+  }
+
+  @Test
+  public void remove_onlyRemovesAddedArea() {
+    AreaUnion union = new AreaUnion();
+    Area area = square(0, 0, 10);
+    union.add(area);
+
+    assertFalse(union.remove(square(0, 0, 10)));
+    assertTrue(union.remove(area));
+    assertFalse(union.remove(area));
+    assertNull(union.getUnion());
+  }
+
+  @Test
+  public void remove_keepsAreaAddedTwice() {
+    AreaUnion union = new AreaUnion();
+    Area area = square(0, 0, 10);
+    union.add(area);
+    union.add(area);
+
+    union.remove(area);
+
+    assertUnion(List.of(area), union);
+  }
+
+  @Test
+  public void getUnion_followsAddsAndRemoves() {
+    Random random = new Random(42);
+    AreaUnion union = new AreaUnion();
+    List<Area> areas = new ArrayList<>();
+
+    for (int i = 0; i < 200; i++) {
+      if (!areas.isEmpty() && random.nextInt(3) == 0) {
+        Area removed = areas.remove(random.nextInt(areas.size()));
+        assertTrue(union.remove(removed));
+      } else {
+        Area added = square(random.nextInt(100), random.nextInt(100), 5 + random.nextInt(20));
+        areas.add(added);
+        union.add(added);
+      }
+      if (i % 10 == 0) {
+        assertUnion(areas, union);
+      }
+    }
+    assertUnion(areas, union);
+
+    for (Area area : List.copyOf(areas)) {
+      areas.remove(area);
+      union.remove(area);
+    }
+    assertUnion(areas, union);
+  }
+}
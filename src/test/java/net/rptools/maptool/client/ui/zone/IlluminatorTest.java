@@ -0,0 +1,83 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import org.junit.jupiter.api.Test;
+
+public class IlluminatorTest {
+
+  private static Area square(int x, int y, int size) {
+    return new Area(new Rectangle(x, y, size, size));
+  }
+
+  @Test
+  public void getIllumination_unionsLightsOfEachLevel() {
+    Illuminator illuminator = new Illuminator();
+    illuminator.add(new Illuminator.LitArea(10, square(0, 0, 10)));
+    illuminator.add(new Illuminator.LitArea(10, square(5, 0, 10)));
+    illuminator.add(new Illuminator.LitArea(-20, square(100, 100, 10)));
+
+    Illumination illumination = illuminator.getIllumination();
+
+    assertTrue(new Area(new Rectangle(0, 0, 15, 10)).equals(illumination.getLitArea()));
+    assertTrue(square(100, 100, 10).equals(illumination.getDarkenedArea()));
+  }
+
+  @Test
+  public void remove_onlyTakesAwayThatLight() {
+    Illuminator illuminator = new Illuminator();
+    Illuminator.LitArea moving = new Illuminator.LitArea(10, square(0, 0, 10));
+    illuminator.add(moving);
+    illuminator.add(new Illuminator.LitArea(10, square(50, 0, 10)));
+    illuminator.getIllumination();
+
+    illuminator.remove(moving);
+    illuminator.add(new Illuminator.LitArea(10, square(20, 0, 10)));
+    Area litArea = illuminator.getIllumination().getLitArea();
+
+    Area expected = square(20, 0, 10);
+    expected.add(square(50, 0, 10));
+    assertTrue(expected.equals(litArea));
+  }
+
+  @Test
+  public void remove_keepsEmptyLumensLevel() {
+    Illuminator illuminator = new Illuminator();
+    Illuminator.LitArea litArea = new Illuminator.LitArea(-5, square(0, 0, 10));
+    illuminator.add(litArea);
+
+    illuminator.remove(litArea);
+
+    var level = illuminator.getIllumination().getObscuredLumensLevel(5).orElseThrow();
+    assertTrue(level.darknessArea().isEmpty());
+    assertEquals(5, level.lumensStrength());
+  }
+
+  @Test
+  public void getIllumination_strongerDarknessObscuresLight() {
+    Illuminator illuminator = new Illuminator();
+    illuminator.add(new Illuminator.LitArea(10, square(0, 0, 20)));
+    illuminator.add(new Illuminator.LitArea(-30, square(10, 0, 20)));
+
+    Area litArea = illuminator.getIllumination().getLitArea();
+
+    assertTrue(new Area(new Rectangle(0, 0, 10, 20)).equals(litArea));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import java.util.Set;
+import net.rptools.maptool.client.ui.zone.IlluminationModel.ContributedLight;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.LightSource;
+import org.junit.jupiter.api.Test;
+
+public class LitAreaCacheTest {
+
+  private final LitAreaCache cache = new LitAreaCache();
+  private final LightSource lightSource = LightSource.createPersonal(false, false, List.of());
+
+  private static LitAreaCache.Placement placement(int x, int y) {
+    return new LitAreaCache.Placement(
+        new Point(x, y), new Rectangle(x - 25, y - 25, 50, 50), 0, null, 50);
+  }
+
+  private static List<ContributedLight> litAreas(int x, int y) {
+    return List.of(
+        new ContributedLight(
+            new Illuminator.LitArea(100, new Area(new Rectangle(x - 100, y - 100, 200, 200))),
+            null));
+  }
+
+  private LitAreaCache.Key put(int x, int y) {
+    var key = new LitAreaCache.Key(new GUID(), null, 1.0);
+    cache.put(
+        key,
+        lightSource,
+        placement(x, y),
+        new Rectangle2D.Double(x - 100, y - 100, 200, 200),
+        litAreas(x, y));
+    return key;
+  }
+
+  @Test
+  public void get_checksLightAndPlacement() {
+    var key = put(0, 0);
+
+    assertEquals(1, cache.get(key, lightSource, placement(0, 0)).size());
+    assertNull(cache.get(key, lightSource, placement(10, 0)));
+    assertNull(
+        cache.get(key, LightSource.createPersonal(false, false, List.of()), placement(0, 0)));
+  }
+
+  @Test
+  public void invalidate_onlyRemovesLightsInReach() {
+    var near = put(0, 0);
+    var far = put(1000, 1000);
+
+    var affected = cache.invalidate(new Rectangle2D.Double(50, 50, 10, 10));
+
+    assertEquals(Set.of(near.tokenId()), affected);
+    assertNull(cache.get(near, lightSource, placement(0, 0)));
+    assertEquals(1, cache.get(far, lightSource, placement(1000, 1000)).size());
+  }
+
+  @Test
+  public void invalidate_keepsLightsIgnoringTopology() {
+    var key = new LitAreaCache.Key(new GUID(), null, 1.0);
+    var litAreas = litAreas(0, 0);
+    cache.put(key, lightSource, placement(0, 0), null, litAreas);
+
+    assertEquals(Set.of(), cache.invalidate(new Rectangle2D.Double(-10, -10, 20, 20)));
+    assertSame(litAreas.get(0), cache.get(key, lightSource, placement(0, 0)).get(0));
+  }
+
+  @Test
+  public void removeToken() {
+    var key = put(0, 0);
+
+    cache.removeToken(key.tokenId());
+
+    assertNull(cache.get(key, lightSource, placement(0, 0)));
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.Zone.Layer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FramePreparerTest {
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private final AtomicReference<List<Token>> tokens = new AtomicReference<>(List.of());
+  private final BlockingQueue<FramePreparer.PreparedFrame> prepared = new LinkedBlockingQueue<>();
+  private FramePreparer preparer;
+
+  @BeforeEach
+  public void setUp() {
+    Zone zone = mock(Zone.class);
+    when(zone.getAllTokens()).thenAnswer(i -> tokens.get());
+    when(zone.getFigureZOrderComparator()).thenReturn((t1, t2) -> 0);
+    preparer = new FramePreparer(zone, prepared::add);
+  }
+
+  private static Token token(Layer layer, boolean flippedX) {
+    Token token = mock(Token.class);
+    when(token.getLayer()).thenReturn(layer);
+    when(token.isFlippedX()).thenReturn(flippedX);
+    return token;
+  }
+
+  private static <T> T onEdt(Callable<T> callable) throws Exception {
+    FutureTask<T> task = new FutureTask<>(callable);
+    EventQueue.invokeLater(task);
+    return task.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  private FramePreparer.PreparedFrame nextPrepared() throws InterruptedException {
+    FramePreparer.PreparedFrame frame = prepared.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    assertNotNull(frame, "No frame was prepared");
+    return frame;
+  }
+
+  @Test
+  public void getFrame_computesFrameInlineUntilPrepared() throws Exception {
+    Token token = token(Layer.TOKEN, false);
+    tokens.set(List.of(token));
+
+    var inline = onEdt(() -> preparer.getFrame(t -> false, t -> null));
+    assertEquals(List.of(token), inline.getTokensOnLayer(Layer.TOKEN));
+    assertEquals(List.of(), inline.getTokensOnLayer(Layer.OBJECT));
+
+    var frame = nextPrepared();
+    assertEquals(List.of(token), frame.getTokensOnLayer(Layer.TOKEN));
+    assertSame(frame, onEdt(() -> preparer.getFrame(t -> false, t -> null)));
+  }
+
+  @Test
+  public void getFrame_dropsFrameOfOldVersionAfterInvalidate() throws Exception {
+    Token oldToken = token(Layer.TOKEN, true);
+    Token newToken = token(Layer.TOKEN, false);
+    tokens.set(List.of(oldToken));
+    var release = new CountDownLatch(1);
+    Function<Token, BufferedImage> blockingImage =
+        t -> {
+          try {
+            release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        };
+
+    onEdt(() -> preparer.getFrame(Token::isFlippedX, blockingImage));
+    var inline =
+        onEdt(
+            () -> {
+              tokens.set(List.of(newToken));
+              preparer.invalidate();
+              return preparer.getFrame(Token::isFlippedX, blockingImage);
+            });
+    assertEquals(List.of(newToken), inline.getTokensOnLayer(Layer.TOKEN));
+    release.countDown();
+
+    var frame = nextPrepared();
+    assertEquals(List.of(newToken), frame.getTokensOnLayer(Layer.TOKEN));
+    assertTrue(frame.flippedImages().isEmpty());
+    assertNull(prepared.poll(500, TimeUnit.MILLISECONDS), "The stale frame was used");
+    assertSame(frame, onEdt(() -> preparer.getFrame(Token::isFlippedX, blockingImage)));
+  }
+
+  @Test
+  public void getFrame_preparesFlippedImagesInBackground() throws Exception {
+    Token token = token(Layer.TOKEN, true);
+    tokens.set(List.of(token));
+    var image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_ARGB);
+    image.setRGB(0, 0, Color.RED.getRGB());
+    image.setRGB(1, 0, Color.BLUE.getRGB());
+    var loadedOnEdt = new AtomicBoolean();
+
+    var inline =
+        onEdt(
+            () ->
+                preparer.getFrame(
+                    Token::isFlippedX,
+                    t -> {
+                      loadedOnEdt.compareAndSet(false, EventQueue.isDispatchThread());
+                      return image;
+                    }));
+    assertTrue(inline.flippedImages().isEmpty());
+
+    var frame = nextPrepared();
+    BufferedImage flipped = frame.flippedImages().get(token);
+    assertNotNull(flipped);
+    assertEquals(Color.BLUE.getRGB(), flipped.getRGB(0, 0));
+    assertEquals(Color.RED.getRGB(), flipped.getRGB(1, 0));
+    assertTrue(frame.isoImages().isEmpty());
+    assertFalse(loadedOnEdt.get(), "The token image was loaded on the EDT");
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+public class LayerCacheTest {
+
+  private static LayerCache.Key key(int offsetX, List<?> state) {
+    return new LayerCache.Key(offsetX, 0, 1.0, 20, 10, state);
+  }
+
+  private static BufferedImage render(
+      LayerCache cache, LayerCache.Key key, Consumer<Graphics2D> p) {
+    BufferedImage screen =
+        new BufferedImage(key.width(), key.height(), BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = screen.createGraphics();
+    cache.render(g, key, p);
+    g.dispose();
+    return screen;
+  }
+
+  @Test
+  public void render_reusesLayersForSameKey() {
+    LayerCache cache = new LayerCache();
+    AtomicInteger painted = new AtomicInteger();
+    Consumer<Graphics2D> painter =
+        g -> {
+          painted.incrementAndGet();
+          g.setColor(Color.RED);
+          g.fillRect(0, 0, 5, 5);
+        };
+
+    render(cache, key(0, List.of(true)), painter);
+    BufferedImage screen = render(cache, key(0, List.of(true)), painter);
+
+    assertEquals(1, painted.get());
+    assertEquals(Color.RED.getRGB(), screen.getRGB(2, 2));
+    assertEquals(0, screen.getRGB(10, 2));
+  }
+
+  @Test
+  public void render_repaintsWhenKeyChanges() {
+    LayerCache cache = new LayerCache();
+    AtomicInteger painted = new AtomicInteger();
+    Consumer<Graphics2D> painter = g -> painted.incrementAndGet();
+
+    render(cache, key(0, List.of(true)), painter);
+    render(cache, key(1, List.of(true)), painter);
+    render(cache, key(1, List.of(false)), painter);
+
+    assertEquals(3, painted.get());
+  }
+
+  @Test
+  public void render_repaintsAfterInvalidate() {
+    LayerCache cache = new LayerCache();
+    AtomicInteger painted = new AtomicInteger();
+
+    render(cache, key(0, List.of()), g -> painted.incrementAndGet());
+    cache.invalidate();
+    BufferedImage screen =
+        render(
+            cache,
+            key(0, List.of()),
+            g -> {
+              painted.incrementAndGet();
+              g.setColor(Color.BLUE);
+              g.fillRect(0, 0, 20, 10);
+            });
+
+    assertEquals(2, painted.get());
+    assertEquals(Color.BLUE.getRGB(), screen.getRGB(15, 5));
+  }
+
+  @Test
+  public void render_clearsPreviousLayers() {
+    LayerCache cache = new LayerCache();
+
+    render(
+        cache,
+        key(0, List.of()),
+        g -> {
+          g.setColor(Color.RED);
+          g.fillRect(0, 0, 20, 10);
+        });
+    BufferedImage screen = render(cache, key(1, List.of()), g -> {});
+
+    assertEquals(0, screen.getRGB(5, 5));
+  }
+}
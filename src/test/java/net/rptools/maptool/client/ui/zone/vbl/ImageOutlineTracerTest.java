@@ -0,0 +1,110 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone.vbl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import org.junit.jupiter.api.Test;
+
+public class ImageOutlineTracerTest {
+
+  private static final IntPredicate OPAQUE = argb -> (argb >>> 24) != 0;
+
+  private static BufferedImage image(String... rows) {
+    var image = new BufferedImage(rows[0].length(), rows.length, BufferedImage.TYPE_INT_ARGB);
+    for (int y = 0; y < rows.length; y++) {
+      for (int x = 0; x < rows[y].length(); x++) {
+        image.setRGB(x, y, rows[y].charAt(x) == '#' ? 0xFF000000 : 0);
+      }
+    }
+    return image;
+  }
+
+  /** The union of the opaque pixels, one square at a time. */
+  private static Area pixelUnion(BufferedImage image) {
+    var area = new Area();
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        if (OPAQUE.test(image.getRGB(x, y))) {
+          area.add(new Area(new Rectangle(x, y, 1, 1)));
+        }
+      }
+    }
+    return area;
+  }
+
+  private static void assertSameArea(Area expected, Area actual) {
+    var difference = new Area(expected);
+    difference.exclusiveOr(actual);
+    assertTrue(difference.isEmpty(), "areas differ by " + difference.getBounds());
+  }
+
+  @Test
+  public void trace_keepsHoles() {
+    var image = image("#####", "#...#", "#.#.#", "#...#", "#####");
+
+    var area = ImageOutlineTracer.trace(image, OPAQUE);
+
+    assertSameArea(pixelUnion(image), area);
+    assertTrue(area.contains(2.5, 2.5));
+    assertTrue(!area.contains(1.5, 1.5));
+  }
+
+  @Test
+  public void trace_diagonalPixels() {
+    var image = image("#..#", ".##.", ".##.", "#..#");
+
+    assertSameArea(pixelUnion(image), ImageOutlineTracer.trace(image, OPAQUE));
+  }
+
+  @Test
+  public void trace_emptyImage() {
+    assertTrue(ImageOutlineTracer.trace(image("...", "..."), OPAQUE).isEmpty());
+  }
+
+  @Test
+  public void trace_mergesStripes() {
+    // Taller than one stripe, so the result is the union of several traced stripes.
+    var image = new BufferedImage(7, 300, BufferedImage.TYPE_INT_ARGB);
+    for (int y = 0; y < image.getHeight(); y++) {
+      image.setRGB(3, y, 0xFF000000);
+    }
+
+    var area = ImageOutlineTracer.trace(image, OPAQUE);
+
+    assertEquals(new Rectangle(3, 0, 1, 300), area.getBounds());
+    assertTrue(area.isSingular());
+    assertSameArea(new Area(new Rectangle(3, 0, 1, 300)), area);
+  }
+
+  @Test
+  public void trace_matchesPixelUnion() {
+    var random = new Random(42);
+    var image = new BufferedImage(40, 150, BufferedImage.TYPE_INT_ARGB);
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        image.setRGB(x, y, random.nextInt(3) == 0 ? 0 : 0xFF102030);
+      }
+    }
+
+    assertSameArea(pixelUnion(image), ImageOutlineTracer.trace(image, OPAQUE));
+  }
+}
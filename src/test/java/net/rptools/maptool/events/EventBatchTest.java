@@ -0,0 +1,151 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.eventbus.Subscribe;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.zones.FogChanged;
+import net.rptools.maptool.model.zones.TokensAdded;
+import net.rptools.maptool.model.zones.TokensChanged;
+import net.rptools.maptool.model.zones.TokensRemoved;
+import net.rptools.maptool.model.zones.TopologyChanged;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class EventBatchTest {
+
+  private Zone zone;
+  private Zone otherZone;
+  private Token token1;
+  private Token token2;
+
+  @BeforeEach
+  void setUp() {
+    zone = new Zone();
+    otherZone = new Zone();
+    token1 = new Token();
+    token2 = new Token();
+  }
+
+  @Test
+  public void add_mergesConsecutiveTokenEvents() {
+    EventBatch batch = new EventBatch();
+
+    batch.add(new TokensChanged(zone, List.of(token1)));
+    batch.add(new FogChanged(zone));
+    batch.add(new TokensChanged(zone, List.of(token2)));
+    batch.add(new TokensChanged(zone, List.of(token1)));
+    batch.add(new TokensChanged(otherZone, List.of(token1)));
+
+    assertEquals(
+        List.of(
+            new TokensChanged(zone, List.of(token1, token2)),
+            new FogChanged(zone),
+            new TokensChanged(otherZone, List.of(token1))),
+        batch.drain());
+  }
+
+  @Test
+  public void add_keepsOrderOfDifferentTokenEvents() {
+    EventBatch batch = new EventBatch();
+
+    batch.add(new TokensAdded(zone, List.of(token1)));
+    batch.add(new TokensAdded(zone, List.of(token2)));
+    batch.add(new TokensRemoved(zone, List.of(token1)));
+    batch.add(new TokensAdded(zone, List.of(token1)));
+
+    assertEquals(
+        List.of(
+            new TokensAdded(zone, List.of(token1, token2)),
+            new TokensRemoved(zone, List.of(token1)),
+            new TokensAdded(zone, List.of(token1))),
+        batch.drain());
+  }
+
+  @Test
+  public void add_mergesTopologyBounds() {
+    EventBatch batch = new EventBatch();
+
+    batch.add(new TopologyChanged(zone, new Rectangle2D.Double(0, 0, 10, 10)));
+    batch.add(new TopologyChanged(zone, new Rectangle2D.Double(20, 20, 10, 10)));
+    assertEquals(
+        List.of(new TopologyChanged(zone, new Rectangle2D.Double(0, 0, 30, 30))), batch.drain());
+
+    batch.add(new TopologyChanged(zone, new Rectangle2D.Double(0, 0, 10, 10)));
+    batch.add(new TopologyChanged(zone));
+    var events = batch.drain();
+    assertEquals(1, events.size());
+    assertNull(((TopologyChanged) events.get(0)).bounds());
+  }
+
+  @Test
+  public void add_dropsRepeatedEvents() {
+    EventBatch batch = new EventBatch();
+
+    batch.add(new FogChanged(zone));
+    batch.add(new FogChanged(zone));
+    batch.add(new FogChanged(otherZone));
+
+    assertEquals(List.of(new FogChanged(zone), new FogChanged(otherZone)), batch.drain());
+    assertTrue(batch.drain().isEmpty());
+  }
+
+  @Test
+  public void nestedBatchesEndOnce() {
+    EventBatch batch = new EventBatch();
+
+    batch.begin();
+    batch.begin();
+    assertFalse(batch.end());
+    assertTrue(batch.end());
+  }
+
+  @Test
+  public void mapToolEventBus_postsBatchWhenItEnds() {
+    var eventBus = new MapToolEventBus();
+    List<TokensChanged> received = new ArrayList<>();
+    Object subscriber =
+        new Object() {
+          @Subscribe
+          public void onTokensChanged(TokensChanged event) {
+            received.add(event);
+          }
+        };
+    eventBus.getMainEventBus().register(subscriber);
+    try {
+      eventBus.beginBatch();
+      eventBus.getMainEventBus().post(new TokensChanged(zone, List.of(token1)));
+      eventBus.getMainEventBus().post(new TokensChanged(zone, List.of(token2)));
+      assertTrue(received.isEmpty());
+      eventBus.endBatch();
+
+      assertEquals(List.of(new TokensChanged(zone, List.of(token1, token2))), received);
+
+      eventBus.getMainEventBus().post(new TokensChanged(zone, List.of(token1)));
+      assertEquals(2, received.size());
+    } finally {
+      eventBus.getMainEventBus().unregister(subscriber);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TokenIndexTest {
+
+  private Zone zone;
+  private Token near;
+  private Token far;
+
+  @BeforeEach
+  public void setUp() {
+    zone = new Zone();
+    near = createToken(0, 0);
+    far = createToken(5000, 5000);
+  }
+
+  private Token createToken(int x, int y) {
+    Token token = new Token();
+    token.setX(x);
+    token.setY(y);
+    token.setLayer(Zone.Layer.TOKEN);
+    zone.putToken(token);
+    return token;
+  }
+
+  @Test
+  public void getTokensOnLayer_followsChanges() {
+    TokenIndex index = zone.getTokenIndex();
+    assertEquals(Set.of(near, far), index.getTokensOnLayer(Zone.Layer.TOKEN));
+
+    far.setLayer(Zone.Layer.GM);
+    zone.putToken(far);
+
+    assertEquals(Set.of(near), index.getTokensOnLayer(Zone.Layer.TOKEN));
+    assertEquals(Set.of(far), index.getTokensOnLayer(Zone.Layer.GM));
+  }
+
+  @Test
+  public void getTokensOfType() {
+    near.setType(Token.Type.PC);
+    far.setType(Token.Type.NPC);
+    zone.putToken(near);
+    zone.putToken(far);
+
+    assertEquals(Set.of(near), zone.getTokenIndex().getTokensOfType(Token.Type.PC));
+  }
+
+  @Test
+  public void getTokensWithState_onlySetStates() {
+    near.setState("Dead", true);
+    far.setState("Dead", BigDecimal.ZERO);
+    zone.putToken(near);
+    zone.putToken(far);
+    TokenIndex index = zone.getTokenIndex();
+
+    assertEquals(Set.of(near), index.getTokensWithState("Dead"));
+
+    near.setState("Dead", false);
+    zone.tokenChanged(near);
+    assertTrue(index.getTokensWithState("Dead").isEmpty());
+  }
+
+  @Test
+  public void getTokensOwnedBy_includesOwnedByAll() {
+    near.addOwner("alice");
+    far.setOwnedByAll(true);
+    zone.putToken(near);
+    zone.putToken(far);
+    TokenIndex index = zone.getTokenIndex();
+
+    assertEquals(Set.of(near, far), index.getTokensOwnedBy(List.of("alice")));
+    assertEquals(Set.of(far), index.getTokensOwnedBy(List.of("bob")));
+  }
+
+  @Test
+  public void getTokensNear_followsMoves() {
+    TokenIndex index = zone.getTokenIndex();
+    assertTrue(index.getTokensNear(near, 100).contains(near));
+    assertFalse(index.getTokensNear(near, 100).contains(far));
+    assertTrue(index.getTokensIn(new Rectangle(4900, 4900, 200, 200)).contains(far));
+
+    far.setX(50);
+    far.setY(50);
+    zone.putToken(far);
+
+    assertTrue(index.getTokensNear(near, 100).contains(far));
+    assertFalse(index.getTokensIn(new Rectangle(4900, 4900, 200, 200)).contains(far));
+  }
+
+  @Test
+  public void removeToken() {
+    TokenIndex index = zone.getTokenIndex();
+    zone.removeToken(far.getId());
+
+    assertEquals(Set.of(near), index.getTokensOnLayer(Zone.Layer.TOKEN));
+    assertFalse(index.getTokensIn(new Rectangle(4900, 4900, 200, 200)).contains(far));
+  }
+}
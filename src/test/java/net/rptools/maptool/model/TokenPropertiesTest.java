@@ -119,6 +119,18 @@ public void testJsonArray() {
     assertTrue(elem.isJsonArray());
   }
 
+  @Test
+  public void testJsonParsedOnceUntilSet() {
+    testToken.setProperty("jsonObj1", "{\"sampleKey\": 5}");
+    Object first = testToken.getEvaluatedProperty(variableResolver, "jsonObj1");
+    assertSame(first, testToken.getEvaluatedProperty(variableResolver, "JSONOBJ1"));
+
+    testToken.setProperty("jsonObj1", "{\"sampleKey\": 6}");
+    JsonObject changed = (JsonObject) testToken.getEvaluatedProperty(variableResolver, "jsonObj1");
+    assertNotSame(first, changed);
+    assertEquals(6, changed.get("sampleKey").getAsInt());
+  }
+
   @Test
   public void testPlainStr() {
     Object val = testToken.getEvaluatedProperty(variableResolver, "plainStr1");
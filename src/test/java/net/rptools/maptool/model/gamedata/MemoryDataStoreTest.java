@@ -18,6 +18,7 @@
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import java.io.File;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -26,6 +27,7 @@
 import net.rptools.maptool.model.gamedata.data.DataValueFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class MemoryDataStoreTest {
 
@@ -1123,4 +1125,58 @@ void emptyValueCanBeUpdated() throws ExecutionException, InterruptedException {
         "1",
         mdsWithUndefined.getProperty(PROPERTY_TYPE, NAMESPACE, PROPERTY_NAME).get().asString());
   }
+
+  @Test
+  void operationsCompleteOnCallingThread() {
+    assertTrue(mds1.setLongProperty("testType", "testNamespace", "long", 1).isDone());
+    assertTrue(mds1.getProperty("testType", "testNamespace", "long").isDone());
+
+    var failed = mds1.setLongProperty("testType", "invalid", "long", 1);
+    assertTrue(failed.isCompletedExceptionally());
+    var e = assertThrows(ExecutionException.class, failed::get);
+    assertInstanceOf(InvalidDataOperation.class, e.getCause());
+  }
+
+  @Test
+  void largeValuesAreStoredInFile(@TempDir File tempDir) throws Exception {
+    try (var valueFile = new DataValueFile(tempDir)) {
+      var mds = new MemoryDataStore(valueFile);
+      mds.createNamespace("testType", "testNamespace").get();
+
+      String longString = "x".repeat(DataValueFile.MIN_STORED_LENGTH);
+      var jsonArray = new JsonArray();
+      for (int i = 0; i < DataValueFile.MIN_STORED_ELEMENTS; i++) {
+        jsonArray.add(i);
+      }
+      mds.setStringProperty("testType", "testNamespace", "string", longString).get();
+      mds.setJsonArrayProperty("testType", "testNamespace", "array", jsonArray).get();
+      mds.setStringProperty("testType", "testNamespace", "short", "short").get();
+
+      var string = mds.getProperty("testType", "testNamespace", "string").get();
+      assertInstanceOf(StoredDataValue.class, string);
+      assertEquals(DataType.STRING, string.getDataType());
+      assertEquals(longString, string.asString());
+
+      var array = mds.getProperty("testType", "testNamespace", "array").get();
+      assertInstanceOf(StoredDataValue.class, array);
+      assertEquals(jsonArray, array.asJsonArray());
+
+      var shortString = mds.getProperty("testType", "testNamespace", "short").get();
+      assertFalse(shortString instanceof StoredDataValue);
+      assertEquals("short", shortString.asString());
+
+      // Replaced values are read from their new position
+      mds.setStringProperty("testType", "testNamespace", "string", longString + "y").get();
+      assertEquals(
+          longString + "y",
+          mds.getProperty("testType", "testNamespace", "string").get().asString());
+
+      // Stored values are still converted to the type of the existing value
+      mds.setLongProperty("testType", "testNamespace", "long", 1).get();
+      var converted =
+          mds.setStringProperty("testType", "testNamespace", "long", "0".repeat(300) + "2").get();
+      assertEquals(DataType.LONG, converted.getDataType());
+      assertEquals(2, converted.asLong());
+    }
+  }
 }
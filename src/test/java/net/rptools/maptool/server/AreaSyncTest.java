@@ -0,0 +1,108 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.server.proto.AreaDeltaMsg;
+import org.junit.jupiter.api.Test;
+
+public class AreaSyncTest {
+
+  private static final Zone.TopologyType WALL = Zone.TopologyType.WALL_VBL;
+
+  @Test
+  public void apply_topologyDelta() {
+    var zone = new Zone();
+    zone.addTopology(new Area(new Rectangle(0, 0, 10, 10)), WALL);
+    assertEquals(1, zone.getTopologyVersion(WALL));
+
+    var msg =
+        AreaDeltaMsg.newBuilder()
+            .setTarget(AreaSync.topologyTarget(WALL))
+            .setBaseVersion(1)
+            .setAdded(Mapper.map(new Area(new Rectangle(20, 0, 10, 10))))
+            .setRemoved(Mapper.map(new Area(new Rectangle(0, 0, 5, 10))))
+            .build();
+
+    assertTrue(AreaSync.apply(zone, msg));
+    assertEquals(2, zone.getTopologyVersion(WALL));
+    var expected = new Area(new Rectangle(5, 0, 5, 10));
+    expected.add(new Area(new Rectangle(20, 0, 10, 10)));
+    assertTrue(expected.equals(zone.getTopology(WALL)));
+    assertEquals(0, zone.getTopologyVersion(Zone.TopologyType.MBL));
+  }
+
+  @Test
+  public void apply_staleTopologyDelta() {
+    var zone = new Zone();
+    zone.addTopology(new Area(new Rectangle(0, 0, 10, 10)), WALL);
+    zone.addTopology(new Area(new Rectangle(20, 0, 10, 10)), WALL);
+
+    var msg =
+        AreaDeltaMsg.newBuilder()
+            .setTarget(AreaSync.topologyTarget(WALL))
+            .setBaseVersion(1)
+            .setAdded(Mapper.map(new Area(new Rectangle(40, 0, 10, 10))))
+            .build();
+
+    assertFalse(AreaSync.apply(zone, msg));
+    assertEquals(3, zone.getTopologyVersion(WALL));
+    assertTrue(zone.getTopology(WALL).contains(45, 5));
+  }
+
+  @Test
+  public void createSync_replacesTopologyAndVersion() {
+    var server = new Zone();
+    server.addTopology(new Area(new Rectangle(0, 0, 10, 10)), WALL);
+    server.addTopology(new Area(new Rectangle(20, 0, 10, 10)), WALL);
+    var client = new Zone();
+    client.addTopology(new Area(new Rectangle(100, 100, 10, 10)), WALL);
+
+    AreaSync.apply(client, AreaSync.createSync(server, AreaSync.topologyTarget(WALL)));
+
+    assertEquals(2, client.getTopologyVersion(WALL));
+    assertTrue(server.getTopology(WALL).equals(client.getTopology(WALL)));
+  }
+
+  @Test
+  public void apply_exposedAreaDelta() {
+    var zone = new Zone();
+    var exposedAreaGUID = new GUID();
+    var target = AreaSync.exposedAreaTarget(exposedAreaGUID);
+    assertEquals(0, AreaSync.getVersion(zone, target));
+
+    var msg =
+        AreaDeltaMsg.newBuilder()
+            .setTarget(target)
+            .setBaseVersion(0)
+            .setAdded(Mapper.map(new Area(new Rectangle(0, 0, 10, 10))))
+            .build();
+    assertTrue(AreaSync.apply(zone, msg));
+    // Exposing the same area again leaves the exposed area as it is.
+    assertFalse(AreaSync.apply(zone, msg));
+
+    assertEquals(2, AreaSync.getVersion(zone, target));
+    assertTrue(
+        new Area(new Rectangle(0, 0, 10, 10))
+            .equals(zone.getExposedAreaMetaData(exposedAreaGUID).getExposedAreaHistory()));
+  }
+}
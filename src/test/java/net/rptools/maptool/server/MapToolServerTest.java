@@ -0,0 +1,86 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.awt.EventQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import net.rptools.maptool.model.Campaign;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.player.ServerSidePlayerDatabase;
+import net.rptools.maptool.server.proto.Message;
+import net.rptools.maptool.server.proto.RemoveTokenMsg;
+import net.rptools.maptool.server.proto.SetCampaignMsg;
+import org.junit.jupiter.api.Test;
+
+public class MapToolServerTest {
+
+  @Test
+  public void createSetCampaignMsg_waitsForForwardedChanges() throws Exception {
+    var zone = new Zone();
+    zone.putToken(new Token());
+    var campaign = new Campaign();
+    campaign.putZone(zone);
+    var server =
+        new MapToolServer(
+            "test",
+            campaign,
+            null,
+            false,
+            new ServerPolicy(),
+            mock(ServerSidePlayerDatabase.class));
+    var serverZone = server.getCampaign().getZones().getFirst();
+    var token = serverZone.getAllTokens().getFirst();
+
+    // Hold up the EDT so the change is forwarded to the clients before the server applies it.
+    var release = new CountDownLatch(1);
+    EventQueue.invokeLater(
+        () -> {
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    var remove =
+        RemoveTokenMsg.newBuilder()
+            .setZoneGuid(serverZone.getId().toString())
+            .setTokenGuid(token.getId().toString());
+    new ServerMessageHandler(server)
+        .handleMessage(
+            "client", Message.newBuilder().setRemoveTokenMsg(remove).build().toByteArray());
+
+    var joined = server.createSetCampaignMsg(null);
+    assertFalse(joined.isDone());
+    release.countDown();
+    SetCampaignMsg msg = joined.get(10, TimeUnit.SECONDS);
+
+    assertEquals(1L, msg.getZoneVersionsMap().get(serverZone.getId().toString()));
+    var zoneDto =
+        msg.getCampaign().getZonesList().stream()
+            .filter(z -> z.getId().equals(serverZone.getId().toString()))
+            .findFirst()
+            .orElseThrow();
+    assertTrue(
+        zoneDto.getTokensList().stream()
+            .noneMatch(t -> t.getId().equals(token.getId().toString())));
+  }
+}
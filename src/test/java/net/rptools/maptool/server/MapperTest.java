@@ -0,0 +1,184 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import net.rptools.maptool.server.proto.drawing.AreaDto;
+import net.rptools.maptool.server.proto.drawing.CloseSegment;
+import net.rptools.maptool.server.proto.drawing.DoublePointDto;
+import net.rptools.maptool.server.proto.drawing.LineToSegment;
+import net.rptools.maptool.server.proto.drawing.MoveToSegment;
+import net.rptools.maptool.server.proto.drawing.SegmentDto;
+import org.junit.jupiter.api.Test;
+
+public class MapperTest {
+
+  @Test
+  public void mapArea_integerCoordinatesArePackedExactly() {
+    var area = new Area(new Rectangle(100, 200, 50, 50));
+    area.add(new Area(new Rectangle(-3000, 40, 10, 7000)));
+
+    AreaDto dto = Mapper.map(area);
+
+    assertTrue(dto.hasPacked());
+    assertEquals(0, dto.getSegmentsCount());
+    assertEquals(1, dto.getPacked().getScale());
+    assertEquals(0, dto.getPacked().getRawCoordinatesCount());
+    assertTrue(area.equals(Mapper.map(dto)));
+  }
+
+  @Test
+  public void mapArea_fractionalCoordinatesArePackedExactly() {
+    var area = new Area(new Rectangle2D.Double(0.5, 0.25, 10.125, 3));
+
+    AreaDto dto = Mapper.map(area);
+
+    assertEquals(8, dto.getPacked().getScale());
+    assertTrue(area.equals(Mapper.map(dto)));
+  }
+
+  @Test
+  public void mapArea_curvesFallBackToRawCoordinates() {
+    var area = new Area(new Ellipse2D.Double(10, 10, 33.3, 20));
+
+    AreaDto dto = Mapper.map(area);
+
+    assertEquals(0, dto.getPacked().getScale());
+    assertEquals(0, dto.getPacked().getCoordinatesCount());
+    assertTrue(area.equals(Mapper.map(dto)));
+  }
+
+  @Test
+  public void mapArea_quantised() {
+    var area = new Area(new Ellipse2D.Double(10, 10, 33.3, 20));
+    area.transform(AffineTransform.getRotateInstance(0.3));
+
+    AreaDto dto = Mapper.map(area, 256);
+
+    assertEquals(256, dto.getPacked().getScale());
+    assertEquals(0, dto.getPacked().getRawCoordinatesCount());
+    Area mapped = Mapper.map(dto);
+    Rectangle2D expected = area.getBounds2D();
+    Rectangle2D actual = mapped.getBounds2D();
+    assertEquals(expected.getMinX(), actual.getMinX(), 1.0 / 256);
+    assertEquals(expected.getMinY(), actual.getMinY(), 1.0 / 256);
+    assertEquals(expected.getMaxX(), actual.getMaxX(), 1.0 / 256);
+    assertEquals(expected.getMaxY(), actual.getMaxY(), 1.0 / 256);
+  }
+
+  @Test
+  public void mapArea_packedIsSmallerThanNested() {
+    var area = new Area();
+    for (int i = 0; i < 100; i++) {
+      area.add(new Area(new Rectangle(i * 100, i * 50, 60, 60)));
+    }
+
+    AreaDto packed = Mapper.map(area);
+    AreaDto nested = nested(area);
+
+    assertTrue(area.equals(Mapper.map(nested)));
+    assertTrue(packed.getSerializedSize() * 3 < nested.getSerializedSize());
+  }
+
+  @Test
+  public void mapAreaDto_readsNestedSegments() {
+    var point = DoublePointDto.newBuilder();
+    var dto =
+        AreaDto.newBuilder()
+            .setWinding(AreaDto.WindingRule.NON_ZERO)
+            .addSegments(
+                SegmentDto.newBuilder()
+                    .setMoveTo(MoveToSegment.newBuilder().setPoint0(point.setX(0).setY(0))))
+            .addSegments(
+                SegmentDto.newBuilder()
+                    .setLineTo(LineToSegment.newBuilder().setPoint0(point.setX(10).setY(0))))
+            .addSegments(
+                SegmentDto.newBuilder()
+                    .setLineTo(LineToSegment.newBuilder().setPoint0(point.setX(10).setY(5))))
+            .addSegments(SegmentDto.newBuilder().setClose(CloseSegment.newBuilder()))
+            .build();
+
+    Area area = Mapper.map(dto);
+
+    assertFalse(area.isEmpty());
+    assertEquals(new Rectangle(0, 0, 10, 5), area.getBounds());
+  }
+
+  @Test
+  public void mapAreaDto_rejectsMalformedPackedPaths() {
+    AreaDto dto = Mapper.map(new Area(new Rectangle(0, 0, 10, 10)));
+    var packed = dto.getPacked();
+
+    var missingCoordinates = packed.toBuilder().clearCoordinates().addCoordinates(1);
+    var extraCoordinates = packed.toBuilder().addCoordinates(1);
+    var wrongCoordinates = packed.toBuilder().setScale(0);
+    var unknownType = packed.toBuilder().setSegmentTypes(ByteString.copyFrom(new byte[] {0, 7}));
+    var noMove =
+        packed.toBuilder()
+            .setSegmentTypes(ByteString.copyFrom(new byte[] {PathIterator.SEG_LINETO}))
+            .clearCoordinates()
+            .addCoordinates(1)
+            .addCoordinates(1);
+    for (var malformed :
+        List.of(missingCoordinates, extraCoordinates, wrongCoordinates, unknownType, noMove)) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> Mapper.map(dto.toBuilder().setPacked(malformed).build()));
+    }
+  }
+
+  @Test
+  public void mapArea_null() {
+    assertNull(Mapper.map((Area) null));
+  }
+
+  /** Builds the nested form of the area, as written by earlier versions. */
+  private static AreaDto nested(Area area) {
+    var builder = AreaDto.newBuilder();
+    var it = area.getPathIterator(null);
+    builder.setWinding(AreaDto.WindingRule.forNumber(it.getWindingRule()));
+    double[] coords = new double[6];
+    for (; !it.isDone(); it.next()) {
+      var point = DoublePointDto.newBuilder();
+      switch (it.currentSegment(coords)) {
+        case PathIterator.SEG_MOVETO -> builder.addSegments(
+            SegmentDto.newBuilder()
+                .setMoveTo(
+                    MoveToSegment.newBuilder().setPoint0(point.setX(coords[0]).setY(coords[1]))));
+        case PathIterator.SEG_LINETO -> builder.addSegments(
+            SegmentDto.newBuilder()
+                .setLineTo(
+                    LineToSegment.newBuilder().setPoint0(point.setX(coords[0]).setY(coords[1]))));
+        case PathIterator.SEG_CLOSE -> builder.addSegments(
+            SegmentDto.newBuilder().setClose(CloseSegment.newBuilder()));
+        default -> throw new IllegalArgumentException("only polygons are expected");
+      }
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import net.rptools.maptool.model.Campaign;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.server.proto.Message;
+import net.rptools.maptool.server.proto.TokenPropertyValueDto;
+import net.rptools.maptool.server.proto.TokenUpdateBatchMsg;
+import net.rptools.maptool.server.proto.TokenUpdateDto;
+import net.rptools.maptool.server.proto.UpdateTokenPropertyMsg;
+import org.junit.jupiter.api.Test;
+
+public class ServerMessageHandlerTest {
+
+  @Test
+  public void applyTokenUpdates_skipsMissingTokens() {
+    var zone = new Zone();
+    var token = new Token();
+    zone.putToken(token);
+    var campaign = new Campaign();
+    campaign.putZone(zone);
+    var server = mock(MapToolServer.class);
+    when(server.getCampaign()).thenReturn(campaign);
+
+    var batch =
+        TokenUpdateBatchMsg.newBuilder()
+            .addMessages(setPropertyType(zone.getId(), new GUID(), "Missing"))
+            .addMessages(setPropertyType(new GUID(), token.getId(), "Missing"))
+            .addMessages(setPropertyType(zone.getId(), token.getId(), "Found"))
+            .build();
+    new ServerMessageHandler(server).applyTokenUpdates("client", batch);
+
+    assertEquals("Found", token.getPropertyType());
+  }
+
+  private static Message setPropertyType(GUID zoneId, GUID tokenId, String type) {
+    var msg =
+        UpdateTokenPropertyMsg.newBuilder()
+            .setZoneGuid(zoneId.toString())
+            .setTokenGuid(tokenId.toString())
+            .setProperty(TokenUpdateDto.setPropertyType)
+            .addValues(TokenPropertyValueDto.newBuilder().setStringValue(type));
+    return Message.newBuilder().setUpdateTokenPropertyMsg(msg).build();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.EventQueue;
+import java.util.List;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.server.proto.Message;
+import net.rptools.maptool.server.proto.RenameZoneMsg;
+import net.rptools.maptool.server.proto.ZoneDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ZoneDtoCacheTest {
+
+  private ZoneVersions zoneVersions;
+  private ZoneDtoCache cache;
+  private Zone zone;
+
+  @BeforeEach
+  void setUp() {
+    zoneVersions = new ZoneVersions();
+    cache = new ZoneDtoCache(zoneVersions);
+    zone = new Zone();
+  }
+
+  @Test
+  public void get_reusesDtoOfUnchangedZone() {
+    ZoneDto dto = cache.get(zone);
+
+    assertEquals(zone.getId().toString(), dto.getId());
+    assertSame(dto, cache.get(zone));
+  }
+
+  @Test
+  public void get_convertsZoneAgainAfterNewVersion() {
+    ZoneDto dto = cache.get(zone);
+
+    zoneVersions.stamp(
+        Message.newBuilder()
+            .setRenameZoneMsg(
+                RenameZoneMsg.newBuilder().setZoneGuid(zone.getId().toString()).setName("a"))
+            .build());
+
+    assertNotSame(dto, cache.get(zone));
+  }
+
+  @Test
+  public void get_convertsZoneAgainAfterReportedChange() throws Exception {
+    ZoneDto dto = cache.get(zone);
+
+    cache.zonesChanged(List.of(zone.getId()));
+    ZoneDto changed = cache.get(zone);
+    assertNotSame(dto, changed);
+    assertSame(changed, cache.get(zone));
+
+    // The change is reported again once the EDT has applied it.
+    EventQueue.invokeAndWait(() -> {});
+    assertNotSame(changed, cache.get(zone));
+  }
+
+  @Test
+  public void clear_dropsAllDtos() {
+    ZoneDto dto = cache.get(zone);
+
+    cache.clear();
+
+    assertNotSame(dto, cache.get(zone));
+  }
+}
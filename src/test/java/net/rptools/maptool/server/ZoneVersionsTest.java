@@ -0,0 +1,134 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.server.proto.EnforceZoneMsg;
+import net.rptools.maptool.server.proto.Message;
+import net.rptools.maptool.server.proto.MovePointerMsg;
+import net.rptools.maptool.server.proto.RenameZoneMsg;
+import net.rptools.maptool.server.proto.TokenUpdateBatchMsg;
+import org.junit.jupiter.api.Test;
+
+public class ZoneVersionsTest {
+
+  private static Message rename(GUID zoneId) {
+    return Message.newBuilder()
+        .setRenameZoneMsg(RenameZoneMsg.newBuilder().setZoneGuid(zoneId.toString()).setName("a"))
+        .build();
+  }
+
+  @Test
+  public void changedZones_readsZoneGuid() {
+    var zoneId = new GUID();
+
+    assertEquals(Set.of(zoneId), ZoneVersions.changedZones(rename(zoneId)));
+  }
+
+  @Test
+  public void changedZones_ignoresUnversionedMessages() {
+    var enforce =
+        Message.newBuilder()
+            .setEnforceZoneMsg(EnforceZoneMsg.newBuilder().setZoneGuid(new GUID().toString()))
+            .build();
+    var pointer = Message.newBuilder().setMovePointerMsg(MovePointerMsg.newBuilder()).build();
+
+    assertTrue(ZoneVersions.changedZones(enforce).isEmpty());
+    assertTrue(ZoneVersions.changedZones(pointer).isEmpty());
+  }
+
+  @Test
+  public void changedZones_collectsBatchedMessages() {
+    var zone1 = new GUID();
+    var zone2 = new GUID();
+    var batch =
+        Message.newBuilder()
+            .setTokenUpdateBatchMsg(
+                TokenUpdateBatchMsg.newBuilder()
+                    .addAllMessages(List.of(rename(zone1), rename(zone2), rename(zone1))))
+            .build();
+
+    assertEquals(Set.of(zone1, zone2), ZoneVersions.changedZones(batch));
+  }
+
+  @Test
+  public void stamp_countsChanges() {
+    var versions = new ZoneVersions("epoch");
+    var zoneId = new GUID();
+
+    versions.stamp(rename(zoneId));
+    var stamped = versions.stamp(rename(zoneId));
+
+    assertEquals(Map.of(zoneId.toString(), 2L), stamped.getZoneVersionsMap());
+    assertEquals(2, versions.get(zoneId));
+    assertEquals(0, versions.get(new GUID()));
+
+    var pointer = Message.newBuilder().setMovePointerMsg(MovePointerMsg.newBuilder()).build();
+    assertSame(pointer, versions.stamp(pointer));
+  }
+
+  @Test
+  public void update_keepsUnknownZones() {
+    var versions = new ZoneVersions("epoch");
+    var zone1 = new GUID();
+    var zone2 = new GUID();
+
+    versions.markUnknown(List.of(zone1));
+    versions.update(Map.of(zone1.toString(), 3L, zone2.toString(), 1L));
+
+    assertEquals(ZoneVersions.UNKNOWN, versions.get(zone1));
+    assertEquals(1, versions.get(zone2));
+
+    versions.set(zone1, 5);
+    assertEquals(5, versions.get(zone1));
+  }
+
+  @Test
+  public void update_waitsForMissingVersions() {
+    var versions = new ZoneVersions("epoch");
+    var zoneId = new GUID();
+
+    versions.update(Map.of(zoneId.toString(), 1L));
+    versions.update(Map.of(zoneId.toString(), 3L));
+    versions.update(Map.of(zoneId.toString(), 4L));
+    assertEquals(1, versions.get(zoneId));
+
+    versions.update(Map.of(zoneId.toString(), 2L));
+    assertEquals(4, versions.get(zoneId));
+
+    versions.update(Map.of(zoneId.toString(), 6L));
+    versions.set(zoneId, 5);
+    assertEquals(6, versions.get(zoneId));
+  }
+
+  @Test
+  public void reset_startsNewEpoch() {
+    var versions = new ZoneVersions("epoch");
+    var zoneId = new GUID();
+    versions.stamp(rename(zoneId));
+
+    versions.reset("other", Map.of(zoneId.toString(), 7L));
+
+    assertEquals("other", versions.getEpoch());
+    assertEquals(7, versions.get(zoneId));
+  }
+}